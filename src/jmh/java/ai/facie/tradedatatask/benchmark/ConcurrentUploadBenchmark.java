@@ -0,0 +1,110 @@
+package ai.facie.tradedatatask.benchmark;
+
+import ai.facie.tradedatatask.config.EnrichmentConfig;
+import ai.facie.tradedatatask.config.EnrichmentProperties;
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import ai.facie.tradedatatask.config.ProductWarmUpProperties;
+import ai.facie.tradedatatask.core.cache.ProductNameCache;
+import ai.facie.tradedatatask.core.cache.TradeResultCache;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.parser.PriceScales;
+import ai.facie.tradedatatask.core.service.impl.LocalProductSnapshots;
+import ai.facie.tradedatatask.core.service.impl.ProductServiceImpl;
+import ai.facie.tradedatatask.core.service.impl.RedisProductBulkLoader;
+import ai.facie.tradedatatask.core.service.impl.RedisProductSnapshots;
+import ai.facie.tradedatatask.core.service.impl.SharedProductLookups;
+import ai.facie.tradedatatask.core.service.impl.TradeServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reactive and the virtual-thread enrichment mode of {@link TradeServiceImpl} under many
+ * simultaneous uploads. Every JMH thread stands for one client uploading trades over and over; the
+ * sample-time mode reports the p99 latency of an upload, the throughput mode the uploads per second.
+ *
+ * <p>Product lookups hit an in-memory Redis with a simulated round trip and no near cache, so the modes differ
+ * in how they wait for Redis rather than in parsing. With {@code sharedLookups} the lookups of all uploads are
+ * merged into shared multi-gets, see {@link SharedProductLookups}. The virtual-thread mode needs a Java 21 runtime:
+ * "mvn -Pjmh,java21 test-compile exec:exec -Djmh.args=ConcurrentUploadBenchmark".</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(128)
+@Fork(1)
+public class ConcurrentUploadBenchmark {
+	private static final int PRODUCTS = 100_000;
+
+	@Param({"10000"})
+	private int rows;
+
+	@Param({"false", "true"})
+	private boolean virtualThreads;
+
+	@Param({"false", "true"})
+	private boolean sharedLookups;
+
+	@Param({"1"})
+	private int lookupLatencyMillis;
+
+	private byte[] trades;
+	private Scheduler scheduler;
+	private TradeServiceImpl tradeService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final CsvDataGenerator generator = new CsvDataGenerator(PRODUCTS, 1.0, 42);
+		final InMemoryRedis redis = new InMemoryRedis(Duration.ofMillis(lookupLatencyMillis));
+		final EnrichmentMetrics metrics = new EnrichmentMetrics(new SimpleMeterRegistry());
+		final ProductStoreProperties storeProperties = new ProductStoreProperties();
+		final RedisProductSnapshots snapshots = new RedisProductSnapshots(redis.reactiveRedisTemplate(), new ProductLoadProperties(),
+			storeProperties);
+		final ProductServiceImpl productService = new ProductServiceImpl(redis.redisTemplate(), redis.reactiveRedisTemplate(),
+			new ProductNameCache(0, Duration.ofMinutes(10)), metrics,
+			new RedisProductBulkLoader(redis.reactiveRedisTemplate(), new ProductLoadProperties(), metrics),
+			snapshots, storeProperties, new LocalProductSnapshots(redis.reactiveRedisTemplate(), snapshots, new ProductWarmUpProperties()));
+		productService.loadProductsFromStream(new ByteArrayInputStream(generator.products()));
+
+		final EnrichmentProperties properties = new EnrichmentProperties();
+		properties.setVirtualThreads(virtualThreads);
+		properties.setSharedLookups(sharedLookups);
+		scheduler = new EnrichmentConfig().tradeEnrichmentScheduler(properties);
+		tradeService = new TradeServiceImpl(productService, properties, scheduler, metrics, PriceScales.NONE, new TradeResultCache(null, 0),
+			new SharedProductLookups(properties, metrics));
+		trades = generator.trades(rows, 0.05);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		scheduler.dispose();
+	}
+
+	@Benchmark
+	public long upload() {
+		return tradeService.enrichTradesStream(new ByteArrayInputStream(trades))
+			.map(String::length)
+			.reduce(0L, Long::sum)
+			.block();
+	}
+}
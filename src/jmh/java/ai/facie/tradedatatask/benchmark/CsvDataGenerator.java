@@ -0,0 +1,101 @@
+package ai.facie.tradedatatask.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic product and trade CSV files for benchmarks.
+ *
+ * <p>Trade product IDs follow a Zipf distribution over the product range: a skew of 0 picks every product
+ * equally often, while a skew around 1 makes a few thousand hot products account for most trades, as in
+ * production trade files. A fixed seed keeps runs comparable.</p>
+ */
+public final class CsvDataGenerator {
+	private static final String PRODUCT_HEADER = "productId,productName\n";
+	private static final String TRADE_HEADER = "date,productId,currency,price\n";
+	private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "CHF"};
+
+	private final SplittableRandom random;
+	private final int productCount;
+	private final double[] cumulativeWeights;
+
+	/**
+	 * Creates a generator.
+	 *
+	 * @param productCount Number of distinct products; product IDs are {@code 1..productCount}.
+	 * @param skew Zipf exponent for trade product IDs; 0 means uniform.
+	 * @param seed Random seed.
+	 */
+	public CsvDataGenerator(final int productCount, final double skew, final long seed) {
+		this.random = new SplittableRandom(seed);
+		this.productCount = productCount;
+		this.cumulativeWeights = skew == 0 ? null : zipfCumulativeWeights(productCount, skew);
+	}
+
+	/**
+	 * Generates a product CSV with a header line.
+	 *
+	 * @return The CSV as UTF-8 bytes.
+	 */
+	public byte[] products() {
+		final StringBuilder csv = new StringBuilder(productCount * 24).append(PRODUCT_HEADER);
+		for (int productId = 1; productId <= productCount; productId++) {
+			csv.append(productId).append(",Product ").append(productId).append('\n');
+		}
+		return csv.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Generates a trade CSV with a header line.
+	 *
+	 * @param rows Number of trade rows.
+	 * @param unknownProductRatio Fraction of rows referencing product IDs that are not in the product file.
+	 * @return The CSV as UTF-8 bytes.
+	 */
+	public byte[] trades(final int rows, final double unknownProductRatio) {
+		final StringBuilder csv = new StringBuilder(rows * 32).append(TRADE_HEADER);
+		for (int i = 0; i < rows; i++) {
+			final long productId = random.nextDouble() < unknownProductRatio ? productCount + 1L + random.nextInt(productCount) : nextProductId();
+			csv.append(2023 + random.nextInt(2))
+				.append(twoDigits(1 + random.nextInt(12)))
+				.append(twoDigits(1 + random.nextInt(28)))
+				.append(',').append(productId)
+				.append(',').append(CURRENCIES[random.nextInt(CURRENCIES.length)])
+				.append(',').append(random.nextInt(10_000)).append('.').append(twoDigits(random.nextInt(100)))
+				.append('\n');
+		}
+		return csv.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Draws a product ID according to the configured skew.
+	 *
+	 * @return A product ID in {@code 1..productCount}.
+	 */
+	public long nextProductId() {
+		if (cumulativeWeights == null) {
+			return 1 + random.nextInt(productCount);
+		}
+		final int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble());
+
+		return 1 + (index >= 0 ? index : Math.min(-index - 1, productCount - 1));
+	}
+
+	private static double[] zipfCumulativeWeights(final int productCount, final double skew) {
+		final double[] weights = new double[productCount];
+		double total = 0;
+		for (int rank = 0; rank < productCount; rank++) {
+			total += 1 / Math.pow(rank + 1, skew);
+			weights[rank] = total;
+		}
+		for (int rank = 0; rank < productCount; rank++) {
+			weights[rank] /= total;
+		}
+		return weights;
+	}
+
+	private static String twoDigits(final int value) {
+		return value < 10 ? "0" + value : Integer.toString(value);
+	}
+}
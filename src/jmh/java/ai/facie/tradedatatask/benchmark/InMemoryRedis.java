@@ -0,0 +1,207 @@
+package ai.facie.tradedatatask.benchmark;
+
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * In-memory stand-in for Redis so benchmarks measure our code rather than the network.
+ *
+ * <p>Only the operations used by the product services are supported: value {@code get}, {@code set},
+ * {@code getAndSet}, {@code increment}, the snapshot publish and keep-alive scripts, {@code multiGet} and {@code multiSet}, hash {@code putAll} and
+ * {@code multiGet}, and {@code expire}/{@code unlink} of whole keys. Any other call fails fast. Expiring a
+ * key deletes it at once, so repeated loads do not accumulate retired snapshots.</p>
+ *
+ * <p>A lookup latency can be configured to stand in for the network round trip of {@code multiGet}: blocking
+ * calls sleep for it, reactive calls complete after it without holding a thread.</p>
+ */
+public final class InMemoryRedis {
+
+	private final Map<String, String> values = new ConcurrentHashMap<>();
+	private final Map<String, Map<String, String>> hashes = new ConcurrentHashMap<>();
+	private final Duration lookupLatency;
+
+	public InMemoryRedis() {
+		this(Duration.ZERO);
+	}
+
+	public InMemoryRedis(final Duration lookupLatency) {
+		this.lookupLatency = lookupLatency;
+	}
+
+	public RedisTemplate<String, String> redisTemplate() {
+		final ValueOperations<String, String> operations = proxy(ValueOperations.class,
+			(method, args) -> blockingLookup(method, () -> valueOperation(method, args)));
+		final HashOperations<String, ?, ?> hashOperations = proxy(HashOperations.class,
+			(method, args) -> blockingLookup(method, () -> hashOperation(method, args)));
+
+		return new RedisTemplate<>() {
+			@Override
+			public ValueOperations<String, String> opsForValue() {
+				return operations;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public <HK, HV> HashOperations<String, HK, HV> opsForHash() {
+				return (HashOperations<String, HK, HV>) hashOperations;
+			}
+		};
+	}
+
+	public ReactiveRedisTemplate<String, String> reactiveRedisTemplate() {
+		final ReactiveValueOperations<String, String> operations = proxy(ReactiveValueOperations.class,
+			(method, args) -> reactiveLookup(method, Mono.fromSupplier(() -> valueOperation(method, args))));
+		final ReactiveHashOperations<String, ?, ?> hashOperations = proxy(ReactiveHashOperations.class,
+			(method, args) -> reactiveLookup(method, Mono.fromSupplier(() -> hashOperation(method, args))));
+		final ReactiveRedisConnectionFactory connectionFactory = proxy(ReactiveRedisConnectionFactory.class, (method, args) -> {
+			throw new UnsupportedOperationException(method);
+		});
+
+		return new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string()) {
+			@Override
+			public ReactiveValueOperations<String, String> opsForValue() {
+				return operations;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public <HK, HV> ReactiveHashOperations<String, HK, HV> opsForHash() {
+				return (ReactiveHashOperations<String, HK, HV>) hashOperations;
+			}
+
+			/**
+			 * Runs the snapshot publish script: replaces the pointer in the first key unless the version in the
+			 * second key is at least as new. The snapshot keep-alive script, told apart by its numeric result,
+			 * only reports whether its key exists, since keys never expire here but are deleted at once.
+			 */
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T> Flux<T> execute(final RedisScript<T> script, final List<String> keys, final List<?> args,
+									   final RedisElementWriter<?> argsWriter, final RedisElementReader<T> resultReader) {
+				if (script.getResultType() == Long.class) {
+					final String key = keys.get(0);
+					return Flux.just((T) Long.valueOf(values.containsKey(key) || hashes.containsKey(key) ? 1 : 0));
+				}
+				final String pointer = StandardCharsets.UTF_8.decode(((ByteBuffer) args.get(0)).duplicate()).toString();
+				final long version = Long.parseLong(StandardCharsets.UTF_8.decode(((ByteBuffer) args.get(1)).duplicate()).toString());
+				synchronized (values) {
+					final String current = values.get(keys.get(1));
+					if (current != null && Long.parseLong(current) >= version) {
+						return Flux.empty();
+					}
+					final String previous = values.put(keys.get(0), pointer);
+					values.put(keys.get(1), Long.toString(version));
+					return Flux.just((T) StandardCharsets.UTF_8.encode(previous == null ? "" : previous));
+				}
+			}
+
+			@Override
+			public Mono<Boolean> expire(final String key, final Duration timeout) {
+				return Mono.just(InMemoryRedis.this.delete(key) > 0);
+			}
+
+			@Override
+			public Mono<Long> unlink(final Publisher<String> keys) {
+				return Flux.from(keys).map(key -> (long) InMemoryRedis.this.delete(key)).reduce(0L, Long::sum);
+			}
+		};
+	}
+
+	public int size() {
+		return values.size() + hashes.values().stream().mapToInt(Map::size).sum();
+	}
+
+	private Object blockingLookup(final String method, final Supplier<Object> operation) {
+		if (isDelayed(method)) {
+			LockSupport.parkNanos(lookupLatency.toNanos());
+		}
+		return operation.get();
+	}
+
+	private Mono<Object> reactiveLookup(final String method, final Mono<Object> operation) {
+		return isDelayed(method) ? operation.delaySubscription(lookupLatency) : operation;
+	}
+
+	private boolean isDelayed(final String method) {
+		return !lookupLatency.isZero() && "multiGet".equals(method);
+	}
+
+	private Object valueOperation(final String method, final Object[] args) {
+		return switch (method) {
+			case "get" -> values.get((String) args[0]);
+			case "set" -> values.put((String) args[0], (String) args[1]) != null;
+			case "getAndSet" -> values.put((String) args[0], (String) args[1]);
+			case "increment" -> Long.parseLong(values.merge((String) args[0], "1",
+				(current, one) -> Long.toString(Long.parseLong(current) + 1)));
+			case "multiGet" -> multiGet(values, (Collection<?>) args[0]);
+			case "multiSet" -> putAll(values, (Map<?, ?>) args[0]);
+			default -> throw new UnsupportedOperationException(method);
+		};
+	}
+
+	private Object hashOperation(final String method, final Object[] args) {
+		final String key = (String) args[0];
+
+		return switch (method) {
+			case "multiGet" -> multiGet(hashes.getOrDefault(key, Map.of()), (Collection<?>) args[1]);
+			case "putAll" -> putAll(hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>()), (Map<?, ?>) args[1]);
+			default -> throw new UnsupportedOperationException(method);
+		};
+	}
+
+	private int delete(final String key) {
+		return (values.remove(key) != null ? 1 : 0) + (hashes.remove(key) != null ? 1 : 0);
+	}
+
+	private static List<String> multiGet(final Map<String, String> source, final Collection<?> keys) {
+		final List<String> result = new ArrayList<>(keys.size());
+		for (final Object key : keys) {
+			result.add(source.get((String) key));
+		}
+		return result;
+	}
+
+	private static boolean putAll(final Map<String, String> target, final Map<?, ?> entries) {
+		entries.forEach((key, value) -> target.put((String) key, (String) value));
+
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(final Class<?> type, final Operation operation) {
+		return (T) Proxy.newProxyInstance(InMemoryRedis.class.getClassLoader(), new Class<?>[]{type},
+			(proxy, method, args) -> method.getDeclaringClass() == Object.class
+				? method.invoke(operation, args)
+				: operation.invoke(method.getName(), args));
+	}
+
+	@FunctionalInterface
+	private interface Operation {
+
+		Object invoke(String method, Object[] args);
+	}
+}
@@ -0,0 +1,79 @@
+package ai.facie.tradedatatask.benchmark;
+
+import ai.facie.tradedatatask.config.RedisConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding a batch of products as snapshot hash fields and values with the JDK and the
+ * compact Redis encoding. Each benchmark returns the encoded bytes of the batch, so the payload size per
+ * product is the returned value divided by {@code BATCH_SIZE}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductEncodingBenchmark {
+	private static final int BATCH_SIZE = 1000;
+
+	@Param({"JDK", "COMPACT"})
+	private String encoding;
+
+	private String[] productIds;
+	private String[] productNames;
+	private ByteBuffer[] encodedIds;
+	private ByteBuffer[] encodedNames;
+	private RedisSerializationContext<String, String> context;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = "JDK".equals(encoding) ? RedisConfig.jdkSerializationContext() : RedisConfig.compactSerializationContext();
+		final CsvDataGenerator generator = new CsvDataGenerator(10_000_000, 0, 42);
+		productIds = new String[BATCH_SIZE];
+		productNames = new String[BATCH_SIZE];
+		encodedIds = new ByteBuffer[BATCH_SIZE];
+		encodedNames = new ByteBuffer[BATCH_SIZE];
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			productIds[i] = Long.toString(generator.nextProductId());
+			productNames[i] = "Product " + productIds[i];
+			encodedIds[i] = context.getHashKeySerializationPair().write(productIds[i]);
+			encodedNames[i] = context.getHashValueSerializationPair().write(productNames[i]);
+		}
+	}
+
+	@Benchmark
+	public long encode() {
+		long bytes = 0;
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			bytes += context.getHashKeySerializationPair().write(productIds[i]).remaining();
+			bytes += context.getHashValueSerializationPair().write(productNames[i]).remaining();
+		}
+		return bytes;
+	}
+
+	@Benchmark
+	public long decode() {
+		long chars = 0;
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			chars += context.<String>getHashKeySerializationPair().read(encodedIds[i].duplicate()).length();
+			chars += context.<String>getHashValueSerializationPair().read(encodedNames[i].duplicate()).length();
+		}
+		return chars;
+	}
+}
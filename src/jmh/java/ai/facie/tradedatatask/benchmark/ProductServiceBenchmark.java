@@ -0,0 +1,100 @@
+package ai.facie.tradedatatask.benchmark;
+
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import ai.facie.tradedatatask.config.ProductWarmUpProperties;
+import ai.facie.tradedatatask.core.cache.ProductNameCache;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.service.impl.LocalProductSnapshots;
+import ai.facie.tradedatatask.core.service.impl.ProductServiceImpl;
+import ai.facie.tradedatatask.core.service.impl.RedisProductBulkLoader;
+import ai.facie.tradedatatask.core.service.impl.RedisProductSnapshots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ProductServiceImpl} product loading and batch lookups against an in-memory Redis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+	private static final int LOOKUP_BATCHES = 64;
+	private static final int BATCH_SIZE = 1000;
+
+	@Param({"100000"})
+	private int products;
+
+	@Param({"1.0"})
+	private double skew;
+
+	@Param({"0", "65536"})
+	private int cacheSize;
+
+	@Param({"0", "4096"})
+	private int redisBuckets;
+
+	private byte[] productCsv;
+	private List<List<String>> lookupBatches;
+	private ProductServiceImpl productService;
+	private int nextBatch;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final CsvDataGenerator generator = new CsvDataGenerator(products, skew, 42);
+		final InMemoryRedis redis = new InMemoryRedis();
+		final EnrichmentMetrics metrics = new EnrichmentMetrics(new SimpleMeterRegistry());
+		final ProductStoreProperties storeProperties = new ProductStoreProperties();
+		storeProperties.setRedisBuckets(redisBuckets);
+		final RedisProductSnapshots snapshots = new RedisProductSnapshots(redis.reactiveRedisTemplate(), new ProductLoadProperties(),
+			storeProperties);
+		productService = new ProductServiceImpl(redis.redisTemplate(), redis.reactiveRedisTemplate(),
+			new ProductNameCache(cacheSize, Duration.ofMinutes(10)), metrics,
+			new RedisProductBulkLoader(redis.reactiveRedisTemplate(), new ProductLoadProperties(), metrics),
+			snapshots, storeProperties, new LocalProductSnapshots(redis.reactiveRedisTemplate(), snapshots, new ProductWarmUpProperties()));
+		productCsv = generator.products();
+		productService.loadProductsFromStream(new ByteArrayInputStream(productCsv));
+
+		lookupBatches = new ArrayList<>(LOOKUP_BATCHES);
+		for (int i = 0; i < LOOKUP_BATCHES; i++) {
+			final List<String> batch = new ArrayList<>(BATCH_SIZE);
+			for (int j = 0; j < BATCH_SIZE; j++) {
+				batch.add(Long.toString(generator.nextProductId()));
+			}
+			lookupBatches.add(batch);
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void loadProducts() {
+		productService.loadProductsFromStream(new ByteArrayInputStream(productCsv));
+	}
+
+	@Benchmark
+	public List<String> getProductNamesInBatch() {
+		nextBatch = (nextBatch + 1) % LOOKUP_BATCHES;
+
+		return productService.getProductNamesInBatch(lookupBatches.get(nextBatch));
+	}
+}
@@ -0,0 +1,113 @@
+package ai.facie.tradedatatask.benchmark;
+
+import ai.facie.tradedatatask.core.output.ContentCoding;
+import ai.facie.tradedatatask.core.output.EnrichedBatch;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.output.TradeOutputFormat;
+import ai.facie.tradedatatask.core.output.TradeOutputWriter;
+import ai.facie.tradedatatask.core.parser.ByteChunk;
+import ai.facie.tradedatatask.core.parser.TradeCsvParser;
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding already enriched trades in every output format and compression, and reports the size of
+ * the response body per row ("bytesPerRow"), which is what egress bandwidth pays for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeOutputBenchmark {
+	private static final int PRODUCTS = 100_000;
+	private static final int BATCH_SIZE = 1000;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@Param({"1000000"})
+	private int rows;
+
+	@Param({"CSV", "NDJSON", "ARROW"})
+	private TradeOutputFormat format;
+
+	@Param({"IDENTITY", "GZIP", "ZSTD"})
+	private ContentCoding coding;
+
+	private List<EnrichedBatch> batches;
+	private TradeOutput output;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final byte[] trades = new CsvDataGenerator(PRODUCTS, 1.0, 42).trades(rows, 0);
+		int start = 0;
+		while (trades[start++] != '\n') {
+		}
+		final List<TradeRecord> records = TradeCsvParser.parse(new ByteChunk(trades, start, trades.length - start));
+		batches = new ArrayList<>();
+		for (int from = 0; from < records.size(); from += BATCH_SIZE) {
+			final List<TradeRecord> batch = records.subList(from, Math.min(records.size(), from + BATCH_SIZE));
+			final int[] namePositions = new int[batch.size()];
+			final byte[][] names = new byte[batch.size()][];
+			for (int i = 0; i < batch.size(); i++) {
+				namePositions[i] = i;
+				names[i] = ("Product " + batch.get(i).productId()).getBytes(StandardCharsets.UTF_8);
+			}
+			batches.add(new EnrichedBatch(batch, namePositions, names));
+		}
+		output = new TradeOutput(format, format.mediaTypes().get(0), coding);
+	}
+
+	@Benchmark
+	public long write(final BodySize size) throws IOException {
+		final CountingOutputStream body = new CountingOutputStream();
+		try (TradeOutputWriter writer = new TradeOutputWriter(output, body, BUFFER_SIZE)) {
+			for (final EnrichedBatch batch : batches) {
+				writer.write(batch);
+			}
+			writer.finish();
+		}
+		size.bytesPerRow = (double) body.count / rows;
+
+		return body.count;
+	}
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class BodySize {
+		public double bytesPerRow;
+	}
+
+	private static final class CountingOutputStream extends OutputStream {
+		private long count;
+
+		@Override
+		public void write(final int b) {
+			count++;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			count += len;
+		}
+	}
+}
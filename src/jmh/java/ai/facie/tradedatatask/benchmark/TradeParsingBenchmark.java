@@ -0,0 +1,145 @@
+package ai.facie.tradedatatask.benchmark;
+
+import ai.facie.tradedatatask.config.EnrichmentProperties;
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import ai.facie.tradedatatask.config.ProductWarmUpProperties;
+import ai.facie.tradedatatask.core.cache.ProductNameCache;
+import ai.facie.tradedatatask.core.cache.TradeResultCache;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.parser.ByteChunk;
+import ai.facie.tradedatatask.core.parser.LineChunker;
+import ai.facie.tradedatatask.core.parser.PriceScales;
+import ai.facie.tradedatatask.core.parser.RejectListener;
+import ai.facie.tradedatatask.core.parser.TradeCsvParser;
+import ai.facie.tradedatatask.core.service.impl.LocalProductSnapshots;
+import ai.facie.tradedatatask.core.service.impl.ProductServiceImpl;
+import ai.facie.tradedatatask.core.service.impl.RedisProductBulkLoader;
+import ai.facie.tradedatatask.core.service.impl.RedisProductSnapshots;
+import ai.facie.tradedatatask.core.service.impl.SharedProductLookups;
+import ai.facie.tradedatatask.core.service.impl.TradeServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing alone and the full parse-enrich-format pipeline of {@link TradeServiceImpl}
+ * against an in-memory Redis, both as one string per row and written through the output buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeParsingBenchmark {
+	private static final int PRODUCTS = 100_000;
+	private static final int SLICE_SIZE = 256 * 1024;
+
+	@Param({"1000000"})
+	private int rows;
+
+	@Param({"1.0"})
+	private double skew;
+
+	@Param({"1", "4"})
+	private int parallelism;
+
+	private byte[] trades;
+	private Scheduler scheduler;
+	private TradeServiceImpl tradeService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final CsvDataGenerator generator = new CsvDataGenerator(PRODUCTS, skew, 42);
+		final InMemoryRedis redis = new InMemoryRedis();
+		final EnrichmentMetrics metrics = new EnrichmentMetrics(new SimpleMeterRegistry());
+		final ProductStoreProperties storeProperties = new ProductStoreProperties();
+		final RedisProductSnapshots snapshots = new RedisProductSnapshots(redis.reactiveRedisTemplate(), new ProductLoadProperties(),
+			storeProperties);
+		final ProductServiceImpl productService = new ProductServiceImpl(redis.redisTemplate(), redis.reactiveRedisTemplate(),
+			new ProductNameCache(65_536, Duration.ofMinutes(10)), metrics,
+			new RedisProductBulkLoader(redis.reactiveRedisTemplate(), new ProductLoadProperties(), metrics),
+			snapshots, storeProperties, new LocalProductSnapshots(redis.reactiveRedisTemplate(), snapshots, new ProductWarmUpProperties()));
+		productService.loadProductsFromStream(new ByteArrayInputStream(generator.products()));
+
+		final EnrichmentProperties properties = new EnrichmentProperties();
+		properties.setParallelism(parallelism);
+		scheduler = Schedulers.newBoundedElastic(parallelism, 1024, "benchmark-enrichment");
+		tradeService = new TradeServiceImpl(productService, properties, scheduler, metrics, PriceScales.NONE, new TradeResultCache(null, 0),
+			new SharedProductLookups(properties, metrics));
+		trades = generator.trades(rows, 0.05);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		scheduler.dispose();
+	}
+
+	@Benchmark
+	public long parse() {
+		final LineChunker chunker = new LineChunker(1);
+		long records = 0;
+		for (int offset = 0; offset < trades.length; offset += SLICE_SIZE) {
+			final int length = Math.min(SLICE_SIZE, trades.length - offset);
+			final byte[] slice = new byte[length];
+			System.arraycopy(trades, offset, slice, 0, length);
+			for (final ByteChunk chunk : chunker.feed(slice, length)) {
+				records += TradeCsvParser.parse(chunk).size();
+			}
+		}
+		final ByteChunk last = chunker.finish();
+
+		return last == null ? records : records + TradeCsvParser.parse(last).size();
+	}
+
+	@Benchmark
+	public long enrich() {
+		return tradeService.enrichTradesStream(new ByteArrayInputStream(trades))
+			.map(String::length)
+			.reduce(0L, Long::sum)
+			.block();
+	}
+
+	@Benchmark
+	public long write() throws IOException {
+		final CountingOutputStream output = new CountingOutputStream();
+		tradeService.writeTrades(new ByteArrayInputStream(trades), output, TradeOutput.CSV, RejectListener.NONE);
+
+		return output.count;
+	}
+
+	private static final class CountingOutputStream extends OutputStream {
+		private long count;
+
+		@Override
+		public void write(final int b) {
+			count++;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.benchmark.CsvDataGenerator;
+import ai.facie.tradedatatask.core.parser.ByteChunk;
+import ai.facie.tradedatatask.core.parser.LineChunker;
+import ai.facie.tradedatatask.core.parser.TradeCsvParser;
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the original {@code indexOf}-based join of a batch with product names against the
+ * de-duplicated, position-based join of {@link ProductIdBatch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchJoinBenchmark {
+	private static final int PRODUCTS = 10_000;
+
+	@Param({"1000", "10000", "100000"})
+	private int batchSize;
+
+	private List<TradeRecord> batch;
+	private String[] namesByProductId;
+	private List<String> namesPerTrade;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final byte[] trades = new CsvDataGenerator(PRODUCTS, 1.0, 42).trades(batchSize, 0);
+		final LineChunker chunker = new LineChunker(1);
+		batch = new ArrayList<>(batchSize);
+		for (final ByteChunk chunk : chunker.feed(trades, trades.length)) {
+			batch.addAll(TradeCsvParser.parse(chunk));
+		}
+
+		namesByProductId = new String[PRODUCTS + 1];
+		for (int productId = 1; productId <= PRODUCTS; productId++) {
+			namesByProductId[productId] = "Product " + productId;
+		}
+		namesPerTrade = batch.stream().map(trade -> namesByProductId[(int) trade.productId()]).toList();
+	}
+
+	/**
+	 * The join as originally written: one name per trade, re-associated through {@code batch.indexOf}.
+	 */
+	@Benchmark
+	public Map<Long, String> legacyIndexOfJoin() {
+		return batch.stream()
+			.collect(Collectors.toMap(TradeRecord::productId, trade -> namesPerTrade.get(batch.indexOf(trade)), (a, b) -> a));
+	}
+
+	@Benchmark
+	public String[] distinctPositionJoin() {
+		final ProductIdBatch productIds = ProductIdBatch.of(batch);
+		final List<String> distinctNames = productIds.distinctProductIds().stream()
+			.map(id -> namesByProductId[Integer.parseInt(id)])
+			.toList();
+		final String[] names = new String[batch.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = distinctNames.get(productIds.namePositions()[i]);
+		}
+		return names;
+	}
+}
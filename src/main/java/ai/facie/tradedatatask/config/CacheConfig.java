@@ -0,0 +1,49 @@
+package ai.facie.tradedatatask.config;
+
+import ai.facie.tradedatatask.core.cache.ProductNameCache;
+import ai.facie.tradedatatask.core.cache.TradeResultCache;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@Configuration
+public class CacheConfig {
+	private static final String TRADE_RESULTS_PREFIX = "trade-results-";
+
+	@Bean
+	public ProductNameCache productNameCache(final ProductCacheProperties properties, final EnrichmentMetrics metrics) {
+		final int maximumSize = properties.isEnabled() ? properties.getMaximumSize() : 0;
+		final ProductNameCache cache = new ProductNameCache(maximumSize, properties.getTimeToLive());
+		metrics.registerFunctionCounter("product.cache.hits", cache::hitCount);
+		metrics.registerFunctionCounter("product.cache.misses", cache::missCount);
+		metrics.registerFunctionCounter("product.cache.evictions", cache::evictionCount);
+
+		return cache;
+	}
+
+	/**
+	 * On-disk cache of enriched trade responses, in a new directory of its own that is deleted on shutdown.
+	 */
+	@Bean(destroyMethod = "clear")
+	public TradeResultCache tradeResultCache(final TradeResultCacheProperties properties, final EnrichmentMetrics metrics)
+		throws IOException {
+		final TradeResultCache cache = properties.isEnabled()
+			? new TradeResultCache(createResultDirectory(properties.getDirectory()), properties.getMaximumSize().toBytes())
+			: new TradeResultCache(null, 0);
+		metrics.registerFunctionCounter("trade.result.cache.hits", cache::hitCount);
+		metrics.registerFunctionCounter("trade.result.cache.misses", cache::missCount);
+		metrics.registerFunctionCounter("trade.result.cache.evictions", cache::evictionCount);
+
+		return cache;
+	}
+
+	private static Path createResultDirectory(final Path parent) throws IOException {
+		return parent == null
+			? Files.createTempDirectory(TRADE_RESULTS_PREFIX)
+			: Files.createTempDirectory(Files.createDirectories(parent), TRADE_RESULTS_PREFIX);
+	}
+}
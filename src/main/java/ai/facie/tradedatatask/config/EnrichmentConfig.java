@@ -0,0 +1,41 @@
+package ai.facie.tradedatatask.config;
+
+import ai.facie.tradedatatask.core.parser.PriceScales;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class EnrichmentConfig {
+	private static final int QUEUED_TASKS_PER_THREAD = 1024;
+
+	/**
+	 * Worker pool for parallel trade enrichment. Workers both parse chunks and wait on product lookups,
+	 * so a bounded elastic scheduler capped at the configured parallelism is used rather than the
+	 * non-blocking parallel scheduler.
+	 *
+	 * <p>In virtual-thread mode every task gets its own virtual thread instead, so blocking reads and lookups
+	 * do not occupy a pooled thread; concurrency is then bounded only by the parallelism and the in-flight
+	 * batch limit of each stream. Tasks of one worker still run one after another, as {@code subscribeOn}
+	 * requires.</p>
+	 */
+	@Bean(destroyMethod = "dispose")
+	public Scheduler tradeEnrichmentScheduler(final EnrichmentProperties properties) {
+		if (properties.isVirtualThreads()) {
+			return Schedulers.fromExecutor(new VirtualThreadTaskExecutor("trade-enrichment-"), true);
+		}
+		final int threads = Math.max(1, properties.getParallelism());
+
+		return Schedulers.newBoundedElastic(threads, threads * QUEUED_TASKS_PER_THREAD, "trade-enrichment");
+	}
+
+	/**
+	 * Per-currency price scales the trade parser normalizes prices to.
+	 */
+	@Bean
+	public PriceScales tradePriceScales(final EnrichmentProperties properties) {
+		return PriceScales.of(properties.getPriceScales());
+	}
+}
@@ -0,0 +1,83 @@
+package ai.facie.tradedatatask.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "trade-data.enrichment")
+public class EnrichmentProperties {
+
+	/**
+	 * Number of line-aligned chunks parsed and enriched concurrently. A value of 1 keeps the
+	 * sequential pipeline without any thread hops.
+	 */
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Size of the slices the upload is read and split in; each slice becomes one unit of parallel work.
+	 */
+	private DataSize chunkSize = DataSize.ofKilobytes(256);
+
+	/**
+	 * Number of product-name lookup batches that may be in flight per stream (per chunk in parallel mode)
+	 * while parsing continues.
+	 */
+	private int maxInFlightBatches = 8;
+
+	/**
+	 * Sends the product lookups of all uploads through one shared lookup layer, which merges lookups of
+	 * different uploads into shared multi-gets and takes turns between uploads, instead of letting every
+	 * upload send its own.
+	 */
+	private boolean sharedLookups = false;
+
+	/**
+	 * Multi-gets the shared lookup layer keeps in flight at most, across all uploads.
+	 */
+	private int maxConcurrentLookups = 16;
+
+	/**
+	 * Number of distinct product IDs at which the shared lookup layer stops adding lookups to a multi-get.
+	 */
+	private int sharedLookupBatchSize = 4000;
+
+	/**
+	 * Lookups of one upload the shared lookup layer keeps in flight at most, so a large upload cannot take
+	 * every slot while others wait.
+	 */
+	private int maxInFlightLookupsPerUpload = 2;
+
+	/**
+	 * Size of the reusable buffer enriched rows are encoded into; the response is written one full buffer
+	 * at a time.
+	 */
+	private DataSize outputBufferSize = DataSize.ofKilobytes(64);
+
+	/**
+	 * Reads uploads, parses chunks and looks up product names on virtual threads, with blocking product
+	 * lookups instead of the reactive Redis client. Requires Java 21.
+	 */
+	private boolean virtualThreads = false;
+
+	/**
+	 * Number of decimal places trade prices are normalized to, per currency code. Prices with more decimal
+	 * places are rejected; prices in other currencies keep the decimal places they are written with.
+	 */
+	private Map<String, Integer> priceScales = new HashMap<>();
+
+	/**
+	 * Number of rejected lines written to the reject file of an upload at most; further rejects are only
+	 * counted.
+	 */
+	private long rejectFileMaxRows = 1_000_000;
+
+	/**
+	 * How long a finished reject file stays available for download.
+	 */
+	private Duration rejectFileRetention = Duration.ofHours(1);
+}
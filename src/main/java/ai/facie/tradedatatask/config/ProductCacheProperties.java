@@ -0,0 +1,26 @@
+package ai.facie.tradedatatask.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "trade-data.product-cache")
+public class ProductCacheProperties {
+
+	/**
+	 * Whether product names are cached in-process in front of Redis.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Maximum number of product names kept in the near cache.
+	 */
+	private int maximumSize = 65_536;
+
+	/**
+	 * How long a cached product name may be served before it is looked up again.
+	 */
+	private Duration timeToLive = Duration.ofMinutes(10);
+}
@@ -0,0 +1,27 @@
+package ai.facie.tradedatatask.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ProductLoadConfig {
+
+	/**
+	 * Workers running background product loads. Both the number of concurrent loads and the queue of
+	 * waiting ones are bounded, so a burst of uploads is rejected instead of piling up spooled files.
+	 */
+	@Bean(destroyMethod = "shutdownNow")
+	public ExecutorService productLoadExecutor(final ProductLoadProperties properties) {
+		final int threads = Math.max(1, properties.getMaxConcurrentJobs());
+
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+			new LinkedBlockingQueue<>(Math.max(1, properties.getMaxQueuedJobs())),
+			new CustomizableThreadFactory("product-load-"), new ThreadPoolExecutor.AbortPolicy());
+	}
+}
@@ -0,0 +1,63 @@
+package ai.facie.tradedatatask.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "trade-data.product-load")
+public class ProductLoadProperties {
+
+	/**
+	 * Number of products in the first {@code HSET} of a load; later batches grow or shrink from here.
+	 */
+	private int initialBatchSize = 1000;
+
+	/**
+	 * Smallest batch the adaptive sizing may shrink to.
+	 */
+	private int minBatchSize = 100;
+
+	/**
+	 * Largest batch the adaptive sizing may grow to.
+	 */
+	private int maxBatchSize = 20_000;
+
+	/**
+	 * Round-trip time an {@code HSET} should stay under. Faster batches double the batch size, slower ones halve it.
+	 */
+	private Duration targetBatchLatency = Duration.ofMillis(50);
+
+	/**
+	 * Number of {@code HSET} batches that may be in flight while parsing continues.
+	 */
+	private int maxInFlightBatches = 8;
+
+	/**
+	 * How often a running load logs its progress.
+	 */
+	private Duration progressInterval = Duration.ofSeconds(5);
+
+	/**
+	 * Number of product load jobs that run at the same time; further jobs wait in the queue.
+	 */
+	private int maxConcurrentJobs = 2;
+
+	/**
+	 * Number of submitted jobs that may wait for a free worker before new uploads are rejected.
+	 */
+	private int maxQueuedJobs = 16;
+
+	/**
+	 * How long the status of a finished job stays available.
+	 */
+	private Duration finishedJobRetention = Duration.ofHours(1);
+
+	/**
+	 * How long a replaced product snapshot stays readable before Redis expires it. A running enrichment keeps
+	 * reading the snapshot it started with and pushes this expiry back while it looks products up, so the TTL
+	 * only has to exceed the longest pause between two lookups; an enrichment paused for longer fails.
+	 */
+	private Duration retiredSnapshotTtl = Duration.ofMinutes(30);
+}
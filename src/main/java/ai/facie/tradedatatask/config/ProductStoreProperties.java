@@ -0,0 +1,69 @@
+package ai.facie.tradedatatask.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "trade-data.product-store")
+public class ProductStoreProperties {
+
+	/**
+	 * Backend holding the productId-to-productName mappings.
+	 */
+	private Type type = Type.REDIS;
+
+	/**
+	 * File the memory-mapped product dictionary is written to and re-mapped from on restart.
+	 */
+	private Path mappedFile = Path.of("data", "products.dict");
+
+	/**
+	 * How product keys and names are encoded in Redis.
+	 */
+	private RedisEncoding redisEncoding = RedisEncoding.COMPACT;
+
+	/**
+	 * Number of Redis hashes a product snapshot is spread over; 0 keeps each snapshot in a single hash.
+	 * Buckets small enough for Redis' listpack encoding ({@code hash-max-listpack-entries}, 128 by default)
+	 * take several times less memory than one large hash.
+	 */
+	private int redisBuckets = 0;
+
+	/**
+	 * Copies the products stored with {@link RedisEncoding#JDK} into a compact snapshot on startup, unless a
+	 * compact snapshot already exists. Only applies to the compact encoding; on by default so products written
+	 * by earlier versions stay visible after an upgrade.
+	 */
+	private boolean migrateFromJdk = true;
+
+	/**
+	 * False-positive rate of the Bloom filter of product IDs kept for every Redis snapshot loaded by this
+	 * instance; lookups of IDs it rules out are answered as missing without asking Redis. Dense numeric IDs are
+	 * kept in an exact bitset instead when that is smaller. 0 disables the filter.
+	 */
+	private double knownIdsFalsePositiveRate = 0.01;
+
+	/**
+	 * Lets concurrent lookups of a product ID that is already being fetched from Redis wait for that fetch
+	 * instead of sending another one.
+	 */
+	private boolean coalesceLookups = true;
+
+	public enum Type {
+		REDIS,
+		MAPPED
+	}
+
+	public enum RedisEncoding {
+		/**
+		 * UTF-8 keys and names, and varint-encoded numeric product IDs as hash fields.
+		 */
+		COMPACT,
+		/**
+		 * Java serialization of every key and value, as written by earlier versions.
+		 */
+		JDK
+	}
+}
@@ -0,0 +1,32 @@
+package ai.facie.tradedatatask.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "trade-data.product-warm-up")
+public class ProductWarmUpProperties {
+
+	/**
+	 * Whether every Redis product load also writes a local copy of its snapshot, and the copy of the current
+	 * snapshot is mapped into memory on startup before the instance reports ready.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Directory the local snapshot copies are written to.
+	 */
+	private Path directory = Path.of("data", "snapshots");
+
+	/**
+	 * {@code COUNT} hint of every {@code HSCAN} when a snapshot without a local copy is pulled from Redis.
+	 */
+	private int scanCount = 1000;
+
+	/**
+	 * Number of snapshot buckets scanned in parallel when a snapshot is pulled from Redis.
+	 */
+	private int parallelism = 4;
+}
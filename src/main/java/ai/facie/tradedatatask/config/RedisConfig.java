@@ -1,20 +1,70 @@
 package ai.facie.tradedatatask.config;
 
+import ai.facie.tradedatatask.core.redis.ProductIdRedisSerializer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+	/**
+	 * Blocking template for product lookups. With the compact encoding, keys and names are plain UTF-8 and
+	 * product IDs used as hash fields are varint-encoded, see {@link ProductIdRedisSerializer}.
+	 */
 	@Bean
-	public RedisTemplate<String, String> redisTemplate(final RedisConnectionFactory redisConnectionFactory) {
+	public RedisTemplate<String, String> redisTemplate(final RedisConnectionFactory redisConnectionFactory,
+													   final ProductStoreProperties properties) {
 		final RedisTemplate<String, String> template = new RedisTemplate<>();
 		template.setConnectionFactory(redisConnectionFactory);
+		if (properties.getRedisEncoding() == ProductStoreProperties.RedisEncoding.COMPACT) {
+			template.setKeySerializer(RedisSerializer.string());
+			template.setValueSerializer(RedisSerializer.string());
+			template.setHashKeySerializer(new ProductIdRedisSerializer());
+			template.setHashValueSerializer(RedisSerializer.string());
+		}
 
 		return template;
 	}
+
+	/**
+	 * Non-blocking counterpart of {@link #redisTemplate}. It serializes keys and values the same way as the
+	 * blocking template, so both read and write the same product entries.
+	 */
+	@Bean
+	public ReactiveRedisTemplate<String, String> reactiveRedisTemplate(final ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+																	   final ProductStoreProperties properties) {
+		final RedisSerializationContext<String, String> serializationContext =
+			properties.getRedisEncoding() == ProductStoreProperties.RedisEncoding.COMPACT
+				? compactSerializationContext()
+				: jdkSerializationContext();
+
+		return new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, serializationContext);
+	}
+
+	/**
+	 * @return The serialization of the compact encoding.
+	 */
+	public static RedisSerializationContext<String, String> compactSerializationContext() {
+		return RedisSerializationContext.<String, String>newSerializationContext(RedisSerializer.string())
+			.hashKey(new ProductIdRedisSerializer())
+			.hashValue(RedisSerializer.string())
+			.build();
+	}
+
+	/**
+	 * @return The Java serialization used before the compact encoding, still needed to read existing data.
+	 */
+	public static RedisSerializationContext<String, String> jdkSerializationContext() {
+		return RedisSerializationContext.<String, String>newSerializationContext(new JdkSerializationRedisSerializer())
+			.build();
+	}
 }
@@ -0,0 +1,28 @@
+package ai.facie.tradedatatask.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "trade-data.result-cache")
+public class TradeResultCacheProperties {
+
+	/**
+	 * Whether enriched responses of multipart trade uploads are cached on disk, so a file uploaded again is
+	 * answered without parsing it or looking up any product.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Disk space the cached responses may take up in total; the least recently used ones are deleted first.
+	 */
+	private DataSize maximumSize = DataSize.ofGigabytes(1);
+
+	/**
+	 * Directory the cache creates its own subdirectory in; the system temporary directory if not set.
+	 */
+	private Path directory;
+}
@@ -1,9 +1,15 @@
 package ai.facie.tradedatatask.controller;
 
-import ai.facie.tradedatatask.core.service.ProductService;
+import ai.facie.tradedatatask.core.model.ProductLoadJobStatus;
+import ai.facie.tradedatatask.core.service.ProductLoadJobService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -11,42 +17,105 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.time.Instant;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 @Slf4j
 @RestController
 @AllArgsConstructor
 @RequestMapping("/api/v1/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductController {
 
-	private final ProductService productService;
+	private final ProductLoadJobService productLoadJobService;
 
 	/**
-	 * Uploads a product CSV file and stores its data in Redis.
+	 * Uploads a product CSV file and loads it into Redis in the background.
 	 *
-	 * <p>This method reads a CSV file containing product data, processes its content,
-	 * and loads productId-to-productName mappings into Redis.</p>
+	 * <p>The file is handed over to a product load job and the request returns at once with the job's
+	 * status; progress is polled from {@code GET /api/v1/products/jobs/{id}}.</p>
 	 *
 	 * @param file The uploaded CSV file containing product data.
-	 * @return ResponseEntity with a success message or an error if the file is invalid.
-	 * @throws IOException if an error occurs while reading the file.
+	 * @return ResponseEntity with the queued job, or an error if the file is invalid or too many loads are queued.
+	 * @throws IOException if an error occurs while spooling the file.
 	 */
 	@PostMapping(consumes = "multipart/form-data")
-	public ResponseEntity<String> loadProducts(@RequestParam("file") final MultipartFile file) throws IOException {
+	public ResponseEntity<?> loadProducts(@RequestParam("file") final MultipartFile file) throws IOException {
 		log.info("loadProducts was called with file name: {}", file.getOriginalFilename());
 
 		if (file.isEmpty()) {
-			return ResponseEntity.badRequest().body("Upload failed: The file is empty.");
+			return ResponseEntity.badRequest().body(ProductUploads.EMPTY_FILE);
 		}
 
-		final Instant start = Instant.now();
-		productService.loadProductsFromStream(file.getInputStream());
-		final Instant end = Instant.now();
+		final Path spoolFile = ProductUploads.createSpoolFile();
+		try {
+			file.transferTo(spoolFile);
+		} catch (final IOException e) {
+			Files.deleteIfExists(spoolFile);
+			throw e;
+		}
+
+		return ProductUploads.submit(productLoadJobService, file.getOriginalFilename(), spoolFile);
+	}
+
+	/**
+	 * Loads a product CSV sent as the raw request body in the background.
+	 *
+	 * <p>Unlike the multipart endpoint, the body is not spooled by multipart handling: it is copied
+	 * straight to the job's file as it arrives, and the request returns once the upload is complete.</p>
+	 *
+	 * @param body The request body containing product data in CSV format.
+	 * @return ResponseEntity with the queued job, or an error if the body is empty or too many loads are queued.
+	 * @throws IOException if an error occurs while reading the body.
+	 */
+	@PostMapping(consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, RequestBodies.TEXT_CSV_VALUE})
+	public ResponseEntity<?> loadProductsFromBody(final InputStream body) throws IOException {
+		log.info("loadProductsFromBody was called");
+
+		final InputStream stream = RequestBodies.nonEmpty(body);
+		if (stream == null) {
+			return ResponseEntity.badRequest().body(ProductUploads.EMPTY_FILE);
+		}
+
+		final Path spoolFile = ProductUploads.createSpoolFile();
+		try {
+			Files.copy(stream, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (final IOException e) {
+			Files.deleteIfExists(spoolFile);
+			throw e;
+		}
+
+		return ProductUploads.submit(productLoadJobService, ProductUploads.STREAMED_UPLOAD_SOURCE, spoolFile);
+	}
 
-		log.info("File processing completed in {} ms", Duration.between(start, end).toMillis());
-		productService.loadProductsFromStream(file.getInputStream());
+	/**
+	 * Reports rows loaded, rows rejected, throughput and state of a product load job.
+	 *
+	 * @param id Job ID returned by the upload.
+	 * @return ResponseEntity with the job status, or 404 if the job is unknown or has expired.
+	 */
+	@GetMapping("/jobs/{id}")
+	public ResponseEntity<ProductLoadJobStatus> getJob(@PathVariable("id") final String id) {
+		return productLoadJobService.find(id)
+			.map(job -> ResponseEntity.ok(ProductLoadJobStatus.of(job)))
+			.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * Cancels a queued or running product load job. A cancelled load is discarded: its snapshot never becomes current
+	 * and the products served stay those of the current snapshot.
+	 *
+	 * @param id Job ID returned by the upload.
+	 * @return ResponseEntity with the job status, or 404 if the job is unknown or has expired.
+	 */
+	@DeleteMapping("/jobs/{id}")
+	public ResponseEntity<ProductLoadJobStatus> cancelJob(@PathVariable("id") final String id) {
+		log.info("cancelJob was called for job {}", id);
 
-		return ResponseEntity.ok("Product data loaded successfully into Redis.");
+		return productLoadJobService.cancel(id)
+			.map(job -> ResponseEntity.ok(ProductLoadJobStatus.of(job)))
+			.orElseGet(() -> ResponseEntity.notFound().build());
 	}
 }
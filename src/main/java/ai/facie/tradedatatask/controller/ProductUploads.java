@@ -0,0 +1,61 @@
+package ai.facie.tradedatatask.controller;
+
+import ai.facie.tradedatatask.core.model.ProductLoadJob;
+import ai.facie.tradedatatask.core.model.ProductLoadJobStatus;
+import ai.facie.tradedatatask.core.service.ProductLoadJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Hand-over of spooled product uploads to product load jobs, shared by the servlet and the reactive endpoints.
+ */
+@Slf4j
+final class ProductUploads {
+	static final String EMPTY_FILE = "Upload failed: The file is empty.";
+	static final String STREAMED_UPLOAD_SOURCE = "request body";
+	private static final String JOBS_PATH = "/api/v1/products/jobs/";
+
+	private ProductUploads() {
+	}
+
+	/**
+	 * Creates the file an upload is spooled to; the job deletes it once the load has finished.
+	 *
+	 * @return Path of the new, empty file.
+	 * @throws IOException if the file cannot be created.
+	 */
+	static Path createSpoolFile() throws IOException {
+		return Files.createTempFile("products-", ".csv");
+	}
+
+	/**
+	 * Submits a spooled upload as a product load job.
+	 *
+	 * @param productLoadJobService Service running the jobs.
+	 * @param source Name of the upload, for logging.
+	 * @param spoolFile File the upload was spooled to.
+	 * @return 202 with the queued job, or 503 if too many loads are queued.
+	 */
+	static ResponseEntity<?> submit(final ProductLoadJobService productLoadJobService, final String source,
+									final Path spoolFile) {
+		final ProductLoadJob job;
+		try {
+			job = productLoadJobService.submit(source, spoolFile);
+		} catch (final RejectedExecutionException e) {
+			log.warn("Rejected product upload {}: too many product loads in progress", source);
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.body("Upload rejected: Too many product loads in progress.");
+		}
+
+		return ResponseEntity.accepted()
+			.location(URI.create(JOBS_PATH + job.getId()))
+			.body(ProductLoadJobStatus.of(job));
+	}
+}
@@ -0,0 +1,130 @@
+package ai.facie.tradedatatask.controller;
+
+import ai.facie.tradedatatask.core.model.ProductLoadJobStatus;
+import ai.facie.tradedatatask.core.service.ProductLoadJobService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+/**
+ * WebFlux counterpart of {@link ProductController}, active when the application runs on the reactive stack.
+ *
+ * <p>Uploads are written to the job's spool file buffer by buffer as they arrive, without a worker thread
+ * blocked on the request.</p>
+ */
+@Slf4j
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductController {
+
+	private final ProductLoadJobService productLoadJobService;
+
+	/**
+	 * Uploads a product CSV file and loads it into Redis in the background.
+	 *
+	 * @param file The uploaded CSV file containing product data.
+	 * @return ResponseEntity with the queued job, or an error if the file is empty or too many loads are queued.
+	 */
+	@PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public Mono<ResponseEntity<?>> loadProducts(@RequestPart("file") final FilePart file) {
+		log.info("loadProducts was called with file name: {}", file.filename());
+
+		return spool(file.filename(), file::transferTo);
+	}
+
+	/**
+	 * Loads a product CSV sent as the raw request body in the background.
+	 *
+	 * @param body The request body containing product data in CSV format.
+	 * @return ResponseEntity with the queued job, or an error if the body is empty or too many loads are queued.
+	 */
+	@PostMapping(consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, RequestBodies.TEXT_CSV_VALUE})
+	public Mono<ResponseEntity<?>> loadProductsFromBody(@RequestBody(required = false) final Flux<DataBuffer> body) {
+		log.info("loadProductsFromBody was called");
+
+		return spool(ProductUploads.STREAMED_UPLOAD_SOURCE,
+			spoolFile -> DataBufferUtils.write(body == null ? Flux.empty() : body, spoolFile));
+	}
+
+	/**
+	 * Reports rows loaded, rows rejected, throughput and state of a product load job.
+	 *
+	 * @param id Job ID returned by the upload.
+	 * @return ResponseEntity with the job status, or 404 if the job is unknown or has expired.
+	 */
+	@GetMapping("/jobs/{id}")
+	public ResponseEntity<ProductLoadJobStatus> getJob(@PathVariable("id") final String id) {
+		return productLoadJobService.find(id)
+			.map(job -> ResponseEntity.ok(ProductLoadJobStatus.of(job)))
+			.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * Cancels a queued or running product load job. A cancelled load is discarded: its snapshot never becomes current
+	 * and the products served stay those of the current snapshot.
+	 *
+	 * @param id Job ID returned by the upload.
+	 * @return ResponseEntity with the job status, or 404 if the job is unknown or has expired.
+	 */
+	@DeleteMapping("/jobs/{id}")
+	public ResponseEntity<ProductLoadJobStatus> cancelJob(@PathVariable("id") final String id) {
+		log.info("cancelJob was called for job {}", id);
+
+		return productLoadJobService.cancel(id)
+			.map(job -> ResponseEntity.ok(ProductLoadJobStatus.of(job)))
+			.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * Writes an upload to a new spool file and submits it, deleting the file if the upload is empty, fails or is
+	 * cancelled because the client went away. File creation, inspection and deletion are blocking and run on the
+	 * bounded elastic scheduler.
+	 */
+	private Mono<ResponseEntity<?>> spool(final String source, final Function<Path, Mono<Void>> transfer) {
+		return Mono.fromCallable(ProductUploads::createSpoolFile)
+			.subscribeOn(Schedulers.boundedElastic())
+			.flatMap(spoolFile -> transfer.apply(spoolFile)
+				// Only while transferring: once submitted, the file belongs to the job.
+				.doOnCancel(() -> deleteSpoolFile(spoolFile).subscribe(
+					null, error -> log.warn("Could not delete spool file {} of a cancelled upload", spoolFile, error)))
+				.then(Mono.fromCallable(() -> submitIfNotEmpty(source, spoolFile)).subscribeOn(Schedulers.boundedElastic()))
+				.onErrorResume(error -> deleteSpoolFile(spoolFile).then(Mono.error(error))));
+	}
+
+	private static Mono<Boolean> deleteSpoolFile(final Path spoolFile) {
+		return Mono.fromCallable(() -> Files.deleteIfExists(spoolFile))
+			.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	private ResponseEntity<?> submitIfNotEmpty(final String source, final Path spoolFile) throws IOException {
+		if (Files.size(spoolFile) == 0) {
+			Files.delete(spoolFile);
+			return ResponseEntity.badRequest().body(ProductUploads.EMPTY_FILE);
+		}
+
+		return ProductUploads.submit(productLoadJobService, source, spoolFile);
+	}
+}
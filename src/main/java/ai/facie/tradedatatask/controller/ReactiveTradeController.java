@@ -0,0 +1,198 @@
+package ai.facie.tradedatatask.controller;
+
+import ai.facie.tradedatatask.core.aggregate.TradeGroupBy;
+import ai.facie.tradedatatask.core.output.RejectFile;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.output.TradeOutputFormat;
+import ai.facie.tradedatatask.core.service.RejectFileService;
+import ai.facie.tradedatatask.core.service.TradeService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * WebFlux counterpart of {@link TradeController}, active when the application runs on the reactive stack.
+ *
+ * <p>The upload is consumed as data buffers and the enriched rows are written as buffers of the response's
+ * own (on Netty: pooled) buffer factory, so reading, enrichment and writing are all driven by the client's
+ * demand and no thread is blocked on the connection.</p>
+ */
+@Slf4j
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/trades")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTradeController {
+	private static final String EMPTY_FILE = "Upload failed: The file is empty.";
+
+	private final TradeService tradeService;
+
+	private final RejectFileService rejectFileService;
+
+	/**
+	 * Enriches an uploaded trade file and streams the result back in the format and compression negotiated
+	 * as for {@link TradeController}, optionally with a reject file.
+	 *
+	 * @param file The uploaded trade file in CSV format.
+	 * @param headers Request headers used for content negotiation.
+	 * @param rejects Whether to write the rejected lines to a downloadable reject file.
+	 * @param response Response the enriched rows are written to.
+	 * @return The response with a {@link Flux} of buffers with the enriched trade records.
+	 */
+	@PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = {MediaType.TEXT_PLAIN_VALUE,
+		TradeOutputFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE, TradeOutputFormat.ARROW_STREAM_VALUE})
+	public Mono<ResponseEntity<Flux<DataBuffer>>> enrichTrades(@RequestPart("file") final FilePart file,
+																@RequestHeader final HttpHeaders headers,
+																@RequestParam(defaultValue = "false") final boolean rejects,
+																final ServerHttpResponse response) {
+		log.info("Processing file reactively: {}", file.filename());
+
+		return enrich(file.content(), TradeOutput.negotiate(headers), rejects, response.bufferFactory());
+	}
+
+	/**
+	 * Enriches a trade CSV sent as the raw request body and streams the result back.
+	 *
+	 * @param body The request body containing trades in CSV format.
+	 * @param headers Request headers used for content negotiation.
+	 * @param rejects Whether to write the rejected lines to a downloadable reject file.
+	 * @param response Response the enriched rows are written to.
+	 * @return The response with a {@link Flux} of buffers with the enriched trade records.
+	 */
+	@PostMapping(consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, RequestBodies.TEXT_CSV_VALUE},
+		produces = {MediaType.TEXT_PLAIN_VALUE, TradeOutputFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+			TradeOutputFormat.ARROW_STREAM_VALUE})
+	public Mono<ResponseEntity<Flux<DataBuffer>>> enrichTradesFromBody(@RequestBody(required = false) final Flux<DataBuffer> body,
+																		@RequestHeader final HttpHeaders headers,
+																		@RequestParam(defaultValue = "false") final boolean rejects,
+																		final ServerHttpResponse response) {
+		log.info("Processing streamed trade upload reactively");
+
+		return enrich(body == null ? Flux.empty() : body, TradeOutput.negotiate(headers), rejects, response.bufferFactory());
+	}
+
+	/**
+	 * Downloads the rejected lines of an upload sent with {@code rejects=true}, as for {@link TradeController}.
+	 *
+	 * @param id ID from the {@code X-Reject-File} header of the upload.
+	 * @return ResponseEntity with the reject file once it is complete, 202 while the upload is still processed,
+	 * or 404 if the file is unknown or has expired.
+	 */
+	@GetMapping("/rejects/{id}")
+	public ResponseEntity<Resource> getRejects(@PathVariable("id") final String id) {
+		return TradeRejectFiles.download(rejectFileService.find(id));
+	}
+
+	/**
+	 * Rolls an uploaded trade file up into price statistics per group, as for {@link TradeController}.
+	 *
+	 * @param file The uploaded trade file in CSV format.
+	 * @param groupBy Comma-separated dimensions to group by.
+	 * @return ResponseEntity with the rollup, or an error if a dimension is unknown.
+	 */
+	@PostMapping(path = "/aggregate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public Mono<ResponseEntity<?>> aggregateTrades(@RequestPart("file") final FilePart file,
+												   @RequestParam(defaultValue = "product") final List<String> groupBy) {
+		log.info("Aggregating file: {}", file.filename());
+
+		return aggregate(file.content(), groupBy);
+	}
+
+	/**
+	 * Rolls a trade CSV sent as the raw request body up into price statistics per group.
+	 *
+	 * @param body The request body containing trades in CSV format.
+	 * @param groupBy Comma-separated dimensions to group by.
+	 * @return ResponseEntity with the rollup, or an error if a dimension is unknown.
+	 */
+	@PostMapping(path = "/aggregate", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, RequestBodies.TEXT_CSV_VALUE})
+	public Mono<ResponseEntity<?>> aggregateTradesFromBody(@RequestBody(required = false) final Flux<DataBuffer> body,
+														   @RequestParam(defaultValue = "product") final List<String> groupBy) {
+		log.info("Aggregating streamed trade upload");
+
+		return aggregate(body == null ? Flux.empty() : body, groupBy);
+	}
+
+	private Mono<ResponseEntity<?>> aggregate(final Flux<DataBuffer> body, final List<String> groupBy) {
+		final Set<TradeGroupBy> dimensions;
+		try {
+			dimensions = TradeGroupBy.parse(groupBy);
+		} catch (final IllegalArgumentException e) {
+			return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+		}
+
+		final long startTime = System.currentTimeMillis();
+		return tradeService.aggregateTrades(body, dimensions)
+			.doOnSuccess(aggregation -> log.info("Trade aggregation completed in {} ms", System.currentTimeMillis() - startTime))
+			.<ResponseEntity<?>>map(ResponseEntity::ok);
+	}
+
+	/**
+	 * Starts the enrichment once the first body buffer has arrived, or answers with an error message if the
+	 * body turns out to be empty.
+	 *
+	 * <p>The response is only built after the first signal, so an empty upload is answered as plain text
+	 * rather than labelled with the negotiated format. The body itself is subscribed again once the response
+	 * is written, which is why the source must stay subscribed when the switch completes.</p>
+	 *
+	 * <p>A requested reject file is created on the bounded elastic scheduler and closed once the response
+	 * ends, whether it completes, fails or is cancelled.</p>
+	 */
+	private Mono<ResponseEntity<Flux<DataBuffer>>> enrich(final Flux<DataBuffer> body, final TradeOutput format,
+														   final boolean rejects, final DataBufferFactory bufferFactory) {
+		final long startTime = System.currentTimeMillis();
+
+		return body.<ResponseEntity<Flux<DataBuffer>>>switchOnFirst((first, buffers) -> {
+				if (first.isOnComplete()) {
+					return Mono.just(ResponseEntity.ok()
+						.contentType(MediaType.TEXT_PLAIN)
+						.body(Flux.just(bufferFactory.wrap(EMPTY_FILE.getBytes(StandardCharsets.UTF_8)))));
+				}
+
+				return createRejectFile(rejects)
+					.map(rejectFile -> enriched(buffers, format, rejectFile.orElse(null), bufferFactory, startTime));
+			}, false)
+			.single();
+	}
+
+	private ResponseEntity<Flux<DataBuffer>> enriched(final Flux<DataBuffer> body, final TradeOutput format,
+													  final RejectFile rejectFile, final DataBufferFactory bufferFactory,
+													  final long startTime) {
+		return ResponseEntity.ok()
+			.headers(TradeRejectFiles.responseHeaders(format, rejectFile))
+			.body(tradeService.enrichTrades(body, bufferFactory, format, TradeRejectFiles.listener(rejectFile))
+				.doOnComplete(() -> log.info("Trade processing completed in {} ms", System.currentTimeMillis() - startTime))
+				.doFinally(signal -> TradeRejectFiles.close(rejectFile)));
+	}
+
+	private Mono<Optional<RejectFile>> createRejectFile(final boolean rejects) {
+		return rejects
+			? Mono.fromCallable(() -> Optional.of(rejectFileService.create())).subscribeOn(Schedulers.boundedElastic())
+			: Mono.just(Optional.empty());
+	}
+}
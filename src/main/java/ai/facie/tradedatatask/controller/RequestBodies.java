@@ -0,0 +1,35 @@
+package ai.facie.tradedatatask.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * Helpers for endpoints that consume the raw request body as a stream.
+ */
+final class RequestBodies {
+	static final String TEXT_CSV_VALUE = "text/csv";
+
+	private RequestBodies() {
+	}
+
+	/**
+	 * Checks that a streamed body has at least one byte without consuming it.
+	 *
+	 * <p>Blocks until the first byte of the upload arrives, but never reads further ahead.</p>
+	 *
+	 * @param body Raw request body.
+	 * @return A stream yielding the whole body, or null if the body is empty.
+	 * @throws IOException if the body cannot be read.
+	 */
+	static InputStream nonEmpty(final InputStream body) throws IOException {
+		final PushbackInputStream stream = new PushbackInputStream(body, 1);
+		final int first = stream.read();
+		if (first < 0) {
+			return null;
+		}
+		stream.unread(first);
+
+		return stream;
+	}
+}
@@ -1,48 +1,208 @@
 package ai.facie.tradedatatask.controller;
 
+import ai.facie.tradedatatask.core.aggregate.TradeGroupBy;
+import ai.facie.tradedatatask.core.output.RejectFile;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.output.TradeOutputFormat;
+import ai.facie.tradedatatask.core.parser.RejectListener;
+import ai.facie.tradedatatask.core.service.RejectFileService;
 import ai.facie.tradedatatask.core.service.TradeService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
-import reactor.core.publisher.Flux;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @RestController
 @AllArgsConstructor
 @RequestMapping("/api/v1/trades")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class TradeController {
+	private static final byte[] EMPTY_FILE = "Upload failed: The file is empty.".getBytes(StandardCharsets.UTF_8);
 
 	private final TradeService tradeService;
 
+	private final RejectFileService rejectFileService;
+
 	/**
-	 * Processes an uploaded trade file reactively and returns a streamed response.
+	 * Processes an uploaded trade file and returns a streamed response.
+	 *
+	 * <p>Streams trade processing results in real-time without holding the entire file in memory. Rows are
+	 * written to the response in large buffers rather than one write per row.</p>
+	 *
+	 * <p>The format follows the {@code Accept} header: CSV ({@code text/plain}, {@code text/csv}),
+	 * newline-delimited JSON ({@code application/x-ndjson}) or an Arrow IPC stream
+	 * ({@code application/vnd.apache.arrow.stream}). {@code Accept-Encoding: zstd} or {@code gzip} compresses
+	 * the response while it streams.</p>
 	 *
-	 * <p>Streams trade processing results in real-time without holding the entire file in memory.</p>
+	 * <p>With {@code rejects=true} the rejected lines are also written to a reject file in the background; the
+	 * {@code X-Reject-File} response header names where it can be downloaded once the upload is processed.</p>
+	 *
+	 * <p>With the result cache enabled, a file uploaded before is answered from the cache as long as the
+	 * product data has not been reloaded since.</p>
 	 *
 	 * @param file The uploaded trade file in CSV format.
-	 * @return A {@link Flux} containing enriched trade records as a streamed response.
+	 * @param headers Request headers used for content negotiation.
+	 * @param rejects Whether to write the rejected lines to a downloadable reject file.
+	 * @return A {@link StreamingResponseBody} writing the enriched trade records.
 	 */
-	@PostMapping(consumes = "multipart/form-data", produces = MediaType.TEXT_PLAIN_VALUE)
-	public Flux<String> enrichTrades(@RequestParam("file") MultipartFile file) throws IOException {
+	@PostMapping(consumes = "multipart/form-data", produces = {MediaType.TEXT_PLAIN_VALUE, TradeOutputFormat.TEXT_CSV_VALUE,
+		MediaType.APPLICATION_NDJSON_VALUE, TradeOutputFormat.ARROW_STREAM_VALUE})
+	public ResponseEntity<StreamingResponseBody> enrichTrades(@RequestParam("file") MultipartFile file,
+															  @RequestHeader final HttpHeaders headers,
+															  @RequestParam(defaultValue = "false") final boolean rejects) throws IOException {
 		log.info("Processing file reactively: {}", file.getOriginalFilename());
 
 		if (file.isEmpty()) {
-			return Flux.just("Upload failed: The file is empty.");
+			return emptyFile();
+		}
+
+		final TradeOutput format = TradeOutput.negotiate(headers);
+		return writeTrades(format, rejects, "Trade processing",
+			(output, listener) -> tradeService.writeTrades(file, output, format, listener));
+	}
+
+	/**
+	 * Enriches a trade CSV sent as the raw request body and streams the result back.
+	 *
+	 * <p>The body is read as it arrives instead of being spooled by multipart handling first, so enriched
+	 * rows start streaming back while the upload is still in progress.</p>
+	 *
+	 * @param body The request body containing trades in CSV format.
+	 * @param headers Request headers used for content negotiation.
+	 * @param rejects Whether to write the rejected lines to a downloadable reject file.
+	 * @return A {@link StreamingResponseBody} writing the enriched trade records.
+	 * @throws IOException if an error occurs while reading the body.
+	 */
+	@PostMapping(consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, RequestBodies.TEXT_CSV_VALUE},
+		produces = {MediaType.TEXT_PLAIN_VALUE, TradeOutputFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+			TradeOutputFormat.ARROW_STREAM_VALUE})
+	public ResponseEntity<StreamingResponseBody> enrichTradesFromBody(final InputStream body,
+																	  @RequestHeader final HttpHeaders headers,
+																	  @RequestParam(defaultValue = "false") final boolean rejects) throws IOException {
+		log.info("Processing streamed trade upload reactively");
+
+		final InputStream stream = RequestBodies.nonEmpty(body);
+		if (stream == null) {
+			return emptyFile();
+		}
+
+		final TradeOutput format = TradeOutput.negotiate(headers);
+		return writeTrades(format, rejects, "Streamed trade processing",
+			(output, listener) -> tradeService.writeTrades(stream, output, format, listener));
+	}
+
+	/**
+	 * Downloads the rejected lines of an upload sent with {@code rejects=true}, as {@code line,reason,row}
+	 * CSV records.
+	 *
+	 * @param id ID from the {@code X-Reject-File} header of the upload.
+	 * @return ResponseEntity with the reject file once it is complete, 202 while the upload is still processed,
+	 * or 404 if the file is unknown or has expired.
+	 */
+	@GetMapping("/rejects/{id}")
+	public ResponseEntity<Resource> getRejects(@PathVariable("id") final String id) {
+		return TradeRejectFiles.download(rejectFileService.find(id));
+	}
+
+	/**
+	 * Rolls an uploaded trade file up into price statistics per group and returns only the rollup.
+	 *
+	 * <p>The file is aggregated in a single streaming pass without enriching every row; see
+	 * {@link TradeGroupBy} for the dimensions.</p>
+	 *
+	 * @param file The uploaded trade file in CSV format.
+	 * @param groupBy Comma-separated dimensions to group by: {@code product}, {@code currency} and/or
+	 *                {@code date}; empty for a single group of all trades.
+	 * @return ResponseEntity with the rollup, or an error if a dimension is unknown.
+	 * @throws IOException if the uploaded file cannot be read.
+	 */
+	@PostMapping(path = "/aggregate", consumes = "multipart/form-data")
+	public Mono<ResponseEntity<?>> aggregateTrades(@RequestParam("file") final MultipartFile file,
+												   @RequestParam(defaultValue = "product") final List<String> groupBy) throws IOException {
+		log.info("Aggregating file: {}", file.getOriginalFilename());
+
+		return aggregate(file.getInputStream(), groupBy);
+	}
+
+	/**
+	 * Rolls a trade CSV sent as the raw request body up into price statistics per group.
+	 *
+	 * @param body The request body containing trades in CSV format.
+	 * @param groupBy Comma-separated dimensions to group by.
+	 * @return ResponseEntity with the rollup, or an error if a dimension is unknown.
+	 */
+	@PostMapping(path = "/aggregate", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, RequestBodies.TEXT_CSV_VALUE})
+	public Mono<ResponseEntity<?>> aggregateTradesFromBody(final InputStream body,
+														   @RequestParam(defaultValue = "product") final List<String> groupBy) {
+		log.info("Aggregating streamed trade upload");
+
+		return aggregate(body, groupBy);
+	}
+
+	private Mono<ResponseEntity<?>> aggregate(final InputStream stream, final List<String> groupBy) {
+		final Set<TradeGroupBy> dimensions;
+		try {
+			dimensions = TradeGroupBy.parse(groupBy);
+		} catch (final IllegalArgumentException e) {
+			return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
 		}
 
 		final long startTime = System.currentTimeMillis();
+		return tradeService.aggregateTrades(stream, dimensions)
+			.doOnSuccess(aggregation -> log.info("Trade aggregation completed in {} ms", System.currentTimeMillis() - startTime))
+			.<ResponseEntity<?>>map(ResponseEntity::ok);
+	}
 
-		return tradeService.enrichTradesStream(file.getInputStream())
-			.doOnComplete(() -> {
-				long endTime = System.currentTimeMillis();
-				log.info("Trade processing completed in {} ms", (endTime - startTime));
+	private ResponseEntity<StreamingResponseBody> writeTrades(final TradeOutput format, final boolean rejects,
+															  final String operation, final TradeWriter writer) throws IOException {
+		final RejectFile rejectFile = rejects ? rejectFileService.create() : null;
+
+		return ResponseEntity.ok()
+			.headers(TradeRejectFiles.responseHeaders(format, rejectFile))
+			.body(output -> {
+				final long startTime = System.currentTimeMillis();
+				try {
+					writer.write(output, TradeRejectFiles.listener(rejectFile));
+				} finally {
+					TradeRejectFiles.close(rejectFile);
+				}
+				log.info("{} completed in {} ms", operation, System.currentTimeMillis() - startTime);
 			});
 	}
-}
\ No newline at end of file
+
+	private static ResponseEntity<StreamingResponseBody> emptyFile() {
+		return ResponseEntity.ok()
+			.contentType(MediaType.TEXT_PLAIN)
+			.body(output -> output.write(EMPTY_FILE));
+	}
+
+	/**
+	 * Writes the enriched trades of one upload to the response.
+	 */
+	@FunctionalInterface
+	private interface TradeWriter {
+
+		void write(OutputStream output, RejectListener rejects) throws IOException;
+	}
+}
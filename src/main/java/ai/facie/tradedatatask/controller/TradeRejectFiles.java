@@ -0,0 +1,88 @@
+package ai.facie.tradedatatask.controller;
+
+import ai.facie.tradedatatask.core.output.RejectFile;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.output.TradeOutputFormat;
+import ai.facie.tradedatatask.core.parser.RejectListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+
+/**
+ * Reject files of trade uploads, shared by the servlet and the reactive endpoints.
+ *
+ * <p>An upload sent with {@code rejects=true} answers with the enriched rows as usual plus a
+ * {@value #REJECT_FILE_HEADER} header naming where its rejected lines can be downloaded once the upload is
+ * processed.</p>
+ */
+final class TradeRejectFiles {
+	static final String REJECT_FILE_HEADER = "X-Reject-File";
+	static final String ROWS_DROPPED_HEADER = "X-Reject-Rows-Dropped";
+	private static final String REJECTS_PATH = "/api/v1/trades/rejects/";
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	private TradeRejectFiles() {
+	}
+
+	/**
+	 * @param format Negotiated format and compression.
+	 * @param rejectFile Reject file of the upload, or null if none was requested.
+	 * @return The headers of the enrichment response.
+	 */
+	static HttpHeaders responseHeaders(final TradeOutput format, final RejectFile rejectFile) {
+		final HttpHeaders headers = format.responseHeaders();
+		if (rejectFile != null) {
+			headers.set(REJECT_FILE_HEADER, REJECTS_PATH + rejectFile.getId());
+		}
+		return headers;
+	}
+
+	/**
+	 * @param rejectFile Reject file of the upload, or null if none was requested.
+	 * @return The listener the enrichment hands rejected lines to.
+	 */
+	static RejectListener listener(final RejectFile rejectFile) {
+		return rejectFile == null ? RejectListener.NONE : rejectFile;
+	}
+
+	/**
+	 * Marks the upload of a reject file as processed.
+	 *
+	 * @param rejectFile Reject file of the upload, or null if none was requested.
+	 */
+	static void close(final RejectFile rejectFile) {
+		if (rejectFile != null) {
+			rejectFile.close();
+		}
+	}
+
+	/**
+	 * Answers a download of a reject file.
+	 *
+	 * @param rejectFile The reject file, or empty if it is unknown or has expired.
+	 * @return 200 with the CSV once the file is complete, 202 while it is still written, 404 if it is unknown
+	 * and 500 if it could not be written.
+	 */
+	static ResponseEntity<Resource> download(final Optional<RejectFile> rejectFile) {
+		return rejectFile
+			.map(TradeRejectFiles::download)
+			.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	private static ResponseEntity<Resource> download(final RejectFile rejectFile) {
+		return switch (rejectFile.getState()) {
+			case WRITING -> ResponseEntity.accepted()
+				.header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+				.build();
+			case FAILED -> ResponseEntity.internalServerError().build();
+			case COMPLETE -> ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(TradeOutputFormat.TEXT_CSV_VALUE))
+				.header(ROWS_DROPPED_HEADER, String.valueOf(rejectFile.getRowsDropped()))
+				.body(new FileSystemResource(rejectFile.getPath()));
+		};
+	}
+}
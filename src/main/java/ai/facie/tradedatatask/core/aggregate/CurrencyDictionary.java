@@ -0,0 +1,74 @@
+package ai.facie.tradedatatask.core.aggregate;
+
+import ai.facie.tradedatatask.core.util.LongIntHashMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense {@code int} IDs to currency codes read straight from the upload.
+ *
+ * <p>Codes of up to seven bytes, which covers ISO 4217, are packed together with their length into a
+ * {@code long} and looked up without allocating; longer codes fall back to a map keyed by their text. Not
+ * thread-safe.</p>
+ */
+final class CurrencyDictionary {
+	private static final int MAX_PACKED_LENGTH = 7;
+
+	private final LongIntHashMap packedIds = new LongIntHashMap(16);
+	private final Map<String, Integer> longIds = new HashMap<>();
+	private final List<byte[]> codes = new ArrayList<>();
+
+	/**
+	 * Returns the ID of a currency code, assigning the next ID to a code not seen before.
+	 *
+	 * @param data Array holding the code.
+	 * @param offset Index of the first byte of the code.
+	 * @param length Number of bytes of the code.
+	 * @return The ID of the code.
+	 */
+	int idOf(final byte[] data, final int offset, final int length) {
+		if (length <= MAX_PACKED_LENGTH) {
+			long key = length;
+			for (int i = offset; i < offset + length; i++) {
+				key = key << 8 | (data[i] & 0xFF);
+			}
+			final int id = packedIds.putIfAbsent(key, codes.size());
+			if (id != LongIntHashMap.NO_VALUE) {
+				return id;
+			}
+		} else {
+			final Integer id = longIds.putIfAbsent(new String(data, offset, length, StandardCharsets.ISO_8859_1), codes.size());
+			if (id != null) {
+				return id;
+			}
+		}
+		codes.add(Arrays.copyOfRange(data, offset, offset + length));
+
+		return codes.size() - 1;
+	}
+
+	/**
+	 * @param id ID assigned by {@link #idOf}.
+	 * @return The bytes of the currency code.
+	 */
+	byte[] code(final int id) {
+		return codes.get(id);
+	}
+
+	/**
+	 * @param id ID assigned by {@link #idOf}.
+	 * @return The currency code as text.
+	 */
+	String name(final int id) {
+		return new String(codes.get(id), StandardCharsets.UTF_8);
+	}
+
+	int size() {
+		return codes.size();
+	}
+}
@@ -0,0 +1,285 @@
+package ai.facie.tradedatatask.core.aggregate;
+
+import ai.facie.tradedatatask.core.model.TradeAggregate;
+import ai.facie.tradedatatask.core.model.TradeAggregation;
+import ai.facie.tradedatatask.core.parser.ScaledDecimal;
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+import ai.facie.tradedatatask.core.util.LongPairIntHashMap;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Rolls trades up into count, sum, minimum, maximum and average price per group in a single pass.
+ *
+ * <p>A group is keyed by two primitives: the product ID, and the currency ID in the upper half of a
+ * {@code long} with the {@code yyyyMMdd} date in the lower half. Dimensions that are not grouped by are
+ * zero. The statistics live in parallel primitive arrays indexed by group and are exact: prices arrive as
+ * fixed-point values from the parser, sums are kept as 128-bit integers at the largest scale of the group,
+ * and minimums and maximums keep the scale of their price. Adding a trade allocates nothing once its group
+ * exists.</p>
+ *
+ * <p>Not thread-safe: every thread aggregates into its own instance, and the partial results are combined
+ * with {@link #merge(TradeAggregator)} at the end.</p>
+ */
+public final class TradeAggregator {
+	private static final int INITIAL_GROUPS = 64;
+	private static final int AVERAGE_EXTRA_SCALE = 4;
+	private static final long DATE_MASK = 0xFFFF_FFFFL;
+	private static final BigInteger UNSIGNED_LONG_MASK = BigInteger.ONE.shiftLeft(Long.SIZE).subtract(BigInteger.ONE);
+
+	private final Set<TradeGroupBy> groupBy;
+	private final boolean byProduct;
+	private final boolean byCurrency;
+	private final boolean byDate;
+	private final CurrencyDictionary currencies = new CurrencyDictionary();
+	private final LongPairIntHashMap groupIds = new LongPairIntHashMap(INITIAL_GROUPS);
+
+	private long[] productIds = new long[INITIAL_GROUPS];
+	private long[] currencyDates = new long[INITIAL_GROUPS];
+	private long[] counts = new long[INITIAL_GROUPS];
+	private long[] sumHighs = new long[INITIAL_GROUPS];
+	private long[] sumLows = new long[INITIAL_GROUPS];
+	private byte[] sumScales = new byte[INITIAL_GROUPS];
+	private long[] mins = new long[INITIAL_GROUPS];
+	private byte[] minScales = new byte[INITIAL_GROUPS];
+	private long[] maxs = new long[INITIAL_GROUPS];
+	private byte[] maxScales = new byte[INITIAL_GROUPS];
+	private int groups;
+	private long trades;
+
+	/**
+	 * @param groupBy Dimensions to group by; empty to roll all trades up into a single group.
+	 */
+	public TradeAggregator(final Set<TradeGroupBy> groupBy) {
+		this.groupBy = Collections.unmodifiableSet(groupBy.isEmpty()
+			? EnumSet.noneOf(TradeGroupBy.class)
+			: EnumSet.copyOf(groupBy));
+		this.byProduct = groupBy.contains(TradeGroupBy.PRODUCT);
+		this.byCurrency = groupBy.contains(TradeGroupBy.CURRENCY);
+		this.byDate = groupBy.contains(TradeGroupBy.DATE);
+	}
+
+	/**
+	 * Adds every trade of a parsed chunk.
+	 *
+	 * @param records Parsed trade records.
+	 * @return This aggregator.
+	 */
+	public TradeAggregator addAll(final List<TradeRecord> records) {
+		for (final TradeRecord record : records) {
+			add(record);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a trade to its group.
+	 *
+	 * @param trade Parsed trade record.
+	 */
+	public void add(final TradeRecord trade) {
+		final byte[] line = trade.line();
+		final long productId = byProduct ? trade.productId() : 0;
+		final long currencyId = byCurrency ? currencies.idOf(line, trade.currencyOffset(), trade.currencyLength()) : 0;
+		final long date = byDate ? parseDate(line, trade.dateOffset()) : 0;
+		final int group = groupOf(productId, currencyId << 32 | date);
+
+		trades++;
+		accumulate(group, 1, trade.price(), trade.priceScale(), trade.price(), trade.priceScale());
+		addToSum(group, trade.price(), trade.priceScale());
+	}
+
+	/**
+	 * Adds the groups of another aggregator with the same dimensions to this one.
+	 *
+	 * @param other Partial result of another thread; it is left unchanged.
+	 * @return This aggregator.
+	 */
+	public TradeAggregator merge(final TradeAggregator other) {
+		final int[] currencyIds = new int[other.currencies.size()];
+		for (int i = 0; i < currencyIds.length; i++) {
+			final byte[] code = other.currencies.code(i);
+			currencyIds[i] = currencies.idOf(code, 0, code.length);
+		}
+
+		for (int i = 0; i < other.groups; i++) {
+			final long currencyDate = other.currencyDates[i];
+			final long currencyId = byCurrency ? currencyIds[(int) (currencyDate >>> 32)] : 0;
+			final int group = groupOf(other.productIds[i], currencyId << 32 | currencyDate & DATE_MASK);
+
+			accumulate(group, other.counts[i], other.mins[i], other.minScales[i], other.maxs[i], other.maxScales[i]);
+			final int scale = Math.max(sumScales[group], other.sumScales[i]);
+			setSum(group, sum(group, scale).add(other.sum(i, scale)), scale);
+		}
+		trades += other.trades;
+
+		return this;
+	}
+
+	/**
+	 * @return The distinct product IDs of the groups in ascending order, or none if not grouped by product.
+	 */
+	public long[] productIds() {
+		if (!byProduct) {
+			return new long[0];
+		}
+		return Arrays.stream(productIds, 0, groups).distinct().sorted().toArray();
+	}
+
+	/**
+	 * Builds the rollup, ordering the groups by product ID, currency and date.
+	 *
+	 * @param productNames Name of a product ID; only called when grouped by product.
+	 * @return The rollup.
+	 */
+	public TradeAggregation toAggregation(final LongFunction<String> productNames) {
+		final List<TradeAggregate> aggregates = IntStream.range(0, groups)
+			.boxed()
+			.sorted(Comparator.<Integer>comparingLong(group -> productIds[group])
+				.thenComparing(group -> currencyName(currencyDates[group]))
+				.thenComparingLong(group -> currencyDates[group] & DATE_MASK))
+			.map(group -> toAggregate(group, productNames))
+			.toList();
+
+		return new TradeAggregation(groupBy, trades, aggregates);
+	}
+
+	private TradeAggregate toAggregate(final int group, final LongFunction<String> productNames) {
+		final int scale = sumScales[group];
+		final BigDecimal sum = new BigDecimal(sum(group, scale), scale);
+
+		return new TradeAggregate(
+			byProduct ? String.valueOf(productIds[group]) : null,
+			byProduct ? productNames.apply(productIds[group]) : null,
+			byCurrency ? currencyName(currencyDates[group]) : null,
+			byDate ? String.format(Locale.ROOT, "%08d", currencyDates[group] & DATE_MASK) : null,
+			counts[group],
+			sum,
+			BigDecimal.valueOf(mins[group], minScales[group]).setScale(scale),
+			BigDecimal.valueOf(maxs[group], maxScales[group]).setScale(scale),
+			sum.divide(BigDecimal.valueOf(counts[group]), scale + AVERAGE_EXTRA_SCALE, RoundingMode.HALF_EVEN));
+	}
+
+	private String currencyName(final long currencyDate) {
+		return byCurrency ? currencies.name((int) (currencyDate >>> 32)) : "";
+	}
+
+	private int groupOf(final long productId, final long currencyDate) {
+		final int group = groupIds.putIfAbsent(productId, currencyDate, groups);
+		if (group != LongPairIntHashMap.NO_VALUE) {
+			return group;
+		}
+
+		if (groups == counts.length) {
+			grow();
+		}
+		productIds[groups] = productId;
+		currencyDates[groups] = currencyDate;
+
+		return groups++;
+	}
+
+	/**
+	 * Adds trades to the count of a group and widens its minimum and maximum.
+	 */
+	private void accumulate(final int group, final long count, final long min, final int minScale, final long max,
+							final int maxScale) {
+		final boolean first = counts[group] == 0;
+		counts[group] += count;
+		if (first || compare(min, minScale, mins[group], minScales[group]) < 0) {
+			mins[group] = min;
+			minScales[group] = (byte) minScale;
+		}
+		if (first || compare(max, maxScale, maxs[group], maxScales[group]) > 0) {
+			maxs[group] = max;
+			maxScales[group] = (byte) maxScale;
+		}
+	}
+
+	/**
+	 * Adds a price to the 128-bit sum of a group, raising the scale of the sum first if the price is more
+	 * precise.
+	 */
+	private void addToSum(final int group, final long unscaled, final int scale) {
+		if (scale > sumScales[group]) {
+			setSum(group, sum(group, scale), scale);
+		}
+		final long factor = ScaledDecimal.powerOfTen(sumScales[group] - scale);
+		final long high = Math.multiplyHigh(unscaled, factor);
+		final long low = unscaled * factor;
+
+		final long sumLow = sumLows[group] + low;
+		final long carry = Long.compareUnsigned(sumLow, sumLows[group]) < 0 ? 1 : 0;
+		sumHighs[group] += high + carry;
+		sumLows[group] = sumLow;
+	}
+
+	/**
+	 * @return The sum of a group as an unscaled value of the given scale, which must not be below the scale of
+	 * the sum.
+	 */
+	private BigInteger sum(final int group, final int scale) {
+		final BigInteger sum = BigInteger.valueOf(sumHighs[group]).shiftLeft(Long.SIZE)
+			.or(BigInteger.valueOf(sumLows[group]).and(UNSIGNED_LONG_MASK));
+
+		return scale == sumScales[group] ? sum : sum.multiply(BigInteger.TEN.pow(scale - sumScales[group]));
+	}
+
+	private void setSum(final int group, final BigInteger sum, final int scale) {
+		sumHighs[group] = sum.shiftRight(Long.SIZE).longValueExact();
+		sumLows[group] = sum.longValue();
+		sumScales[group] = (byte) scale;
+	}
+
+	private void grow() {
+		final int capacity = counts.length * 2;
+		productIds = Arrays.copyOf(productIds, capacity);
+		currencyDates = Arrays.copyOf(currencyDates, capacity);
+		counts = Arrays.copyOf(counts, capacity);
+		sumHighs = Arrays.copyOf(sumHighs, capacity);
+		sumLows = Arrays.copyOf(sumLows, capacity);
+		sumScales = Arrays.copyOf(sumScales, capacity);
+		mins = Arrays.copyOf(mins, capacity);
+		minScales = Arrays.copyOf(minScales, capacity);
+		maxs = Arrays.copyOf(maxs, capacity);
+		maxScales = Arrays.copyOf(maxScales, capacity);
+	}
+
+	/**
+	 * Compares two fixed-point values of possibly different scales exactly, widening the less precise one to
+	 * 128 bits.
+	 */
+	static int compare(final long first, final int firstScale, final long second, final int secondScale) {
+		if (firstScale == secondScale) {
+			return Long.compare(first, second);
+		}
+		if (firstScale < secondScale) {
+			final long factor = ScaledDecimal.powerOfTen(secondScale - firstScale);
+			return compare(Math.multiplyHigh(first, factor), first * factor, second >> 63, second);
+		}
+		return -compare(second, secondScale, first, firstScale);
+	}
+
+	private static int compare(final long firstHigh, final long firstLow, final long secondHigh, final long secondLow) {
+		return firstHigh != secondHigh ? Long.compare(firstHigh, secondHigh) : Long.compareUnsigned(firstLow, secondLow);
+	}
+
+	private static int parseDate(final byte[] data, final int offset) {
+		int value = 0;
+		for (int i = offset; i < offset + TradeRecord.DATE_LENGTH; i++) {
+			value = value * 10 + data[i] - '0';
+		}
+		return value;
+	}
+}
@@ -0,0 +1,38 @@
+package ai.facie.tradedatatask.core.aggregate;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A dimension trades can be rolled up by.
+ */
+public enum TradeGroupBy {
+	PRODUCT,
+	CURRENCY,
+	DATE;
+
+	/**
+	 * Parses the dimensions of a {@code groupBy} request parameter, ignoring case and blank entries.
+	 *
+	 * @param values Dimension names such as {@code product}, {@code currency} and {@code date}.
+	 * @return The dimensions; empty to roll all trades up into a single group.
+	 * @throws IllegalArgumentException if a name is not a dimension.
+	 */
+	public static Set<TradeGroupBy> parse(final List<String> values) {
+		final Set<TradeGroupBy> dimensions = EnumSet.noneOf(TradeGroupBy.class);
+		for (final String value : values) {
+			final String name = value.trim();
+			if (name.isEmpty()) {
+				continue;
+			}
+			try {
+				dimensions.add(valueOf(name.toUpperCase(Locale.ROOT)));
+			} catch (final IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown groupBy dimension: " + name, e);
+			}
+		}
+		return dimensions;
+	}
+}
@@ -0,0 +1,191 @@
+package ai.facie.tradedatatask.core.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-process cache of product names keyed by primitive product ID and product snapshot version.
+ *
+ * <p>Entries live in a set-associative table: every product ID maps to a single set of {@value #WAYS} slots,
+ * so a lookup never allocates and never scans more than one set. When a set is full its least recently used
+ * slot is evicted, and entries older than the configured time-to-live are dropped on access.</p>
+ *
+ * <p>Every entry remembers the snapshot it was read from, and lookups only match entries of the same snapshot.
+ * A reload therefore never has to invalidate the cache: names of the replaced snapshot simply stop matching
+ * and age out, while readers still pinned to it keep their hits.</p>
+ *
+ * <p>A cache created with a maximum size of zero is disabled and never stores anything.</p>
+ */
+public class ProductNameCache {
+	private static final int WAYS = 8;
+	private static final int LOCK_STRIPES = 64;
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private final int setMask;
+	private final long timeToLiveNanos;
+	private final long[] keys;
+	private final long[] snapshots;
+	private final String[] values;
+	private final long[] writtenAt;
+	private final long[] accessedAt;
+	private final Object[] locks;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates a cache holding at most roughly {@code maximumSize} entries.
+	 *
+	 * @param maximumSize Upper bound on cached entries, rounded up to a power-of-two number of sets; zero disables the cache.
+	 * @param timeToLive How long an entry may be served after it was written.
+	 */
+	public ProductNameCache(final int maximumSize, final Duration timeToLive) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+		}
+		final int sets = setCountFor(maximumSize);
+
+		this.setMask = sets - 1;
+		this.timeToLiveNanos = timeToLive.toNanos();
+		this.keys = new long[sets * WAYS];
+		this.snapshots = new long[sets * WAYS];
+		this.values = new String[sets * WAYS];
+		this.writtenAt = new long[sets * WAYS];
+		this.accessedAt = new long[sets * WAYS];
+		this.locks = new Object[LOCK_STRIPES];
+		Arrays.setAll(locks, i -> new Object());
+	}
+
+	/**
+	 * Returns the cached name for a product, or null when it is absent, expired or cached for another snapshot.
+	 *
+	 * @param snapshot Version of the product snapshot being read.
+	 * @param productId Product ID to look up.
+	 * @return The cached product name, or null on a miss.
+	 */
+	public String get(final long snapshot, final long productId) {
+		if (isDisabled()) {
+			return null;
+		}
+		final int set = setOf(productId);
+		final int base = set * WAYS;
+		final long now = System.nanoTime();
+
+		synchronized (lockOf(set)) {
+			for (int slot = base; slot < base + WAYS; slot++) {
+				if (values[slot] != null && keys[slot] == productId && snapshots[slot] == snapshot) {
+					if (isExpired(slot, now)) {
+						clear(slot);
+						evictions.increment();
+						break;
+					}
+					accessedAt[slot] = now;
+					hits.increment();
+
+					return values[slot];
+				}
+			}
+		}
+		misses.increment();
+
+		return null;
+	}
+
+	/**
+	 * Stores a product name, evicting the least recently used entry of its set if the set is full.
+	 * A name cached for another snapshot of the same product is kept, so readers still pinned to that
+	 * snapshot and readers of the new one do not evict each other.
+	 *
+	 * @param snapshot Version of the product snapshot the name was read from.
+	 * @param productId Product ID to cache.
+	 * @param productName Product name to associate with the ID.
+	 */
+	public void put(final long snapshot, final long productId, final String productName) {
+		if (isDisabled() || productName == null) {
+			return;
+		}
+		final int set = setOf(productId);
+		final long now = System.nanoTime();
+
+		synchronized (lockOf(set)) {
+			final int slot = findSlotForWrite(set, snapshot, productId, now);
+			keys[slot] = productId;
+			snapshots[slot] = snapshot;
+			values[slot] = productName;
+			writtenAt[slot] = now;
+			accessedAt[slot] = now;
+		}
+	}
+
+	public long hitCount() {
+		return hits.sum();
+	}
+
+	public long missCount() {
+		return misses.sum();
+	}
+
+	public long evictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Picks the slot a write should go to: the slot of the product in the same snapshot, a free or expired slot,
+	 * or the least recently used slot of the set. Must be called while holding the set's lock.
+	 */
+	private int findSlotForWrite(final int set, final long snapshot, final long productId, final long now) {
+		final int base = set * WAYS;
+		int freeSlot = -1;
+		int leastRecentlyUsed = base;
+
+		for (int slot = base; slot < base + WAYS; slot++) {
+			if (values[slot] == null) {
+				freeSlot = freeSlot < 0 ? slot : freeSlot;
+			} else if (keys[slot] == productId && snapshots[slot] == snapshot) {
+				return slot;
+			} else if (freeSlot < 0 && isExpired(slot, now)) {
+				clear(slot);
+				evictions.increment();
+				freeSlot = slot;
+			} else if (accessedAt[slot] - accessedAt[leastRecentlyUsed] < 0) {
+				leastRecentlyUsed = slot;
+			}
+		}
+		if (freeSlot >= 0) {
+			return freeSlot;
+		}
+		evictions.increment();
+
+		return leastRecentlyUsed;
+	}
+
+	private static int setCountFor(final int maximumSize) {
+		final int wanted = (maximumSize + WAYS - 1) / WAYS;
+
+		return wanted <= 1 ? wanted : Integer.highestOneBit(wanted - 1) << 1;
+	}
+
+	private boolean isExpired(final int slot, final long now) {
+		return now - writtenAt[slot] >= timeToLiveNanos;
+	}
+
+	private void clear(final int slot) {
+		values[slot] = null;
+	}
+
+	private boolean isDisabled() {
+		return setMask < 0;
+	}
+
+	private int setOf(final long productId) {
+		final long hash = productId * HASH_MULTIPLIER;
+
+		return (int) (hash ^ (hash >>> 32)) & setMask;
+	}
+
+	private Object lockOf(final int set) {
+		return locks[set & (LOCK_STRIPES - 1)];
+	}
+}
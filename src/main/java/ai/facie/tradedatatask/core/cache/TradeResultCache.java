@@ -0,0 +1,362 @@
+package ai.facie.tradedatatask.core.cache;
+
+import ai.facie.tradedatatask.core.output.ContentCoding;
+import ai.facie.tradedatatask.core.output.TradeOutputFormat;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded on-disk cache of enriched trade responses, keyed by the content hash of the upload, the output format
+ * and compression, and the version of the product snapshot the response was enriched from.
+ *
+ * <p>Every entry is one file. Compressed responses are stored exactly as they were sent, uncompressed ones
+ * zstd-compressed. A hit in the stored compression is copied to the client with
+ * {@link FileChannel#transferTo}, without passing through a buffer of ours; an uncompressed hit is decompressed
+ * on the way. Once the files take up more than the maximum size, the least recently used entries are deleted.</p>
+ *
+ * <p>As in {@link ProductNameCache}, a product reload never has to invalidate the cache: lookups after the reload
+ * carry the new snapshot version, so responses enriched from the replaced snapshot simply stop matching and are
+ * evicted as they age. The index lives in memory and the files in a directory of their own that
+ * {@link #clear()} deletes, so nothing is served across restarts.</p>
+ *
+ * <p>Thread-safe. A cache created with a maximum size of zero is disabled and never stores anything.</p>
+ */
+@Slf4j
+public class TradeResultCache {
+	private static final ContentCoding UNCOMPRESSED_STORAGE = ContentCoding.ZSTD;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final HexFormat HEX = HexFormat.of();
+
+	private final Path directory;
+	private final long maximumSize;
+	private final LinkedHashMap<Key, StoredResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long size;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param directory Directory owned by the cache; its files are deleted on eviction and by {@link #clear()}.
+	 * @param maximumSize Upper bound on the bytes of all stored files; zero disables the cache.
+	 */
+	public TradeResultCache(final Path directory, final long maximumSize) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+		}
+		this.directory = directory;
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Hashes an upload for its cache key.
+	 *
+	 * @param stream Content of the upload; read to its end but not closed.
+	 * @return The hex-encoded SHA-256 of the content.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	public static String contentHash(final InputStream stream) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		for (int read = stream.read(buffer); read >= 0; read = stream.read(buffer)) {
+			digest.update(buffer, 0, read);
+		}
+		return HEX.formatHex(digest.digest());
+	}
+
+	public boolean isEnabled() {
+		return maximumSize > 0;
+	}
+
+	/**
+	 * Looks up a response and opens its file.
+	 *
+	 * @param key Key of the response.
+	 * @return The cached response, to be closed once it is written, or null on a miss.
+	 */
+	public CachedResponse get(final Key key) {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		synchronized (entries) {
+			final StoredResponse stored = entries.get(key);
+			if (stored != null) {
+				try {
+					// Opened under the lock so an eviction cannot delete the file first; once open, it stays readable.
+					final FileChannel channel = FileChannel.open(stored.file(), StandardOpenOption.READ);
+					hits.increment();
+
+					return new CachedResponse(channel, stored.size(), key.coding());
+				} catch (final IOException e) {
+					log.warn("Dropping unreadable cached trade response {}", stored.file(), e);
+					entries.remove(key);
+					size -= stored.size();
+				}
+			}
+		}
+		misses.increment();
+
+		return null;
+	}
+
+	/**
+	 * Starts storing a response. The body is written through {@link Writer#tee(OutputStream)} and only stored once
+	 * {@link Writer#commit()} is called after it was written completely.
+	 *
+	 * <p>A failure to create the file only means the response is not cached.</p>
+	 *
+	 * @param key Key of the response.
+	 * @return The writer, to be closed once the response ends.
+	 */
+	public Writer newWriter(final Key key) {
+		return new Writer(key);
+	}
+
+	/**
+	 * Removes every entry and deletes the directory of the cache.
+	 */
+	public void clear() {
+		final List<Path> files = new ArrayList<>();
+		synchronized (entries) {
+			entries.values().forEach(stored -> files.add(stored.file()));
+			entries.clear();
+			size = 0;
+		}
+		files.forEach(TradeResultCache::delete);
+		if (directory != null) {
+			delete(directory);
+		}
+	}
+
+	public long hitCount() {
+		return hits.sum();
+	}
+
+	public long missCount() {
+		return misses.sum();
+	}
+
+	public long evictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Adds a stored response, replacing one of the same key, and evicts the least recently used entries until the
+	 * cache fits its maximum size again.
+	 */
+	private void put(final Key key, final Path file, final long fileSize) {
+		final List<Path> deleted = new ArrayList<>();
+		synchronized (entries) {
+			final StoredResponse previous = entries.put(key, new StoredResponse(file, fileSize));
+			if (previous != null) {
+				size -= previous.size();
+				deleted.add(previous.file());
+			}
+			size += fileSize;
+
+			final Iterator<StoredResponse> leastRecentlyUsed = entries.values().iterator();
+			while (size > maximumSize && leastRecentlyUsed.hasNext()) {
+				final StoredResponse evicted = leastRecentlyUsed.next();
+				leastRecentlyUsed.remove();
+				size -= evicted.size();
+				deleted.add(evicted.file());
+				evictions.increment();
+			}
+		}
+		deleted.forEach(TradeResultCache::delete);
+	}
+
+	private static void delete(final Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (final IOException e) {
+			log.warn("Could not delete cached trade response {}", file, e);
+		}
+	}
+
+	/**
+	 * @param contentHash Hash of the upload, see {@link #contentHash(InputStream)}.
+	 * @param format Output format of the response.
+	 * @param coding Compression of the response.
+	 * @param snapshotVersion Version of the product snapshot the response is enriched from.
+	 */
+	public record Key(String contentHash, TradeOutputFormat format, ContentCoding coding, String snapshotVersion) {}
+
+	private record StoredResponse(Path file, long size) {}
+
+	/**
+	 * An open cached response. Closing it releases the file.
+	 */
+	public static final class CachedResponse implements Closeable {
+		private final FileChannel channel;
+		private final long size;
+		private final ContentCoding coding;
+
+		private CachedResponse(final FileChannel channel, final long size, final ContentCoding coding) {
+			this.channel = channel;
+			this.size = size;
+			this.coding = coding;
+		}
+
+		/**
+		 * Writes the response body, in the compression it was cached for.
+		 *
+		 * @param output Stream receiving the body; it is not closed.
+		 * @throws IOException if the file cannot be read or the output cannot be written.
+		 */
+		public void writeTo(final OutputStream output) throws IOException {
+			if (coding == ContentCoding.IDENTITY) {
+				try (InputStream decompressed = UNCOMPRESSED_STORAGE.decode(Channels.newInputStream(channel))) {
+					decompressed.transferTo(output);
+				}
+				return;
+			}
+
+			final WritableByteChannel target = Channels.newChannel(output);
+			for (long position = 0; position < size; ) {
+				position += channel.transferTo(position, size - position, target);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Copies a response into a new entry while it is written to the client. Used by one thread at a time.
+	 */
+	public final class Writer implements Closeable {
+		private final Key key;
+		private Path file;
+		private OutputStream stored;
+		private long copied;
+		private boolean abandoned;
+		private boolean committed;
+
+		private Writer(final Key key) {
+			this.key = key;
+			try {
+				file = Files.createTempFile(directory, "response-", ".bin");
+				final OutputStream fileOutput = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+				stored = key.coding() == ContentCoding.IDENTITY ? UNCOMPRESSED_STORAGE.encode(fileOutput, BUFFER_SIZE) : fileOutput;
+			} catch (final IOException e) {
+				log.warn("Could not create cached trade response in {}", directory, e);
+				abandon();
+			}
+		}
+
+		/**
+		 * Returns a stream that writes to the response and copies everything into the entry. Copying stops, and the
+		 * entry is abandoned, if the file cannot be written or the response outgrows the cache; the response is
+		 * written either way.
+		 *
+		 * @param response Stream the response body is written to; closing the returned stream does not close it.
+		 * @return The copying stream.
+		 */
+		public OutputStream tee(final OutputStream response) {
+			return new OutputStream() {
+				@Override
+				public void write(final int b) throws IOException {
+					write(new byte[] {(byte) b}, 0, 1);
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len) throws IOException {
+					response.write(b, off, len);
+					copy(b, off, len);
+				}
+
+				@Override
+				public void flush() throws IOException {
+					response.flush();
+				}
+			};
+		}
+
+		/**
+		 * Stores the entry once the whole response has been written.
+		 */
+		public void commit() {
+			if (abandoned || committed) {
+				return;
+			}
+			try {
+				stored.close();
+				committed = true;
+				put(key, file, Files.size(file));
+			} catch (final IOException e) {
+				log.warn("Could not store cached trade response {}", file, e);
+				abandon();
+			}
+		}
+
+		/**
+		 * Discards the entry unless it was committed.
+		 */
+		@Override
+		public void close() {
+			if (!committed && !abandoned) {
+				abandon();
+			}
+		}
+
+		private void copy(final byte[] b, final int off, final int len) {
+			if (abandoned) {
+				return;
+			}
+			copied += len;
+			if (copied > maximumSize) {
+				abandon();
+				return;
+			}
+			try {
+				stored.write(b, off, len);
+			} catch (final IOException e) {
+				log.warn("Could not cache trade response {}", file, e);
+				abandon();
+			}
+		}
+
+		private void abandon() {
+			abandoned = true;
+			try {
+				if (stored != null) {
+					stored.close();
+				}
+			} catch (final IOException ignored) {
+				// The file is deleted either way.
+			}
+			if (file != null) {
+				delete(file);
+			}
+		}
+	}
+}
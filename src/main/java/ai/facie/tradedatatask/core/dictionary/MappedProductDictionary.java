@@ -0,0 +1,296 @@
+package ai.facie.tradedatatask.core.dictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only productId-to-productName dictionary backed by a memory-mapped file.
+ *
+ * <p>The file consists of a fixed header, an open-addressing index of {@code (productId, nameRef)} slots
+ * and a blob of UTF-8 encoded names. A name reference packs the blob offset of the name into the upper
+ * 48 bits and its length into the lower 16 bits. Lookups read the mapped pages directly, so the dictionary
+ * costs almost no heap regardless of the number of products, and reopening an existing file is instant.</p>
+ */
+public final class MappedProductDictionary {
+	private static final long MAGIC = 0x5452444450524F44L;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 64;
+	private static final int SLOT_SIZE = 16;
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+	private static final int MAX_NAME_LENGTH = 0xFFFF;
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private final MappedByteBuffer[] segments;
+	private final long slotMask;
+	private final long productCount;
+	private final long blobOffset;
+
+	private MappedProductDictionary(final MappedByteBuffer[] segments, final long slotMask,
+									final long productCount, final long blobOffset) {
+		this.segments = segments;
+		this.slotMask = slotMask;
+		this.productCount = productCount;
+		this.blobOffset = blobOffset;
+	}
+
+	/**
+	 * Maps an existing dictionary file.
+	 *
+	 * @param file Dictionary file written by {@link Builder#writeTo(Path)}.
+	 * @return The mapped dictionary.
+	 * @throws IOException if the file cannot be read or is not a dictionary file.
+	 */
+	public static MappedProductDictionary open(final Path file) throws IOException {
+		try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new IOException("Not a product dictionary file: " + file);
+			}
+			final MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+			for (int i = 0; i < segments.length; i++) {
+				final long position = (long) i << SEGMENT_SHIFT;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+			}
+
+			if (segments[0].getLong(0) != MAGIC || segments[0].getInt(8) != FORMAT_VERSION) {
+				throw new IOException("Not a product dictionary file: " + file);
+			}
+			final long slotCount = segments[0].getLong(16);
+			final long productCount = segments[0].getLong(24);
+
+			return new MappedProductDictionary(segments, slotCount - 1, productCount, HEADER_SIZE + slotCount * SLOT_SIZE);
+		}
+	}
+
+	/**
+	 * Returns the name of a product.
+	 *
+	 * @param productId Product ID to look up.
+	 * @return The product name, or null if the product is not in the dictionary.
+	 */
+	public String get(final long productId) {
+		long slot = slotOf(productId, slotMask);
+		while (true) {
+			final long position = HEADER_SIZE + slot * SLOT_SIZE;
+			final long nameRef = readLong(position + 8);
+			if (nameRef == 0) {
+				return null;
+			}
+			if (readLong(position) == productId) {
+				return readName(nameRef);
+			}
+			slot = (slot + 1) & slotMask;
+		}
+	}
+
+	public long size() {
+		return productCount;
+	}
+
+	/**
+	 * Loads every page of the file into memory, so the first lookups do not wait for page faults.
+	 */
+	public void load() {
+		for (final MappedByteBuffer segment : segments) {
+			segment.load();
+		}
+	}
+
+	private String readName(final long nameRef) {
+		final int length = (int) (nameRef & MAX_NAME_LENGTH);
+		final long position = blobOffset + (nameRef >>> 16);
+		final byte[] name = new byte[length];
+
+		for (int copied = 0; copied < length; ) {
+			final long current = position + copied;
+			final int offset = (int) (current & (SEGMENT_SIZE - 1));
+			final int chunk = (int) Math.min(length - copied, SEGMENT_SIZE - offset);
+			segments[(int) (current >>> SEGMENT_SHIFT)].get(offset, name, copied, chunk);
+			copied += chunk;
+		}
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	private long readLong(final long position) {
+		return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & (SEGMENT_SIZE - 1)));
+	}
+
+	private static long slotOf(final long productId, final long slotMask) {
+		final long hash = productId * HASH_MULTIPLIER;
+
+		return (hash ^ (hash >>> 29)) & slotMask;
+	}
+
+	/**
+	 * Collects products and writes them as a dictionary file.
+	 *
+	 * <p>Names are streamed to a temporary blob file as they are added; only the IDs and name references
+	 * are held on heap until the index is written. Adding the same product ID twice keeps the last name.</p>
+	 */
+	public static final class Builder implements AutoCloseable {
+		private static final int BLOB_BUFFER_SIZE = 1 << 16;
+
+		private final Path blobFile;
+		private final FileChannel blobChannel;
+		private final ByteBuffer blobBuffer = ByteBuffer.allocateDirect(BLOB_BUFFER_SIZE);
+
+		private long[] productIds = new long[1 << 16];
+		private long[] nameRefs = new long[1 << 16];
+		private int count;
+		private long blobLength = 1;
+
+		/**
+		 * Creates a builder that stages names next to the given target file.
+		 *
+		 * @param target File the dictionary will eventually be written to.
+		 * @throws IOException if the staging file cannot be created.
+		 */
+		public Builder(final Path target) throws IOException {
+			final Path directory = target.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+
+			this.blobFile = Files.createTempFile(directory, target.getFileName().toString(), ".blob");
+			this.blobChannel = FileChannel.open(blobFile, StandardOpenOption.WRITE);
+			this.blobBuffer.put((byte) 0);
+		}
+
+		/**
+		 * Adds a product to the dictionary.
+		 *
+		 * @param productId Product ID.
+		 * @param name UTF-8 encoded product name.
+		 * @return true if the product was added, false if the name is too long to be stored.
+		 */
+		public boolean add(final long productId, final byte[] name) {
+			if (name.length > MAX_NAME_LENGTH) {
+				return false;
+			}
+			if (count == productIds.length) {
+				productIds = Arrays.copyOf(productIds, count * 2);
+				nameRefs = Arrays.copyOf(nameRefs, count * 2);
+			}
+			productIds[count] = productId;
+			nameRefs[count] = (blobLength << 16) | name.length;
+			count++;
+			appendToBlob(name);
+
+			return true;
+		}
+
+		/**
+		 * Writes the dictionary to the target file, replacing any previous file atomically.
+		 *
+		 * @param target Dictionary file to write.
+		 * @return The number of distinct products written.
+		 * @throws IOException if the dictionary cannot be written.
+		 */
+		public long writeTo(final Path target) throws IOException {
+			flushBlob();
+			final long slotCount = Math.max(2, Long.highestOneBit(Math.max(1, count) * 2L - 1) << 1);
+			final long indexSize = slotCount * SLOT_SIZE;
+			final Path staged = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+
+			try (final FileChannel channel = FileChannel.open(staged, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				final long distinct = writeIndex(channel, slotCount - 1);
+				writeHeader(channel, slotCount, distinct);
+				copyBlob(channel, HEADER_SIZE + indexSize);
+				channel.force(true);
+				Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+				return distinct;
+			} finally {
+				Files.deleteIfExists(staged);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			blobChannel.close();
+			Files.deleteIfExists(blobFile);
+		}
+
+		private long writeIndex(final FileChannel channel, final long slotMask) throws IOException {
+			final long indexSize = (slotMask + 1) * SLOT_SIZE;
+			final MappedByteBuffer[] index = new MappedByteBuffer[(int) ((indexSize + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+			for (int i = 0; i < index.length; i++) {
+				final long position = (long) i << SEGMENT_SHIFT;
+				index[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + position, Math.min(SEGMENT_SIZE, indexSize - position));
+			}
+
+			long distinct = 0;
+			for (int i = 0; i < count; i++) {
+				long slot = slotOf(productIds[i], slotMask);
+				while (true) {
+					final long position = slot * SLOT_SIZE;
+					final MappedByteBuffer segment = index[(int) (position >>> SEGMENT_SHIFT)];
+					final int offset = (int) (position & (SEGMENT_SIZE - 1));
+					if (segment.getLong(offset + 8) == 0) {
+						segment.putLong(offset, productIds[i]);
+						segment.putLong(offset + 8, nameRefs[i]);
+						distinct++;
+						break;
+					}
+					if (segment.getLong(offset) == productIds[i]) {
+						segment.putLong(offset + 8, nameRefs[i]);
+						break;
+					}
+					slot = (slot + 1) & slotMask;
+				}
+			}
+			for (final MappedByteBuffer segment : index) {
+				segment.force();
+			}
+			return distinct;
+		}
+
+		private void writeHeader(final FileChannel channel, final long slotCount, final long distinct) throws IOException {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+				.putLong(MAGIC)
+				.putInt(FORMAT_VERSION)
+				.putInt(0)
+				.putLong(slotCount)
+				.putLong(distinct)
+				.putLong(blobLength);
+			header.clear();
+			channel.write(header, 0);
+		}
+
+		private void copyBlob(final FileChannel channel, final long position) throws IOException {
+			try (final FileChannel blob = FileChannel.open(blobFile, StandardOpenOption.READ)) {
+				for (long copied = 0; copied < blobLength; ) {
+					copied += blob.transferTo(copied, blobLength - copied, channel.position(position + copied));
+				}
+			}
+		}
+
+		private void appendToBlob(final byte[] name) {
+			try {
+				if (blobBuffer.remaining() < name.length) {
+					flushBlob();
+				}
+				blobBuffer.put(name);
+				blobLength += name.length;
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private void flushBlob() throws IOException {
+			blobBuffer.flip();
+			while (blobBuffer.hasRemaining()) {
+				blobChannel.write(blobBuffer);
+			}
+			blobBuffer.clear();
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package ai.facie.tradedatatask.core.metrics;
+
+import ai.facie.tradedatatask.core.parser.RejectReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters of the trade enrichment and product loading pipelines.
+ *
+ * <p>Meters are registered once and held in fields so hot paths only increment counters and record
+ * timers. Stage timers let a slow upload be attributed to parsing, Redis or the client reading the
+ * response.</p>
+ */
+@Component
+public class EnrichmentMetrics {
+	public static final String TRADE_STAGE_READ = "read";
+	public static final String TRADE_STAGE_PARSE = "parse";
+	public static final String TRADE_STAGE_LOOKUP = "lookup";
+	public static final String TRADE_STAGE_FORMAT = "format";
+	public static final String TRADE_STAGE_AGGREGATE = "aggregate";
+	public static final String PRODUCT_STAGE_READ_PARSE = "read_parse";
+	public static final String PRODUCT_STAGE_WRITE = "write";
+
+	private final MeterRegistry registry;
+
+	private final Counter tradeRowsParsed;
+	private final Map<RejectReason, Counter> tradeRowsRejected = new EnumMap<>(RejectReason.class);
+	private final Counter tradeBatches;
+	private final Counter tradeBytesRead;
+	private final Counter tradeBytesWritten;
+	private final Counter productRowsLoaded;
+	private final Counter productRowsRejected;
+	private final Counter productBytesRead;
+	private final Counter productNamesMissing;
+	private final Counter productLookupsSkipped;
+	private final Counter productLookupsIssued;
+	private final Counter productLookupsCoalesced;
+	private final Timer redisMultiGet;
+	private final Timer redisMultiSet;
+	private final Map<String, Timer> tradeStages;
+	private final Map<String, Timer> productStages;
+
+	public EnrichmentMetrics(final MeterRegistry registry) {
+		this.registry = registry;
+		this.tradeRowsParsed = Counter.builder("trade.rows.parsed")
+			.description("Trade rows parsed successfully")
+			.register(registry);
+		for (final RejectReason reason : RejectReason.values()) {
+			tradeRowsRejected.put(reason, Counter.builder("trade.rows.rejected")
+				.description("Trade rows rejected by the parser")
+				.tag("reason", reason.tag())
+				.register(registry));
+		}
+		this.tradeBatches = Counter.builder("trade.batches")
+			.description("Trade batches emitted for product-name lookup")
+			.register(registry);
+		this.tradeBytesRead = Counter.builder("trade.bytes.read")
+			.baseUnit("bytes")
+			.register(registry);
+		this.tradeBytesWritten = Counter.builder("trade.bytes.written")
+			.baseUnit("bytes")
+			.register(registry);
+		this.productRowsLoaded = Counter.builder("product.rows.loaded")
+			.register(registry);
+		this.productRowsRejected = Counter.builder("product.rows.rejected")
+			.register(registry);
+		this.productBytesRead = Counter.builder("product.bytes.read")
+			.baseUnit("bytes")
+			.register(registry);
+		this.productNamesMissing = Counter.builder("product.names.missing")
+			.description("Product lookups that found no name")
+			.register(registry);
+		this.productLookupsSkipped = Counter.builder("product.lookups.skipped")
+			.description("Product lookups answered as missing by the known IDs of the snapshot, without asking Redis")
+			.register(registry);
+		this.productLookupsIssued = Counter.builder("product.lookups.issued")
+			.description("Product IDs fetched from Redis")
+			.register(registry);
+		this.productLookupsCoalesced = Counter.builder("product.lookups.coalesced")
+			.description("Product IDs awaited from a concurrent fetch of the same ID instead of being fetched again")
+			.register(registry);
+		this.redisMultiGet = Timer.builder("product.redis.multiget")
+			.publishPercentileHistogram()
+			.register(registry);
+		this.redisMultiSet = Timer.builder("product.redis.multiset")
+			.publishPercentileHistogram()
+			.register(registry);
+		this.tradeStages = stageTimers("trade.stage", TRADE_STAGE_READ, TRADE_STAGE_PARSE, TRADE_STAGE_LOOKUP, TRADE_STAGE_FORMAT,
+			TRADE_STAGE_AGGREGATE);
+		this.productStages = stageTimers("product.stage", PRODUCT_STAGE_READ_PARSE, PRODUCT_STAGE_WRITE);
+	}
+
+	public void tradeRowsParsed(final int rows) {
+		tradeRowsParsed.increment(rows);
+	}
+
+	public void tradeRowRejected(final RejectReason reason) {
+		tradeRowsRejected.get(reason).increment();
+	}
+
+	public void tradeBatchEmitted() {
+		tradeBatches.increment();
+	}
+
+	public void tradeBytesRead(final long bytes) {
+		tradeBytesRead.increment(bytes);
+	}
+
+	public void tradeBytesWritten(final long bytes) {
+		tradeBytesWritten.increment(bytes);
+	}
+
+	public void productRowsLoaded(final int rows) {
+		productRowsLoaded.increment(rows);
+	}
+
+	public void productRowRejected() {
+		productRowsRejected.increment();
+	}
+
+	public void productBytesRead(final long bytes) {
+		productBytesRead.increment(bytes);
+	}
+
+	public void productNamesMissing(final int missing) {
+		productNamesMissing.increment(missing);
+	}
+
+	public void productLookupsSkipped(final int skipped) {
+		productLookupsSkipped.increment(skipped);
+	}
+
+	public void productLookupsIssued(final int issued) {
+		productLookupsIssued.increment(issued);
+	}
+
+	public void productLookupsCoalesced(final int coalesced) {
+		productLookupsCoalesced.increment(coalesced);
+	}
+
+	public Timer redisMultiGet() {
+		return redisMultiGet;
+	}
+
+	public Timer redisMultiSet() {
+		return redisMultiSet;
+	}
+
+	/**
+	 * Returns the timer of a stage of the trade enrichment pipeline.
+	 *
+	 * @param stage One of the {@code TRADE_STAGE_*} constants.
+	 * @return The stage timer.
+	 */
+	public Timer tradeStage(final String stage) {
+		return tradeStages.get(stage);
+	}
+
+	/**
+	 * Returns the timer of a stage of the product loading pipeline.
+	 *
+	 * @param stage One of the {@code PRODUCT_STAGE_*} constants.
+	 * @return The stage timer.
+	 */
+	public Timer productStage(final String stage) {
+		return productStages.get(stage);
+	}
+
+	/**
+	 * Exposes a monotonically increasing count maintained elsewhere, such as the near-cache statistics.
+	 *
+	 * @param name Meter name.
+	 * @param count Supplier of the current count.
+	 */
+	public void registerFunctionCounter(final String name, final Supplier<Number> count) {
+		FunctionCounter.builder(name, count, supplier -> supplier.get().doubleValue())
+			.register(registry);
+	}
+
+	private Map<String, Timer> stageTimers(final String name, final String... stages) {
+		final Map<String, Timer> timers = new HashMap<>();
+		for (final String stage : stages) {
+			timers.put(stage, Timer.builder(name)
+				.description("Time spent in a pipeline stage")
+				.tag("stage", stage)
+				.register(registry));
+		}
+		return Map.copyOf(timers);
+	}
+}
@@ -0,0 +1,92 @@
+package ai.facie.tradedatatask.core.model;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A product load running in the background, identified by the ID returned to the uploader.
+ */
+public class ProductLoadJob {
+
+	public enum State {
+		QUEUED,
+		RUNNING,
+		COMPLETED,
+		FAILED,
+		CANCELLED;
+
+		public boolean isFinished() {
+			return this == COMPLETED || this == FAILED || this == CANCELLED;
+		}
+	}
+
+	private final String id;
+	private final String source;
+	private final Instant submittedAt = Instant.now();
+	private final ProductLoadProgress progress = new ProductLoadProgress();
+	private final AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+
+	public ProductLoadJob(final String id, final String source) {
+		this.id = id;
+		this.source = source;
+	}
+
+	/**
+	 * Moves a queued job to running.
+	 *
+	 * @return false if the job was cancelled before a worker picked it up.
+	 */
+	public boolean start() {
+		return state.compareAndSet(State.QUEUED, State.RUNNING);
+	}
+
+	/**
+	 * Cancels the job. A queued job is finished at once; a running one stops at its next line.
+	 * Finished jobs are left as they are.
+	 */
+	public void cancel() {
+		if (getState().isFinished()) {
+			return;
+		}
+		progress.cancel();
+		if (state.compareAndSet(State.QUEUED, State.CANCELLED)) {
+			progress.finish();
+		}
+	}
+
+	/**
+	 * Records the outcome of a job whose load has returned or thrown.
+	 */
+	public void finish() {
+		if (!progress.isFinished()) {
+			progress.finish();
+		}
+		if (progress.isCancelled()) {
+			state.set(State.CANCELLED);
+		} else if (progress.getFailure() != null) {
+			state.set(State.FAILED);
+		} else {
+			state.set(State.COMPLETED);
+		}
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public Instant getSubmittedAt() {
+		return submittedAt;
+	}
+
+	public ProductLoadProgress getProgress() {
+		return progress;
+	}
+
+	public State getState() {
+		return state.get();
+	}
+}
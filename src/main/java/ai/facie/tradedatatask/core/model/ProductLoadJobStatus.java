@@ -0,0 +1,21 @@
+package ai.facie.tradedatatask.core.model;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time view of a {@link ProductLoadJob} as returned by the jobs API.
+ */
+public record ProductLoadJobStatus(String id, String source, ProductLoadJob.State state, long rowsLoaded,
+								   long rowsRejected, long bytesRead, long rowsPerSecond, long elapsedMillis,
+								   Instant submittedAt, Instant startedAt, Instant finishedAt, String error) {
+
+	public static ProductLoadJobStatus of(final ProductLoadJob job) {
+		final ProductLoadProgress progress = job.getProgress();
+		final Throwable failure = progress.getFailure();
+
+		return new ProductLoadJobStatus(job.getId(), job.getSource(), job.getState(), progress.getRowsLoaded(),
+			progress.getRowsRejected(), progress.getBytesRead(), progress.getRowsPerSecond(),
+			progress.getElapsed().toMillis(), job.getSubmittedAt(), progress.getStartedAt(), progress.getFinishedAt(),
+			failure == null ? null : String.valueOf(failure.getMessage()));
+	}
+}
@@ -0,0 +1,133 @@
+package ai.facie.tradedatatask.core.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Live counters of a single product load.
+ *
+ * <p>Updated by the loading threads and safe to read from any other thread while the load is running.</p>
+ */
+public class ProductLoadProgress {
+	private final LongAdder rowsLoaded = new LongAdder();
+	private final LongAdder rowsRejected = new LongAdder();
+	private final LongAdder batchesWritten = new LongAdder();
+
+	private volatile LongSupplier bytesReadSource = () -> 0;
+	private volatile Instant startedAt;
+	private volatile Instant finishedAt;
+	private volatile boolean cancelled;
+	private volatile Throwable failure;
+
+	/**
+	 * Marks the load as started. Only the first call has an effect.
+	 */
+	public void start() {
+		if (startedAt == null) {
+			startedAt = Instant.now();
+		}
+	}
+
+	/**
+	 * Marks the load as finished, successfully or not.
+	 */
+	public void finish() {
+		finishedAt = Instant.now();
+	}
+
+	/**
+	 * Asks the running load to stop reading. Batches already sent to the store are not rolled back.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Records why the load failed. Only the first failure is kept.
+	 *
+	 * @param cause The error that ended the load.
+	 */
+	public void fail(final Throwable cause) {
+		if (failure == null) {
+			failure = cause;
+		}
+	}
+
+	public void batchWritten(final int rows) {
+		rowsLoaded.add(rows);
+		batchesWritten.increment();
+	}
+
+	public void rowRejected() {
+		rowsRejected.increment();
+	}
+
+	/**
+	 * Sets where the number of bytes consumed from the upload is read from.
+	 *
+	 * @param source Supplier of the bytes read so far.
+	 */
+	public void setBytesReadSource(final LongSupplier source) {
+		this.bytesReadSource = source;
+	}
+
+	public long getRowsLoaded() {
+		return rowsLoaded.sum();
+	}
+
+	public long getRowsRejected() {
+		return rowsRejected.sum();
+	}
+
+	public long getBatchesWritten() {
+		return batchesWritten.sum();
+	}
+
+	public long getBytesRead() {
+		return bytesReadSource.getAsLong();
+	}
+
+	public Instant getStartedAt() {
+		return startedAt;
+	}
+
+	public Instant getFinishedAt() {
+		return finishedAt;
+	}
+
+	public boolean isFinished() {
+		return finishedAt != null;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	/**
+	 * @return Time spent so far, or the total time once the load has finished.
+	 */
+	public Duration getElapsed() {
+		final Instant start = startedAt;
+		if (start == null) {
+			return Duration.ZERO;
+		}
+		final Instant end = finishedAt;
+
+		return Duration.between(start, end == null ? Instant.now() : end);
+	}
+
+	/**
+	 * @return Average number of products stored per second since the load started.
+	 */
+	public long getRowsPerSecond() {
+		final long elapsedMillis = getElapsed().toMillis();
+
+		return elapsedMillis == 0 ? 0 : getRowsLoaded() * 1000 / elapsedMillis;
+	}
+}
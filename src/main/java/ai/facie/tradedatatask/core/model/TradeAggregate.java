@@ -0,0 +1,18 @@
+package ai.facie.tradedatatask.core.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+/**
+ * Price statistics of one group of trades. Dimensions the trades were not grouped by are null and left out of
+ * the JSON.
+ *
+ * <p>Trade files carry no volume, so {@code averagePrice} is the volume-weighted average with every trade
+ * weighing one unit. Sums, minimums and maximums have the scale of the most precise price of the group; the
+ * average has four more decimal places.</p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TradeAggregate(String productId, String productName, String currency, String date, long count,
+							 BigDecimal sum, BigDecimal min, BigDecimal max, BigDecimal averagePrice) {
+}
@@ -0,0 +1,16 @@
+package ai.facie.tradedatatask.core.model;
+
+import ai.facie.tradedatatask.core.aggregate.TradeGroupBy;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rollup of a trade file as returned by the aggregation API.
+ *
+ * @param groupBy Dimensions the trades are grouped by; empty for a single group of all trades.
+ * @param trades Number of trades aggregated.
+ * @param groups Groups ordered by product ID, currency and date.
+ */
+public record TradeAggregation(Set<TradeGroupBy> groupBy, long trades, List<TradeAggregate> groups) {
+}
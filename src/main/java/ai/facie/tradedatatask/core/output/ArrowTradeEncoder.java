@@ -0,0 +1,234 @@
+package ai.facie.tradedatatask.core.output;
+
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+
+/**
+ * Writes trades in the Apache Arrow IPC streaming format: a schema message, one record batch per enriched
+ * batch and an end-of-stream marker, readable by any Arrow implementation (for example
+ * {@code pyarrow.ipc.open_stream}).
+ *
+ * <p>Columns: {@code date} as {@code date32[day]}, {@code productName}, {@code currency} and {@code price} as
+ * {@code utf8}; none of them contains nulls, so validity buffers are left empty. Every record batch is written
+ * in two passes over the batch, the first one only summing up the buffer lengths for the metadata, so no column
+ * is materialised on the heap.</p>
+ */
+final class ArrowTradeEncoder implements TradeEncoder {
+	private static final int CONTINUATION = 0xFFFFFFFF;
+	private static final int ALIGNMENT = 8;
+	private static final int COLUMNS = 4;
+
+	private static final short METADATA_V5 = 4;
+	private static final byte HEADER_SCHEMA = 1;
+	private static final byte HEADER_RECORD_BATCH = 3;
+	private static final byte TYPE_UTF8 = 5;
+	private static final byte TYPE_DATE = 8;
+	private static final short DATE_UNIT_DAY = 0;
+	private static final short LITTLE_ENDIAN = 0;
+
+	private static final byte[] SCHEMA_MESSAGE = schemaMessage();
+
+	@Override
+	public void writeHeader(final TradeOutputBuffer output) {
+		writeMessage(output, SCHEMA_MESSAGE);
+	}
+
+	@Override
+	public long writeBatch(final TradeOutputBuffer output, final EnrichedBatch batch) {
+		final int rows = batch.size();
+		int nameLength = 0;
+		int currencyLength = 0;
+		int priceLength = 0;
+		for (int i = 0; i < rows; i++) {
+			final TradeRecord trade = batch.trade(i);
+			nameLength += batch.productName(i).length;
+			currencyLength += trade.currencyLength();
+			priceLength += trade.priceLength();
+		}
+
+		final long offsetsLength = Integer.BYTES * (rows + 1L);
+		final long[] lengths = {
+			0, Integer.BYTES * (long) rows,
+			0, offsetsLength, nameLength,
+			0, offsetsLength, currencyLength,
+			0, offsetsLength, priceLength
+		};
+		final long[] buffers = new long[2 * lengths.length];
+		long position = 0;
+		for (int i = 0; i < lengths.length; i++) {
+			buffers[2 * i] = position;
+			buffers[2 * i + 1] = lengths[i];
+			position += align(lengths[i]);
+		}
+		final long bodyLength = position;
+		final int metadataLength = writeMessage(output, recordBatchMessage(rows, buffers, bodyLength));
+
+		for (int i = 0; i < rows; i++) {
+			final TradeRecord trade = batch.trade(i);
+			output.writeIntLE(epochDay(trade.line(), trade.dateOffset()));
+		}
+		output.pad(padding(Integer.BYTES * (long) rows));
+
+		writeOffsets(output, batch, 0);
+		for (int i = 0; i < rows; i++) {
+			output.write(batch.productName(i));
+		}
+		output.pad(padding(nameLength));
+
+		writeOffsets(output, batch, 1);
+		for (int i = 0; i < rows; i++) {
+			final TradeRecord trade = batch.trade(i);
+			output.write(trade.line(), trade.currencyOffset(), trade.currencyLength());
+		}
+		output.pad(padding(currencyLength));
+
+		writeOffsets(output, batch, 2);
+		for (int i = 0; i < rows; i++) {
+			final TradeRecord trade = batch.trade(i);
+			output.writeDecimal(trade.price(), trade.priceScale());
+		}
+		output.pad(padding(priceLength));
+
+		return metadataLength + bodyLength;
+	}
+
+	@Override
+	public void writeFooter(final TradeOutputBuffer output) {
+		output.writeIntLE(CONTINUATION);
+		output.writeIntLE(0);
+	}
+
+	/**
+	 * Writes the offsets buffer of a string column, followed by its padding.
+	 *
+	 * @param column 0 for product names, 1 for currencies, 2 for prices.
+	 */
+	private static void writeOffsets(final TradeOutputBuffer output, final EnrichedBatch batch, final int column) {
+		int offset = 0;
+		output.writeIntLE(offset);
+		for (int i = 0; i < batch.size(); i++) {
+			final TradeRecord trade = batch.trade(i);
+			offset += switch (column) {
+				case 0 -> batch.productName(i).length;
+				case 1 -> trade.currencyLength();
+				default -> trade.priceLength();
+			};
+			output.writeIntLE(offset);
+		}
+		output.pad(padding(Integer.BYTES * (batch.size() + 1L)));
+	}
+
+	/**
+	 * Writes an encapsulated message prefix and its metadata, padded so the body starts 8-byte aligned.
+	 *
+	 * @return Number of bytes written.
+	 */
+	private static int writeMessage(final TradeOutputBuffer output, final byte[] metadata) {
+		final int padding = padding(metadata.length);
+		output.writeIntLE(CONTINUATION);
+		output.writeIntLE(metadata.length + padding);
+		output.write(metadata);
+		output.pad(padding);
+
+		return 2 * Integer.BYTES + metadata.length + padding;
+	}
+
+	private static byte[] schemaMessage() {
+		final FlatBufferWriter writer = new FlatBufferWriter();
+
+		writer.startTable(1);
+		writer.addShort(0, DATE_UNIT_DAY);
+		final int dateType = writer.endTable();
+		writer.startTable(0);
+		final int utf8Type = writer.endTable();
+
+		final int fields = writer.createOffsetVector(
+			field(writer, "date", TYPE_DATE, dateType),
+			field(writer, "productName", TYPE_UTF8, utf8Type),
+			field(writer, "currency", TYPE_UTF8, utf8Type),
+			field(writer, "price", TYPE_UTF8, utf8Type));
+
+		writer.startTable(4);
+		writer.addShort(0, LITTLE_ENDIAN);
+		writer.addOffset(1, fields);
+		final int schema = writer.endTable();
+
+		return writer.finish(message(writer, HEADER_SCHEMA, schema, 0));
+	}
+
+	private static int field(final FlatBufferWriter writer, final String name, final byte typeType, final int type) {
+		final int nameOffset = writer.createString(name);
+		final int children = writer.createOffsetVector();
+
+		writer.startTable(7);
+		writer.addOffset(0, nameOffset);
+		writer.addByte(1, (byte) 0);
+		writer.addByte(2, typeType);
+		writer.addOffset(3, type);
+		writer.addOffset(5, children);
+
+		return writer.endTable();
+	}
+
+	private static byte[] recordBatchMessage(final int rows, final long[] buffers, final long bodyLength) {
+		final FlatBufferWriter writer = new FlatBufferWriter();
+		final long[] nodes = new long[2 * COLUMNS];
+		for (int i = 0; i < COLUMNS; i++) {
+			nodes[2 * i] = rows;
+		}
+		final int nodesVector = writer.createLongPairVector(nodes);
+		final int buffersVector = writer.createLongPairVector(buffers);
+
+		writer.startTable(5);
+		writer.addLong(0, rows);
+		writer.addOffset(1, nodesVector);
+		writer.addOffset(2, buffersVector);
+		final int recordBatch = writer.endTable();
+
+		return writer.finish(message(writer, HEADER_RECORD_BATCH, recordBatch, bodyLength));
+	}
+
+	private static int message(final FlatBufferWriter writer, final byte headerType, final int header, final long bodyLength) {
+		writer.startTable(5);
+		writer.addLong(3, bodyLength);
+		writer.addOffset(2, header);
+		writer.addShort(0, METADATA_V5);
+		writer.addByte(1, headerType);
+
+		return writer.endTable();
+	}
+
+	/**
+	 * Converts a {@code yyyyMMdd} date, already validated by the parser, to days since 1970-01-01.
+	 */
+	static int epochDay(final byte[] line, final int offset) {
+		int year = digits(line, offset, 4);
+		final int month = digits(line, offset + 4, 2);
+		final int day = digits(line, offset + 6, 2);
+
+		if (month <= 2) {
+			year--;
+		}
+		final int era = year / 400;
+		final int yearOfEra = year - era * 400;
+		final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	private static int digits(final byte[] line, final int offset, final int count) {
+		int value = 0;
+		for (int i = 0; i < count; i++) {
+			value = value * 10 + line[offset + i] - '0';
+		}
+		return value;
+	}
+
+	private static long align(final long length) {
+		return length + padding(length);
+	}
+
+	private static int padding(final long length) {
+		return (int) (-length & (ALIGNMENT - 1));
+	}
+}
@@ -0,0 +1,86 @@
+package ai.facie.tradedatatask.core.output;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression applied to the encoded output, selected by the {@code Accept-Encoding} header.
+ *
+ * <p>Compressors stream: they hold only their own window and hand compressed blocks on as they fill up.
+ * Closing the returned stream writes the trailer and closes the stream it wraps.</p>
+ */
+public enum ContentCoding {
+	IDENTITY(null) {
+		@Override
+		public OutputStream encode(final OutputStream output, final int bufferSize) {
+			return output;
+		}
+
+		@Override
+		public InputStream decode(final InputStream input) {
+			return input;
+		}
+	},
+	GZIP("gzip") {
+		@Override
+		public OutputStream encode(final OutputStream output, final int bufferSize) throws IOException {
+			return new GZIPOutputStream(output, bufferSize);
+		}
+
+		@Override
+		public InputStream decode(final InputStream input) throws IOException {
+			return new GZIPInputStream(input);
+		}
+	},
+	ZSTD("zstd") {
+		@Override
+		public OutputStream encode(final OutputStream output, final int bufferSize) throws IOException {
+			return new ZstdOutputStream(output, ZSTD_LEVEL);
+		}
+
+		@Override
+		public InputStream decode(final InputStream input) throws IOException {
+			return new ZstdInputStream(input);
+		}
+	};
+
+	private static final int ZSTD_LEVEL = 3;
+
+	private final String token;
+
+	ContentCoding(final String token) {
+		this.token = token;
+	}
+
+	/**
+	 * @return The {@code Content-Encoding} token, or null for uncompressed output.
+	 */
+	public String token() {
+		return token;
+	}
+
+	/**
+	 * Wraps a stream so everything written to it is compressed.
+	 *
+	 * @param output Stream receiving the compressed bytes.
+	 * @param bufferSize Size of the compressor's output buffer where it is configurable.
+	 * @return The compressing stream, or {@code output} itself for uncompressed output.
+	 * @throws IOException if the compressor cannot write its header.
+	 */
+	public abstract OutputStream encode(OutputStream output, int bufferSize) throws IOException;
+
+	/**
+	 * Wraps a stream of bytes compressed with this coding so reading from it decompresses them.
+	 *
+	 * @param input Stream of compressed bytes.
+	 * @return The decompressing stream, or {@code input} itself for uncompressed input.
+	 * @throws IOException if the compressed header cannot be read.
+	 */
+	public abstract InputStream decode(InputStream input) throws IOException;
+}
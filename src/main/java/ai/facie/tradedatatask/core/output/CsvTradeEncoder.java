@@ -0,0 +1,79 @@
+package ai.facie.tradedatatask.core.output;
+
+import ai.facie.tradedatatask.core.parser.ScaledDecimal;
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes trades as CSV with a header line. Date and currency are copied byte for byte from the input line,
+ * the price is written with the scale it was normalized to, and rows end with {@code \n} on every platform.
+ */
+public final class CsvTradeEncoder implements TradeEncoder {
+	public static final String HEADER = "date,productName,currency,price\n";
+
+	private static final byte[] HEADER_BYTES = HEADER.getBytes(StandardCharsets.UTF_8);
+	private static final byte SEPARATOR = ',';
+	private static final byte NEW_LINE = '\n';
+
+	@Override
+	public void writeHeader(final TradeOutputBuffer output) {
+		output.write(HEADER_BYTES);
+	}
+
+	@Override
+	public long writeBatch(final TradeOutputBuffer output, final EnrichedBatch batch) {
+		long bytes = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			final TradeRecord trade = batch.trade(i);
+			final byte[] productName = batch.productName(i);
+			final int length = rowLength(trade, productName);
+			output.reserve(length);
+			output.write(trade.line(), trade.dateOffset(), TradeRecord.DATE_LENGTH);
+			output.write(SEPARATOR);
+			output.write(productName);
+			output.write(SEPARATOR);
+			output.write(trade.line(), trade.currencyOffset(), trade.currencyLength());
+			output.write(SEPARATOR);
+			output.writeDecimal(trade.price(), trade.priceScale());
+			output.write(NEW_LINE);
+			bytes += length;
+		}
+		return bytes;
+	}
+
+	@Override
+	public void writeFooter(final TradeOutputBuffer output) {
+	}
+
+	/**
+	 * Encodes a single row into a new array.
+	 *
+	 * @param trade Parsed trade.
+	 * @param productName UTF-8 encoded product name.
+	 * @return The row including its line end.
+	 */
+	public static byte[] encodeRow(final TradeRecord trade, final byte[] productName) {
+		final byte[] row = new byte[rowLength(trade, productName)];
+		int position = copy(trade.line(), trade.dateOffset(), TradeRecord.DATE_LENGTH, row, 0);
+		row[position++] = SEPARATOR;
+		position = copy(productName, 0, productName.length, row, position);
+		row[position++] = SEPARATOR;
+		position = copy(trade.line(), trade.currencyOffset(), trade.currencyLength(), row, position);
+		row[position++] = SEPARATOR;
+		position = ScaledDecimal.write(trade.price(), trade.priceScale(), row, position);
+		row[position] = NEW_LINE;
+
+		return row;
+	}
+
+	private static int rowLength(final TradeRecord trade, final byte[] productName) {
+		return TradeRecord.DATE_LENGTH + productName.length + trade.currencyLength() + trade.priceLength() + 4;
+	}
+
+	private static int copy(final byte[] source, final int offset, final int length, final byte[] target, final int position) {
+		System.arraycopy(source, offset, target, position, length);
+
+		return position + length;
+	}
+}
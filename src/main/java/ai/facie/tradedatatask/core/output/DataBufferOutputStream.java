@@ -0,0 +1,62 @@
+package ai.facie.tradedatatask.core.output;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output stream that copies every write into one new buffer of a response's buffer factory, for the reactive
+ * stack where the response consumes buffers rather than a stream.
+ *
+ * <p>The buffers written so far are taken out with {@link #drain()}. Once closed, buffers not yet drained are
+ * released and further writes are dropped, so nothing leaks when a response is cancelled between a write and
+ * the next drain. Access is synchronized because a cancellation may close the stream while a write is in
+ * progress.</p>
+ */
+public final class DataBufferOutputStream extends OutputStream {
+	private final DataBufferFactory bufferFactory;
+	private List<DataBuffer> buffers = new ArrayList<>();
+	private boolean closed;
+
+	public DataBufferOutputStream(final DataBufferFactory bufferFactory) {
+		this.bufferFactory = bufferFactory;
+	}
+
+	@Override
+	public void write(final int b) {
+		write(new byte[]{(byte) b}, 0, 1);
+	}
+
+	@Override
+	public synchronized void write(final byte[] bytes, final int offset, final int length) {
+		if (!closed && length > 0) {
+			buffers.add(bufferFactory.allocateBuffer(length).write(bytes, offset, length));
+		}
+	}
+
+	/**
+	 * @return The buffers written since the last call, in write order.
+	 */
+	public synchronized List<DataBuffer> drain() {
+		if (buffers.isEmpty()) {
+			return List.of();
+		}
+		final List<DataBuffer> drained = buffers;
+		buffers = new ArrayList<>();
+		return drained;
+	}
+
+	/**
+	 * Releases the buffers not drained yet and drops all further writes.
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+		buffers.forEach(DataBufferUtils::release);
+		buffers.clear();
+	}
+}
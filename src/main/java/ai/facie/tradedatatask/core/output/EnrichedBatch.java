@@ -0,0 +1,29 @@
+package ai.facie.tradedatatask.core.output;
+
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+
+import java.util.List;
+
+/**
+ * A batch of trades together with the UTF-8 encoded names of their products.
+ *
+ * <p>Each distinct product name is encoded once per batch and shared by every trade referencing it.</p>
+ *
+ * @param trades Trades in input order.
+ * @param namePositions For every trade, the index of its product name in {@code productNames}.
+ * @param productNames UTF-8 encoded product names of the distinct products of the batch.
+ */
+public record EnrichedBatch(List<TradeRecord> trades, int[] namePositions, byte[][] productNames) {
+
+	public int size() {
+		return trades.size();
+	}
+
+	public TradeRecord trade(final int index) {
+		return trades.get(index);
+	}
+
+	public byte[] productName(final int index) {
+		return productNames[namePositions[index]];
+	}
+}
@@ -0,0 +1,177 @@
+package ai.facie.tradedatatask.core.output;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal FlatBuffers builder for the few small metadata messages of the Arrow IPC format.
+ *
+ * <p>Like the reference builder it writes back to front: children are created before the tables that refer to
+ * them, and every {@code create}/{@code end} method returns the position of the new object counted from the
+ * end of the buffer. Scalars are always written, including default values, and vtables are not shared.</p>
+ */
+final class FlatBufferWriter {
+	private byte[] buffer = new byte[256];
+	private int space = buffer.length;
+	private int minAlign = 1;
+	private int[] vtable;
+	private int objectStart;
+
+	/**
+	 * @return Number of bytes written so far; the position of the last object written.
+	 */
+	int offset() {
+		return buffer.length - space;
+	}
+
+	void startTable(final int fields) {
+		vtable = new int[fields];
+		objectStart = offset();
+	}
+
+	void addByte(final int field, final byte value) {
+		prep(1, 0);
+		buffer[--space] = value;
+		vtable[field] = offset();
+	}
+
+	void addShort(final int field, final short value) {
+		putShort(value);
+		vtable[field] = offset();
+	}
+
+	void addInt(final int field, final int value) {
+		prep(Integer.BYTES, 0);
+		putInt(value);
+		vtable[field] = offset();
+	}
+
+	void addLong(final int field, final long value) {
+		prep(Long.BYTES, 0);
+		space -= Long.BYTES;
+		for (int i = 0; i < Long.BYTES; i++) {
+			buffer[space + i] = (byte) (value >>> (8 * i));
+		}
+		vtable[field] = offset();
+	}
+
+	void addOffset(final int field, final int target) {
+		addOffset(target);
+		vtable[field] = offset();
+	}
+
+	int endTable() {
+		prep(Integer.BYTES, 0);
+		putInt(0);
+		final int table = offset();
+		int fields = vtable.length;
+		while (fields > 0 && vtable[fields - 1] == 0) {
+			fields--;
+		}
+		for (int i = fields - 1; i >= 0; i--) {
+			putShort((short) (vtable[i] == 0 ? 0 : table - vtable[i]));
+		}
+		putShort((short) (table - objectStart));
+		putShort((short) ((fields + 2) * Short.BYTES));
+		final int tablePosition = buffer.length - table;
+		final int distance = offset() - table;
+		for (int i = 0; i < Integer.BYTES; i++) {
+			buffer[tablePosition + i] = (byte) (distance >>> (8 * i));
+		}
+		vtable = null;
+
+		return table;
+	}
+
+	int createString(final String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		prep(Integer.BYTES, bytes.length + 1);
+		buffer[--space] = 0;
+		space -= bytes.length;
+		System.arraycopy(bytes, 0, buffer, space, bytes.length);
+		putInt(bytes.length);
+
+		return offset();
+	}
+
+	int createOffsetVector(final int... targets) {
+		prep(Integer.BYTES, Integer.BYTES * targets.length);
+		for (int i = targets.length - 1; i >= 0; i--) {
+			addOffset(targets[i]);
+		}
+		putInt(targets.length);
+
+		return offset();
+	}
+
+	/**
+	 * Creates a vector of structs made of two longs each, such as Arrow's {@code FieldNode} and {@code Buffer}.
+	 *
+	 * @param values The fields of all structs in declaration order: first and second field of the first struct,
+	 *               then of the second, and so on.
+	 */
+	int createLongPairVector(final long... values) {
+		final int count = values.length / 2;
+		prep(Integer.BYTES, 2 * Long.BYTES * count);
+		prep(Long.BYTES, 2 * Long.BYTES * count);
+		for (int i = values.length - 1; i >= 0; i--) {
+			space -= Long.BYTES;
+			for (int b = 0; b < Long.BYTES; b++) {
+				buffer[space + b] = (byte) (values[i] >>> (8 * b));
+			}
+		}
+		putInt(count);
+
+		return offset();
+	}
+
+	/**
+	 * Finishes the buffer with a reference to its root table.
+	 *
+	 * @param root Position of the root table.
+	 * @return The finished buffer.
+	 */
+	byte[] finish(final int root) {
+		prep(minAlign, Integer.BYTES);
+		addOffset(root);
+
+		return Arrays.copyOfRange(buffer, space, buffer.length);
+	}
+
+	private void addOffset(final int target) {
+		prep(Integer.BYTES, 0);
+		putInt(offset() - target + Integer.BYTES);
+	}
+
+	private void putShort(final short value) {
+		prep(Short.BYTES, 0);
+		space -= Short.BYTES;
+		buffer[space] = (byte) value;
+		buffer[space + 1] = (byte) (value >>> 8);
+	}
+
+	private void putInt(final int value) {
+		space -= Integer.BYTES;
+		for (int i = 0; i < Integer.BYTES; i++) {
+			buffer[space + i] = (byte) (value >>> (8 * i));
+		}
+	}
+
+	/**
+	 * Makes room for a scalar of the given size after {@code additional} more bytes and pads so it ends up
+	 * aligned to its size.
+	 */
+	private void prep(final int size, final int additional) {
+		minAlign = Math.max(minAlign, size);
+		final int padding = (-(offset() + additional)) & (size - 1);
+		while (space < padding + size + additional) {
+			final int used = offset();
+			final byte[] grown = new byte[buffer.length * 2];
+			System.arraycopy(buffer, space, grown, grown.length - used, used);
+			space = grown.length - used;
+			buffer = grown;
+		}
+		space -= padding;
+		Arrays.fill(buffer, space, space + padding, (byte) 0);
+	}
+}
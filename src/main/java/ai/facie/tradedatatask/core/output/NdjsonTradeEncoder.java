@@ -0,0 +1,92 @@
+package ai.facie.tradedatatask.core.output;
+
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes trades as newline-delimited JSON, one object per line:
+ * {@code {"date":"20240101","productName":"Product A","currency":"USD","price":"100.25"}}.
+ *
+ * <p>Values keep the text of the CSV output. Quotes, backslashes and control characters are escaped; other
+ * bytes, including multi-byte UTF-8 sequences, are copied as they are. Prices never need escaping and are
+ * formatted straight into the output.</p>
+ */
+final class NdjsonTradeEncoder implements TradeEncoder {
+	private static final byte[] DATE = ascii("{\"date\":\"");
+	private static final byte[] PRODUCT_NAME = ascii("\",\"productName\":\"");
+	private static final byte[] CURRENCY = ascii("\",\"currency\":\"");
+	private static final byte[] PRICE = ascii("\",\"price\":\"");
+	private static final byte[] END = ascii("\"}\n");
+	private static final byte[] HEX = ascii("0123456789abcdef");
+	private static final int FIXED_LENGTH = DATE.length + TradeRecord.DATE_LENGTH + PRODUCT_NAME.length + CURRENCY.length
+		+ PRICE.length + END.length;
+
+	@Override
+	public void writeHeader(final TradeOutputBuffer output) {
+	}
+
+	@Override
+	public long writeBatch(final TradeOutputBuffer output, final EnrichedBatch batch) {
+		long bytes = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			final TradeRecord trade = batch.trade(i);
+			final byte[] productName = batch.productName(i);
+			final byte[] line = trade.line();
+			final int priceLength = trade.priceLength();
+			output.reserve(FIXED_LENGTH + productName.length + trade.currencyLength() + priceLength);
+			output.write(DATE);
+			output.write(line, trade.dateOffset(), TradeRecord.DATE_LENGTH);
+			output.write(PRODUCT_NAME);
+			bytes += writeString(output, productName, 0, productName.length);
+			output.write(CURRENCY);
+			bytes += writeString(output, line, trade.currencyOffset(), trade.currencyLength());
+			output.write(PRICE);
+			output.writeDecimal(trade.price(), trade.priceScale());
+			output.write(END);
+			bytes += FIXED_LENGTH + priceLength;
+		}
+		return bytes;
+	}
+
+	@Override
+	public void writeFooter(final TradeOutputBuffer output) {
+	}
+
+	/**
+	 * Writes the content of a JSON string, copying runs that need no escaping in one go.
+	 *
+	 * @return Number of bytes written.
+	 */
+	private static int writeString(final TradeOutputBuffer output, final byte[] source, final int offset, final int length) {
+		final int end = offset + length;
+		int bytes = length;
+		int start = offset;
+		for (int i = offset; i < end; i++) {
+			final byte value = source[i];
+			if (value == '"' || value == '\\' || (value >= 0 && value < 0x20)) {
+				output.write(source, start, i - start);
+				output.write((byte) '\\');
+				if (value < 0x20) {
+					output.write((byte) 'u');
+					output.write((byte) '0');
+					output.write((byte) '0');
+					output.write(HEX[value >> 4]);
+					output.write(HEX[value & 0xF]);
+					bytes += 5;
+				} else {
+					output.write(value);
+					bytes++;
+				}
+				start = i + 1;
+			}
+		}
+		output.write(source, start, end - start);
+
+		return bytes;
+	}
+
+	private static byte[] ascii(final String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,183 @@
+package ai.facie.tradedatatask.core.output;
+
+import ai.facie.tradedatatask.core.parser.RejectListener;
+import ai.facie.tradedatatask.core.parser.RejectReason;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the rejected lines of one upload into a CSV file of {@code line,reason,row} records.
+ *
+ * <p>The parser threads only copy the bytes of a rejected line and queue it; formatting and writing happen
+ * on the given executor, one drain at a time, so rejects never wait on the disk. The row is written
+ * unquoted as the last column, exactly as it was uploaded. In parallel mode records are written in the
+ * order chunks are parsed, not necessarily in line order. Lines beyond the row limit are only counted as
+ * dropped, which also bounds the queue.</p>
+ *
+ * <p>Thread-safe. {@link #close()} is called once the upload is processed; the file is complete once every
+ * queued line has been written.</p>
+ */
+public class RejectFile implements RejectListener {
+	public static final String HEADER = "line,reason,row\n";
+
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+	private static final byte SEPARATOR = ',';
+	private static final byte NEW_LINE = '\n';
+
+	private final String id;
+	private final Path path;
+	private final long maxRows;
+	private final Executor executor;
+	private final Queue<Rejected> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicLong rows = new AtomicLong();
+	private final AtomicLong rowsDropped = new AtomicLong();
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	private volatile boolean closed;
+	private volatile State state = State.WRITING;
+	private volatile Instant finishedAt;
+	private OutputStream output;
+
+	/**
+	 * @param id ID the file is downloaded by.
+	 * @param path File the rejected lines are written to; created or truncated on the first write.
+	 * @param maxRows Number of rejected lines written at most.
+	 * @param executor Runs the writes, one at a time.
+	 */
+	public RejectFile(final String id, final Path path, final long maxRows, final Executor executor) {
+		this.id = id;
+		this.path = path;
+		this.maxRows = maxRows;
+		this.executor = executor;
+	}
+
+	/**
+	 * Copies a rejected line and queues it for writing.
+	 */
+	@Override
+	public void rejected(final RejectReason reason, final long lineNumber, final byte[] data, final int start, final int end) {
+		if (closed || rows.incrementAndGet() > maxRows) {
+			rowsDropped.incrementAndGet();
+			return;
+		}
+		pending.add(new Rejected(reason, lineNumber, Arrays.copyOfRange(data, start, end)));
+		scheduleDrain();
+	}
+
+	/**
+	 * Marks the upload as processed. The file is completed once the lines still queued are written.
+	 */
+	public void close() {
+		closed = true;
+		scheduleDrain();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * @return Number of rejected lines that were not written because the row limit was reached.
+	 */
+	public long getRowsDropped() {
+		return rowsDropped.get();
+	}
+
+	/**
+	 * @return When the file was completed or failed, or null while it is still written.
+	 */
+	public Instant getFinishedAt() {
+		return finishedAt;
+	}
+
+	private void scheduleDrain() {
+		if (draining.compareAndSet(false, true)) {
+			executor.execute(this::drain);
+		}
+	}
+
+	/**
+	 * Writes every queued line and finishes the file once it is closed. Runs on one thread at a time.
+	 */
+	private void drain() {
+		try {
+			if (state == State.WRITING) {
+				writePending();
+			} else {
+				pending.clear();
+			}
+		} finally {
+			draining.set(false);
+		}
+		if (!pending.isEmpty() || closed && state == State.WRITING) {
+			scheduleDrain();
+		}
+	}
+
+	private void writePending() {
+		try {
+			if (output == null) {
+				output = new BufferedOutputStream(Files.newOutputStream(path), WRITE_BUFFER_SIZE);
+				output.write(HEADER.getBytes(StandardCharsets.UTF_8));
+			}
+			for (Rejected rejected = pending.poll(); rejected != null; rejected = pending.poll()) {
+				output.write(Long.toString(rejected.lineNumber()).getBytes(StandardCharsets.US_ASCII));
+				output.write(SEPARATOR);
+				output.write(rejected.reason().tag().getBytes(StandardCharsets.US_ASCII));
+				output.write(SEPARATOR);
+				output.write(rejected.row());
+				output.write(NEW_LINE);
+			}
+			if (closed && pending.isEmpty()) {
+				output.close();
+				finish(State.COMPLETE);
+			}
+		} catch (final IOException e) {
+			closeQuietly();
+			finish(State.FAILED);
+		}
+	}
+
+	private void finish(final State finalState) {
+		finishedAt = Instant.now();
+		state = finalState;
+	}
+
+	private void closeQuietly() {
+		try {
+			if (output != null) {
+				output.close();
+			}
+		} catch (final IOException ignored) {
+			// The file is marked as failed either way.
+		}
+	}
+
+	private record Rejected(RejectReason reason, long lineNumber, byte[] row) {}
+
+	public enum State {
+		WRITING,
+		COMPLETE,
+		FAILED
+	}
+}
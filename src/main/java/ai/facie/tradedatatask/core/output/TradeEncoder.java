@@ -0,0 +1,31 @@
+package ai.facie.tradedatatask.core.output;
+
+/**
+ * Encodes enriched trades in one output format. Encoders are stateless; all state of a response lives in its
+ * {@link TradeOutputBuffer}.
+ */
+public interface TradeEncoder {
+
+	/**
+	 * Writes whatever precedes the first row, such as a header line or a schema.
+	 *
+	 * @param output Buffer of the response.
+	 */
+	void writeHeader(TradeOutputBuffer output);
+
+	/**
+	 * Writes the trades of a batch.
+	 *
+	 * @param output Buffer of the response.
+	 * @param batch Enriched trades.
+	 * @return Number of bytes written for the batch.
+	 */
+	long writeBatch(TradeOutputBuffer output, EnrichedBatch batch);
+
+	/**
+	 * Writes whatever follows the last row.
+	 *
+	 * @param output Buffer of the response.
+	 */
+	void writeFooter(TradeOutputBuffer output);
+}
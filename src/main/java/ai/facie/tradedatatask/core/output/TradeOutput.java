@@ -0,0 +1,115 @@
+package ai.facie.tradedatatask.core.output;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Format, media type and compression of one trade enrichment response.
+ *
+ * @param format Output format.
+ * @param contentType Media type the response is labelled with.
+ * @param coding Compression of the response body.
+ */
+public record TradeOutput(TradeOutputFormat format, MediaType contentType, ContentCoding coding) {
+	public static final TradeOutput CSV = new TradeOutput(TradeOutputFormat.CSV, MediaType.TEXT_PLAIN, ContentCoding.IDENTITY);
+
+	/**
+	 * Picks the output from the request headers.
+	 *
+	 * <p>The acceptable media type with the highest quality that a format supports wins, plain CSV if there is
+	 * none. Of the compressions, the accepted one with the highest quality wins, and zstd is preferred over gzip
+	 * when both are listed as equally acceptable. {@code *} stands for every compression the header does not list,
+	 * gzip first, so {@code gzip;q=0, *} still refuses gzip.</p>
+	 *
+	 * @param requestHeaders Headers of the request.
+	 * @return The negotiated output.
+	 */
+	public static TradeOutput negotiate(final HttpHeaders requestHeaders) {
+		return CSV.withMediaType(requestHeaders.getAccept())
+			.withCoding(String.join(",", requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)));
+	}
+
+	/**
+	 * @return Headers describing the response body.
+	 */
+	public HttpHeaders responseHeaders() {
+		final HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(contentType);
+		if (coding.token() != null) {
+			headers.set(HttpHeaders.CONTENT_ENCODING, coding.token());
+		}
+		headers.setVary(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING));
+
+		return headers;
+	}
+
+	private TradeOutput withMediaType(final List<MediaType> accept) {
+		final List<MediaType> acceptable = new ArrayList<>(accept);
+		acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+		for (final MediaType accepted : acceptable) {
+			if (accepted.getQualityValue() == 0) {
+				break;
+			}
+			for (final TradeOutputFormat candidate : TradeOutputFormat.values()) {
+				for (final MediaType mediaType : candidate.mediaTypes()) {
+					if (accepted.includes(mediaType)) {
+						return new TradeOutput(candidate, mediaType, coding);
+					}
+				}
+			}
+		}
+		return this;
+	}
+
+	private TradeOutput withCoding(final String acceptEncoding) {
+		if (!StringUtils.hasText(acceptEncoding)) {
+			return this;
+		}
+
+		// Quality of each coding as listed, -1 if it is not.
+		double zstd = -1;
+		double gzip = -1;
+		double any = -1;
+		for (final String element : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+			final String[] parts = StringUtils.tokenizeToStringArray(element, ";");
+			final double quality = quality(parts);
+			switch (parts[0].toLowerCase()) {
+				case "zstd" -> zstd = Math.max(zstd, quality);
+				case "gzip", "x-gzip" -> gzip = Math.max(gzip, quality);
+				case "*" -> any = Math.max(any, quality);
+				default -> {
+				}
+			}
+		}
+
+		final double zstdQuality = zstd >= 0 ? zstd : any;
+		final double gzipQuality = gzip >= 0 ? gzip : any;
+		final ContentCoding best;
+		if (zstdQuality <= 0 && gzipQuality <= 0) {
+			best = ContentCoding.IDENTITY;
+		} else if (zstdQuality > gzipQuality || zstdQuality == gzipQuality && zstd >= 0) {
+			best = ContentCoding.ZSTD;
+		} else {
+			best = ContentCoding.GZIP;
+		}
+		return new TradeOutput(format, contentType, best);
+	}
+
+	private static double quality(final String[] parts) {
+		for (int i = 1; i < parts.length; i++) {
+			if (parts[i].startsWith("q=")) {
+				try {
+					return Double.parseDouble(parts[i].substring(2));
+				} catch (final NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+}
@@ -0,0 +1,154 @@
+package ai.facie.tradedatatask.core.output;
+
+import ai.facie.tradedatatask.core.parser.ScaledDecimal;
+
+/**
+ * Collects encoded output in one reusable byte array and hands the array to a sink each time it is full, so
+ * the response is written in a few large writes without an object per row.
+ *
+ * <p>Encoders write into it field by field; {@link #reserve(int)} lets them keep a row or a block together
+ * in one hand-over as long as it fits the buffer at all.</p>
+ *
+ * <p>Instances are stateful, belong to a single response and must be used serially.</p>
+ */
+public final class TradeOutputBuffer {
+	private static final int MIN_SIZE = 16;
+
+	private final byte[] buffer;
+	private final Sink sink;
+	private int position;
+
+	/**
+	 * @param size Size of the reusable buffer in bytes; at least 16.
+	 * @param sink Receives every full buffer and the rest on {@link #flush()}.
+	 */
+	public TradeOutputBuffer(final int size, final Sink sink) {
+		this.buffer = new byte[Math.max(MIN_SIZE, size)];
+		this.sink = sink;
+	}
+
+	/**
+	 * Hands the buffer over early if a block of the given length would fit an empty buffer but not the space
+	 * left, so the block is not split across two hand-overs.
+	 *
+	 * @param length Length of the block about to be written.
+	 */
+	public void reserve(final int length) {
+		if (length > buffer.length - position && length <= buffer.length) {
+			flush();
+		}
+	}
+
+	/**
+	 * Appends raw bytes.
+	 *
+	 * @param bytes Bytes to append.
+	 */
+	public void write(final byte[] bytes) {
+		write(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Appends a range of raw bytes, handing the buffer over as often as it fills up.
+	 *
+	 * @param bytes Source array.
+	 * @param offset Start of the range.
+	 * @param length Length of the range.
+	 */
+	public void write(final byte[] bytes, final int offset, final int length) {
+		int from = offset;
+		int remaining = length;
+		while (remaining > 0) {
+			if (position == buffer.length) {
+				flush();
+			}
+			final int count = Math.min(remaining, buffer.length - position);
+			System.arraycopy(bytes, from, buffer, position, count);
+			position += count;
+			from += count;
+			remaining -= count;
+		}
+	}
+
+	/**
+	 * Appends a single byte.
+	 *
+	 * @param value Byte to append.
+	 */
+	public void write(final byte value) {
+		if (position == buffer.length) {
+			flush();
+		}
+		buffer[position++] = value;
+	}
+
+	/**
+	 * Appends a fixed-point decimal as text, formatting it straight into the buffer.
+	 *
+	 * @param unscaled Unscaled value.
+	 * @param scale Number of decimal places.
+	 */
+	public void writeDecimal(final long unscaled, final int scale) {
+		final int length = ScaledDecimal.length(unscaled, scale);
+		if (length > buffer.length - position) {
+			flush();
+			if (length > buffer.length) {
+				final byte[] text = new byte[length];
+				ScaledDecimal.write(unscaled, scale, text, 0);
+				write(text);
+				return;
+			}
+		}
+		position = ScaledDecimal.write(unscaled, scale, buffer, position);
+	}
+
+	/**
+	 * Appends a 32-bit integer in little-endian byte order.
+	 *
+	 * @param value Integer to append.
+	 */
+	public void writeIntLE(final int value) {
+		if (buffer.length - position < Integer.BYTES) {
+			flush();
+		}
+		buffer[position++] = (byte) value;
+		buffer[position++] = (byte) (value >>> 8);
+		buffer[position++] = (byte) (value >>> 16);
+		buffer[position++] = (byte) (value >>> 24);
+	}
+
+	/**
+	 * Appends zero bytes.
+	 *
+	 * @param count Number of zero bytes.
+	 */
+	public void pad(final int count) {
+		for (int i = 0; i < count; i++) {
+			write((byte) 0);
+		}
+	}
+
+	/**
+	 * Hands the buffered bytes to the sink.
+	 */
+	public void flush() {
+		if (position > 0) {
+			sink.write(buffer, position);
+			position = 0;
+		}
+	}
+
+	/**
+	 * Receiver of encoded output. The array is reused once the call returns, so its content must be consumed
+	 * or copied right away.
+	 */
+	@FunctionalInterface
+	public interface Sink {
+
+		/**
+		 * @param bytes Array holding the output.
+		 * @param length Number of valid bytes at the start of {@code bytes}.
+		 */
+		void write(byte[] bytes, int length);
+	}
+}
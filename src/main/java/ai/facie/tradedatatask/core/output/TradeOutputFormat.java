@@ -0,0 +1,36 @@
+package ai.facie.tradedatatask.core.output;
+
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Output formats of the trade enrichment, selected by the {@code Accept} header.
+ */
+public enum TradeOutputFormat {
+	CSV(new CsvTradeEncoder(), MediaType.TEXT_PLAIN, MediaType.parseMediaType(TradeOutputFormat.TEXT_CSV_VALUE)),
+	NDJSON(new NdjsonTradeEncoder(), MediaType.APPLICATION_NDJSON),
+	ARROW(new ArrowTradeEncoder(), MediaType.parseMediaType(TradeOutputFormat.ARROW_STREAM_VALUE));
+
+	public static final String TEXT_CSV_VALUE = "text/csv";
+	public static final String ARROW_STREAM_VALUE = "application/vnd.apache.arrow.stream";
+
+	private final TradeEncoder encoder;
+	private final List<MediaType> mediaTypes;
+
+	TradeOutputFormat(final TradeEncoder encoder, final MediaType... mediaTypes) {
+		this.encoder = encoder;
+		this.mediaTypes = List.of(mediaTypes);
+	}
+
+	public TradeEncoder encoder() {
+		return encoder;
+	}
+
+	/**
+	 * @return The media types the format is served as, the preferred one first.
+	 */
+	public List<MediaType> mediaTypes() {
+		return mediaTypes;
+	}
+}
@@ -0,0 +1,118 @@
+package ai.facie.tradedatatask.core.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes one enrichment response: encodes batches in the negotiated format into a {@link TradeOutputBuffer},
+ * compresses every full buffer with the negotiated coding and passes the result on to the target stream.
+ *
+ * <p>Only {@link #finish()} writes the format's footer and the compression trailer. Closing an unfinished
+ * writer detaches it from the target first, so a failed or cancelled response is cut off rather than ended
+ * like a complete one, and the compressor's native memory is still freed. The target is never closed.</p>
+ *
+ * <p>Methods are synchronized because a cancellation may close the writer while a batch is being written.</p>
+ */
+public final class TradeOutputWriter implements Closeable {
+	private final TradeEncoder encoder;
+	private final Target target;
+	private final OutputStream encoded;
+	private final TradeOutputBuffer buffer;
+	private boolean finished;
+
+	/**
+	 * Creates the writer and buffers the format's header.
+	 *
+	 * @param output Negotiated format and coding.
+	 * @param target Stream receiving the response body.
+	 * @param bufferSize Size of the reusable output buffer.
+	 * @throws IOException if the compressor cannot write its header.
+	 */
+	public TradeOutputWriter(final TradeOutput output, final OutputStream target, final int bufferSize) throws IOException {
+		this.encoder = output.format().encoder();
+		this.target = new Target(target);
+		this.encoded = output.coding().encode(this.target, bufferSize);
+		this.buffer = new TradeOutputBuffer(bufferSize, this::writeEncoded);
+		encoder.writeHeader(buffer);
+	}
+
+	/**
+	 * @param batch Enriched trades.
+	 * @return Number of bytes the batch took before compression.
+	 */
+	public synchronized long write(final EnrichedBatch batch) {
+		return encoder.writeBatch(buffer, batch);
+	}
+
+	/**
+	 * Writes the footer, flushes the buffer and ends the compressed stream.
+	 *
+	 * @throws IOException if writing to the target fails.
+	 */
+	public synchronized void finish() throws IOException {
+		try {
+			encoder.writeFooter(buffer);
+			buffer.flush();
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+		finished = true;
+		encoded.close();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (!finished) {
+			finished = true;
+			target.detached = true;
+			encoded.close();
+		}
+	}
+
+	private void writeEncoded(final byte[] bytes, final int length) {
+		try {
+			encoded.write(bytes, 0, length);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Passes writes on to the response body until detached; closing it does not close the body.
+	 */
+	private static final class Target extends OutputStream {
+		private final OutputStream output;
+		private boolean detached;
+
+		private Target(final OutputStream output) {
+			this.output = output;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			if (!detached) {
+				output.write(b);
+			}
+		}
+
+		@Override
+		public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+			if (!detached) {
+				output.write(bytes, offset, length);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (!detached) {
+				output.flush();
+			}
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package ai.facie.tradedatatask.core.parser;
+
+/**
+ * A slice of an upload that starts at the beginning of a line and ends right after a line terminator
+ * (or at the end of the input).
+ *
+ * @param data Backing array; never modified once the chunk is created.
+ * @param offset Index of the first byte of the chunk.
+ * @param length Number of bytes in the chunk.
+ * @param firstLine One-based line number of the first line of the chunk within the upload.
+ */
+public record ByteChunk(byte[] data, int offset, int length, long firstLine) {
+
+	/**
+	 * Creates a chunk that starts at the first line of its input.
+	 */
+	public ByteChunk(final byte[] data, final int offset, final int length) {
+		this(data, offset, length, 1);
+	}
+}
@@ -0,0 +1,135 @@
+package ai.facie.tradedatatask.core.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cuts arbitrary slices of an upload into {@link ByteChunk}s that contain whole lines only.
+ *
+ * <p>Each fed array is handed out as-is, minus the partial line at its end. Only that partial line is copied:
+ * it is joined with the head of the next array into a small chunk of its own, so the bulk of the input is
+ * never copied. Fed arrays must not be reused by the caller.</p>
+ *
+ * <p>Every chunk carries the line number of its first line, so rejected lines can be reported by their
+ * position in the upload even when chunks are parsed out of order. Counting the lines costs one extra scan
+ * of each chunk for new lines.</p>
+ *
+ * <p>Instances are stateful and belong to a single stream.</p>
+ */
+public class LineChunker {
+	private static final byte NEW_LINE = '\n';
+	private static final byte[] EMPTY = new byte[0];
+
+	private int linesToSkip;
+	private long nextLine = 1;
+	private byte[] carry = EMPTY;
+	private int carryLength;
+
+	/**
+	 * Creates a chunker for a new stream.
+	 *
+	 * @param linesToSkip Number of leading lines (e.g. a header) that are dropped instead of emitted.
+	 */
+	public LineChunker(final int linesToSkip) {
+		this.linesToSkip = linesToSkip;
+	}
+
+	/**
+	 * Accepts the next slice of the stream.
+	 *
+	 * @param data Array holding the slice; owned by the chunker afterward.
+	 * @param length Number of valid bytes at the start of {@code data}.
+	 * @return The chunks completed by this slice, in stream order.
+	 */
+	public List<ByteChunk> feed(final byte[] data, final int length) {
+		final int lastNewLine = lastIndexOf(data, length);
+		if (lastNewLine < 0) {
+			appendToCarry(data, 0, length);
+			return List.of();
+		}
+
+		final List<ByteChunk> chunks = new ArrayList<>(2);
+		int start = 0;
+		if (carryLength > 0) {
+			final int firstNewLine = indexOf(data, 0, length);
+			appendToCarry(data, 0, firstNewLine + 1);
+			addChunk(chunks, carry, 0, carryLength);
+			carry = EMPTY;
+			carryLength = 0;
+			start = firstNewLine + 1;
+		}
+		addChunk(chunks, data, start, lastNewLine + 1 - start);
+		appendToCarry(data, lastNewLine + 1, length - lastNewLine - 1);
+
+		return chunks;
+	}
+
+	/**
+	 * Flushes the final line of the stream if it was not terminated by a new line.
+	 *
+	 * @return The last chunk, or null if there is nothing left.
+	 */
+	public ByteChunk finish() {
+		final List<ByteChunk> chunks = new ArrayList<>(1);
+		addChunk(chunks, carry, 0, carryLength);
+		carry = EMPTY;
+		carryLength = 0;
+
+		return chunks.isEmpty() ? null : chunks.get(0);
+	}
+
+	private void addChunk(final List<ByteChunk> chunks, final byte[] data, final int offset, final int length) {
+		int start = offset;
+		final int end = offset + length;
+		while (linesToSkip > 0 && start < end) {
+			final int newLine = indexOf(data, start, end);
+			start = newLine < 0 ? end : newLine + 1;
+			linesToSkip--;
+			nextLine++;
+		}
+		if (start < end) {
+			chunks.add(new ByteChunk(data, start, end - start, nextLine));
+			nextLine += countNewLines(data, start, end);
+		}
+	}
+
+	private void appendToCarry(final byte[] data, final int offset, final int length) {
+		if (length == 0) {
+			return;
+		}
+		if (carryLength + length > carry.length) {
+			carry = Arrays.copyOf(carry, Math.max(carryLength + length, carry.length * 2));
+		}
+		System.arraycopy(data, offset, carry, carryLength, length);
+		carryLength += length;
+	}
+
+	private static int indexOf(final byte[] data, final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			if (data[i] == NEW_LINE) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int countNewLines(final byte[] data, final int from, final int to) {
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			if (data[i] == NEW_LINE) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static int lastIndexOf(final byte[] data, final int length) {
+		for (int i = length - 1; i >= 0; i--) {
+			if (data[i] == NEW_LINE) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,61 @@
+package ai.facie.tradedatatask.core.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The number of decimal places prices are normalized to, per currency.
+ *
+ * <p>Currencies are matched byte for byte against the currency field of a trade line, without decoding it.
+ * Prices in a configured currency are padded to its scale and rejected if they have more decimal places;
+ * prices in other currencies keep the scale they are written with. Immutable and thread-safe.</p>
+ */
+public final class PriceScales {
+	public static final int AS_WRITTEN = -1;
+	public static final PriceScales NONE = new PriceScales(new byte[0][], new int[0]);
+
+	private final byte[][] currencies;
+	private final int[] scales;
+
+	private PriceScales(final byte[][] currencies, final int[] scales) {
+		this.currencies = currencies;
+		this.scales = scales;
+	}
+
+	/**
+	 * @param scales Number of decimal places per currency code.
+	 * @return The price scales.
+	 * @throws IllegalArgumentException if a scale is negative or above {@link ScaledDecimal#MAX_DIGITS}.
+	 */
+	public static PriceScales of(final Map<String, Integer> scales) {
+		final byte[][] currencies = new byte[scales.size()][];
+		final int[] values = new int[scales.size()];
+		int i = 0;
+		for (final Map.Entry<String, Integer> entry : scales.entrySet()) {
+			final int scale = entry.getValue();
+			if (scale < 0 || scale > ScaledDecimal.MAX_DIGITS) {
+				throw new IllegalArgumentException("Price scale of " + entry.getKey() + " must be between 0 and "
+					+ ScaledDecimal.MAX_DIGITS + ": " + scale);
+			}
+			currencies[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+			values[i++] = scale;
+		}
+		return new PriceScales(currencies, values);
+	}
+
+	/**
+	 * @param data Array holding the currency code.
+	 * @param offset Index of the first byte of the code.
+	 * @param length Number of bytes of the code.
+	 * @return The scale of the currency, or {@link #AS_WRITTEN} if it has none configured.
+	 */
+	public int scaleOf(final byte[] data, final int offset, final int length) {
+		for (int i = 0; i < currencies.length; i++) {
+			if (Arrays.equals(currencies[i], 0, currencies[i].length, data, offset, offset + length)) {
+				return scales[i];
+			}
+		}
+		return AS_WRITTEN;
+	}
+}
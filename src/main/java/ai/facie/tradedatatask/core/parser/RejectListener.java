@@ -0,0 +1,25 @@
+package ai.facie.tradedatatask.core.parser;
+
+/**
+ * Receives the lines a parser rejects.
+ */
+@FunctionalInterface
+public interface RejectListener {
+
+	/**
+	 * Ignores every rejected line.
+	 */
+	RejectListener NONE = (reason, lineNumber, data, start, end) -> {
+	};
+
+	/**
+	 * Called for every rejected line.
+	 *
+	 * @param reason Why the line was rejected.
+	 * @param lineNumber One-based line number of the line within the upload.
+	 * @param data Array holding the line.
+	 * @param start Index of the first byte of the line.
+	 * @param end Index just past the last byte of the line, excluding the line terminator.
+	 */
+	void rejected(RejectReason reason, long lineNumber, byte[] data, int start, int end);
+}
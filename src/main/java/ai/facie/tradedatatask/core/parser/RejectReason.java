@@ -0,0 +1,18 @@
+package ai.facie.tradedatatask.core.parser;
+
+/**
+ * Why an input line was rejected by a parser.
+ */
+public enum RejectReason {
+	MALFORMED_LINE,
+	INVALID_DATE,
+	INVALID_PRODUCT_ID,
+	INVALID_PRICE;
+
+	/**
+	 * @return The reason as a lower-case metric tag value.
+	 */
+	public String tag() {
+		return name().toLowerCase();
+	}
+}
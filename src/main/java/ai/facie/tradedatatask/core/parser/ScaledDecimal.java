@@ -0,0 +1,159 @@
+package ai.facie.tradedatatask.core.parser;
+
+/**
+ * Fixed-point decimals held as an unscaled {@code long} and a scale, the value being
+ * {@code unscaled / 10^scale}.
+ *
+ * <p>Prices are parsed from and written back to bytes directly, without a {@link String} or
+ * {@link java.math.BigDecimal} per value. Values are limited to 18 significant digits including the padding
+ * to the scale, so every unscaled value fits a {@code long} with room for exact rescaling checks.</p>
+ */
+public final class ScaledDecimal {
+	public static final int MAX_DIGITS = 18;
+	public static final long INVALID = Long.MIN_VALUE;
+
+	private static final long[] POWERS_OF_TEN = new long[MAX_DIGITS + 1];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private ScaledDecimal() {
+	}
+
+	/**
+	 * Counts the decimal places of a number as written.
+	 *
+	 * @param data Array holding the number.
+	 * @param offset Index of the first byte of the number.
+	 * @param length Number of bytes of the number.
+	 * @return The number of bytes after the first decimal point, or 0 if there is none.
+	 */
+	public static int scaleOf(final byte[] data, final int offset, final int length) {
+		for (int i = offset; i < offset + length; i++) {
+			if (data[i] == '.') {
+				return offset + length - i - 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Parses a decimal number with an optional leading minus sign and decimal point into an unscaled value of
+	 * the given scale. Numbers with fewer decimal places are padded with zeros.
+	 *
+	 * @param data Array holding the number.
+	 * @param offset Index of the first byte of the number.
+	 * @param length Number of bytes of the number.
+	 * @param scale Scale of the result, at most {@link #MAX_DIGITS}.
+	 * @return The unscaled value, or {@link #INVALID} if the bytes are not a decimal number, have more decimal
+	 * places than the scale or more than {@link #MAX_DIGITS} significant digits once padded.
+	 */
+	public static long parse(final byte[] data, final int offset, final int length, final int scale) {
+		if (scale < 0 || scale > MAX_DIGITS) {
+			return INVALID;
+		}
+
+		final int end = offset + length;
+		int i = offset;
+		final boolean negative = i < end && data[i] == '-';
+		if (negative) {
+			i++;
+		}
+
+		long value = 0;
+		int digits = 0;
+		int significantDigits = 0;
+		int decimals = -1;
+		for (; i < end; i++) {
+			if (data[i] == '.' && decimals < 0) {
+				decimals = 0;
+				continue;
+			}
+			final int digit = data[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return INVALID;
+			}
+			digits++;
+			if (decimals >= 0 && ++decimals > scale) {
+				return INVALID;
+			}
+			if (value != 0 || digit != 0) {
+				if (++significantDigits > MAX_DIGITS) {
+					return INVALID;
+				}
+				value = value * 10 + digit;
+			}
+		}
+
+		final int padding = scale - Math.max(decimals, 0);
+		if (digits == 0 || (value != 0 && significantDigits + padding > MAX_DIGITS)) {
+			return INVALID;
+		}
+
+		value *= POWERS_OF_TEN[padding];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @param unscaled Unscaled value as returned by {@link #parse}.
+	 * @param scale Scale of the value.
+	 * @return The number of bytes {@link #write} writes for the value.
+	 */
+	public static int length(final long unscaled, final int scale) {
+		final int digits = digits(Math.abs(unscaled));
+		final int length = Math.max(1, digits - scale) + (scale > 0 ? scale + 1 : 0);
+
+		return unscaled < 0 ? length + 1 : length;
+	}
+
+	/**
+	 * Writes a value as plain decimal text with exactly {@code scale} decimal places.
+	 *
+	 * @param unscaled Unscaled value as returned by {@link #parse}.
+	 * @param scale Scale of the value.
+	 * @param target Array to write to; must have {@link #length} bytes of room at {@code position}.
+	 * @param position Index to write the first byte to.
+	 * @return The index just past the last byte written.
+	 */
+	public static int write(final long unscaled, final int scale, final byte[] target, final int position) {
+		final int end = position + length(unscaled, scale);
+		long remaining = Math.abs(unscaled);
+		int index = end;
+		if (scale > 0) {
+			for (int i = 0; i < scale; i++) {
+				target[--index] = (byte) ('0' + remaining % 10);
+				remaining /= 10;
+			}
+			target[--index] = '.';
+		}
+		do {
+			target[--index] = (byte) ('0' + remaining % 10);
+			remaining /= 10;
+		} while (remaining > 0);
+		if (unscaled < 0) {
+			target[--index] = '-';
+		}
+
+		return end;
+	}
+
+	/**
+	 * @param exponent Exponent between 0 and {@link #MAX_DIGITS}.
+	 * @return {@code 10^exponent}.
+	 */
+	public static long powerOfTen(final int exponent) {
+		return POWERS_OF_TEN[exponent];
+	}
+
+	private static int digits(final long value) {
+		int digits = 1;
+		while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+			digits++;
+		}
+		return digits;
+	}
+}
@@ -0,0 +1,238 @@
+package ai.facie.tradedatatask.core.parser;
+
+import ai.facie.tradedatatask.core.util.LogRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses {@code date,productId,currency,price} trade lines straight from the bytes of the upload.
+ *
+ * <p>No line is decoded to a {@link String}: the date is validated arithmetically, the product ID and the
+ * price are accumulated into primitive {@code long}s, and the currency is kept as a slice of the chunk.
+ * Prices are normalized to the scale of their currency; see {@link PriceScales}. Invalid lines are skipped
+ * without throwing and reported to a {@link RejectListener} with their line number.</p>
+ */
+@Slf4j
+public final class TradeCsvParser {
+	private static final byte SEPARATOR = ',';
+	private static final byte NEW_LINE = '\n';
+	private static final byte CARRIAGE_RETURN = '\r';
+	private static final int MAX_PRODUCT_ID_DIGITS = 19;
+	private static final int REJECTS_LOGGED_PER_SECOND = 10;
+	private static final String SKIPPING_MESSAGE = "Skipping invalid trade record at line {} ({}): {}";
+	private static final String SKIPPING_AFTER_SUPPRESSED_MESSAGE = SKIPPING_MESSAGE + " ({} more skipped without logging)";
+	private static final LogRateLimiter REJECT_LOG = new LogRateLimiter(REJECTS_LOGGED_PER_SECOND);
+	private static final RejectListener LOGGING_LISTENER = TradeCsvParser::logRejected;
+
+	private TradeCsvParser() {
+	}
+
+	/**
+	 * Parses every line of a chunk, logging a sample of the rejected lines.
+	 *
+	 * @param chunk Chunk of whole lines.
+	 * @return The valid trade records of the chunk, in line order.
+	 */
+	public static List<TradeRecord> parse(final ByteChunk chunk) {
+		return parse(chunk, LOGGING_LISTENER);
+	}
+
+	/**
+	 * Parses every line of a chunk.
+	 *
+	 * @param chunk Chunk of whole lines.
+	 * @param rejectListener Receives every rejected line.
+	 * @return The valid trade records of the chunk, in line order.
+	 */
+	public static List<TradeRecord> parse(final ByteChunk chunk, final RejectListener rejectListener) {
+		return parse(chunk, PriceScales.NONE, rejectListener);
+	}
+
+	/**
+	 * Parses every line of a chunk, normalizing prices to the scale of their currency.
+	 *
+	 * @param chunk Chunk of whole lines.
+	 * @param priceScales Price scales per currency.
+	 * @param rejectListener Receives every rejected line.
+	 * @return The valid trade records of the chunk, in line order.
+	 */
+	public static List<TradeRecord> parse(final ByteChunk chunk, final PriceScales priceScales,
+										  final RejectListener rejectListener) {
+		final byte[] data = chunk.data();
+		final int end = chunk.offset() + chunk.length();
+		final List<TradeRecord> records = new ArrayList<>(chunk.length() / 32 + 1);
+
+		int lineStart = chunk.offset();
+		long lineNumber = chunk.firstLine();
+		while (lineStart < end) {
+			int lineEnd = lineStart;
+			while (lineEnd < end && data[lineEnd] != NEW_LINE) {
+				lineEnd++;
+			}
+			final TradeRecord record = parseLine(data, lineStart, trimCarriageReturn(data, lineStart, lineEnd), lineNumber++,
+				priceScales, rejectListener);
+			if (record != null) {
+				records.add(record);
+			}
+			lineStart = lineEnd + 1;
+		}
+		return records;
+	}
+
+	/**
+	 * Parses a single line.
+	 *
+	 * @param data Array holding the line.
+	 * @param start Index of the first byte of the line.
+	 * @param end Index just past the last byte of the line, excluding the line terminator.
+	 * @param lineNumber Line number of the line, reported if it is rejected.
+	 * @param priceScales Price scales per currency.
+	 * @param rejectListener Receives the line if it is rejected.
+	 * @return The parsed trade record, or null if the line is invalid.
+	 */
+	public static TradeRecord parseLine(final byte[] data, final int start, final int end, final long lineNumber,
+										final PriceScales priceScales, final RejectListener rejectListener) {
+		final int firstSeparator = indexOfSeparator(data, start, end);
+		if (firstSeparator < 0) {
+			return reject(RejectReason.MALFORMED_LINE, lineNumber, data, start, end, rejectListener);
+		}
+		if (firstSeparator - start != TradeRecord.DATE_LENGTH || !isValidDate(data, start)) {
+			return reject(RejectReason.INVALID_DATE, lineNumber, data, start, end, rejectListener);
+		}
+		final int secondSeparator = indexOfSeparator(data, firstSeparator + 1, end);
+		final int thirdSeparator = secondSeparator < 0 ? -1 : indexOfSeparator(data, secondSeparator + 1, end);
+		if (thirdSeparator < 0 || thirdSeparator + 1 == end || indexOfSeparator(data, thirdSeparator + 1, end) >= 0) {
+			return reject(RejectReason.MALFORMED_LINE, lineNumber, data, start, end, rejectListener);
+		}
+
+		final long productId = parseProductId(data, firstSeparator + 1, secondSeparator);
+		if (productId < 0) {
+			return reject(RejectReason.INVALID_PRODUCT_ID, lineNumber, data, start, end, rejectListener);
+		}
+
+		final int currencyOffset = secondSeparator + 1;
+		final int currencyLength = thirdSeparator - currencyOffset;
+		final int priceOffset = thirdSeparator + 1;
+		final int configuredScale = priceScales.scaleOf(data, currencyOffset, currencyLength);
+		final int priceScale = configuredScale == PriceScales.AS_WRITTEN
+			? ScaledDecimal.scaleOf(data, priceOffset, end - priceOffset)
+			: configuredScale;
+		final long price = ScaledDecimal.parse(data, priceOffset, end - priceOffset, priceScale);
+		if (price == ScaledDecimal.INVALID) {
+			return reject(RejectReason.INVALID_PRICE, lineNumber, data, start, end, rejectListener);
+		}
+
+		return new TradeRecord(data, start, productId, currencyOffset, currencyLength, price, priceScale);
+	}
+
+	/**
+	 * Checks that eight bytes form a real calendar date in {@code yyyyMMdd} format.
+	 *
+	 * @param data Array holding the date.
+	 * @param offset Index of the first digit of the year.
+	 * @return true if the bytes are a valid date, otherwise false.
+	 */
+	static boolean isValidDate(final byte[] data, final int offset) {
+		int value = 0;
+		for (int i = offset; i < offset + TradeRecord.DATE_LENGTH; i++) {
+			final int digit = data[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return false;
+			}
+			value = value * 10 + digit;
+		}
+
+		final int year = value / 10_000;
+		final int month = value / 100 % 100;
+		final int day = value % 100;
+
+		return year > 0 && month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month);
+	}
+
+	/**
+	 * Parses a non-negative decimal product ID.
+	 *
+	 * @param data Array holding the digits.
+	 * @param start Index of the first digit.
+	 * @param end Index just past the last digit.
+	 * @return The product ID, or -1 if the bytes are not a valid non-negative {@code long}.
+	 */
+	static long parseProductId(final byte[] data, final int start, final int end) {
+		if (start == end || end - start > MAX_PRODUCT_ID_DIGITS) {
+			return -1;
+		}
+
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			final int digit = data[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+			if (value < 0) {
+				return -1;
+			}
+		}
+		return value;
+	}
+
+	private static int daysInMonth(final int year, final int month) {
+		return switch (month) {
+			case 2 -> isLeapYear(year) ? 29 : 28;
+			case 4, 6, 9, 11 -> 30;
+			default -> 31;
+		};
+	}
+
+	private static boolean isLeapYear(final int year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+	}
+
+	private static int indexOfSeparator(final byte[] data, final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			if (data[i] == SEPARATOR) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int trimCarriageReturn(final byte[] data, final int start, final int end) {
+		return end > start && data[end - 1] == CARRIAGE_RETURN ? end - 1 : end;
+	}
+
+	private static TradeRecord reject(final RejectReason reason, final long lineNumber, final byte[] data, final int start,
+									  final int end, final RejectListener rejectListener) {
+		rejectListener.rejected(reason, lineNumber, data, start, end);
+
+		return null;
+	}
+
+	/**
+	 * Logs a rejected line at warn level, at most {@value #REJECTS_LOGGED_PER_SECOND} lines per second across
+	 * all uploads. Lines beyond that are only counted, and their number is logged with the next line that gets
+	 * through, so a corrupt upload costs about as much as a valid one.
+	 *
+	 * @param reason Why the line was rejected.
+	 * @param lineNumber Line number of the line.
+	 * @param data Array holding the line.
+	 * @param start Index of the first byte of the line.
+	 * @param end Index just past the last byte of the line.
+	 */
+	public static void logRejected(final RejectReason reason, final long lineNumber, final byte[] data, final int start,
+								   final int end) {
+		if (!log.isWarnEnabled() || !REJECT_LOG.tryAcquire()) {
+			return;
+		}
+		final String line = new String(data, start, end - start, StandardCharsets.UTF_8);
+		final long suppressed = REJECT_LOG.takeSuppressed();
+		if (suppressed > 0) {
+			log.warn(SKIPPING_AFTER_SUPPRESSED_MESSAGE, lineNumber, reason.tag(), line, suppressed);
+		} else {
+			log.warn(SKIPPING_MESSAGE, lineNumber, reason.tag(), line);
+		}
+	}
+}
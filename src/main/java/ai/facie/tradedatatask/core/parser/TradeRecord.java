@@ -0,0 +1,26 @@
+package ai.facie.tradedatatask.core.parser;
+
+/**
+ * A parsed trade line. The date and currency are kept as slices of the chunk the line was read from, so they
+ * can be copied to the output without being decoded; the price is parsed into a fixed-point value.
+ *
+ * @param line Backing array of the chunk containing the line.
+ * @param dateOffset Index of the 8-byte {@code yyyyMMdd} date.
+ * @param productId Parsed product ID.
+ * @param currencyOffset Index of the first currency byte.
+ * @param currencyLength Number of currency bytes.
+ * @param price Unscaled price, see {@link ScaledDecimal}.
+ * @param priceScale Number of decimal places of the price.
+ */
+public record TradeRecord(byte[] line, int dateOffset, long productId, int currencyOffset, int currencyLength,
+						  long price, int priceScale) {
+
+	public static final int DATE_LENGTH = 8;
+
+	/**
+	 * @return The number of bytes of the price written as text.
+	 */
+	public int priceLength() {
+		return ScaledDecimal.length(price, priceScale);
+	}
+}
@@ -0,0 +1,82 @@
+package ai.facie.tradedatatask.core.redis;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact encoding of product IDs used as Redis hash fields.
+ *
+ * <p>A canonical decimal ID (no sign, no leading zeros, at most 18 digits) is stored as the unsigned LEB128
+ * varint of {@code id + 1}, so typical IDs take two to four bytes instead of their decimal digits plus the
+ * Java serialization header. Because of the {@code + 1}, no varint starts with a zero byte; any other ID is
+ * stored as a zero byte followed by its UTF-8 bytes, which keeps the two forms apart.</p>
+ */
+public class ProductIdRedisSerializer implements RedisSerializer<String> {
+	private static final int MAX_NUMERIC_DIGITS = 18;
+	private static final int MAX_VARINT_BYTES = 10;
+	private static final byte TEXT_TAG = 0;
+
+	@Override
+	public byte[] serialize(final String productId) {
+		if (productId == null) {
+			return null;
+		}
+		final long numericId = parseCanonical(productId);
+		if (numericId < 0) {
+			final byte[] text = productId.getBytes(StandardCharsets.UTF_8);
+			final byte[] bytes = new byte[text.length + 1];
+			bytes[0] = TEXT_TAG;
+			System.arraycopy(text, 0, bytes, 1, text.length);
+			return bytes;
+		}
+
+		final byte[] bytes = new byte[MAX_VARINT_BYTES];
+		int length = 0;
+		long value = numericId + 1;
+		while ((value & ~0x7FL) != 0) {
+			bytes[length++] = (byte) (value | 0x80);
+			value >>>= 7;
+		}
+		bytes[length++] = (byte) value;
+
+		return Arrays.copyOf(bytes, length);
+	}
+
+	@Override
+	public String deserialize(final byte[] bytes) {
+		if (bytes == null || bytes.length == 0) {
+			return null;
+		}
+		if (bytes[0] == TEXT_TAG) {
+			return new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+		}
+
+		long value = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			value |= (long) (bytes[i] & 0x7F) << (7 * i);
+		}
+		return Long.toString(value - 1);
+	}
+
+	/**
+	 * @return The numeric value of a canonical decimal ID, or -1 if the ID must be stored as text.
+	 */
+	private static long parseCanonical(final String productId) {
+		final int length = productId.length();
+		if (length == 0 || length > MAX_NUMERIC_DIGITS || (length > 1 && productId.charAt(0) == '0')) {
+			return -1;
+		}
+
+		long value = 0;
+		for (int i = 0; i < length; i++) {
+			final int digit = productId.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+}
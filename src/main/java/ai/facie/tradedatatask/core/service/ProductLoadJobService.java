@@ -0,0 +1,30 @@
+package ai.facie.tradedatatask.core.service;
+
+import ai.facie.tradedatatask.core.model.ProductLoadJob;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface ProductLoadJobService {
+
+	/**
+	 * Queues a load of a spooled product CSV and returns without waiting for it.
+	 *
+	 * @param source Name of the upload, for status reports and logs.
+	 * @param file Spooled CSV; the job owns it from here on and deletes it once the load ends.
+	 * @return The queued job.
+	 * @throws java.util.concurrent.RejectedExecutionException if too many loads are already queued;
+	 * the file is deleted in that case too.
+	 */
+	ProductLoadJob submit(String source, Path file);
+
+	Optional<ProductLoadJob> find(String id);
+
+	/**
+	 * Cancels a queued or running job.
+	 *
+	 * @param id Job ID.
+	 * @return The job, or empty if no job with that ID is known.
+	 */
+	Optional<ProductLoadJob> cancel(String id);
+}
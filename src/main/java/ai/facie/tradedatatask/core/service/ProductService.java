@@ -1,11 +1,33 @@
 package ai.facie.tradedatatask.core.service;
 
+import ai.facie.tradedatatask.core.model.ProductLoadProgress;
+import reactor.core.publisher.Mono;
+
 import java.io.InputStream;
-import java.util.List;
 
-public interface ProductService {
+/**
+ * Loads product data and looks up product names. Lookups made directly on the service read whichever
+ * snapshot is current at the time of each call.
+ */
+public interface ProductService extends ProductSnapshot {
+
+	default void loadProductsFromStream(final InputStream stream) {
+		loadProductsFromStream(stream, new ProductLoadProgress());
+	}
 
-	void loadProductsFromStream(InputStream stream);
+	/**
+	 * Loads products from a CSV stream, publishing running totals while the load is in progress.
+	 *
+	 * @param stream The input stream containing product data.
+	 * @param progress Receives the counters of the load.
+	 */
+	void loadProductsFromStream(InputStream stream, ProductLoadProgress progress);
 
-	List<String> getProductNamesInBatch(List<String> productIds);
+	/**
+	 * Pins the current product snapshot, so a whole trade stream is enriched from one version of the
+	 * product data even if a reload finishes in the middle of it.
+	 *
+	 * @return A Mono emitting the snapshot that is current at subscription time.
+	 */
+	Mono<ProductSnapshot> pinSnapshot();
 }
@@ -0,0 +1,37 @@
+package ai.facie.tradedatatask.core.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Product names as of one version of the product data. Lookups through the same snapshot never mix
+ * names of different loads, even while a reload is swapped in.
+ */
+@FunctionalInterface
+public interface ProductSnapshot {
+
+	List<String> getProductNamesInBatch(List<String> productIds);
+
+	/**
+	 * Non-blocking variant of {@link #getProductNamesInBatch(List)}. Implementations backed by a remote
+	 * store should not block the subscribing thread while the lookup is in flight.
+	 *
+	 * @param productIds List of product IDs to fetch names for.
+	 * @return A Mono emitting the product names in the order of the given IDs.
+	 */
+	default Mono<List<String>> getProductNamesInBatchAsync(final List<String> productIds) {
+		return Mono.fromCallable(() -> getProductNamesInBatch(productIds));
+	}
+
+	/**
+	 * Identifies the version of the product data the snapshot reads, so results derived from it can be cached
+	 * until the next reload.
+	 *
+	 * @return The version, unique among the loads of this process, or null if the snapshot cannot tell
+	 * versions apart and its results must not be cached.
+	 */
+	default String version() {
+		return null;
+	}
+}
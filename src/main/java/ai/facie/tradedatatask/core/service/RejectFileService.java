@@ -0,0 +1,23 @@
+package ai.facie.tradedatatask.core.service;
+
+import ai.facie.tradedatatask.core.output.RejectFile;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface RejectFileService {
+
+	/**
+	 * Creates an empty reject file for an upload that is about to be processed.
+	 *
+	 * @return The reject file; the caller closes it once the upload is processed.
+	 * @throws IOException if the file cannot be created.
+	 */
+	RejectFile create() throws IOException;
+
+	/**
+	 * @param id ID of the reject file.
+	 * @return The reject file, or empty if no file with that ID is known or it has expired.
+	 */
+	Optional<RejectFile> find(String id);
+}
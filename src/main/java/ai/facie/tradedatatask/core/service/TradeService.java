@@ -1,11 +1,44 @@
 package ai.facie.tradedatatask.core.service;
 
+import ai.facie.tradedatatask.core.aggregate.TradeGroupBy;
+import ai.facie.tradedatatask.core.model.TradeAggregation;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.parser.RejectListener;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
 
 public interface TradeService {
 
 	Flux<String> enrichTradesStream(InputStream stream);
 
+	void writeTrades(InputStream stream, OutputStream output, TradeOutput format, RejectListener rejects) throws IOException;
+
+	/**
+	 * Like {@link #writeTrades(InputStream, OutputStream, TradeOutput, RejectListener)} for an upload that can be
+	 * read more than once, which allows answering an upload seen before from the result cache.
+	 *
+	 * @param upload Source of the trade data.
+	 * @param output Stream the enriched trades are written to; it is not closed.
+	 * @param format Negotiated format and compression.
+	 * @param rejects Receives every rejected line; uploads with a listener other than {@link RejectListener#NONE}
+	 *                are never answered from the cache.
+	 * @throws IOException if reading the upload or writing to the output fails.
+	 */
+	void writeTrades(InputStreamSource upload, OutputStream output, TradeOutput format, RejectListener rejects) throws IOException;
+
+	Flux<DataBuffer> enrichTrades(Flux<DataBuffer> body, DataBufferFactory bufferFactory, TradeOutput format,
+								  RejectListener rejects);
+
+	Mono<TradeAggregation> aggregateTrades(InputStream stream, Set<TradeGroupBy> groupBy);
+
+	Mono<TradeAggregation> aggregateTrades(Flux<DataBuffer> body, Set<TradeGroupBy> groupBy);
+
 }
@@ -0,0 +1,136 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The product IDs this instance is fetching from Redis right now, so concurrent lookups of the same IDs share one
+ * fetch instead of each sending its own.
+ *
+ * <p>A lookup {@linkplain #claim(long, List) claims} its IDs: every ID nobody is fetching yet becomes its own and
+ * must be fetched by it, every other ID is awaited from the lookup that claimed it first. Claims are keyed by
+ * snapshot version, so lookups of different snapshots never share a name. The claims live in a
+ * {@link ConcurrentHashMap}, whose {@code putIfAbsent} of a new ID takes no lock and otherwise only locks one
+ * bin, so concurrent lookups of different IDs do not wait for each other. An ID is released as soon as its name
+ * arrives; later lookups find it in the near cache.</p>
+ *
+ * <p>Thread-safe.</p>
+ */
+final class InFlightProductLookups {
+	private final ConcurrentHashMap<Key, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Claims the IDs of a lookup. The caller must fetch {@link Claim#ownedIds()}, if there are any, and pass the
+	 * result to {@link Claim#complete(List)} or {@link Claim#fail(Throwable)}, or the lookups waiting for them never
+	 * finish.
+	 *
+	 * @param version Snapshot being read.
+	 * @param productIds Product IDs to look up.
+	 * @return The claim.
+	 */
+	Claim claim(final long version, final List<String> productIds) {
+		final Claim claim = new Claim(version, productIds.size());
+		for (final String productId : productIds) {
+			final CompletableFuture<String> pending = new CompletableFuture<>();
+			final CompletableFuture<String> existing = inFlight.putIfAbsent(new Key(version, productId), pending);
+			if (existing == null) {
+				claim.own(productId, pending);
+			} else {
+				claim.await(existing);
+			}
+		}
+		return claim;
+	}
+
+	/**
+	 * @return Number of product IDs being fetched.
+	 */
+	int size() {
+		return inFlight.size();
+	}
+
+	private record Key(long version, String productId) {}
+
+	/**
+	 * The IDs of one lookup, either fetched by it or by a concurrent lookup.
+	 */
+	final class Claim {
+		private final long version;
+		private final List<CompletableFuture<String>> names;
+		private final List<String> ownedIds = new ArrayList<>();
+		private final List<CompletableFuture<String>> owned = new ArrayList<>();
+
+		private Claim(final long version, final int size) {
+			this.version = version;
+			this.names = new ArrayList<>(size);
+		}
+
+		/**
+		 * @return The IDs this lookup has to fetch, in the order they were claimed.
+		 */
+		List<String> ownedIds() {
+			return ownedIds;
+		}
+
+		/**
+		 * @return Number of IDs a concurrent lookup fetches for this one.
+		 */
+		int coalescedCount() {
+			return names.size() - ownedIds.size();
+		}
+
+		/**
+		 * Hands the fetched names to every lookup waiting for them and releases the owned IDs.
+		 *
+		 * @param fetchedNames Names of {@link #ownedIds()} in their order, null for unknown products; null if none
+		 * were found.
+		 */
+		void complete(final List<String> fetchedNames) {
+			for (int i = 0; i < owned.size(); i++) {
+				// Completed before it is released, so a lookup claiming the ID in between still gets the name.
+				owned.get(i).complete(fetchedNames == null ? null : fetchedNames.get(i));
+				inFlight.remove(new Key(version, ownedIds.get(i)), owned.get(i));
+			}
+		}
+
+		/**
+		 * Fails every lookup waiting for the owned IDs and releases them.
+		 *
+		 * @param error Why the fetch failed.
+		 */
+		void fail(final Throwable error) {
+			for (int i = 0; i < owned.size(); i++) {
+				owned.get(i).completeExceptionally(error);
+				inFlight.remove(new Key(version, ownedIds.get(i)), owned.get(i));
+			}
+		}
+
+		/**
+		 * @return A future of the names of all IDs of the lookup in their order, null for unknown products; it fails
+		 * if a fetch it waits for fails.
+		 */
+		CompletableFuture<List<String>> names() {
+			return CompletableFuture.allOf(names.toArray(CompletableFuture[]::new))
+				.thenApply(ignored -> {
+					final String[] found = new String[names.size()];
+					for (int i = 0; i < found.length; i++) {
+						found[i] = names.get(i).join();
+					}
+					return Arrays.asList(found);
+				});
+		}
+
+		private void own(final String productId, final CompletableFuture<String> pending) {
+			ownedIds.add(productId);
+			owned.add(pending);
+			names.add(pending);
+		}
+
+		private void await(final CompletableFuture<String> existing) {
+			names.add(existing);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import ai.facie.tradedatatask.config.RedisConfig;
+import ai.facie.tradedatatask.core.model.ProductLoadProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies the products written with the {@link ProductStoreProperties.RedisEncoding#JDK} encoding into a
+ * compact snapshot on startup.
+ *
+ * <p>Keys of both encodings live side by side, since the same key name serializes to different bytes, so
+ * switching to the compact encoding makes previously loaded products invisible until they are either
+ * reloaded or migrated here. The migration reads the JDK-encoded current snapshot, or the JDK-encoded flat
+ * keyspace if no snapshot was ever published, and writes it like a regular load. It is skipped once a
+ * compact snapshot exists, so it is safe to leave enabled during a rolling upgrade. The JDK-encoded keys
+ * are left in place for a rollback and can be deleted once the migration has been verified.</p>
+ *
+ * <p>Enabled by default, so an upgraded deployment keeps finding its products instead of answering every trade
+ * with the missing-product placeholder. It only runs with the compact encoding; a deployment that keeps
+ * {@code redis-encoding: jdk} reads its products as before.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${trade-data.product-store.migrate-from-jdk:true} "
+	+ "and '${trade-data.product-store.type:redis}'.equalsIgnoreCase('redis') "
+	+ "and '${trade-data.product-store.redis-encoding:compact}'.equalsIgnoreCase('compact')")
+public class JdkProductMigration implements ApplicationRunner {
+	private static final int SCAN_COUNT = 1000;
+	private static final String KEY_NAMESPACE = "products:";
+
+	/**
+	 * Java serialization stream header followed by {@code TC_STRING}, the first bytes of every serialized
+	 * short string.
+	 */
+	private static final byte[] JDK_STRING_HEADER = {(byte) 0xAC, (byte) 0xED, 0x00, 0x05, 0x74};
+
+	private final ReactiveRedisConnectionFactory connectionFactory;
+	private final ReactiveRedisTemplate<String, String> jdkTemplate;
+	private final RedisProductSnapshots snapshots;
+	private final RedisProductBulkLoader bulkLoader;
+	private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+
+	public JdkProductMigration(final ReactiveRedisConnectionFactory connectionFactory, final RedisProductSnapshots snapshots,
+							   final RedisProductBulkLoader bulkLoader, final ProductStoreProperties properties) {
+		if (properties.getRedisEncoding() != ProductStoreProperties.RedisEncoding.COMPACT) {
+			throw new IllegalStateException("Migrating from the JDK encoding requires trade-data.product-store.redis-encoding=compact");
+		}
+		this.connectionFactory = connectionFactory;
+		this.jdkTemplate = new ReactiveRedisTemplate<>(connectionFactory, RedisConfig.jdkSerializationContext());
+		this.snapshots = snapshots;
+		this.bulkLoader = bulkLoader;
+	}
+
+	@Override
+	public void run(final ApplicationArguments args) {
+		try {
+			if (!snapshots.current().blockOptional().orElse(RedisSnapshotRef.LEGACY).isLegacy()) {
+				log.info("A compact product snapshot exists already, skipping the migration from the JDK encoding.");
+				return;
+			}
+		} catch (final RuntimeException e) {
+			log.error("Could not check for JDK-encoded products to migrate; products have to be reloaded", e);
+			return;
+		}
+
+		final RedisSnapshotRef snapshot = snapshots.allocate();
+		final ProductLoadProgress progress = new ProductLoadProgress();
+		log.info("Migrating JDK-encoded products into snapshot {}.", snapshot.encode());
+		boolean published = false;
+		try {
+			bulkLoader.load(jdkProducts(), snapshot, progress);
+			if (progress.getRowsLoaded() > 0) {
+				published = snapshots.publish(snapshot);
+			}
+			log.info("Migrated {} JDK-encoded products.", progress.getRowsLoaded());
+		} catch (final RuntimeException e) {
+			log.error("Migration from the JDK encoding failed; products have to be reloaded", e);
+		} finally {
+			if (!published) {
+				snapshots.discard(snapshot);
+			}
+		}
+	}
+
+	/**
+	 * @return The products of the JDK-encoded current snapshot, or of the JDK-encoded flat keyspace if no
+	 * snapshot was published with that encoding.
+	 */
+	Flux<Map.Entry<String, String>> jdkProducts() {
+		return jdkTemplate.opsForValue().get(RedisProductSnapshots.CURRENT_KEY)
+			.map(pointer -> snapshotProducts(RedisSnapshotRef.parse(pointer)))
+			.defaultIfEmpty(Flux.defer(this::flatKeyspaceProducts))
+			.flatMapMany(products -> products);
+	}
+
+	/**
+	 * JDK-encoded snapshots predate bucketing, so each is a single hash.
+	 */
+	private Flux<Map.Entry<String, String>> snapshotProducts(final RedisSnapshotRef snapshot) {
+		log.info("Reading JDK-encoded product snapshot {}.", snapshot.encode());
+		return jdkTemplate.<String, String>opsForHash().scan(snapshot.key());
+	}
+
+	/**
+	 * Scans the whole database, since a {@code MATCH} pattern cannot select JDK-serialized keys, and keeps the
+	 * JDK-encoded strings outside the {@code products:} namespace.
+	 */
+	private Flux<Map.Entry<String, String>> flatKeyspaceProducts() {
+		log.info("Reading the JDK-encoded flat product keyspace.");
+		return Flux.usingWhen(
+				Mono.fromSupplier(connectionFactory::getReactiveConnection),
+				connection -> connection.keyCommands().scan(ScanOptions.scanOptions().count(SCAN_COUNT).build()),
+				ReactiveRedisConnection::closeLater)
+			.filter(JdkProductMigration::isJdkString)
+			.map(key -> (String) jdkSerializer.deserialize(toBytes(key)))
+			.filter(key -> !key.startsWith(KEY_NAMESPACE))
+			.buffer(SCAN_COUNT)
+			.concatMap(productIds -> jdkTemplate.opsForValue().multiGet(productIds)
+				.flatMapIterable(productNames -> toProducts(productIds, productNames)));
+	}
+
+	private static List<Map.Entry<String, String>> toProducts(final List<String> productIds, final List<String> productNames) {
+		final List<Map.Entry<String, String>> products = new ArrayList<>(productIds.size());
+		for (int i = 0; i < productIds.size(); i++) {
+			if (productNames.get(i) != null) {
+				products.add(Map.entry(productIds.get(i), productNames.get(i)));
+			}
+		}
+		return products;
+	}
+
+	static boolean isJdkString(final ByteBuffer key) {
+		if (key.remaining() <= JDK_STRING_HEADER.length) {
+			return false;
+		}
+		for (int i = 0; i < JDK_STRING_HEADER.length; i++) {
+			if (key.get(key.position() + i) != JDK_STRING_HEADER[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] toBytes(final ByteBuffer buffer) {
+		final byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,169 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import java.util.Arrays;
+
+/**
+ * The product IDs stored in one snapshot, so lookups of IDs that were never loaded are answered without a
+ * Redis round trip.
+ *
+ * <p>Numeric IDs whose range is dense enough are kept in an exact bitset over {@code [min, max]}; otherwise
+ * the IDs go into a Bloom filter sized for the configured false-positive rate. Either way an ID that was
+ * loaded is never reported as unknown. Immutable and thread-safe once built.</p>
+ */
+final class KnownProductIds {
+	private static final double LN_2 = Math.log(2);
+	private static final int MAX_HASHES = 16;
+
+	private final long[] bits;
+	private final long bitCount;
+	private final int hashes;
+	private final long offset;
+	private final boolean exact;
+
+	private KnownProductIds(final long[] bits, final long bitCount, final int hashes, final long offset, final boolean exact) {
+		this.bits = bits;
+		this.bitCount = bitCount;
+		this.hashes = hashes;
+		this.offset = offset;
+		this.exact = exact;
+	}
+
+	/**
+	 * @param productId Product ID as looked up.
+	 * @return False if the ID was definitely not loaded, true if it may have been.
+	 */
+	boolean mightContain(final String productId) {
+		final long numericId = ProductServiceImpl.parseProductId(productId);
+		if (exact) {
+			final long bit = numericId - offset;
+			return numericId != ProductServiceImpl.NOT_A_PRODUCT_ID && bit >= 0 && bit < bitCount && isSet(bit);
+		}
+		if (bitCount == 0) {
+			return false;
+		}
+
+		final long hash = mix(key(numericId, productId));
+		final long step = mix(hash) | 1;
+		for (int i = 0; i < hashes; i++) {
+			if (!isSet(Long.remainderUnsigned(hash + i * step, bitCount))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Whether the IDs are kept exactly rather than in a Bloom filter.
+	 */
+	boolean isExact() {
+		return exact;
+	}
+
+	/**
+	 * @return Memory taken by the bits, in bytes.
+	 */
+	long sizeInBytes() {
+		return (long) bits.length * Long.BYTES;
+	}
+
+	private boolean isSet(final long bit) {
+		return (bits[(int) (bit >>> 6)] & 1L << bit) != 0;
+	}
+
+	private static void set(final long[] bits, final long bit) {
+		bits[(int) (bit >>> 6)] |= 1L << bit;
+	}
+
+	private static long key(final long numericId, final String productId) {
+		if (numericId != ProductServiceImpl.NOT_A_PRODUCT_ID) {
+			return numericId;
+		}
+
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < productId.length(); i++) {
+			hash = (hash ^ productId.charAt(i)) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * The finalizer of MurmurHash3, spreading every input bit over the whole hash.
+	 */
+	private static long mix(long hash) {
+		hash = (hash ^ hash >>> 33) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ hash >>> 33) * 0xc4ceb9fe1a85ec53L;
+		return hash ^ hash >>> 33;
+	}
+
+	/**
+	 * Collects the IDs of a running load. Used by one thread at a time.
+	 *
+	 * <p>Keeps one long per stored product until {@link #build(double)}, when the final count is known and the
+	 * filter can be sized for it.</p>
+	 */
+	static final class Builder {
+		private long[] keys = new long[1024];
+		private int size;
+		private boolean numeric = true;
+		private long min = Long.MAX_VALUE;
+		private long max = Long.MIN_VALUE;
+
+		/**
+		 * @param productId ID of a stored product.
+		 */
+		void add(final String productId) {
+			final long numericId = ProductServiceImpl.parseProductId(productId);
+			if (numericId == ProductServiceImpl.NOT_A_PRODUCT_ID) {
+				numeric = false;
+			} else {
+				min = Math.min(min, numericId);
+				max = Math.max(max, numericId);
+			}
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+			keys[size++] = key(numericId, productId);
+		}
+
+		/**
+		 * @param falsePositiveRate Share of unknown IDs the Bloom filter may report as known, between 0 and 1 exclusive.
+		 * @return A bitset if it is no larger than the Bloom filter would be, otherwise the Bloom filter.
+		 */
+		KnownProductIds build(final double falsePositiveRate) {
+			if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+				throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1: " + falsePositiveRate);
+			}
+
+			final long bloomBits = size == 0 ? 0 : Math.max(64, (long) Math.ceil(-size * Math.log(falsePositiveRate) / (LN_2 * LN_2)));
+			if (size > 0 && numeric && max - min < bloomBits) {
+				return buildBitset(max - min + 1);
+			}
+			return buildBloomFilter(bloomBits);
+		}
+
+		private KnownProductIds buildBitset(final long bitCount) {
+			final long[] bits = new long[toWords(bitCount)];
+			for (int i = 0; i < size; i++) {
+				set(bits, keys[i] - min);
+			}
+			return new KnownProductIds(bits, bitCount, 0, min, true);
+		}
+
+		private KnownProductIds buildBloomFilter(final long bitCount) {
+			final long[] bits = new long[toWords(bitCount)];
+			final int hashes = size == 0 ? 0 : (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bitCount / size * LN_2)));
+			for (int i = 0; i < size; i++) {
+				final long hash = mix(keys[i]);
+				final long step = mix(hash) | 1;
+				for (int j = 0; j < hashes; j++) {
+					set(bits, Long.remainderUnsigned(hash + j * step, bitCount));
+				}
+			}
+			return new KnownProductIds(bits, bitCount, hashes, 0, false);
+		}
+
+		private static int toWords(final long bitCount) {
+			return Math.toIntExact((bitCount + 63) >>> 6);
+		}
+	}
+}
@@ -0,0 +1,314 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductWarmUpProperties;
+import ai.facie.tradedatatask.core.dictionary.MappedProductDictionary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Local copies of Redis product snapshots, so a restarted instance answers lookups from memory instead of
+ * sending its first requests to Redis with a cold near cache.
+ *
+ * <p>Every load into Redis also writes its products to a {@link MappedProductDictionary} file named after the
+ * snapshot version. On startup the copy of the current snapshot is mapped if this instance wrote it before,
+ * and otherwise the snapshot is pulled from Redis with {@code HSCAN}, several buckets in parallel, and
+ * written to a new copy. Either way every page is loaded into memory before the warm-up is reported done
+ * through {@link ProductWarmUpHealthIndicator}.</p>
+ *
+ * <p>A copy only answers lookups of the snapshot version it was built from, so as with the near cache a reload
+ * never has to invalidate it. It holds every numeric product ID of its snapshot and nothing else: a numeric ID
+ * it does not know is missing from the snapshot as well, while non-numeric IDs are still looked up in Redis.
+ * Copies of older snapshots are deleted once a newer one is in place.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "trade-data.product-store.type", havingValue = "redis", matchIfMissing = true)
+public class LocalProductSnapshots implements ApplicationRunner {
+	private static final String FILE_PREFIX = "products-";
+	private static final String FILE_SUFFIX = ".dict";
+
+	private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+	private final RedisProductSnapshots snapshots;
+	private final ProductWarmUpProperties properties;
+	private final AtomicReference<LocalSnapshot> current = new AtomicReference<>();
+
+	private volatile State state;
+	private volatile Duration warmUpTime;
+
+	public LocalProductSnapshots(@Qualifier("reactiveRedisTemplate") final ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+								 final RedisProductSnapshots snapshots, final ProductWarmUpProperties properties) {
+		this.reactiveRedisTemplate = reactiveRedisTemplate;
+		this.snapshots = snapshots;
+		this.properties = properties;
+		this.state = properties.isEnabled() ? State.PENDING : State.DISABLED;
+	}
+
+	/**
+	 * Starts the warm-up in the background, so the application finishes starting while the readiness
+	 * probe reports it out of service.
+	 */
+	@Override
+	public void run(final ApplicationArguments args) {
+		if (state == State.PENDING) {
+			Schedulers.boundedElastic().schedule(this::warmUp);
+		}
+	}
+
+	/**
+	 * Maps the local copy of the current snapshot, pulling it from Redis first if there is none. A failed
+	 * warm-up only means lookups go to Redis until the next product load.
+	 */
+	void warmUp() {
+		state = State.WARMING;
+		final long start = System.nanoTime();
+		try {
+			final RedisSnapshotRef snapshot = snapshots.current().blockOptional().orElse(RedisSnapshotRef.LEGACY);
+			if (snapshot.isLegacy()) {
+				log.info("No product snapshot was published yet, nothing to warm up.");
+			} else if (!openExistingCopy(snapshot)) {
+				pullFromRedis(snapshot);
+			}
+			state = State.READY;
+		} catch (final IOException | RuntimeException e) {
+			log.error("Product warm-up failed; lookups go to Redis until the next product load", e);
+			state = State.FAILED;
+		} finally {
+			warmUpTime = Duration.ofNanos(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Starts the local copy of a snapshot that is being loaded. A copy that cannot be written only means the
+	 * snapshot is looked up in Redis.
+	 *
+	 * @param snapshot Snapshot being loaded.
+	 * @return The writer, to be closed once the load ends.
+	 */
+	public Writer newWriter(final RedisSnapshotRef snapshot) {
+		if (!properties.isEnabled()) {
+			return new Writer(snapshot.version(), null, null);
+		}
+
+		final Path file = fileOf(snapshot.version());
+		try {
+			return new Writer(snapshot.version(), file, new MappedProductDictionary.Builder(file));
+		} catch (final IOException e) {
+			log.warn("Could not create local copy {} of product snapshot {}", file, snapshot.encode(), e);
+			return new Writer(snapshot.version(), null, null);
+		}
+	}
+
+	/**
+	 * @param version Snapshot being read.
+	 * @return The local copy of the snapshot, or null if there is none.
+	 */
+	MappedProductDictionary dictionaryOf(final long version) {
+		final LocalSnapshot local = current.get();
+		return local != null && local.version() == version ? local.dictionary() : null;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * @return How long the warm-up took, or null if it has not finished.
+	 */
+	public Duration getWarmUpTime() {
+		return warmUpTime;
+	}
+
+	/**
+	 * @return Version of the newest mapped copy, or 0 if none is mapped.
+	 */
+	public long getVersion() {
+		final LocalSnapshot local = current.get();
+		return local == null ? 0 : local.version();
+	}
+
+	/**
+	 * @return Number of products of the newest mapped copy.
+	 */
+	public long getProductCount() {
+		final LocalSnapshot local = current.get();
+		return local == null ? 0 : local.dictionary().size();
+	}
+
+	private boolean openExistingCopy(final RedisSnapshotRef snapshot) {
+		final Path file = fileOf(snapshot.version());
+		if (!Files.exists(file)) {
+			return false;
+		}
+		try {
+			publish(snapshot.version(), file);
+			return true;
+		} catch (final IOException e) {
+			log.warn("Ignoring unreadable local copy {} of product snapshot {}", file, snapshot.encode(), e);
+			return false;
+		}
+	}
+
+	/**
+	 * Reads every bucket of a snapshot with {@code HSCAN} into a new local copy.
+	 */
+	private void pullFromRedis(final RedisSnapshotRef snapshot) throws IOException {
+		log.info("Pulling product snapshot {} from Redis.", snapshot.encode());
+		final ScanOptions scanOptions = ScanOptions.scanOptions().count(properties.getScanCount()).build();
+		try (final Writer writer = newWriter(snapshot)) {
+			Flux.fromIterable(snapshot.keys())
+				.flatMap(key -> reactiveRedisTemplate.<String, String>opsForHash().scan(key, scanOptions), properties.getParallelism())
+				.doOnNext(product -> writer.add(product.getKey(), product.getValue()))
+				.blockLast();
+			if (!writer.publish()) {
+				throw new IOException("Local copy of product snapshot " + snapshot.encode() + " could not be written");
+			}
+		}
+	}
+
+	/**
+	 * Maps a written copy and makes it the one lookups use, unless a newer snapshot was mapped meanwhile.
+	 * Copies of older snapshots are deleted.
+	 */
+	private void publish(final long version, final Path file) throws IOException {
+		final MappedProductDictionary dictionary = MappedProductDictionary.open(file);
+		dictionary.load();
+		final LocalSnapshot published = new LocalSnapshot(version, dictionary);
+		if (current.accumulateAndGet(published, (local, next) -> local == null || next.version() >= local.version() ? next : local) != published) {
+			delete(file);
+			return;
+		}
+		log.info("Product snapshot {} is answered from local copy {} with {} products.", version, file, dictionary.size());
+
+		try (final DirectoryStream<Path> copies = Files.newDirectoryStream(file.toAbsolutePath().getParent(), FILE_PREFIX + "*" + FILE_SUFFIX)) {
+			for (final Path copy : copies) {
+				if (versionOf(copy) < version) {
+					delete(copy);
+				}
+			}
+		}
+	}
+
+	private Path fileOf(final long version) {
+		return properties.getDirectory().resolve(FILE_PREFIX + version + FILE_SUFFIX);
+	}
+
+	/**
+	 * @return The snapshot version a copy was named after, or {@link Long#MAX_VALUE} if the name is not one of ours.
+	 */
+	private static long versionOf(final Path copy) {
+		final String name = copy.getFileName().toString();
+		try {
+			return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+		} catch (final NumberFormatException e) {
+			return Long.MAX_VALUE;
+		}
+	}
+
+	private static void delete(final Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (final IOException e) {
+			log.warn("Could not delete local product snapshot copy {}", file, e);
+		}
+	}
+
+	private record LocalSnapshot(long version, MappedProductDictionary dictionary) {}
+
+	public enum State {
+		/**
+		 * Warm-up is turned off.
+		 */
+		DISABLED,
+		PENDING,
+		WARMING,
+		READY,
+		/**
+		 * Warm-up failed; lookups go to Redis.
+		 */
+		FAILED
+	}
+
+	/**
+	 * Collects the products of one snapshot into its local copy. Used by one thread at a time.
+	 */
+	public final class Writer implements Closeable {
+		private final long version;
+		private final Path file;
+		private final MappedProductDictionary.Builder builder;
+		private boolean complete = true;
+
+		private Writer(final long version, final Path file, final MappedProductDictionary.Builder builder) {
+			this.version = version;
+			this.file = file;
+			this.builder = builder;
+		}
+
+		/**
+		 * @param productId ID of a stored product; non-numeric IDs are left out of the copy.
+		 * @param productName Name of the product.
+		 */
+		public void add(final String productId, final String productName) {
+			if (builder == null) {
+				return;
+			}
+			final long id = ProductServiceImpl.parseProductId(productId);
+			if (id != ProductServiceImpl.NOT_A_PRODUCT_ID && !builder.add(id, productName.getBytes(StandardCharsets.UTF_8))) {
+				complete = false;
+			}
+		}
+
+		/**
+		 * Writes the copy and maps it once every product was added. A copy missing any numeric product would
+		 * report it as unknown, so it is not published.
+		 *
+		 * @return Whether the copy is now used for lookups of its snapshot.
+		 */
+		public boolean publish() {
+			if (builder == null) {
+				return false;
+			}
+			if (!complete) {
+				log.warn("Product snapshot {} has names too long for a local copy; it is looked up in Redis.", version);
+				return false;
+			}
+			try {
+				builder.writeTo(file);
+				LocalProductSnapshots.this.publish(version, file);
+				return true;
+			} catch (final IOException e) {
+				log.warn("Could not write local copy {} of product snapshot {}", file, version, e);
+				delete(file);
+				return false;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (builder == null) {
+				return;
+			}
+			try {
+				builder.close();
+			} catch (final IOException e) {
+				log.warn("Could not remove staging file of local product snapshot copy {}", file, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,243 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import ai.facie.tradedatatask.core.dictionary.MappedProductDictionary;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.model.ProductLoadProgress;
+import ai.facie.tradedatatask.core.service.ProductService;
+import ai.facie.tradedatatask.core.service.ProductSnapshot;
+import ai.facie.tradedatatask.core.util.CountingInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ProductService} backed by a local memory-mapped {@link MappedProductDictionary} instead of Redis.
+ *
+ * <p>Intended for batch jobs that enrich trades without any network hop. The dictionary file survives
+ * restarts and is re-mapped on startup instead of re-parsing the product CSV.</p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "trade-data.product-store.type", havingValue = "mapped")
+public class MappedProductServiceImpl implements ProductService {
+	private static final String MISSING_PRODUCT_NAME = "Missing Product Name";
+	private static final int START_LINE = 1;
+	private static final char SEPARATOR = ',';
+	/** Number of added products after which the load reports its progress, like a batch of the Redis loader. */
+	static final int PROGRESS_ROWS = 10_000;
+
+	private final Path dictionaryFile;
+
+	private final EnrichmentMetrics enrichmentMetrics;
+
+	private final AtomicLong versions = new AtomicLong();
+
+	private volatile MappedDictionary dictionary;
+
+	public MappedProductServiceImpl(final ProductStoreProperties properties, final EnrichmentMetrics enrichmentMetrics) {
+		this.dictionaryFile = properties.getMappedFile();
+		this.enrichmentMetrics = enrichmentMetrics;
+		this.dictionary = new MappedDictionary(openExistingDictionary(dictionaryFile), 0);
+	}
+
+	/**
+	 * Builds a new dictionary file from the product stream and swaps it in once it is complete.
+	 * Lookups keep using the previous dictionary until the swap, and keep it if the load is cancelled.
+	 *
+	 * @param stream The input stream containing product data.
+	 * @param progress Receives the counters of the load.
+	 */
+	@Override
+	public void loadProductsFromStream(final InputStream stream, final ProductLoadProgress progress) {
+		log.info("Starting to build product dictionary {} from stream.", dictionaryFile);
+
+		final CountingInputStream countingStream = new CountingInputStream(stream);
+		progress.setBytesReadSource(countingStream::getCount);
+		progress.start();
+		try (final BufferedReader reader = new BufferedReader(new InputStreamReader(countingStream, StandardCharsets.UTF_8));
+			 final MappedProductDictionary.Builder builder = new MappedProductDictionary.Builder(dictionaryFile)) {
+			enrichmentMetrics.productStage(EnrichmentMetrics.PRODUCT_STAGE_READ_PARSE).recordCallable(() -> addProducts(reader, builder, progress));
+			final long products = enrichmentMetrics.productStage(EnrichmentMetrics.PRODUCT_STAGE_WRITE)
+				.recordCallable(() -> builder.writeTo(dictionaryFile));
+			dictionary = new MappedDictionary(MappedProductDictionary.open(dictionaryFile), versions.incrementAndGet());
+			log.info("Product dictionary {} now holds {} products.", dictionaryFile, products);
+		} catch (final CancellationException e) {
+			log.info("Product dictionary build was cancelled; keeping the previous dictionary.");
+		} catch (final Exception e) {
+			log.error("Error building product dictionary", e);
+			progress.fail(e);
+		} finally {
+			progress.finish();
+			enrichmentMetrics.productBytesRead(countingStream.getCount());
+		}
+	}
+
+	/**
+	 * Retrieves product names from the mapped dictionary for the given list of product IDs.
+	 * If a product ID is not found, it is replaced with a placeholder.
+	 *
+	 * @param productIds List of product IDs to fetch names for.
+	 * @return List of product names corresponding to the given IDs.
+	 */
+	@Override
+	public List<String> getProductNamesInBatch(final List<String> productIds) {
+		return lookupProductNames(dictionary.products(), productIds);
+	}
+
+	/**
+	 * Pins the dictionary that is mapped right now. A reload maps a new dictionary instead of changing
+	 * this one, so the pinned mapping stays readable for as long as the snapshot is referenced. Its version
+	 * counts the dictionaries mapped since startup.
+	 *
+	 * @return A Mono emitting a snapshot over the current dictionary.
+	 */
+	@Override
+	public Mono<ProductSnapshot> pinSnapshot() {
+		return Mono.fromSupplier(() -> {
+			final MappedDictionary pinned = dictionary;
+			return new ProductSnapshot() {
+				@Override
+				public List<String> getProductNamesInBatch(final List<String> productIds) {
+					return lookupProductNames(pinned.products(), productIds);
+				}
+
+				@Override
+				public String version() {
+					return "mapped-" + pinned.version();
+				}
+			};
+		});
+	}
+
+	/**
+	 * Looks up product names in one dictionary, replacing missing ones with a placeholder.
+	 *
+	 * @param current Dictionary to read, or null if no products were loaded yet.
+	 * @param productIds List of product IDs to fetch names for.
+	 * @return List of product names corresponding to the given IDs.
+	 */
+	private List<String> lookupProductNames(final MappedProductDictionary current, final List<String> productIds) {
+		final List<String> productNames = new ArrayList<>(productIds.size());
+
+		int missing = 0;
+		for (final String productId : productIds) {
+			final String productName = current == null ? null : lookup(current, productId);
+			if (productName == null) {
+				missing++;
+			}
+			productNames.add(productName == null ? MISSING_PRODUCT_NAME : productName);
+		}
+		enrichmentMetrics.productNamesMissing(missing);
+
+		return productNames;
+	}
+
+	/**
+	 * Parses every product line and adds it to the dictionary builder.
+	 *
+	 * @param reader BufferedReader reading the input stream.
+	 * @param builder Builder collecting the products.
+	 * @param progress Counts rejected lines, and the added products every {@link #PROGRESS_ROWS} of them.
+	 * @return Number of products added.
+	 * @throws IOException if the stream cannot be read.
+	 * @throws CancellationException if the load was cancelled.
+	 */
+	private int addProducts(final BufferedReader reader, final MappedProductDictionary.Builder builder,
+							final ProductLoadProgress progress) throws IOException {
+		int lineNumber = 0;
+		int added = 0;
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			if (lineNumber++ < START_LINE) {
+				continue;
+			}
+			if (progress.isCancelled()) {
+				throw new CancellationException("Product load was cancelled");
+			}
+			final int separator = line.indexOf(SEPARATOR);
+			final long productId = separator > 0 && separator == line.lastIndexOf(SEPARATOR)
+				? ProductServiceImpl.parseProductId(line, separator)
+				: ProductServiceImpl.NOT_A_PRODUCT_ID;
+			if (productId == ProductServiceImpl.NOT_A_PRODUCT_ID
+				|| !builder.add(productId, line.substring(separator + 1).getBytes(StandardCharsets.UTF_8))) {
+				RejectedProductLog.rejected(line);
+				enrichmentMetrics.productRowRejected();
+				progress.rowRejected();
+			} else {
+				if (++added % PROGRESS_ROWS == 0) {
+					reportAdded(PROGRESS_ROWS, progress);
+				}
+			}
+		}
+		if (added % PROGRESS_ROWS > 0) {
+			reportAdded(added % PROGRESS_ROWS, progress);
+		}
+
+		return added;
+	}
+
+	/**
+	 * Counts products added to the dictionary in the metrics and the progress of the load.
+	 */
+	private void reportAdded(final int rows, final ProductLoadProgress progress) {
+		enrichmentMetrics.productRowsLoaded(rows);
+		progress.batchWritten(rows);
+	}
+
+	/**
+	 * Looks up a single product ID, treating non-numeric IDs, including IDs with leading zeros, as missing.
+	 *
+	 * @param current Dictionary to read from.
+	 * @param productId Product ID as a decimal string.
+	 * @return The product name, or null if it is not known.
+	 */
+	private String lookup(final MappedProductDictionary current, final String productId) {
+		final long id = ProductServiceImpl.parseProductId(productId);
+
+		return id == ProductServiceImpl.NOT_A_PRODUCT_ID ? null : current.get(id);
+	}
+
+	/**
+	 * Maps the dictionary left behind by a previous run, if there is one.
+	 *
+	 * @param file Dictionary file location.
+	 * @return The mapped dictionary, or null if none exists yet.
+	 */
+	private static MappedProductDictionary openExistingDictionary(final Path file) {
+		if (!Files.exists(file)) {
+			return null;
+		}
+
+		try {
+			final MappedProductDictionary existing = MappedProductDictionary.open(file);
+			log.info("Mapped existing product dictionary {} with {} products.", file, existing.size());
+
+			return existing;
+		} catch (final IOException e) {
+			log.error("Ignoring unreadable product dictionary {}", file, e);
+
+			return null;
+		}
+	}
+
+	/**
+	 * The mapped dictionary together with its version, swapped as one.
+	 *
+	 * @param products The dictionary, or null if no products were loaded yet.
+	 * @param version Number of dictionaries mapped since startup when this one was mapped.
+	 */
+	private record MappedDictionary(MappedProductDictionary products, long version) {}
+}
@@ -0,0 +1,40 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+import ai.facie.tradedatatask.core.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The distinct product IDs of a trade batch, together with the position of every trade's product ID among them.
+ *
+ * @param distinctProductIds Product IDs of the batch in order of first appearance, each listed once.
+ * @param namePositions For every trade of the batch, the index of its product ID in {@code distinctProductIds}.
+ */
+record ProductIdBatch(List<String> distinctProductIds, int[] namePositions) {
+
+	/**
+	 * De-duplicates the product IDs of a batch in linear time.
+	 *
+	 * @param batch List of TradeRecord objects.
+	 * @return The distinct product IDs and the per-trade positions.
+	 */
+	static ProductIdBatch of(final List<TradeRecord> batch) {
+		final LongIntHashMap distinctPositions = new LongIntHashMap(batch.size());
+		final List<String> distinctProductIds = new ArrayList<>();
+		final int[] namePositions = new int[batch.size()];
+
+		for (int i = 0; i < batch.size(); i++) {
+			final long productId = batch.get(i).productId();
+			final int position = distinctPositions.putIfAbsent(productId, distinctProductIds.size());
+			if (position == LongIntHashMap.NO_VALUE) {
+				namePositions[i] = distinctProductIds.size();
+				distinctProductIds.add(String.valueOf(productId));
+			} else {
+				namePositions[i] = position;
+			}
+		}
+		return new ProductIdBatch(distinctProductIds, namePositions);
+	}
+}
@@ -0,0 +1,116 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.core.model.ProductLoadJob;
+import ai.facie.tradedatatask.core.service.ProductLoadJobService;
+import ai.facie.tradedatatask.core.service.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs product loads on the bounded product-load executor and keeps their status for polling.
+ *
+ * <p>Finished jobs are kept for the configured retention and evicted lazily on the next submission.</p>
+ */
+@Slf4j
+@Service
+public class ProductLoadJobServiceImpl implements ProductLoadJobService {
+	private final ProductService productService;
+	private final ExecutorService executor;
+	private final ProductLoadProperties properties;
+	private final Map<String, ProductLoadJob> jobs = new ConcurrentHashMap<>();
+
+	public ProductLoadJobServiceImpl(final ProductService productService,
+									 @Qualifier("productLoadExecutor") final ExecutorService executor,
+									 final ProductLoadProperties properties) {
+		this.productService = productService;
+		this.executor = executor;
+		this.properties = properties;
+	}
+
+	@Override
+	public ProductLoadJob submit(final String source, final Path file) {
+		evictFinishedJobs();
+
+		final ProductLoadJob job = new ProductLoadJob(UUID.randomUUID().toString(), source);
+		jobs.put(job.getId(), job);
+		try {
+			executor.execute(() -> run(job, file));
+		} catch (final RejectedExecutionException e) {
+			jobs.remove(job.getId());
+			deleteSpoolFile(file);
+			throw e;
+		}
+		log.info("Queued product load job {} for {}.", job.getId(), source);
+
+		return job;
+	}
+
+	@Override
+	public Optional<ProductLoadJob> find(final String id) {
+		return Optional.ofNullable(jobs.get(id));
+	}
+
+	@Override
+	public Optional<ProductLoadJob> cancel(final String id) {
+		final Optional<ProductLoadJob> job = find(id);
+		job.ifPresent(ProductLoadJob::cancel);
+
+		return job;
+	}
+
+	/**
+	 * Loads the spooled file on a worker thread and records the outcome on the job.
+	 *
+	 * @param job The job to run.
+	 * @param file Spooled CSV, deleted once the load ends.
+	 */
+	private void run(final ProductLoadJob job, final Path file) {
+		try {
+			if (!job.start()) {
+				log.info("Product load job {} was cancelled before it started.", job.getId());
+				return;
+			}
+			try (final InputStream stream = Files.newInputStream(file)) {
+				productService.loadProductsFromStream(stream, job.getProgress());
+			}
+		} catch (final Exception e) {
+			log.error("Product load job {} failed", job.getId(), e);
+			job.getProgress().fail(e);
+		} finally {
+			if (job.getState() == ProductLoadJob.State.RUNNING) {
+				job.finish();
+			}
+			deleteSpoolFile(file);
+		}
+		log.info("Product load job {} ended as {}.", job.getId(), job.getState());
+	}
+
+	private void evictFinishedJobs() {
+		final Instant cutoff = Instant.now().minus(properties.getFinishedJobRetention());
+		jobs.values().removeIf(job -> job.getState().isFinished()
+			&& job.getProgress().getFinishedAt() != null
+			&& job.getProgress().getFinishedAt().isBefore(cutoff));
+	}
+
+	private static void deleteSpoolFile(final Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (final IOException e) {
+			log.warn("Could not delete spooled product file {}", file, e);
+		}
+	}
+}
@@ -1,52 +1,120 @@
 package ai.facie.tradedatatask.core.service.impl;
 
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import ai.facie.tradedatatask.core.cache.ProductNameCache;
+import ai.facie.tradedatatask.core.dictionary.MappedProductDictionary;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.model.ProductLoadProgress;
 import ai.facie.tradedatatask.core.service.ProductService;
+import ai.facie.tradedatatask.core.service.ProductSnapshot;
+import ai.facie.tradedatatask.core.util.CountingInputStream;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Mono;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Service
 @AllArgsConstructor
+@ConditionalOnProperty(name = "trade-data.product-store.type", havingValue = "redis", matchIfMissing = true)
 public class ProductServiceImpl implements ProductService {
 	private static final String MISSING_PRODUCT_NAME = "Missing Product Name";
-	private static final int START_LINE = 1;
-	private static final int BATCH_SIZE = 1000;
+	static final long NOT_A_PRODUCT_ID = Long.MIN_VALUE;
 
 	private final RedisTemplate<String, String> redisTemplate;
 
+	@Qualifier("reactiveRedisTemplate")
+	private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+	private final ProductNameCache productNameCache;
+
+	private final EnrichmentMetrics enrichmentMetrics;
+
+	private final RedisProductBulkLoader bulkLoader;
+
+	private final RedisProductSnapshots snapshots;
+
+	private final ProductStoreProperties storeProperties;
+
+	private final LocalProductSnapshots localSnapshots;
+
+	private final AtomicReference<SnapshotIds> knownIds = new AtomicReference<>();
+
+	private final InFlightProductLookups inFlightLookups = new InFlightProductLookups();
+
 	/**
-	 * Loads product data from an input stream and processes it asynchronously.
+	 * Loads product data from an input stream into a new snapshot with pipelined {@code HSET} batches.
+	 *
+	 * <p>The snapshot only becomes visible once every batch is stored; a failed or cancelled load is
+	 * discarded and readers keep the previous snapshot. Near-cache entries are tagged with their snapshot,
+	 * so the cache needs no invalidation when the new snapshot is swapped in.</p>
+	 *
+	 * <p>The IDs of the stored products are collected into {@link KnownProductIds} as well, and the products into
+	 * a local copy if {@link LocalProductSnapshots} keeps them. Both are published just before the snapshot, so
+	 * lookups the local state can answer never reach Redis.</p>
 	 *
 	 * @param stream The input stream containing product data.
+	 * @param progress Receives the counters of the load.
 	 */
 	@Override
-	public void loadProductsFromStream(final InputStream stream) {
-		log.info("Starting to load products from stream.");
+	public void loadProductsFromStream(final InputStream stream, final ProductLoadProgress progress) {
+		final RedisSnapshotRef snapshot = snapshots.allocate();
+		log.info("Starting to load products from stream into snapshot {}.", snapshot.encode());
 
-		try (final BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
-			processProductStream(reader);
+		final CountingInputStream countingStream = new CountingInputStream(stream);
+		progress.setBytesReadSource(countingStream::getCount);
+		final double falsePositiveRate = storeProperties.getKnownIdsFalsePositiveRate();
+		final KnownProductIds.Builder storedIds = falsePositiveRate > 0 ? new KnownProductIds.Builder() : null;
+		boolean published = false;
+		try (final BufferedReader reader = new BufferedReader(new InputStreamReader(countingStream, StandardCharsets.UTF_8));
+			 final LocalProductSnapshots.Writer localCopy = localSnapshots.newWriter(snapshot)) {
+			bulkLoader.load(reader, snapshot, progress, (productId, productName) -> {
+				if (storedIds != null) {
+					storedIds.add(productId);
+				}
+				localCopy.add(productId, productName);
+			});
+			if (!progress.isCancelled()) {
+				if (storedIds != null) {
+					publishKnownIds(snapshot, storedIds.build(falsePositiveRate));
+				}
+				localCopy.publish();
+				published = snapshots.publish(snapshot);
+			}
 		} catch (final IOException e) {
 			log.error("Error reading from input stream", e);
+			progress.fail(e);
+		} finally {
+			if (!published) {
+				snapshots.discard(snapshot);
+			}
+			enrichmentMetrics.productBytesRead(countingStream.getCount());
 		}
 	}
 
 	/**
-	 * Retrieves product names from Redis for the given list of product IDs.
+	 * Retrieves product names from the current snapshot, serving cached names from the near cache and
+	 * fetching only the misses from Redis.
 	 * If a product ID is not found, it is replaced with a placeholder.
 	 *
 	 * @param productIds List of product IDs to fetch names for.
@@ -54,60 +122,289 @@ public class ProductServiceImpl implements ProductService {
 	 */
 	@Override
 	public List<String> getProductNamesInBatch(final List<String> productIds) {
-		final List<String> productNames = fetchProductNamesFromRedis(productIds);
+		return getProductNamesInBatch(currentSnapshot(), productIds);
+	}
+
+	/**
+	 * Retrieves product names like {@link #getProductNamesInBatch(List)}, but fetches the near-cache misses
+	 * with the reactive Redis client so the caller is not blocked while the lookup is in flight.
+	 *
+	 * @param productIds List of product IDs to fetch names for.
+	 * @return A Mono emitting the product names in the order of the given IDs.
+	 */
+	@Override
+	public Mono<List<String>> getProductNamesInBatchAsync(final List<String> productIds) {
+		return snapshots.current().flatMap(snapshot -> getProductNamesInBatchAsync(snapshot, productIds));
+	}
+
+	/**
+	 * Resolves the current snapshot once; every lookup through the returned snapshot reads that snapshot, and
+	 * keeps it from expiring while lookups go on after a reload retired it.
+	 *
+	 * @return A Mono emitting the pinned snapshot.
+	 */
+	@Override
+	public Mono<ProductSnapshot> pinSnapshot() {
+		return snapshots.current().map(PinnedSnapshot::new);
+	}
+
+	/**
+	 * Keeps the known IDs of a loaded snapshot, unless those of a newer snapshot are kept already.
+	 */
+	private void publishKnownIds(final RedisSnapshotRef snapshot, final KnownProductIds ids) {
+		final SnapshotIds published = new SnapshotIds(snapshot.version(), ids);
+		if (knownIds.accumulateAndGet(published, (kept, next) -> kept == null || next.version() >= kept.version() ? next : kept) != published) {
+			return;
+		}
+		log.info("Known product IDs of snapshot {} kept in a {} of {} bytes.", snapshot.encode(),
+			ids.isExact() ? "bitset" : "Bloom filter", ids.sizeInBytes());
+	}
 
-		return replaceMissingProductNames(productIds, productNames);
+	private RedisSnapshotRef currentSnapshot() {
+		return snapshots.current().blockOptional().orElse(RedisSnapshotRef.LEGACY);
+	}
+
+	private List<String> getProductNamesInBatch(final RedisSnapshotRef snapshot, final List<String> productIds) {
+		final long version = snapshot.version();
+		final NearCacheLookup lookup = lookupInNearCache(version, productIds);
+		if (lookup.hasMisses()) {
+			fillMissedProductNames(version, lookup, fetchMissedProductNames(snapshot, lookup.missedIds()));
+		}
+
+		return replaceMissingProductNames(productIds, lookup.productNames());
+	}
+
+	private Mono<List<String>> getProductNamesInBatchAsync(final RedisSnapshotRef snapshot, final List<String> productIds) {
+		final long version = snapshot.version();
+		return Mono.defer(() -> {
+			final NearCacheLookup lookup = lookupInNearCache(version, productIds);
+			if (!lookup.hasMisses()) {
+				return Mono.just(replaceMissingProductNames(productIds, lookup.productNames()));
+			}
+
+			return fetchMissedProductNamesAsync(snapshot, lookup.missedIds())
+				.doOnNext(fetchedNames -> fillMissedProductNames(version, lookup, fetchedNames))
+				.then(Mono.fromSupplier(() -> replaceMissingProductNames(productIds, lookup.productNames())));
+		});
+	}
+
+	/**
+	 * Resolves as many product IDs as possible from the local copy of the snapshot and the near cache. Numeric
+	 * IDs missing from the local copy, and misses that the known IDs of the snapshot rule out, are left without
+	 * a name instead of being fetched from Redis.
+	 *
+	 * @param version Snapshot being read.
+	 * @param productIds List of product IDs to fetch names for.
+	 * @return The partially filled names together with the IDs and positions that still have to be fetched.
+	 */
+	private NearCacheLookup lookupInNearCache(final long version, final List<String> productIds) {
+		final List<String> productNames = new ArrayList<>(productIds.size());
+		final List<String> missedIds = new ArrayList<>();
+		final List<Integer> missedPositions = new ArrayList<>();
+		final MappedProductDictionary localCopy = localSnapshots.dictionaryOf(version);
+		final KnownProductIds known = knownIdsOf(version);
+		int skipped = 0;
+
+		for (int i = 0; i < productIds.size(); i++) {
+			final long productId = parseProductId(productIds.get(i));
+			if (localCopy != null && productId != NOT_A_PRODUCT_ID) {
+				final String localName = localCopy.get(productId);
+				productNames.add(localName);
+				if (localName == null) {
+					skipped++;
+				}
+				continue;
+			}
+			final String cachedName = productId == NOT_A_PRODUCT_ID ? null : productNameCache.get(version, productId);
+			productNames.add(cachedName);
+			if (cachedName == null) {
+				if (known != null && !known.mightContain(productIds.get(i))) {
+					skipped++;
+				} else {
+					missedIds.add(productIds.get(i));
+					missedPositions.add(i);
+				}
+			}
+		}
+		if (skipped > 0) {
+			enrichmentMetrics.productLookupsSkipped(skipped);
+		}
+		return new NearCacheLookup(productNames, missedIds, missedPositions);
+	}
+
+	/**
+	 * @param version Snapshot being read.
+	 * @return The known IDs of the snapshot, or null if they were not collected by this instance, as for
+	 * snapshots loaded elsewhere or before a restart, which are then looked up in Redis as before.
+	 */
+	private KnownProductIds knownIdsOf(final long version) {
+		final SnapshotIds ids = knownIds.get();
+		return ids != null && ids.version() == version ? ids.ids() : null;
 	}
 
 	/**
-	 * Processes the input streamline by line, parses product data, and stores it in Redis in batches.
+	 * Places the names fetched for cache misses at their original positions and caches them.
 	 *
-	 * @param reader BufferedReader reading the input stream.
+	 * @param version Snapshot the names were read from.
+	 * @param lookup Near-cache lookup being completed.
+	 * @param fetchedNames Names fetched from Redis for the missed IDs, or null if none were found.
 	 */
-	private void processProductStream(final BufferedReader reader) {
-		Flux.fromStream(reader.lines().skip(START_LINE))
-			.map(this::parseProduct)
-			.filter(Objects::nonNull)
-			.buffer(BATCH_SIZE)
-			.doOnNext(this::batchInsertToRedis)
-			.blockLast();
+	private void fillMissedProductNames(final long version, final NearCacheLookup lookup, final List<String> fetchedNames) {
+		if (fetchedNames == null) {
+			return;
+		}
+
+		for (int i = 0; i < lookup.missedIds().size(); i++) {
+			final String productName = fetchedNames.get(i);
+			if (productName != null) {
+				lookup.productNames().set(lookup.missedPositions().get(i), productName);
+				cacheProductName(version, lookup.missedIds().get(i), productName);
+			}
+		}
 	}
 
 	/**
-	 * Parses a single line from the input stream into a key-value product entry.
+	 * Puts a product name into the near cache if its ID is numeric.
 	 *
-	 * @param line A line containing product.
-	 * @return A map entry with product ID as key and product name as value, or null if invalid.
+	 * @param version Snapshot the name was read from.
+	 * @param productId Product ID as stored in Redis.
+	 * @param productName Product name fetched from Redis.
 	 */
-	private Map.Entry<String, String> parseProduct(final String line) {
-		final String[] parts = line.split(",");
-		if (parts.length == 2) {
-			return Map.entry(parts[0], parts[1]);
-		} else {
-			log.warn("Skipping invalid product record: {}", line);
-			return null;
+	private void cacheProductName(final long version, final String productId, final String productName) {
+		final long id = parseProductId(productId);
+		if (id != NOT_A_PRODUCT_ID) {
+			productNameCache.put(version, id, productName);
 		}
 	}
 
 	/**
-	 * Stores a batch of product entries into Redis.
+	 * Fetches the near-cache misses of a lookup. Unless coalescing is disabled, IDs that a concurrent lookup is
+	 * already fetching are awaited from it instead of being fetched again, see {@link InFlightProductLookups}.
 	 *
-	 * @param batch List of product entries to be inserted.
+	 * @param snapshot Snapshot to read.
+	 * @param productIds Missed product IDs.
+	 * @return Names of the given IDs in their order, null for unknown products; null if none were found.
+	 */
+	private List<String> fetchMissedProductNames(final RedisSnapshotRef snapshot, final List<String> productIds) {
+		if (!storeProperties.isCoalesceLookups()) {
+			enrichmentMetrics.productLookupsIssued(productIds.size());
+			return fetchProductNamesFromRedis(snapshot, productIds);
+		}
+
+		final InFlightProductLookups.Claim claim = claim(snapshot, productIds);
+		if (!claim.ownedIds().isEmpty()) {
+			try {
+				claim.complete(fetchProductNamesFromRedis(snapshot, claim.ownedIds()));
+			} catch (final RuntimeException e) {
+				claim.fail(e);
+				throw e;
+			}
+		}
+		try {
+			return claim.names().join();
+		} catch (final CompletionException e) {
+			throw e.getCause() instanceof RuntimeException cause ? cause : e;
+		}
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #fetchMissedProductNames(RedisSnapshotRef, List)}. The fetch of the owned
+	 * IDs runs to its end even if the lookup is cancelled, since concurrent lookups may be waiting for it.
 	 */
-	private void batchInsertToRedis(final List<Map.Entry<String, String>> batch) {
-		final Map<String, String> productMap = batch.stream()
-			.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-		redisTemplate.opsForValue().multiSet(productMap);
+	private Mono<List<String>> fetchMissedProductNamesAsync(final RedisSnapshotRef snapshot, final List<String> productIds) {
+		if (!storeProperties.isCoalesceLookups()) {
+			enrichmentMetrics.productLookupsIssued(productIds.size());
+			return timedFetchProductNamesFromRedisAsync(snapshot, productIds);
+		}
+
+		final InFlightProductLookups.Claim claim = claim(snapshot, productIds);
+		if (!claim.ownedIds().isEmpty()) {
+			// Completing an already completed claim does nothing, so an empty reply still releases the IDs.
+			timedFetchProductNamesFromRedisAsync(snapshot, claim.ownedIds())
+				.subscribe(claim::complete, claim::fail, () -> claim.complete(null));
+		}
+		return Mono.fromFuture(claim.names(), true);
+	}
+
+	private InFlightProductLookups.Claim claim(final RedisSnapshotRef snapshot, final List<String> productIds) {
+		final InFlightProductLookups.Claim claim = inFlightLookups.claim(snapshot.version(), productIds);
+		enrichmentMetrics.productLookupsIssued(claim.ownedIds().size());
+		if (claim.coalescedCount() > 0) {
+			enrichmentMetrics.productLookupsCoalesced(claim.coalescedCount());
+		}
+		return claim;
+	}
+
+	private Mono<List<String>> timedFetchProductNamesFromRedisAsync(final RedisSnapshotRef snapshot, final List<String> productIds) {
+		return Mono.defer(() -> {
+			final Timer.Sample sample = Timer.start();
+			return fetchProductNamesFromRedisAsync(snapshot, productIds)
+				.doOnTerminate(() -> sample.stop(enrichmentMetrics.redisMultiGet()));
+		});
 	}
 
 	/**
-	 * Fetches product names from Redis based on a list of product IDs.
+	 * Fetches product names of one snapshot from Redis based on a list of product IDs.
 	 *
+	 * @param snapshot Snapshot to read.
 	 * @param productIds List of product IDs.
 	 * @return List of product names retrieved from Redis.
 	 */
-	private List<String> fetchProductNamesFromRedis(final List<String> productIds) {
-		return redisTemplate.opsForValue().multiGet(productIds);
+	private List<String> fetchProductNamesFromRedis(final RedisSnapshotRef snapshot, final List<String> productIds) {
+		return enrichmentMetrics.redisMultiGet().record(() -> {
+			if (snapshot.isLegacy()) {
+				return redisTemplate.opsForValue().multiGet(productIds);
+			}
+			if (snapshot.isBucketed()) {
+				return multiGetFromBuckets(snapshot, productIds).block();
+			}
+			return redisTemplate.<String, String>opsForHash().multiGet(snapshot.key(), productIds);
+		});
+	}
+
+	/**
+	 * Non-blocking counterpart of {@link #fetchProductNamesFromRedis(RedisSnapshotRef, List)}.
+	 */
+	private Mono<List<String>> fetchProductNamesFromRedisAsync(final RedisSnapshotRef snapshot, final List<String> productIds) {
+		if (snapshot.isLegacy()) {
+			return reactiveRedisTemplate.opsForValue().multiGet(productIds);
+		}
+		if (snapshot.isBucketed()) {
+			return multiGetFromBuckets(snapshot, productIds);
+		}
+		return reactiveRedisTemplate.<String, String>opsForHash().multiGet(snapshot.key(), productIds);
+	}
+
+	/**
+	 * Fetches product names from a bucketed snapshot with one pipelined {@code HMGET} per bucket the IDs fall into.
+	 *
+	 * @param snapshot Bucketed snapshot to read.
+	 * @param productIds List of product IDs.
+	 * @return A Mono emitting the product names in the order of the given IDs.
+	 */
+	private Mono<List<String>> multiGetFromBuckets(final RedisSnapshotRef snapshot, final List<String> productIds) {
+		final Map<String, List<Integer>> positionsByBucket = new HashMap<>();
+		for (int i = 0; i < productIds.size(); i++) {
+			positionsByBucket.computeIfAbsent(snapshot.keyOf(productIds.get(i)), key -> new ArrayList<>()).add(i);
+		}
+
+		final String[] productNames = new String[productIds.size()];
+		return Flux.fromIterable(positionsByBucket.entrySet())
+			.flatMap(bucket -> {
+				final List<Integer> positions = bucket.getValue();
+				final List<String> bucketIds = new ArrayList<>(positions.size());
+				for (final int position : positions) {
+					bucketIds.add(productIds.get(position));
+				}
+
+				return reactiveRedisTemplate.<String, String>opsForHash().multiGet(bucket.getKey(), bucketIds)
+					.doOnNext(names -> {
+						for (int i = 0; i < positions.size(); i++) {
+							productNames[positions.get(i)] = names.get(i);
+						}
+					});
+			})
+			.then(Mono.fromSupplier(() -> Arrays.asList(productNames)));
 	}
 
 	/**
@@ -119,14 +416,98 @@ public class ProductServiceImpl implements ProductService {
 	 */
 	private List<String> replaceMissingProductNames(final List<String> productIds, final List<String> productNames) {
 		if (productNames == null) {
+			enrichmentMetrics.productNamesMissing(productIds.size());
 			return new ArrayList<>(Collections.nCopies(productIds.size(), MISSING_PRODUCT_NAME));
 		}
 
+		int missing = 0;
 		for (int i = 0; i < productNames.size(); i++) {
 			if (productNames.get(i) == null) {
 				productNames.set(i, MISSING_PRODUCT_NAME);
+				missing++;
 			}
 		}
+		enrichmentMetrics.productNamesMissing(missing);
 		return productNames;
 	}
+
+	/**
+	 * Parses a decimal product ID without throwing, so non-numeric IDs simply bypass the near cache. IDs with
+	 * leading zeros are not numeric either: "0123" and "123" are different products and must not share a key.
+	 *
+	 * @param productId Product ID as stored in Redis.
+	 * @return The numeric product ID, or {@code NOT_A_PRODUCT_ID} if it is not a canonical non-negative decimal
+	 * number.
+	 */
+	static long parseProductId(final String productId) {
+		return parseProductId(productId, productId.length());
+	}
+
+	/**
+	 * Parses the product ID at the start of a string like {@link #parseProductId(String)}, without allocating.
+	 *
+	 * @param text Text starting with the product ID.
+	 * @param end Index just past the last digit.
+	 * @return The numeric product ID, or {@code NOT_A_PRODUCT_ID} if it is not a canonical non-negative decimal
+	 * number.
+	 */
+	static long parseProductId(final String text, final int end) {
+		if (end == 0 || end > 18 || (end > 1 && text.charAt(0) == '0')) {
+			return NOT_A_PRODUCT_ID;
+		}
+
+		long value = 0;
+		for (int i = 0; i < end; i++) {
+			final int digit = text.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return NOT_A_PRODUCT_ID;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	/**
+	 * Lookups pinned to one snapshot.
+	 */
+	private final class PinnedSnapshot implements ProductSnapshot {
+		private final RedisSnapshotRef snapshot;
+		private final RedisProductSnapshots.Lease lease;
+
+		private PinnedSnapshot(final RedisSnapshotRef snapshot) {
+			this.snapshot = snapshot;
+			this.lease = snapshots.lease(snapshot);
+		}
+
+		@Override
+		public List<String> getProductNamesInBatch(final List<String> productIds) {
+			lease.renew().block();
+			return ProductServiceImpl.this.getProductNamesInBatch(snapshot, productIds);
+		}
+
+		@Override
+		public Mono<List<String>> getProductNamesInBatchAsync(final List<String> productIds) {
+			return lease.renew().then(ProductServiceImpl.this.getProductNamesInBatchAsync(snapshot, productIds));
+		}
+
+		@Override
+		public String version() {
+			return Long.toString(snapshot.version());
+		}
+	}
+
+	/**
+	 * Known product IDs of the snapshot of the given version.
+	 */
+	private record SnapshotIds(long version, KnownProductIds ids) {}
+
+	/**
+	 * Product names of a batch as far as the near cache could resolve them.
+	 */
+	private record NearCacheLookup(List<String> productNames, List<String> missedIds, List<Integer> missedPositions) {
+
+		boolean hasMisses() {
+			return !missedIds.isEmpty();
+		}
+	}
 }
\ No newline at end of file
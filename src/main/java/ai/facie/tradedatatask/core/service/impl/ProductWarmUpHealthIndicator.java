@@ -0,0 +1,46 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the product warm-up of {@link LocalProductSnapshots} as {@code productWarmUp}.
+ *
+ * <p>Out of service until the warm-up is done, so the readiness group keeps traffic away from a restarted
+ * instance while its product lookups would still go to Redis. A failed warm-up reports up, since lookups
+ * then simply go to Redis as before.</p>
+ *
+ * <p>Registered with every product store, since the readiness group always includes it: stores without a
+ * warm-up report up with the state {@code DISABLED}.</p>
+ */
+@Component
+public class ProductWarmUpHealthIndicator implements HealthIndicator {
+	private final LocalProductSnapshots localSnapshots;
+
+	public ProductWarmUpHealthIndicator(final ObjectProvider<LocalProductSnapshots> localSnapshots) {
+		this.localSnapshots = localSnapshots.getIfAvailable();
+	}
+
+	@Override
+	public Health health() {
+		if (localSnapshots == null) {
+			return Health.up().withDetail("state", LocalProductSnapshots.State.DISABLED).build();
+		}
+
+		final LocalProductSnapshots.State state = localSnapshots.getState();
+		final Health.Builder health = state == LocalProductSnapshots.State.PENDING || state == LocalProductSnapshots.State.WARMING
+			? Health.outOfService()
+			: Health.up();
+		health.withDetail("state", state);
+		if (localSnapshots.getVersion() > 0) {
+			health.withDetail("snapshot", localSnapshots.getVersion())
+				.withDetail("products", localSnapshots.getProductCount());
+		}
+		if (localSnapshots.getWarmUpTime() != null) {
+			health.withDetail("warmUpMillis", localSnapshots.getWarmUpTime().toMillis());
+		}
+		return health.build();
+	}
+}
@@ -0,0 +1,272 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.model.ProductLoadProgress;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Streams a product CSV into a Redis snapshot with several pipelined {@code HSET} batches in flight.
+ *
+ * <p>Lines are read and parsed on a worker thread while earlier batches are still being written, so a load
+ * is bound by network throughput rather than by one round trip per batch. The batch size adapts to the
+ * observed {@code HSET} latency: batches that come back well under the target grow, slow ones shrink.</p>
+ *
+ * <p>Writes go through the shared reactive Lettuce connection, which pipelines concurrent commands on one
+ * socket instead of needing a connection pool.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "trade-data.product-store.type", havingValue = "redis", matchIfMissing = true)
+public class RedisProductBulkLoader {
+	private static final int START_LINE = 1;
+
+	private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+	private final ProductLoadProperties properties;
+	private final EnrichmentMetrics enrichmentMetrics;
+
+	public RedisProductBulkLoader(@Qualifier("reactiveRedisTemplate") final ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+								  final ProductLoadProperties properties, final EnrichmentMetrics enrichmentMetrics) {
+		this.reactiveRedisTemplate = reactiveRedisTemplate;
+		this.properties = properties;
+		this.enrichmentMetrics = enrichmentMetrics;
+	}
+
+	/**
+	 * Loads every product line of a CSV and blocks until the last batch is stored.
+	 * A cancelled load stops reading, but batches already in flight are still written.
+	 *
+	 * @param reader Reader positioned at the header line of the CSV.
+	 * @param snapshot Snapshot the products are written to.
+	 * @param progress Receives the running totals of the load.
+	 */
+	public void load(final BufferedReader reader, final RedisSnapshotRef snapshot, final ProductLoadProgress progress) {
+		load(reader, snapshot, progress, (productId, productName) -> {});
+	}
+
+	/**
+	 * Loads every product line of a CSV like {@link #load(BufferedReader, RedisSnapshotRef, ProductLoadProgress)}
+	 * and reports every product once its batch is stored.
+	 *
+	 * @param reader Reader positioned at the header line of the CSV.
+	 * @param snapshot Snapshot the products are written to.
+	 * @param progress Receives the running totals of the load.
+	 * @param storedProducts Receives the ID and name of every stored product, one batch at a time.
+	 */
+	public void load(final BufferedReader reader, final RedisSnapshotRef snapshot, final ProductLoadProgress progress,
+					 final BiConsumer<String, String> storedProducts) {
+		load(Flux.fromStream(reader.lines().skip(START_LINE)).mapNotNull(line -> parseProduct(line, progress)), snapshot, progress,
+			storedProducts);
+	}
+
+	/**
+	 * Loads a stream of products keyed by ID and blocks until the last batch is stored.
+	 * A cancelled load stops consuming the stream, but batches already in flight are still written.
+	 *
+	 * @param products Products to store; consumed on a worker thread.
+	 * @param snapshot Snapshot the products are written to.
+	 * @param progress Receives the running totals of the load.
+	 */
+	public void load(final Flux<Map.Entry<String, String>> products, final RedisSnapshotRef snapshot,
+					 final ProductLoadProgress progress) {
+		load(products, snapshot, progress, (productId, productName) -> {});
+	}
+
+	private void load(final Flux<Map.Entry<String, String>> products, final RedisSnapshotRef snapshot,
+					  final ProductLoadProgress progress, final BiConsumer<String, String> storedProducts) {
+		final AdaptiveBatchSize batchSize = new AdaptiveBatchSize(properties);
+		final AtomicLong lastReport = new AtomicLong(System.nanoTime());
+		progress.start();
+
+		try {
+			products
+				.takeWhile(product -> !progress.isCancelled())
+				.bufferUntil(new BatchBoundary(batchSize))
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMap(batch -> writeBatch(snapshot, batch, batchSize), properties.getMaxInFlightBatches())
+				.doOnNext(batch -> {
+					batch.products().forEach(storedProducts);
+					progress.batchWritten(batch.rows());
+					enrichmentMetrics.productRowsLoaded(batch.rows());
+					reportProgress(progress, lastReport);
+				})
+				.blockLast();
+		} finally {
+			progress.finish();
+			log.info("Product load finished: {} products in {} batches, {} rejected, {} ms ({} products/s).",
+				progress.getRowsLoaded(), progress.getBatchesWritten(), progress.getRowsRejected(),
+				progress.getElapsed().toMillis(), progress.getRowsPerSecond());
+		}
+	}
+
+	/**
+	 * Parses a single line from the input stream into a key-value product entry.
+	 *
+	 * @param line A line containing product.
+	 * @param progress Counts the line if it is rejected.
+	 * @return A map entry with product ID as key and product name as value, or null if invalid.
+	 */
+	private Map.Entry<String, String> parseProduct(final String line, final ProductLoadProgress progress) {
+		final String[] parts = line.split(",");
+		if (parts.length == 2) {
+			return Map.entry(parts[0], parts[1]);
+		}
+
+		RejectedProductLog.rejected(line);
+		enrichmentMetrics.productRowRejected();
+		progress.rowRejected();
+
+		return null;
+	}
+
+	/**
+	 * Stores one batch and feeds its latency back into the batch sizing. The batch is a single {@code HSET},
+	 * or one pipelined {@code HSET} per bucket it touches if the snapshot is bucketed.
+	 *
+	 * @param snapshot Snapshot the products are written to.
+	 * @param rows Parsed product rows of the batch.
+	 * @param batchSize Adaptive batch size of the running load.
+	 * @return A Mono emitting the stored batch once Redis has acknowledged it.
+	 */
+	private Mono<StoredBatch> writeBatch(final RedisSnapshotRef snapshot, final List<Map.Entry<String, String>> rows,
+										 final AdaptiveBatchSize batchSize) {
+		return Mono.defer(() -> {
+			final Map<String, String> batch = toProductMap(rows);
+			final long start = System.nanoTime();
+
+			return write(snapshot, batch)
+				.doOnSuccess(stored -> {
+					final long elapsed = System.nanoTime() - start;
+					enrichmentMetrics.redisMultiSet().record(elapsed, TimeUnit.NANOSECONDS);
+					enrichmentMetrics.productStage(EnrichmentMetrics.PRODUCT_STAGE_WRITE).record(elapsed, TimeUnit.NANOSECONDS);
+					batchSize.adjust(rows.size(), elapsed);
+				})
+				.thenReturn(new StoredBatch(batch, rows.size()));
+		});
+	}
+
+	private Mono<Void> write(final RedisSnapshotRef snapshot, final Map<String, String> batch) {
+		final ReactiveHashOperations<String, String, String> hashOperations = reactiveRedisTemplate.opsForHash();
+		if (!snapshot.isBucketed()) {
+			return hashOperations.putAll(snapshot.key(), batch).then();
+		}
+
+		final Map<String, Map<String, String>> buckets = new HashMap<>();
+		batch.forEach((productId, productName) ->
+			buckets.computeIfAbsent(snapshot.keyOf(productId), key -> new HashMap<>()).put(productId, productName));
+
+		return Flux.fromIterable(buckets.entrySet())
+			.flatMap(bucket -> hashOperations.putAll(bucket.getKey(), bucket.getValue()))
+			.then();
+	}
+
+	/**
+	 * Collects a batch into a map; when a product ID repeats, its last name wins, as it would with separate writes.
+	 */
+	private static Map<String, String> toProductMap(final List<Map.Entry<String, String>> batch) {
+		final Map<String, String> products = new HashMap<>(batch.size() * 4 / 3 + 1);
+		for (final Map.Entry<String, String> product : batch) {
+			products.put(product.getKey(), product.getValue());
+		}
+		return products;
+	}
+
+	private void reportProgress(final ProductLoadProgress progress, final AtomicLong lastReport) {
+		final long now = System.nanoTime();
+		final long last = lastReport.get();
+		if (now - last >= properties.getProgressInterval().toNanos() && lastReport.compareAndSet(last, now)) {
+			log.info("Product load in progress: {} products stored, {} rejected, {} bytes read ({} products/s).",
+				progress.getRowsLoaded(), progress.getRowsRejected(), progress.getBytesRead(), progress.getRowsPerSecond());
+		}
+	}
+
+	/**
+	 * Ends a batch once it reaches the current adaptive size and times how long the batch took to read and parse.
+	 *
+	 * <p>Only called from the single reading thread.</p>
+	 */
+	private final class BatchBoundary implements Predicate<Map.Entry<String, String>> {
+		private final AdaptiveBatchSize batchSize;
+		private int count;
+		private Timer.Sample readParse;
+
+		private BatchBoundary(final AdaptiveBatchSize batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		public boolean test(final Map.Entry<String, String> product) {
+			if (count++ == 0) {
+				readParse = Timer.start();
+			}
+			if (count < batchSize.current()) {
+				return false;
+			}
+			readParse.stop(enrichmentMetrics.productStage(EnrichmentMetrics.PRODUCT_STAGE_READ_PARSE));
+			count = 0;
+
+			return true;
+		}
+	}
+
+	/**
+	 * Batch size that doubles while {@code HSET} round trips stay under half the target latency and halves
+	 * when they exceed it, within the configured bounds.
+	 */
+	static final class AdaptiveBatchSize {
+		private final int minimum;
+		private final int maximum;
+		private final long targetNanos;
+		private volatile int current;
+
+		AdaptiveBatchSize(final ProductLoadProperties properties) {
+			this.minimum = Math.max(1, properties.getMinBatchSize());
+			this.maximum = Math.max(minimum, properties.getMaxBatchSize());
+			this.targetNanos = properties.getTargetBatchLatency().toNanos();
+			this.current = Math.min(maximum, Math.max(minimum, properties.getInitialBatchSize()));
+		}
+
+		int current() {
+			return current;
+		}
+
+		/**
+		 * Adjusts the size after a batch was written. Only full-size batches may grow it, so a short final
+		 * batch does not count as evidence that larger batches are cheap.
+		 *
+		 * @param batchSize Number of products in the written batch.
+		 * @param elapsedNanos Round-trip time of the batch.
+		 */
+		void adjust(final int batchSize, final long elapsedNanos) {
+			if (elapsedNanos > targetNanos) {
+				current = Math.max(minimum, Math.min(current, batchSize / 2));
+			} else if (elapsedNanos < targetNanos / 2 && batchSize >= current) {
+				current = Math.min(maximum, batchSize * 2);
+			}
+		}
+	}
+
+	/**
+	 * A stored batch: its products keyed by ID, and the number of rows they were parsed from, which is larger
+	 * when a product ID repeats within the batch.
+	 */
+	private record StoredBatch(Map<String, String> products, int rows) {}
+}
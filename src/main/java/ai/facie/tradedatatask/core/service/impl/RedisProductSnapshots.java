@@ -0,0 +1,229 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versioned product snapshots in Redis.
+ *
+ * <p>Every load writes into a fresh snapshot, see {@link RedisSnapshotRef} for its layout, and becomes visible
+ * with an atomic swap of the {@code products:current} pointer once its last batch is stored. Readers
+ * resolve the pointer once and keep reading that snapshot, so they never see a half-loaded snapshot and never
+ * wait on a reload. The replaced snapshot gets a TTL and is expired by Redis itself once running readers are
+ * done with it, which they signal by no longer renewing their {@link Lease}; a failed or cancelled load is
+ * unlinked right away.</p>
+ *
+ * <p>{@link RedisSnapshotRef#LEGACY} stands for the flat keyspace written before snapshots existed, where
+ * every product is a plain key named after its ID. It is read until the first snapshot is published and is
+ * never deleted automatically.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "trade-data.product-store.type", havingValue = "redis", matchIfMissing = true)
+public class RedisProductSnapshots {
+	static final String VERSION_KEY = "products:version";
+	static final String CURRENT_KEY = "products:current";
+	static final String CURRENT_VERSION_KEY = "products:current:version";
+
+	/**
+	 * Points {@code products:current} at a snapshot unless the current one is at least as new, and returns the
+	 * pointer it replaced, empty if there was none, or nil if the snapshot lost. The versions are compared through
+	 * a plain-text copy next to the pointer, since the pointer is written with the value serializer of the
+	 * template, which may be Java serialization.
+	 */
+	private static final RedisScript<ByteBuffer> PUBLISH_SCRIPT = RedisScript.of(
+		"local current = tonumber(redis.call('GET', KEYS[2])) "
+			+ "if current and current >= tonumber(ARGV[2]) then return false end "
+			+ "local previous = redis.call('GET', KEYS[1]) "
+			+ "redis.call('SET', KEYS[1], ARGV[1]) "
+			+ "redis.call('SET', KEYS[2], ARGV[2]) "
+			+ "return previous or ''",
+		ByteBuffer.class);
+
+	/**
+	 * Pushes back the expiry of a retired snapshot key and returns 1 unless the key is gone. A key without a TTL
+	 * belongs to a snapshot that is still current and is left alone.
+	 */
+	private static final RedisScript<Long> KEEP_ALIVE_SCRIPT = RedisScript.of(
+		"local ttl = redis.call('PTTL', KEYS[1]) "
+			+ "if ttl == -2 then return 0 end "
+			+ "if ttl > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end "
+			+ "return 1",
+		Long.class);
+
+	private final ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+	private final ProductLoadProperties loadProperties;
+	private final ProductStoreProperties storeProperties;
+
+	public RedisProductSnapshots(@Qualifier("reactiveRedisTemplate") final ReactiveRedisTemplate<String, String> reactiveRedisTemplate,
+								 final ProductLoadProperties loadProperties, final ProductStoreProperties storeProperties) {
+		this.reactiveRedisTemplate = reactiveRedisTemplate;
+		this.loadProperties = loadProperties;
+		this.storeProperties = storeProperties;
+	}
+
+	/**
+	 * @return A Mono emitting the snapshot readers should use now, or {@link RedisSnapshotRef#LEGACY} if none was published yet.
+	 */
+	public Mono<RedisSnapshotRef> current() {
+		return reactiveRedisTemplate.opsForValue().get(CURRENT_KEY)
+			.map(RedisSnapshotRef::parse)
+			.defaultIfEmpty(RedisSnapshotRef.LEGACY);
+	}
+
+	/**
+	 * Reserves the snapshot a new load writes into, laid out with the configured number of buckets.
+	 * Versions are unique across all application instances.
+	 *
+	 * @return The new snapshot.
+	 */
+	public RedisSnapshotRef allocate() {
+		final long version = reactiveRedisTemplate.opsForValue().increment(VERSION_KEY).blockOptional()
+			.orElseThrow(() -> new IllegalStateException("Redis returned no product snapshot version"));
+
+		return new RedisSnapshotRef(version, storeProperties.getRedisBuckets());
+	}
+
+	/**
+	 * Makes a fully written snapshot the current one and retires the snapshot it replaces.
+	 *
+	 * <p>When loads run concurrently the newest version wins, whichever finishes last: a snapshot older than the
+	 * current one is not published, and the caller discards it.</p>
+	 *
+	 * @param snapshot The loaded snapshot.
+	 * @return Whether the snapshot is now current.
+	 */
+	public boolean publish(final RedisSnapshotRef snapshot) {
+		final RedisSerializationContext.SerializationPair<String> values =
+			reactiveRedisTemplate.getSerializationContext().getValueSerializationPair();
+		final Optional<ByteBuffer> replaced = reactiveRedisTemplate.execute(PUBLISH_SCRIPT,
+				List.of(CURRENT_KEY, CURRENT_VERSION_KEY),
+				List.of(values.write(snapshot.encode()), StandardCharsets.UTF_8.encode(Long.toString(snapshot.version()))),
+				RedisSerializationContext.SerializationPair.byteBuffer().getWriter(),
+				RedisSerializationContext.SerializationPair.byteBuffer().getReader())
+			.next()
+			.blockOptional();
+		if (replaced.isEmpty()) {
+			log.info("Product snapshot {} is not published, a newer snapshot is current already.", snapshot.encode());
+			return false;
+		}
+
+		final RedisSnapshotRef previous = replaced.get().hasRemaining()
+			? RedisSnapshotRef.parse(values.read(replaced.get()))
+			: RedisSnapshotRef.LEGACY;
+		log.info("Product snapshot {} is now current, replacing {}.", snapshot.encode(), previous.encode());
+
+		if (!previous.isLegacy() && previous.version() != snapshot.version()) {
+			Flux.fromIterable(previous.keys())
+				.flatMap(key -> reactiveRedisTemplate.expire(key, loadProperties.getRetiredSnapshotTtl()))
+				.then()
+				.subscribe(
+					null,
+					error -> log.error("Could not retire product snapshot {}", previous.encode(), error),
+					() -> log.info("Retired product snapshot {} expires in {}.", previous.encode(), loadProperties.getRetiredSnapshotTtl()));
+		}
+		return true;
+	}
+
+	/**
+	 * Takes a lease on a snapshot for a reader that keeps reading it after a newer snapshot is published.
+	 *
+	 * @param snapshot The snapshot the reader is pinned to.
+	 * @return The lease, to be renewed before every lookup.
+	 */
+	public Lease lease(final RedisSnapshotRef snapshot) {
+		return new Lease(snapshot, System.nanoTime());
+	}
+
+	Lease lease(final RedisSnapshotRef snapshot, final long nanoTime) {
+		return new Lease(snapshot, nanoTime);
+	}
+
+	/**
+	 * Drops a snapshot that will never be published, such as one of a failed or cancelled load.
+	 *
+	 * @param snapshot The abandoned snapshot.
+	 */
+	public void discard(final RedisSnapshotRef snapshot) {
+		reactiveRedisTemplate.unlink(Flux.fromIterable(snapshot.keys()))
+			.subscribe(
+				removed -> log.info("Discarded unpublished product snapshot {}.", snapshot.encode()),
+				error -> log.error("Could not discard product snapshot {}", snapshot.encode(), error));
+	}
+
+	/**
+	 * Extends the TTL of every key of a retired snapshot to the full retired snapshot TTL.
+	 *
+	 * @return A Mono emitting whether any key of the snapshot still exists.
+	 */
+	private Mono<Boolean> keepAlive(final RedisSnapshotRef snapshot) {
+		final List<String> ttlMillis = List.of(Long.toString(loadProperties.getRetiredSnapshotTtl().toMillis()));
+		return Flux.fromIterable(snapshot.keys())
+			.flatMap(key -> reactiveRedisTemplate.execute(KEEP_ALIVE_SCRIPT, List.of(key), ttlMillis,
+				RedisElementWriter.from(RedisSerializer.string()),
+				RedisElementReader.from(new GenericToStringSerializer<>(Long.class))))
+			.reduce(0L, Long::sum)
+			.map(alive -> alive > 0);
+	}
+
+	/**
+	 * A reader's hold on the snapshot it is pinned to. A snapshot retired while the reader is still running expires
+	 * a fixed TTL after its retirement, so the lease renews that TTL every quarter of it for as long as the reader
+	 * keeps looking products up.
+	 *
+	 * <p>A reader that paused for longer than the TTL may find the snapshot expired, and Redis would answer every
+	 * lookup with a missing product. The renewal then fails the reader instead, unless the snapshot was kept alive
+	 * by another reader in the meantime.</p>
+	 */
+	public final class Lease {
+		private final RedisSnapshotRef snapshot;
+		private final AtomicLong renewedAt;
+
+		private Lease(final RedisSnapshotRef snapshot, final long nanoTime) {
+			this.snapshot = snapshot;
+			this.renewedAt = new AtomicLong(nanoTime);
+		}
+
+		/**
+		 * @return A Mono completing once the snapshot is known to stay readable for another TTL, or failing with an
+		 * {@link IllegalStateException} if it expired.
+		 */
+		public Mono<Void> renew() {
+			return Mono.defer(() -> renew(System.nanoTime()));
+		}
+
+		Mono<Void> renew(final long nanoTime) {
+			final long ttlNanos = loadProperties.getRetiredSnapshotTtl().toNanos();
+			final long renewed = renewedAt.get();
+			final long idleNanos = nanoTime - renewed;
+			if (snapshot.isLegacy() || idleNanos < ttlNanos / 4 || !renewedAt.compareAndSet(renewed, nanoTime)) {
+				return Mono.empty();
+			}
+
+			return keepAlive(snapshot)
+				.flatMap(alive -> alive || idleNanos < ttlNanos
+					? Mono.<Void>empty()
+					: Mono.error(new IllegalStateException("Product snapshot " + snapshot.encode()
+						+ " expired while a reader was pinned to it; retry against the current snapshot.")));
+		}
+	}
+}
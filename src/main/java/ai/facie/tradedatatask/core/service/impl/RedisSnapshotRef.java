@@ -0,0 +1,103 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Identifies a product snapshot in Redis together with the layout it was written in.
+ *
+ * <p>A snapshot is either one hash, {@code products:snapshot:<version>}, or {@code buckets} hashes named
+ * {@code products:snapshot:<version>:<bucket>} with every product in the bucket its ID hashes to. The bucket
+ * count is part of the {@code products:current} pointer ({@code <version>/<buckets>}), so readers always use
+ * the layout a snapshot was written with, even after the configured count changed.</p>
+ *
+ * @param version Snapshot version; {@code 0} is the flat keyspace written before snapshots existed.
+ * @param buckets Number of bucket hashes, or {@code 0} for a single hash.
+ */
+public record RedisSnapshotRef(long version, int buckets) {
+	public static final RedisSnapshotRef LEGACY = new RedisSnapshotRef(0, 0);
+
+	private static final String KEY_PREFIX = "products:snapshot:";
+	private static final char BUCKETS_SEPARATOR = '/';
+
+	public RedisSnapshotRef {
+		if (version < 0 || buckets < 0) {
+			throw new IllegalArgumentException("Invalid product snapshot " + version + BUCKETS_SEPARATOR + buckets);
+		}
+	}
+
+	/**
+	 * Parses the value of the {@code products:current} pointer.
+	 *
+	 * @param pointer {@code <version>} or {@code <version>/<buckets>}.
+	 * @return The referenced snapshot.
+	 */
+	public static RedisSnapshotRef parse(final String pointer) {
+		final int separator = pointer.indexOf(BUCKETS_SEPARATOR);
+		return separator < 0
+			? new RedisSnapshotRef(Long.parseLong(pointer), 0)
+			: new RedisSnapshotRef(Long.parseLong(pointer.substring(0, separator)), Integer.parseInt(pointer.substring(separator + 1)));
+	}
+
+	/**
+	 * @return The value stored in the {@code products:current} pointer.
+	 */
+	public String encode() {
+		return buckets == 0 ? Long.toString(version) : Long.toString(version) + BUCKETS_SEPARATOR + buckets;
+	}
+
+	public boolean isLegacy() {
+		return version == LEGACY.version;
+	}
+
+	public boolean isBucketed() {
+		return buckets > 0;
+	}
+
+	/**
+	 * @return The hash of a single-hash snapshot.
+	 */
+	public String key() {
+		return KEY_PREFIX + version;
+	}
+
+	/**
+	 * @param productId Product ID as stored in Redis.
+	 * @return The hash holding the given product.
+	 */
+	public String keyOf(final String productId) {
+		return isBucketed() ? key() + ':' + bucketOf(productId) : key();
+	}
+
+	/**
+	 * @return Every Redis key the snapshot consists of.
+	 */
+	public List<String> keys() {
+		if (!isBucketed()) {
+			return List.of(key());
+		}
+
+		final String prefix = key() + ':';
+		final List<String> keys = new ArrayList<>(buckets);
+		for (int bucket = 0; bucket < buckets; bucket++) {
+			keys.add(prefix + bucket);
+		}
+		return keys;
+	}
+
+	/**
+	 * Spreads IDs evenly over the buckets with the MurmurHash3 finalizer, since {@link String#hashCode()} of
+	 * consecutive decimal IDs is clustered. The string hash is specified by the JLS, so every instance agrees
+	 * on the bucket of an ID.
+	 */
+	private int bucketOf(final String productId) {
+		int hash = productId.hashCode();
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		hash ^= hash >>> 16;
+
+		return Math.floorMod(hash, buckets);
+	}
+}
@@ -0,0 +1,74 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.EnrichmentProperties;
+import ai.facie.tradedatatask.core.output.RejectFile;
+import ai.facie.tradedatatask.core.service.RejectFileService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the reject files of trade uploads in temporary files until they have been available for the
+ * configured retention.
+ *
+ * <p>Files are written on the bounded elastic scheduler. Finished files are deleted lazily when the next file
+ * is created.</p>
+ */
+@Slf4j
+@Service
+public class RejectFileServiceImpl implements RejectFileService {
+	private static final Executor WRITER = task -> Schedulers.boundedElastic().schedule(task);
+
+	private final EnrichmentProperties properties;
+	private final Map<String, RejectFile> files = new ConcurrentHashMap<>();
+
+	public RejectFileServiceImpl(final EnrichmentProperties properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public RejectFile create() throws IOException {
+		evictFinishedFiles();
+
+		final Path path = Files.createTempFile("trade-rejects-", ".csv");
+		final RejectFile file = new RejectFile(UUID.randomUUID().toString(), path, properties.getRejectFileMaxRows(), WRITER);
+		files.put(file.getId(), file);
+
+		return file;
+	}
+
+	@Override
+	public Optional<RejectFile> find(final String id) {
+		return Optional.ofNullable(files.get(id));
+	}
+
+	private void evictFinishedFiles() {
+		final Instant cutoff = Instant.now().minus(properties.getRejectFileRetention());
+		files.values().removeIf(file -> {
+			final Instant finishedAt = file.getFinishedAt();
+			if (finishedAt == null || !finishedAt.isBefore(cutoff)) {
+				return false;
+			}
+			deleteFile(file.getPath());
+			return true;
+		});
+	}
+
+	private static void deleteFile(final Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (final IOException e) {
+			log.warn("Could not delete reject file {}", file, e);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.core.util.LogRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Logs invalid product records of the product loaders, at most a few per second.
+ *
+ * <p>A corrupt product file would otherwise log every line; records beyond the limit are only counted by
+ * the callers' metrics and their number is logged with the next record that gets through.</p>
+ */
+@Slf4j
+final class RejectedProductLog {
+	private static final int REJECTS_LOGGED_PER_SECOND = 10;
+	private static final String SKIPPING_MESSAGE = "Skipping invalid product record: {}";
+	private static final String SKIPPING_AFTER_SUPPRESSED_MESSAGE = SKIPPING_MESSAGE + " ({} more skipped without logging)";
+	private static final LogRateLimiter REJECT_LOG = new LogRateLimiter(REJECTS_LOGGED_PER_SECOND);
+
+	private RejectedProductLog() {
+	}
+
+	/**
+	 * Logs an invalid product record at warn level unless the rate limit is reached.
+	 *
+	 * @param line The rejected line.
+	 */
+	static void rejected(final String line) {
+		if (!log.isWarnEnabled() || !REJECT_LOG.tryAcquire()) {
+			return;
+		}
+		final long suppressed = REJECT_LOG.takeSuppressed();
+		if (suppressed > 0) {
+			log.warn(SKIPPING_AFTER_SUPPRESSED_MESSAGE, line, suppressed);
+		} else {
+			log.warn(SKIPPING_MESSAGE, line);
+		}
+	}
+}
@@ -0,0 +1,302 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.EnrichmentProperties;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * One lookup layer shared by every trade upload in flight, which merges their product lookups into shared
+ * multi-gets and takes turns between them.
+ *
+ * <p>Without it every upload sends its own multi-gets up to its in-flight batch limit, so concurrent uploads
+ * multiply the load on Redis and one large upload gets as many round trips as it can take. Here every upload
+ * opens a {@link Session} and queues its lookups in it, and at most the configured number of multi-gets is in
+ * flight across all sessions. Whenever one finishes, the next is assembled by taking one queued lookup from
+ * each session in turn, starting after the session served first last time, until the multi-get reaches the
+ * configured number of product IDs. Lookups of the same product snapshot share it, every ID is asked once,
+ * and each lookup gets the names back in its own order.</p>
+ *
+ * <p>A session has at most the configured number of lookups in flight, so a large upload cannot fill every
+ * slot while others wait. Lookups of snapshots without a version are never merged. A cancelled lookup that is
+ * still queued is dropped.</p>
+ *
+ * <p>Disabled, sessions pass every lookup straight through.</p>
+ */
+@Component
+public class SharedProductLookups {
+	private final boolean enabled;
+	private final int maxConcurrentLookups;
+	private final int batchSize;
+	private final int maxInFlightPerSession;
+
+	/**
+	 * Sessions with queued lookups, in the order they take their turns. Guarded by {@code this}, like the
+	 * queues and in-flight counts of the sessions.
+	 */
+	private final ArrayDeque<Session> ready = new ArrayDeque<>();
+	private int inFlight;
+	private final AtomicInteger dispatchRequests = new AtomicInteger();
+
+	private final LongAdder lookupsRequested = new LongAdder();
+	private final LongAdder multiGetsIssued = new LongAdder();
+
+	public SharedProductLookups(final EnrichmentProperties properties, final EnrichmentMetrics metrics) {
+		this.enabled = properties.isSharedLookups();
+		this.maxConcurrentLookups = Math.max(1, properties.getMaxConcurrentLookups());
+		this.batchSize = Math.max(1, properties.getSharedLookupBatchSize());
+		this.maxInFlightPerSession = Math.max(1, properties.getMaxInFlightLookupsPerUpload());
+		metrics.registerFunctionCounter("product.lookups.shared.requested", lookupsRequested::sum);
+		metrics.registerFunctionCounter("product.lookups.shared.issued", multiGetsIssued::sum);
+	}
+
+	/**
+	 * Opens the session of one upload.
+	 *
+	 * @param snapshotVersion Version of the product snapshot the upload is pinned to, see
+	 * {@link ai.facie.tradedatatask.core.service.ProductSnapshot#version()}; null if lookups must not be merged.
+	 * @param lookup Looks up the names of product IDs in that snapshot.
+	 * @return The session, to be closed once the upload is done.
+	 */
+	public Session open(final String snapshotVersion, final Function<List<String>, Mono<List<String>>> lookup) {
+		return new Session(snapshotVersion, lookup);
+	}
+
+	public long lookupsRequested() {
+		return lookupsRequested.sum();
+	}
+
+	public long multiGetsIssued() {
+		return multiGetsIssued.sum();
+	}
+
+	private void enqueue(final Lookup lookup) {
+		synchronized (this) {
+			final Session session = lookup.session;
+			session.queued.add(lookup);
+			if (!session.ready) {
+				session.ready = true;
+				ready.add(session);
+			}
+		}
+		dispatch();
+	}
+
+	/**
+	 * Issues multi-gets while slots are free and lookups are queued. Runs on one thread at a time: a call while
+	 * another thread, or a lookup completing synchronously further up the stack, is dispatching only makes that
+	 * loop go around once more, so the stack does not grow with every completed lookup.
+	 */
+	private void dispatch() {
+		if (dispatchRequests.getAndIncrement() != 0) {
+			return;
+		}
+		do {
+			Batch batch;
+			while ((batch = reserveNextBatch()) != null) {
+				batch.issue();
+			}
+		} while (dispatchRequests.decrementAndGet() != 0);
+	}
+
+	private synchronized Batch reserveNextBatch() {
+		if (inFlight >= maxConcurrentLookups) {
+			return null;
+		}
+		final Batch batch = nextBatch();
+		if (batch != null) {
+			inFlight++;
+		}
+		return batch;
+	}
+
+	/**
+	 * Assembles the next multi-get, one lookup per session and round. Every session polled goes to the back
+	 * of the turn order, so the next multi-get starts with the session after it.
+	 *
+	 * @return The multi-get, or null if no session may issue a lookup now.
+	 */
+	private Batch nextBatch() {
+		Batch batch = null;
+		boolean added = true;
+		while (added && (batch == null || batch.size() < batchSize)) {
+			added = false;
+			for (int turns = ready.size(); turns > 0 && (batch == null || batch.size() < batchSize); turns--) {
+				final Session session = ready.poll();
+				final Lookup next = session.nextQueued();
+				if (next != null && session.inFlight < maxInFlightPerSession && (batch == null || batch.accepts(session))) {
+					session.queued.poll();
+					session.inFlight++;
+					if (batch == null) {
+						batch = new Batch(session);
+					}
+					batch.add(next);
+					added = true;
+				}
+				if (session.queued.isEmpty()) {
+					session.ready = false;
+				} else {
+					ready.add(session);
+				}
+			}
+		}
+		return batch;
+	}
+
+	private void finished(final Batch batch) {
+		synchronized (this) {
+			inFlight--;
+			for (final Lookup lookup : batch.lookups) {
+				lookup.session.inFlight--;
+			}
+		}
+		dispatch();
+	}
+
+	/**
+	 * Lookups of one upload, all in the same product snapshot.
+	 */
+	public final class Session implements AutoCloseable {
+		private final String snapshotVersion;
+		private final Function<List<String>, Mono<List<String>>> lookup;
+		private final ArrayDeque<Lookup> queued = new ArrayDeque<>();
+		private boolean ready;
+		private int inFlight;
+
+		private Session(final String snapshotVersion, final Function<List<String>, Mono<List<String>>> lookup) {
+			this.snapshotVersion = snapshotVersion;
+			this.lookup = lookup;
+		}
+
+		/**
+		 * Queues a lookup until the scheduler gives this session its turn.
+		 *
+		 * @param productIds Product IDs to look up.
+		 * @return A Mono emitting the names in the order of the given IDs, null for unknown products.
+		 */
+		public Mono<List<String>> lookup(final List<String> productIds) {
+			if (!enabled) {
+				return lookup.apply(productIds);
+			}
+			return Mono.create(sink -> {
+				final Lookup pending = new Lookup(this, productIds, sink);
+				sink.onCancel(() -> pending.cancelled = true);
+				lookupsRequested.increment();
+				enqueue(pending);
+			});
+		}
+
+		/**
+		 * Drops the lookups still queued; their subscribers are gone once the upload is done.
+		 */
+		@Override
+		public void close() {
+			synchronized (SharedProductLookups.this) {
+				queued.clear();
+				if (ready) {
+					ready = false;
+					SharedProductLookups.this.ready.remove(this);
+				}
+			}
+		}
+
+		/**
+		 * @return The first queued lookup that was not cancelled, or null; cancelled ones are dropped.
+		 */
+		private Lookup nextQueued() {
+			while (!queued.isEmpty() && queued.peek().cancelled) {
+				queued.poll();
+			}
+			return queued.peek();
+		}
+	}
+
+	private static final class Lookup {
+		private final Session session;
+		private final List<String> productIds;
+		private final MonoSink<List<String>> sink;
+		private volatile boolean cancelled;
+		private int[] positions;
+
+		private Lookup(final Session session, final List<String> productIds, final MonoSink<List<String>> sink) {
+			this.session = session;
+			this.productIds = productIds;
+			this.sink = sink;
+		}
+	}
+
+	/**
+	 * One shared multi-get and the lookups it answers.
+	 */
+	private final class Batch {
+		private final Session first;
+		private final List<Lookup> lookups = new ArrayList<>();
+		private final List<String> distinctIds = new ArrayList<>();
+		private final Map<String, Integer> positions = new HashMap<>();
+
+		private Batch(final Session first) {
+			this.first = first;
+		}
+
+		int size() {
+			return distinctIds.size();
+		}
+
+		boolean accepts(final Session session) {
+			return first.snapshotVersion != null && Objects.equals(first.snapshotVersion, session.snapshotVersion);
+		}
+
+		void add(final Lookup lookup) {
+			lookup.positions = new int[lookup.productIds.size()];
+			for (int i = 0; i < lookup.positions.length; i++) {
+				lookup.positions[i] = positions.computeIfAbsent(lookup.productIds.get(i), productId -> {
+					distinctIds.add(productId);
+					return distinctIds.size() - 1;
+				});
+			}
+			lookups.add(lookup);
+		}
+
+		void issue() {
+			multiGetsIssued.increment();
+			Mono.defer(() -> first.lookup.apply(distinctIds))
+				.defaultIfEmpty(List.of())
+				.subscribe(this::complete, this::fail);
+		}
+
+		private void complete(final List<String> names) {
+			try {
+				for (final Lookup lookup : lookups) {
+					final String[] found = new String[lookup.positions.length];
+					for (int i = 0; i < found.length; i++) {
+						final int position = lookup.positions[i];
+						found[i] = position < names.size() ? names.get(position) : null;
+					}
+					lookup.sink.success(Arrays.asList(found));
+				}
+			} finally {
+				finished(this);
+			}
+		}
+
+		private void fail(final Throwable error) {
+			try {
+				lookups.forEach(lookup -> lookup.sink.error(error));
+			} finally {
+				finished(this);
+			}
+		}
+	}
+}
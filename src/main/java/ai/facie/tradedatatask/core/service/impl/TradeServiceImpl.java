@@ -1,26 +1,53 @@
 package ai.facie.tradedatatask.core.service.impl;
 
+import ai.facie.tradedatatask.config.EnrichmentProperties;
+import ai.facie.tradedatatask.core.aggregate.TradeAggregator;
+import ai.facie.tradedatatask.core.aggregate.TradeGroupBy;
+import ai.facie.tradedatatask.core.cache.TradeResultCache;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.model.TradeAggregation;
+import ai.facie.tradedatatask.core.output.CsvTradeEncoder;
+import ai.facie.tradedatatask.core.output.DataBufferOutputStream;
+import ai.facie.tradedatatask.core.output.EnrichedBatch;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.output.TradeOutputWriter;
+import ai.facie.tradedatatask.core.parser.ByteChunk;
+import ai.facie.tradedatatask.core.parser.LineChunker;
+import ai.facie.tradedatatask.core.parser.PriceScales;
+import ai.facie.tradedatatask.core.parser.RejectListener;
+import ai.facie.tradedatatask.core.parser.RejectReason;
+import ai.facie.tradedatatask.core.parser.TradeCsvParser;
+import ai.facie.tradedatatask.core.parser.TradeRecord;
 import ai.facie.tradedatatask.core.service.ProductService;
+import ai.facie.tradedatatask.core.service.ProductSnapshot;
 import ai.facie.tradedatatask.core.service.TradeService;
+import ai.facie.tradedatatask.core.util.LongIntHashMap;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -28,13 +55,25 @@ import java.util.stream.Collectors;
 public class TradeServiceImpl implements TradeService {
 	private static final int START_LINE = 1;
 	private static final int BATCH_SIZE = 1000;
-	private static final String DATE_TIME_FORMAT = "yyyyMMdd";
-	private static final Pattern CSV_SPLIT_PATTERN = Pattern.compile(",");
-	private static final String SKIPPING_MESSAGE = "Skipping invalid trade record: {}";
-	public static final String TABLE_HEADER = "date,productName,currency,price\n";
+	private static final String UNKNOWN_PRODUCT_NAME = "UNKNOWN_PRODUCT";
+	private static final byte[] UNKNOWN_PRODUCT = UNKNOWN_PRODUCT_NAME.getBytes(StandardCharsets.UTF_8);
+	public static final String TABLE_HEADER = CsvTradeEncoder.HEADER;
 
 	private final ProductService productService;
 
+	private final EnrichmentProperties enrichmentProperties;
+
+	@Qualifier("tradeEnrichmentScheduler")
+	private final Scheduler enrichmentScheduler;
+
+	private final EnrichmentMetrics enrichmentMetrics;
+
+	private final PriceScales priceScales;
+
+	private final TradeResultCache resultCache;
+
+	private final SharedProductLookups sharedLookups;
+
 	/**
 	 * Enriches trade data from an input stream.
 	 *
@@ -42,153 +81,594 @@ public class TradeServiceImpl implements TradeService {
 	 * @return A Flux stream of processed trade records.
 	 */
 	@Override
-	@SneakyThrows
 	public Flux<String> enrichTradesStream(final InputStream stream) {
 		return Flux.using(
-			() -> createBufferedReader(stream),
+			() -> stream,
 			this::processTradeStream,
-			this::closeBufferedReader
+			this::closeStream
+		);
+	}
+
+	/**
+	 * Enriches trade data from an input stream and writes it to an output stream in the negotiated format.
+	 *
+	 * <p>Rows are encoded straight into one reusable buffer of the configured output buffer size, which is
+	 * compressed and written whenever it is full, so the response sees a few large writes and no per-row
+	 * objects. The input stream is closed and the enrichment is cancelled when writing fails; a failed
+	 * response is cut off without the format's footer or the compression trailer.</p>
+	 *
+	 * @param stream Input stream with the trade data.
+	 * @param output Stream the enriched trades are written to; it is not closed.
+	 * @param format Negotiated format and compression.
+	 * @param rejects Receives every rejected line with its line number, besides the metrics and the log.
+	 * @throws IOException if writing to the output fails.
+	 */
+	@Override
+	public void writeTrades(final InputStream stream, final OutputStream output, final TradeOutput format,
+							final RejectListener rejects) throws IOException {
+		writeBatches(stream, output, format, enrich(readChunksOf(stream), rejects));
+	}
+
+	/**
+	 * Enriches a re-readable upload like {@link #writeTrades(InputStream, OutputStream, TradeOutput, RejectListener)},
+	 * answering from the result cache when the same content was enriched before into the same format from the
+	 * same product snapshot.
+	 *
+	 * <p>With the cache enabled the upload is read twice: once to hash it for the cache key, and on a miss again
+	 * to enrich it, while the response is copied into the cache. A hit is written straight from the cached file
+	 * without parsing a line or looking up a product. Uploads with a reject listener, and snapshots without a
+	 * version, bypass the cache.</p>
+	 *
+	 * @param upload Source of the trade data.
+	 * @param output Stream the enriched trades are written to; it is not closed.
+	 * @param format Negotiated format and compression.
+	 * @param rejects Receives every rejected line with its line number, besides the metrics and the log.
+	 * @throws IOException if reading the upload or writing to the output fails.
+	 */
+	@Override
+	public void writeTrades(final InputStreamSource upload, final OutputStream output, final TradeOutput format,
+							final RejectListener rejects) throws IOException {
+		if (!resultCache.isEnabled() || rejects != RejectListener.NONE) {
+			writeTrades(upload.getInputStream(), output, format, rejects);
+			return;
+		}
+
+		final String contentHash;
+		try (InputStream stream = upload.getInputStream()) {
+			contentHash = TradeResultCache.contentHash(stream);
+		}
+		final ProductSnapshot snapshot = productService.pinSnapshot().block();
+		final String version = snapshot == null ? null : snapshot.version();
+		if (version == null) {
+			writeTrades(upload.getInputStream(), output, format, rejects);
+			return;
+		}
+
+		final TradeResultCache.Key key = new TradeResultCache.Key(contentHash, format.format(), format.coding(), version);
+		try (TradeResultCache.CachedResponse cached = resultCache.get(key)) {
+			if (cached != null) {
+				cached.writeTo(output);
+				return;
+			}
+		}
+
+		try (TradeResultCache.Writer cacheWriter = resultCache.newWriter(key)) {
+			final InputStream stream = upload.getInputStream();
+			writeBatches(stream, cacheWriter.tee(output), format, enrichChunks(readChunksOf(stream), snapshot, RejectListener.NONE));
+			cacheWriter.commit();
+		}
+	}
+
+	/**
+	 * Writes enriched batches in the negotiated format, closing the input stream once they are written or the
+	 * enrichment fails.
+	 */
+	private void writeBatches(final InputStream stream, final OutputStream output, final TradeOutput format,
+							  final Flux<EnrichedBatch> enriched) throws IOException {
+		try (stream;
+			 TradeOutputWriter writer = new TradeOutputWriter(format, output, outputBufferSize());
+			 Stream<EnrichedBatch> batches = enriched.toStream(enrichmentProperties.getMaxInFlightBatches())) {
+			batches.forEach(batch -> writeBatch(writer, batch));
+			writer.finish();
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Enriches trade data arriving as data buffers and writes the result in the negotiated format into
+	 * buffers of the given factory.
+	 *
+	 * <p>Input buffers are released as soon as their bytes are copied into the parser's slices. Rows are
+	 * encoded into a reusable buffer of the configured output buffer size and every full buffer, compressed if
+	 * negotiated, is copied into one buffer of the factory, so a server with a pooled buffer factory writes a
+	 * few large pooled buffers instead of one small write per row. Buffers dropped by a cancelled response are
+	 * released.</p>
+	 *
+	 * @param body Trade CSV as it arrives from the client.
+	 * @param bufferFactory Factory of the response the output is written to.
+	 * @param format Negotiated format and compression.
+	 * @param rejects Receives every rejected line with its line number, besides the metrics and the log.
+	 * @return A Flux of output buffers.
+	 */
+	@Override
+	public Flux<DataBuffer> enrichTrades(final Flux<DataBuffer> body, final DataBufferFactory bufferFactory,
+										 final TradeOutput format, final RejectListener rejects) {
+		return Flux.using(
+				() -> new DataBufferOutputStream(bufferFactory),
+				buffers -> Flux.using(
+					() -> new TradeOutputWriter(format, buffers, outputBufferSize()),
+					writer -> enrich(readChunks(body), rejects)
+						.concatMapIterable(batch -> {
+							writeBatch(writer, batch);
+							return buffers.drain();
+						})
+						.concatWith(Mono.fromCallable(() -> {
+							writer.finish();
+							return buffers.drain();
+						}).flatMapIterable(last -> last)),
+					this::closeWriter),
+				DataBufferOutputStream::close)
+			.doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+	}
+
+	/**
+	 * Rolls trade data from an input stream up into price statistics per group.
+	 *
+	 * @param stream Input stream with the trade data; closed once it is consumed.
+	 * @param groupBy Dimensions to group by; empty for a single group of all trades.
+	 * @return A Mono emitting the rollup once the whole stream is aggregated.
+	 */
+	@Override
+	public Mono<TradeAggregation> aggregateTrades(final InputStream stream, final Set<TradeGroupBy> groupBy) {
+		return Mono.using(
+			() -> stream,
+			source -> aggregate(readChunksOf(source), groupBy),
+			this::closeStream
 		);
 	}
 
 	/**
-	 * Creates a buffered reader for reading the input stream.
+	 * Rolls trade data arriving as data buffers up into price statistics per group.
 	 *
-	 * @param stream Input stream.
-	 * @return BufferedReader instance.
+	 * @param body Trade CSV as it arrives from the client; every buffer is released once copied.
+	 * @param groupBy Dimensions to group by; empty for a single group of all trades.
+	 * @return A Mono emitting the rollup once the whole body is aggregated.
 	 */
-	private BufferedReader createBufferedReader(final InputStream stream) {
-		return new BufferedReader(new InputStreamReader(stream));
+	@Override
+	public Mono<TradeAggregation> aggregateTrades(final Flux<DataBuffer> body, final Set<TradeGroupBy> groupBy) {
+		return aggregate(readChunks(body), groupBy);
+	}
+
+	/**
+	 * Aggregates line-aligned chunks of trades in a single pass.
+	 *
+	 * <p>With a parallelism above one, chunks are spread over that many rails of the enrichment scheduler and
+	 * every rail aggregates into its own accumulator; the partial results are merged once the input is
+	 * exhausted. Rows are never enriched: product names are looked up only for the product IDs of the final
+	 * groups, through one pinned snapshot.</p>
+	 *
+	 * @param chunks Chunks of whole trade lines in stream order.
+	 * @param groupBy Dimensions to group by.
+	 * @return A Mono emitting the rollup.
+	 */
+	private Mono<TradeAggregation> aggregate(final Flux<ByteChunk> chunks, final Set<TradeGroupBy> groupBy) {
+		final int parallelism = enrichmentProperties.getParallelism();
+		final Mono<TradeAggregator> aggregated = parallelism > 1
+			? chunks.parallel(parallelism)
+				.runOn(enrichmentScheduler)
+				.reduce(() -> new TradeAggregator(groupBy), this::aggregateChunk)
+				.reduce(TradeAggregator::merge)
+			: chunks.reduceWith(() -> new TradeAggregator(groupBy), this::aggregateChunk);
+
+		return aggregated
+			.switchIfEmpty(Mono.fromSupplier(() -> new TradeAggregator(groupBy)))
+			.flatMap(aggregator -> lookupGroupProductNames(aggregator.productIds())
+				.map(aggregator::toAggregation));
+	}
+
+	private TradeAggregator aggregateChunk(final TradeAggregator aggregator, final ByteChunk chunk) {
+		final List<TradeRecord> records = parseChunk(chunk, RejectListener.NONE);
+
+		return enrichmentMetrics.tradeStage(EnrichmentMetrics.TRADE_STAGE_AGGREGATE)
+			.record(() -> aggregator.addAll(records));
+	}
+
+	/**
+	 * Looks up the names of the product IDs of a rollup in batches.
+	 *
+	 * @param productIds Distinct product IDs.
+	 * @return A Mono emitting the name of every product ID, {@code UNKNOWN_PRODUCT} for unknown products.
+	 */
+	private Mono<LongFunction<String>> lookupGroupProductNames(final long[] productIds) {
+		if (productIds.length == 0) {
+			return Mono.just(productId -> UNKNOWN_PRODUCT_NAME);
+		}
+
+		final List<String> ids = Arrays.stream(productIds).mapToObj(String::valueOf).toList();
+		final String[] names = new String[productIds.length];
+
+		return productService.pinSnapshot()
+			.flatMap(snapshot -> Mono.using(
+				() -> openLookups(snapshot),
+				lookups -> Flux.range(0, (ids.size() + BATCH_SIZE - 1) / BATCH_SIZE)
+					.flatMap(batch -> {
+						final int from = batch * BATCH_SIZE;
+						final int to = Math.min(from + BATCH_SIZE, ids.size());
+						return lookups.lookup(ids.subList(from, to))
+							.doOnNext(found -> {
+								for (int i = 0; i < Math.min(found.size(), to - from); i++) {
+									names[from + i] = found.get(i);
+								}
+							});
+					}, enrichmentProperties.getMaxInFlightBatches())
+					.then(),
+				SharedProductLookups.Session::close))
+			.then(Mono.fromSupplier(() -> {
+				final LongIntHashMap positions = new LongIntHashMap(productIds.length);
+				for (int i = 0; i < productIds.length; i++) {
+					positions.put(productIds[i], i);
+				}
+				return productId -> {
+					final int position = positions.get(productId);
+					final String name = position == LongIntHashMap.NO_VALUE ? null : names[position];
+					return name == null ? UNKNOWN_PRODUCT_NAME : name;
+				};
+			}));
 	}
 
 	/**
 	 * Processes the trade data stream, parses and enriches trade records.
 	 *
-	 * @param reader BufferedReader for reading the trade data.
+	 * @param stream Input stream with the trade data.
 	 * @return A Flux stream of formatted trade records.
 	 */
-	private Flux<String> processTradeStream(final BufferedReader reader) {
-		return Flux.fromStream(reader.lines().skip(START_LINE))
-			.map(this::parseTrade)
-			.filter(Objects::nonNull)
-			.buffer(BATCH_SIZE)
-			.flatMap(this::fetchProductNamesInBatch)
+	private Flux<String> processTradeStream(final InputStream stream) {
+		return enrich(readChunksOf(stream), RejectListener.NONE)
+			.concatMapIterable(this::formatRows)
 			.startWith(TABLE_HEADER);
 	}
 
 	/**
-	 * Closes the BufferedReader instance safely.
+	 * Reads the input stream on the enrichment scheduler in virtual-thread mode and on the bounded elastic
+	 * scheduler otherwise. Never on the subscribing thread: downstream asks for more chunks from whichever
+	 * thread completed a product lookup, which is the Redis client's event loop, and a blocking read of a slow
+	 * upload there would stall the Redis traffic of every request.
+	 */
+	private Flux<ByteChunk> readChunksOf(final InputStream stream) {
+		return readChunks(stream)
+			.subscribeOn(enrichmentProperties.isVirtualThreads() ? enrichmentScheduler : Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Parses and enriches line-aligned chunks of trades.
 	 *
-	 * @param reader BufferedReader instance to close.
+	 * <p>With a parallelism above one, every line-aligned chunk is parsed and enriched on the enrichment
+	 * scheduler, and the results are re-assembled in chunk order so the output keeps the input row order.</p>
+	 *
+	 * <p>The product snapshot is pinned once per stream, so a product reload finishing mid-stream does not
+	 * mix old and new names in one response.</p>
+	 *
+	 * @param chunks Chunks of whole trade lines in stream order.
+	 * @param rejects Receives the rejected lines of the stream.
+	 * @return A Flux of enriched trade batches, in input order.
 	 */
-	private void closeBufferedReader(final BufferedReader reader) {
-		Schedulers.boundedElastic().schedule(() -> {
-			try {
-				reader.close();
-			} catch (final IOException e) {
-				log.error("Error closing BufferedReader", e);
-			}
-		});
+	private Flux<EnrichedBatch> enrich(final Flux<ByteChunk> chunks, final RejectListener rejects) {
+		return productService.pinSnapshot()
+			.flatMapMany(snapshot -> enrichChunks(chunks, snapshot, rejects));
+	}
+
+	private Flux<EnrichedBatch> enrichChunks(final Flux<ByteChunk> chunks, final ProductSnapshot snapshot,
+											 final RejectListener rejects) {
+		final int parallelism = enrichmentProperties.getParallelism();
+
+		return Flux.using(
+			() -> openLookups(snapshot),
+			lookups -> parallelism > 1
+				? chunks.flatMapSequential(chunk -> enrichChunk(chunk, lookups, rejects).subscribeOn(enrichmentScheduler), parallelism)
+				: enrichRecords(chunks.concatMapIterable(chunk -> parseChunk(chunk, rejects)), lookups),
+			SharedProductLookups.Session::close);
 	}
 
 	/**
-	 * Parses a single trade record line into a TradeRecord object.
+	 * Parses and enriches a single chunk.
 	 *
-	 * @param line A line from the input data.
-	 * @return A parsed TradeRecord object or null if invalid.
+	 * @param chunk Chunk of whole trade lines.
+	 * @param lookups Lookup session of the stream.
+	 * @param rejects Receives the rejected lines of the stream.
+	 * @return A Flux of enriched trade batches of the chunk, in line order.
 	 */
-	private TradeRecord parseTrade(final String line) {
-		final String[] parts = CSV_SPLIT_PATTERN.split(line);
-		if (isValidTradeRecord(parts)) {
-			return createTradeRecord(parts);
-		}
-		log.warn(SKIPPING_MESSAGE, line);
+	private Flux<EnrichedBatch> enrichChunk(final ByteChunk chunk, final SharedProductLookups.Session lookups,
+											final RejectListener rejects) {
+		return enrichRecords(Flux.defer(() -> Flux.fromIterable(parseChunk(chunk, rejects))), lookups);
+	}
+
+	/**
+	 * Parses a chunk, counting parsed and rejected rows. Prices are normalized to the configured scale of
+	 * their currency.
+	 *
+	 * @param chunk Chunk of whole trade lines.
+	 * @param rejects Receives the rejected lines of the stream.
+	 * @return The valid trade records of the chunk, in line order.
+	 */
+	private List<TradeRecord> parseChunk(final ByteChunk chunk, final RejectListener rejects) {
+		final List<TradeRecord> records = enrichmentMetrics.tradeStage(EnrichmentMetrics.TRADE_STAGE_PARSE)
+			.record(() -> TradeCsvParser.parse(chunk, priceScales, (reason, lineNumber, data, start, end) ->
+				onRejected(reason, lineNumber, data, start, end, rejects)));
+		enrichmentMetrics.tradeRowsParsed(records.size());
+
+		return records;
+	}
 
-		return null;
+	/**
+	 * Counts a rejected trade line, logs it if the log rate allows, and hands it to the stream's listener.
+	 */
+	private void onRejected(final RejectReason reason, final long lineNumber, final byte[] data, final int start,
+							final int end, final RejectListener rejects) {
+		enrichmentMetrics.tradeRowRejected(reason);
+		TradeCsvParser.logRejected(reason, lineNumber, data, start, end);
+		rejects.rejected(reason, lineNumber, data, start, end);
 	}
 
 	/**
-	 * Validates a trade record based on the expected data format.
+	 * Looks up product names batch by batch and joins them to the trade records.
+	 *
+	 * <p>Up to the configured number of lookups are in flight at once while parsing continues; results
+	 * are still emitted in batch order.</p>
 	 *
-	 * @param parts Array of trade record fields.
-	 * @return true if the trade record is valid, otherwise false.
+	 * @param records Parsed trade records.
+	 * @param lookups Lookup session of the stream.
+	 * @return A Flux of enriched trade batches, in input order.
 	 */
-	private boolean isValidTradeRecord(final String[] parts) {
-		return parts.length == 4 && isValidDate(parts[0]);
+	private Flux<EnrichedBatch> enrichRecords(final Flux<TradeRecord> records, final SharedProductLookups.Session lookups) {
+		return records
+			.buffer(BATCH_SIZE)
+			.flatMapSequential(batch -> fetchProductNamesInBatch(batch, lookups), enrichmentProperties.getMaxInFlightBatches());
 	}
 
 	/**
-	 * Creates a TradeRecord object from parsed fields.
+	 * Reads the input stream in slices of the configured chunk size and cuts them into chunks of whole lines,
+	 * dropping the header line.
 	 *
-	 * @param parts Array of trade record fields.
-	 * @return A TradeRecord object or null if parsing fails.
+	 * @param stream Input stream with the trade data.
+	 * @return A Flux of line-aligned chunks in stream order.
 	 */
-	private TradeRecord createTradeRecord(final String[] parts) {
-		try {
-			return new TradeRecord(parts[0], Long.parseLong(parts[1]), parts[2], parts[3]);
-		} catch (NumberFormatException e) {
-			log.warn("Skipping invalid product ID: {}", parts[1]);
+	private Flux<ByteChunk> readChunks(final InputStream stream) {
+		final LineChunker chunker = new LineChunker(START_LINE);
+		final int chunkSize = (int) enrichmentProperties.getChunkSize().toBytes();
 
-			return null;
+		return Flux.<List<ByteChunk>>generate(sink -> {
+				final List<ByteChunk> chunks = readNextChunks(stream, chunker, chunkSize);
+				if (chunks == null) {
+					sink.complete();
+				} else {
+					sink.next(chunks);
+				}
+			})
+			.concatMapIterable(chunks -> chunks);
+	}
+
+	/**
+	 * Reads the next slice of the stream.
+	 *
+	 * @param stream Input stream with the trade data.
+	 * @param chunker Chunker holding the partial line left over from the previous slice.
+	 * @param chunkSize Number of bytes to read.
+	 * @return The chunks completed by the slice, or null once the stream is exhausted.
+	 */
+	@SneakyThrows
+	private List<ByteChunk> readNextChunks(final InputStream stream, final LineChunker chunker, final int chunkSize) {
+		final byte[] slice = new byte[chunkSize];
+		final Timer.Sample sample = Timer.start();
+		final int length = stream.readNBytes(slice, 0, chunkSize);
+		sample.stop(enrichmentMetrics.tradeStage(EnrichmentMetrics.TRADE_STAGE_READ));
+		if (length > 0) {
+			enrichmentMetrics.tradeBytesRead(length);
+			return chunker.feed(slice, length);
 		}
+
+		final ByteChunk last = chunker.finish();
+		return last == null ? null : List.of(last);
 	}
 
 	/**
-	 * Fetches product names for a batch of trade records.
+	 * Cuts a body arriving as data buffers into chunks of whole lines, dropping the header line. Buffers are
+	 * gathered into slices of the configured chunk size first, so chunks are as large as with a stream.
 	 *
-	 * @param batch List of TradeRecord objects.
-	 * @return A Flux stream of formatted trade records with enriched product names.
+	 * @param body Body buffers in arrival order; each is released once copied.
+	 * @return A Flux of line-aligned chunks in body order.
 	 */
-	private Flux<String> fetchProductNamesInBatch(final List<TradeRecord> batch) {
-		final List<String> productIds = batch.stream().map(trade -> String.valueOf(trade.productId())).toList();
-		final List<String> productNames = productService.getProductNamesInBatch(productIds);
+	private Flux<ByteChunk> readChunks(final Flux<DataBuffer> body) {
+		return Flux.defer(() -> {
+			final BufferSlicer slicer = new BufferSlicer((int) enrichmentProperties.getChunkSize().toBytes());
 
-		return mapTradesToTable(batch, productNames);
+			return body
+				.concatMapIterable(slicer::feed)
+				.concatWith(Flux.defer(() -> Flux.fromIterable(slicer.finish())));
+		});
 	}
 
 	/**
-	 * Maps trade records to a formatted output including product names.
+	 * Closes the input stream safely.
+	 *
+	 * @param stream Input stream to close.
+	 */
+	private void closeStream(final InputStream stream) {
+		Schedulers.boundedElastic().schedule(() -> {
+			try {
+				stream.close();
+			} catch (final IOException e) {
+				log.error("Error closing trade input stream", e);
+			}
+		});
+	}
+
+	/**
+	 * Fetches product names for a batch of trade records.
+	 *
+	 * <p>Every product ID is requested only once per batch; each trade remembers the position of its
+	 * product in the de-duplicated request so the names can be joined back in linear time.</p>
+	 *
+	 * <p>In virtual-thread mode each lookup is a blocking call on its own virtual thread. The lookups of a
+	 * stream are scoped to it: they are bounded by the in-flight batch limit, and cancelling or failing the
+	 * stream cancels the lookups still pending.</p>
 	 *
 	 * @param batch List of TradeRecord objects.
-	 * @param productNames List of product names corresponding to the batch.
-	 * @return A Flux stream of formatted trade records.
+	 * @param lookups Lookup session of the stream.
+	 * @return A Mono emitting the trade records of the batch with their product names.
 	 */
-	private Flux<String> mapTradesToTable(final List<TradeRecord> batch, final List<String> productNames) {
-		final Map<Long, String> tradeProductMap = batch.stream()
-			.collect(Collectors.toMap(TradeRecord::productId, trade -> productNames.get(batch.indexOf(trade)), (a, b) -> a));
+	private Mono<EnrichedBatch> fetchProductNamesInBatch(final List<TradeRecord> batch, final SharedProductLookups.Session lookups) {
+		final ProductIdBatch productIds = ProductIdBatch.of(batch);
+		enrichmentMetrics.tradeBatchEmitted();
 
-		return Flux.fromIterable(batch)
-			.map(trade -> formatTradeRecord(trade, tradeProductMap.getOrDefault(trade.productId(), "UNKNOWN_PRODUCT")));
+		return Mono.defer(() -> {
+				final Timer.Sample sample = Timer.start();
+				return lookups.lookup(productIds.distinctProductIds())
+					.doOnSuccess(productNames -> sample.stop(enrichmentMetrics.tradeStage(EnrichmentMetrics.TRADE_STAGE_LOOKUP)));
+			})
+			.map(productNames -> toEnrichedBatch(batch, productIds, productNames));
 	}
 
 	/**
-	 * Formats a trade record into a structured output line.
+	 * Opens the lookup session of one stream, which sends its lookups through the shared lookup layer when
+	 * that is enabled.
 	 *
-	 * @param trade TradeRecord object.
-	 * @param productName Enriched product name.
-	 * @return A formatted trade record string.
+	 * @param snapshot Product snapshot pinned for the stream.
+	 * @return The session, to be closed once the stream ends.
 	 */
-	private String formatTradeRecord(final TradeRecord trade, final String productName) {
-		return trade.date() + "," + productName + "," + trade.currency() + "," + trade.price() + System.lineSeparator();
+	private SharedProductLookups.Session openLookups(final ProductSnapshot snapshot) {
+		return sharedLookups.open(snapshot.version(), productIds -> lookupProductNames(snapshot, productIds));
+	}
+
+	private Mono<List<String>> lookupProductNames(final ProductSnapshot snapshot, final List<String> productIds) {
+		return enrichmentProperties.isVirtualThreads()
+			? Mono.fromCallable(() -> snapshot.getProductNamesInBatch(productIds)).subscribeOn(enrichmentScheduler)
+			: snapshot.getProductNamesInBatchAsync(productIds);
 	}
 
 	/**
-	 * Validates if a given date string matches the expected format.
+	 * Joins the product names to a batch of trade records, encoding every distinct name once.
 	 *
-	 * @param dateStr Date string to validate.
-	 * @return true if the date is valid, otherwise false.
+	 * @param batch List of TradeRecord objects.
+	 * @param productIds Distinct product IDs of the batch and the position of each trade's product among them.
+	 * @param productNames Product names of the distinct product IDs, null or missing for unknown products.
+	 * @return The enriched batch.
 	 */
-	private boolean isValidDate(final String dateStr) {
+	static EnrichedBatch toEnrichedBatch(final List<TradeRecord> batch, final ProductIdBatch productIds,
+										 final List<String> productNames) {
+		final byte[][] names = new byte[productIds.distinctProductIds().size()][];
+		for (int i = 0; i < names.length; i++) {
+			final String productName = i < productNames.size() ? productNames.get(i) : null;
+			names[i] = productName == null ? UNKNOWN_PRODUCT : productName.getBytes(StandardCharsets.UTF_8);
+		}
+
+		return new EnrichedBatch(batch, productIds.namePositions(), names);
+	}
+
+	/**
+	 * Encodes an enriched batch into the output, which compresses and hands over every buffer it fills on the
+	 * way.
+	 */
+	private void writeBatch(final TradeOutputWriter writer, final EnrichedBatch batch) {
+		final Timer.Sample sample = Timer.start();
+		final long bytes = writer.write(batch);
+		sample.stop(enrichmentMetrics.tradeStage(EnrichmentMetrics.TRADE_STAGE_FORMAT));
+		enrichmentMetrics.tradeBytesWritten(bytes);
+	}
+
+	/**
+	 * Formats an enriched batch as one string per row.
+	 */
+	private List<String> formatRows(final EnrichedBatch batch) {
+		final Timer.Sample sample = Timer.start();
+		final List<String> rows = new ArrayList<>(batch.size());
+		long bytes = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			final byte[] row = CsvTradeEncoder.encodeRow(batch.trade(i), batch.productName(i));
+			bytes += row.length;
+			rows.add(new String(row, StandardCharsets.UTF_8));
+		}
+		sample.stop(enrichmentMetrics.tradeStage(EnrichmentMetrics.TRADE_STAGE_FORMAT));
+		enrichmentMetrics.tradeBytesWritten(bytes);
+
+		return rows;
+	}
+
+	private int outputBufferSize() {
+		return (int) enrichmentProperties.getOutputBufferSize().toBytes();
+	}
+
+	private void closeWriter(final TradeOutputWriter writer) {
 		try {
-			LocalDate.parse(dateStr, DateTimeFormatter.ofPattern(DATE_TIME_FORMAT));
-			return true;
-		} catch (final DateTimeParseException e) {
-			return false;
+			writer.close();
+		} catch (final IOException e) {
+			log.debug("Error closing trade output", e);
 		}
 	}
 
 	/**
-	 * Represents a trade record with essential fields.
+	 * Copies body buffers into slices of a fixed size and feeds every full slice to a {@link LineChunker}.
+	 *
+	 * <p>Belongs to a single body and is only called serially.</p>
 	 */
-	record TradeRecord(String date, Long productId, String currency, String price) {}
-}
\ No newline at end of file
+	private final class BufferSlicer {
+		private final LineChunker chunker = new LineChunker(START_LINE);
+		private final int sliceSize;
+		private byte[] slice;
+		private int length;
+
+		private BufferSlicer(final int sliceSize) {
+			this.sliceSize = sliceSize;
+		}
+
+		/**
+		 * @param buffer Next body buffer; released before returning.
+		 * @return The chunks completed by the buffer, in body order.
+		 */
+		List<ByteChunk> feed(final DataBuffer buffer) {
+			try {
+				enrichmentMetrics.tradeBytesRead(buffer.readableByteCount());
+				List<ByteChunk> chunks = List.of();
+				while (buffer.readableByteCount() > 0) {
+					if (slice == null) {
+						slice = new byte[sliceSize];
+						length = 0;
+					}
+					final int count = Math.min(buffer.readableByteCount(), sliceSize - length);
+					buffer.read(slice, length, count);
+					length += count;
+					if (length == sliceSize) {
+						chunks = chunks.isEmpty() ? chunker.feed(slice, length) : concat(chunks, chunker.feed(slice, length));
+						slice = null;
+					}
+				}
+				return chunks;
+			} finally {
+				DataBufferUtils.release(buffer);
+			}
+		}
+
+		/**
+		 * @return The chunks of the partially filled slice and the unterminated last line.
+		 */
+		List<ByteChunk> finish() {
+			final List<ByteChunk> chunks = new ArrayList<>();
+			if (slice != null) {
+				chunks.addAll(chunker.feed(slice, length));
+				slice = null;
+			}
+			final ByteChunk last = chunker.finish();
+			if (last != null) {
+				chunks.add(last);
+			}
+			return chunks;
+		}
+
+		private static List<ByteChunk> concat(final List<ByteChunk> first, final List<ByteChunk> second) {
+			final List<ByteChunk> chunks = new ArrayList<>(first.size() + second.size());
+			chunks.addAll(first);
+			chunks.addAll(second);
+			return chunks;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package ai.facie.tradedatatask.core.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that counts the bytes read through it, so upload sizes can be reported without buffering.
+ *
+ * <p>Meant for a single reading thread; the count may be read from any thread.</p>
+ */
+public class CountingInputStream extends FilterInputStream {
+	private volatile long count;
+
+	public CountingInputStream(final InputStream in) {
+		super(in);
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int read = super.read();
+		if (read >= 0) {
+			count++;
+		}
+		return read;
+	}
+
+	@Override
+	public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+		final int read = super.read(buffer, offset, length);
+		if (read > 0) {
+			count += read;
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+		final long skipped = super.skip(n);
+		count += skipped;
+
+		return skipped;
+	}
+
+	/**
+	 * @return Number of bytes read or skipped so far.
+	 */
+	public long getCount() {
+		return count;
+	}
+}
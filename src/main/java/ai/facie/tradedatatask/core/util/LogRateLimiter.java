@@ -0,0 +1,74 @@
+package ai.facie.tradedatatask.core.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets through at most a fixed number of log messages per second and counts the ones it holds back.
+ *
+ * <p>Meant for messages that can repeat once per input row, such as rejected lines: a corrupt upload then
+ * costs a few log lines per second instead of one per row, and the suppressed count is reported with the
+ * next message that gets through. Thread-safe and lock-free; a message that is held back costs a clock read
+ * and a counter increment. The limit is approximate when the one-second window rolls over under
+ * contention.</p>
+ */
+public final class LogRateLimiter {
+	private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final int permitsPerSecond;
+	private final LongSupplier nanoClock;
+	private final AtomicLong windowStart;
+	private final AtomicInteger permitsUsed = new AtomicInteger();
+	private final LongAdder suppressed = new LongAdder();
+
+	/**
+	 * @param permitsPerSecond Number of messages let through per second; 0 holds back every message.
+	 */
+	public LogRateLimiter(final int permitsPerSecond) {
+		this(permitsPerSecond, System::nanoTime);
+	}
+
+	/**
+	 * @param permitsPerSecond Number of messages let through per second; 0 holds back every message.
+	 * @param nanoClock Source of monotonic time in nanoseconds.
+	 */
+	public LogRateLimiter(final int permitsPerSecond, final LongSupplier nanoClock) {
+		this.permitsPerSecond = permitsPerSecond;
+		this.nanoClock = nanoClock;
+		this.windowStart = new AtomicLong(nanoClock.getAsLong());
+	}
+
+	/**
+	 * Asks to log one message.
+	 *
+	 * @return true if the message may be logged, false if it is to be dropped and counted as suppressed.
+	 */
+	public boolean tryAcquire() {
+		if (permitsPerSecond > 0) {
+			final long now = nanoClock.getAsLong();
+			final long start = windowStart.get();
+			if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+				permitsUsed.set(0);
+			}
+			if (permitsUsed.get() < permitsPerSecond && permitsUsed.incrementAndGet() <= permitsPerSecond) {
+				return true;
+			}
+		}
+		suppressed.increment();
+
+		return false;
+	}
+
+	/**
+	 * Returns the number of messages held back since the last call and resets it, for the message that got
+	 * through to mention them.
+	 *
+	 * @return Number of suppressed messages.
+	 */
+	public long takeSuppressed() {
+		return suppressed.sumThenReset();
+	}
+}
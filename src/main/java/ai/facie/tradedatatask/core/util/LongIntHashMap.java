@@ -0,0 +1,131 @@
+package ai.facie.tradedatatask.core.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to {@code int} values.
+ *
+ * <p>Avoids boxing keys and values on hot paths such as per-batch product ID de-duplication. Uses linear
+ * probing and grows once it is half full. Not thread-safe.</p>
+ */
+public class LongIntHashMap {
+	public static final int NO_VALUE = -1;
+
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private long[] keys;
+	private int[] values;
+	private boolean[] used;
+	private int mask;
+	private int size;
+
+	/**
+	 * Creates a map sized for the expected number of keys.
+	 *
+	 * @param expectedSize Number of keys the map should hold without growing.
+	 */
+	public LongIntHashMap(final int expectedSize) {
+		allocate(Math.max(4, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+	}
+
+	/**
+	 * Returns the value of a key.
+	 *
+	 * @param key Key to look up.
+	 * @return The value, or {@link #NO_VALUE} if the key is absent.
+	 */
+	public int get(final long key) {
+		for (int slot = slotOf(key); used[slot]; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Associates a value with a key unless the key is already present.
+	 *
+	 * @param key Key to insert.
+	 * @param value Value to associate with the key.
+	 * @return The existing value of the key, or {@link #NO_VALUE} if the value was inserted.
+	 */
+	public int putIfAbsent(final long key, final int value) {
+		int slot = slotOf(key);
+		for (; used[slot]; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+		}
+		insert(slot, key, value);
+
+		return NO_VALUE;
+	}
+
+	/**
+	 * Associates a value with a key, replacing any previous value.
+	 *
+	 * @param key Key to insert.
+	 * @param value Value to associate with the key.
+	 */
+	public void put(final long key, final int value) {
+		int slot = slotOf(key);
+		for (; used[slot]; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return;
+			}
+		}
+		insert(slot, key, value);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	private void insert(final int slot, final long key, final int value) {
+		keys[slot] = key;
+		values[slot] = value;
+		used[slot] = true;
+		if (++size * 2 > keys.length) {
+			grow();
+		}
+	}
+
+	private void grow() {
+		final long[] oldKeys = keys;
+		final int[] oldValues = values;
+		final boolean[] oldUsed = used;
+		allocate(oldKeys.length * 2);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int slot = slotOf(oldKeys[i]);
+				while (used[slot]) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+				used[slot] = true;
+			}
+		}
+	}
+
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+	}
+
+	private int slotOf(final long key) {
+		final long hash = key * HASH_MULTIPLIER;
+
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+}
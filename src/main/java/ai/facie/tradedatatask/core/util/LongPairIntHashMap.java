@@ -0,0 +1,110 @@
+package ai.facie.tradedatatask.core.util;
+
+/**
+ * Open-addressing hash map from pairs of primitive {@code long} keys to {@code int} values.
+ *
+ * <p>The two-part counterpart of {@link LongIntHashMap} for composite keys, such as a product ID together
+ * with a packed currency and date. Uses linear probing and grows once it is half full. Not thread-safe.</p>
+ */
+public class LongPairIntHashMap {
+	public static final int NO_VALUE = -1;
+
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private long[] firstKeys;
+	private long[] secondKeys;
+	private int[] values;
+	private boolean[] used;
+	private int mask;
+	private int size;
+
+	/**
+	 * Creates a map sized for the expected number of keys.
+	 *
+	 * @param expectedSize Number of keys the map should hold without growing.
+	 */
+	public LongPairIntHashMap(final int expectedSize) {
+		allocate(Math.max(4, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+	}
+
+	/**
+	 * Returns the value of a key pair.
+	 *
+	 * @param first First part of the key.
+	 * @param second Second part of the key.
+	 * @return The value, or {@link #NO_VALUE} if the key is absent.
+	 */
+	public int get(final long first, final long second) {
+		for (int slot = slotOf(first, second); used[slot]; slot = (slot + 1) & mask) {
+			if (firstKeys[slot] == first && secondKeys[slot] == second) {
+				return values[slot];
+			}
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Associates a value with a key pair unless the pair is already present.
+	 *
+	 * @param first First part of the key.
+	 * @param second Second part of the key.
+	 * @param value Value to associate with the key.
+	 * @return The existing value of the key, or {@link #NO_VALUE} if the value was inserted.
+	 */
+	public int putIfAbsent(final long first, final long second, final int value) {
+		int slot = slotOf(first, second);
+		for (; used[slot]; slot = (slot + 1) & mask) {
+			if (firstKeys[slot] == first && secondKeys[slot] == second) {
+				return values[slot];
+			}
+		}
+		firstKeys[slot] = first;
+		secondKeys[slot] = second;
+		values[slot] = value;
+		used[slot] = true;
+		if (++size * 2 > firstKeys.length) {
+			grow();
+		}
+
+		return NO_VALUE;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void grow() {
+		final long[] oldFirstKeys = firstKeys;
+		final long[] oldSecondKeys = secondKeys;
+		final int[] oldValues = values;
+		final boolean[] oldUsed = used;
+		allocate(oldFirstKeys.length * 2);
+
+		for (int i = 0; i < oldFirstKeys.length; i++) {
+			if (oldUsed[i]) {
+				int slot = slotOf(oldFirstKeys[i], oldSecondKeys[i]);
+				while (used[slot]) {
+					slot = (slot + 1) & mask;
+				}
+				firstKeys[slot] = oldFirstKeys[i];
+				secondKeys[slot] = oldSecondKeys[i];
+				values[slot] = oldValues[i];
+				used[slot] = true;
+			}
+		}
+	}
+
+	private void allocate(final int capacity) {
+		firstKeys = new long[capacity];
+		secondKeys = new long[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+	}
+
+	private int slotOf(final long first, final long second) {
+		final long hash = (first * HASH_MULTIPLIER + second) * HASH_MULTIPLIER;
+
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+}
@@ -0,0 +1,32 @@
+package ai.facie.tradedatatask;
+
+import ai.facie.tradedatatask.core.service.ProductService;
+import ai.facie.tradedatatask.core.service.impl.MappedProductServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+	"trade-data.product-store.type=mapped",
+	"trade-data.product-store.mapped-file=${java.io.tmpdir}/trade-data-task-test/products.dict"
+})
+class MappedProductStoreApplicationTests {
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void contextLoadsWithMappedProductStore() {
+		assertInstanceOf(MappedProductServiceImpl.class, productService);
+		assertEquals(HttpStatus.OK, restTemplate.getForEntity("/actuator/health/readiness", String.class).getStatusCode());
+	}
+}
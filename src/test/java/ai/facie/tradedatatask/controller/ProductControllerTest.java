@@ -1,6 +1,7 @@
 package ai.facie.tradedatatask.controller;
 
-import ai.facie.tradedatatask.core.service.ProductService;
+import ai.facie.tradedatatask.core.model.ProductLoadJob;
+import ai.facie.tradedatatask.core.service.ProductLoadJobService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,20 +13,31 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
 class ProductControllerTest {
 	private static final String URL = "/api/v1/products";
-	private static final String SUCCESSFUL_UPLOAD_MESSAGE = "Product data loaded successfully into Redis.";
+	private static final String JOB_ID = "job-1";
+	private static final String JOB_URL = URL + "/jobs/" + JOB_ID;
 	private static final String FAILED_UPLOAD_MESSAGE = "Upload failed: The file is empty.";
+	private static final String PRODUCT_DATA = "productId,productName\n1,Test Product\n2,Another Product";
 
 	private MockMvc mockMvc;
 
 	@Mock
-	private ProductService productService;
+	private ProductLoadJobService productLoadJobService;
 
 	@InjectMocks
 	private ProductController productController;
@@ -37,20 +49,42 @@ class ProductControllerTest {
 
 	/**
 	 * Test case: Successfully uploads a product CSV file.
-	 * Expected: Returns `200 OK` with success message.
+	 * Expected: Returns `202 Accepted` with the queued job, whose file holds the upload.
 	 */
 	@Test
 	void testLoadProducts_Success() throws Exception {
 		final MockMultipartFile file = getNotEmptyFile();
+		final String[] spooled = new String[1];
+		when(productLoadJobService.submit(eq("products.csv"), any())).thenAnswer(invocation -> {
+			final Path spoolFile = invocation.getArgument(1);
+			spooled[0] = Files.readString(spoolFile);
+			Files.delete(spoolFile);
+			return new ProductLoadJob(JOB_ID, invocation.getArgument(0));
+		});
 
+		mockMvc.perform(multipart(URL)
+				.file(file)
+				.contentType(MediaType.MULTIPART_FORM_DATA))
+			.andExpect(status().isAccepted())
+			.andExpect(header().string("Location", JOB_URL))
+			.andExpect(jsonPath("$.id").value(JOB_ID))
+			.andExpect(jsonPath("$.state").value("QUEUED"));
 
-		doNothing().when(productService).loadProductsFromStream(any());
+		assertEquals(PRODUCT_DATA, spooled[0]);
+	}
+
+	/**
+	 * Test case: Too many product loads are already queued.
+	 * Expected: Returns `503 Service Unavailable`.
+	 */
+	@Test
+	void testLoadProducts_Rejected() throws Exception {
+		when(productLoadJobService.submit(any(), any())).thenThrow(new RejectedExecutionException());
 
 		mockMvc.perform(multipart(URL)
-				.file(file)
+				.file(getNotEmptyFile())
 				.contentType(MediaType.MULTIPART_FORM_DATA))
-			.andExpect(status().isOk())
-			.andExpect(content().string(SUCCESSFUL_UPLOAD_MESSAGE));
+			.andExpect(status().isServiceUnavailable());
 	}
 
 	/**
@@ -68,6 +102,70 @@ class ProductControllerTest {
 			.andExpect(content().string(FAILED_UPLOAD_MESSAGE));
 	}
 
+	@Test
+	void testLoadProductsFromBody_Success() throws Exception {
+		final String[] spooled = new String[1];
+		when(productLoadJobService.submit(any(), any())).thenAnswer(invocation -> {
+			final Path spoolFile = invocation.getArgument(1);
+			spooled[0] = Files.readString(spoolFile);
+			Files.delete(spoolFile);
+			return new ProductLoadJob(JOB_ID, invocation.getArgument(0));
+		});
+
+		mockMvc.perform(post(URL)
+				.contentType("text/csv")
+				.content(PRODUCT_DATA))
+			.andExpect(status().isAccepted())
+			.andExpect(jsonPath("$.id").value(JOB_ID));
+
+		assertEquals(PRODUCT_DATA, spooled[0]);
+	}
+
+	@Test
+	void testLoadProductsFromBody_EmptyBody() throws Exception {
+		mockMvc.perform(post(URL)
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.content(new byte[0]))
+			.andExpect(status().isBadRequest())
+			.andExpect(content().string(FAILED_UPLOAD_MESSAGE));
+
+		verifyNoInteractions(productLoadJobService);
+	}
+
+	@Test
+	void testGetJob_ReportsProgress() throws Exception {
+		final ProductLoadJob job = new ProductLoadJob(JOB_ID, "products.csv");
+		job.start();
+		job.getProgress().batchWritten(2);
+		job.getProgress().rowRejected();
+		when(productLoadJobService.find(JOB_ID)).thenReturn(Optional.of(job));
+
+		mockMvc.perform(get(JOB_URL))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.state").value("RUNNING"))
+			.andExpect(jsonPath("$.rowsLoaded").value(2))
+			.andExpect(jsonPath("$.rowsRejected").value(1));
+	}
+
+	@Test
+	void testGetJob_Unknown() throws Exception {
+		when(productLoadJobService.find(JOB_ID)).thenReturn(Optional.empty());
+
+		mockMvc.perform(get(JOB_URL))
+			.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testCancelJob() throws Exception {
+		final ProductLoadJob job = new ProductLoadJob(JOB_ID, "products.csv");
+		job.cancel();
+		when(productLoadJobService.cancel(JOB_ID)).thenReturn(Optional.of(job));
+
+		mockMvc.perform(delete(JOB_URL))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.state").value("CANCELLED"));
+	}
+
 	private MockMultipartFile getEmptyFile() {
 		return new MockMultipartFile(
 			"file",
@@ -82,7 +180,7 @@ class ProductControllerTest {
 			"file",
 			"products.csv",
 			MediaType.TEXT_PLAIN_VALUE,
-			"productId,productName\n1,Test Product\n2,Another Product".getBytes()
+			PRODUCT_DATA.getBytes()
 		);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package ai.facie.tradedatatask.controller;
+
+import ai.facie.tradedatatask.core.model.ProductLoadJob;
+import ai.facie.tradedatatask.core.service.ProductLoadJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveProductControllerTest {
+	private static final String URL = "/api/v1/products";
+	private static final String JOB_ID = "job-1";
+	private static final String JOB_URL = URL + "/jobs/" + JOB_ID;
+	private static final String PRODUCT_DATA = "productId,productName\n1,Test Product\n2,Another Product";
+
+	private WebTestClient webTestClient;
+
+	@Mock
+	private ProductLoadJobService productLoadJobService;
+
+	@InjectMocks
+	private ReactiveProductController productController;
+
+	@BeforeEach
+	void setUp() {
+		webTestClient = WebTestClient.bindToController(productController).build();
+	}
+
+	@Test
+	void testLoadProducts_SpoolsMultipartFile() throws Exception {
+		final String[] spooled = new String[1];
+		when(productLoadJobService.submit(eq("products.csv"), any())).thenAnswer(invocation -> {
+			final Path spoolFile = invocation.getArgument(1);
+			spooled[0] = Files.readString(spoolFile);
+			Files.delete(spoolFile);
+			return new ProductLoadJob(JOB_ID, invocation.getArgument(0));
+		});
+		final MultipartBodyBuilder body = new MultipartBodyBuilder();
+		body.part("file", PRODUCT_DATA.getBytes()).filename("products.csv");
+
+		webTestClient.post().uri(URL)
+			.contentType(MediaType.MULTIPART_FORM_DATA)
+			.body(BodyInserters.fromMultipartData(body.build()))
+			.exchange()
+			.expectStatus().isAccepted()
+			.expectHeader().valueEquals("Location", JOB_URL)
+			.expectBody().jsonPath("$.id").isEqualTo(JOB_ID);
+
+		assertEquals(PRODUCT_DATA, spooled[0]);
+	}
+
+	@Test
+	void testLoadProductsFromBody_SpoolsRawBody() {
+		final String[] spooled = new String[1];
+		when(productLoadJobService.submit(eq(ProductUploads.STREAMED_UPLOAD_SOURCE), any())).thenAnswer(invocation -> {
+			final Path spoolFile = invocation.getArgument(1);
+			spooled[0] = Files.readString(spoolFile);
+			Files.delete(spoolFile);
+			return new ProductLoadJob(JOB_ID, invocation.getArgument(0));
+		});
+
+		webTestClient.post().uri(URL)
+			.contentType(MediaType.APPLICATION_OCTET_STREAM)
+			.bodyValue(PRODUCT_DATA.getBytes())
+			.exchange()
+			.expectStatus().isAccepted()
+			.expectHeader().valueEquals("Location", JOB_URL);
+
+		assertEquals(PRODUCT_DATA, spooled[0]);
+	}
+
+	@Test
+	void testLoadProductsFromBody_EmptyBody() {
+		webTestClient.post().uri(URL)
+			.contentType(MediaType.APPLICATION_OCTET_STREAM)
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody(String.class).isEqualTo(ProductUploads.EMPTY_FILE);
+
+		verifyNoInteractions(productLoadJobService);
+	}
+
+	@Test
+	void testLoadProducts_DeletesSpoolFileWhenClientDisconnects() throws Exception {
+		final FilePart file = mock(FilePart.class);
+		final Path[] spoolFile = new Path[1];
+		when(file.filename()).thenReturn("products.csv");
+		when(file.transferTo(any(Path.class))).thenAnswer(invocation -> {
+			spoolFile[0] = invocation.getArgument(0);
+			return Mono.never();
+		});
+
+		final Disposable upload = productController.loadProducts(file).subscribe();
+		verify(file, timeout(5000)).transferTo(any(Path.class));
+		upload.dispose();
+
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (Files.exists(spoolFile[0]) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertFalse(Files.exists(spoolFile[0]));
+		verifyNoInteractions(productLoadJobService);
+	}
+
+	@Test
+	void testGetJob_UnknownJob() {
+		when(productLoadJobService.find(JOB_ID)).thenReturn(Optional.empty());
+
+		webTestClient.get().uri(JOB_URL)
+			.exchange()
+			.expectStatus().isNotFound();
+	}
+}
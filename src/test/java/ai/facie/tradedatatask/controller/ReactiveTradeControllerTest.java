@@ -0,0 +1,188 @@
+package ai.facie.tradedatatask.controller;
+
+import ai.facie.tradedatatask.core.aggregate.TradeGroupBy;
+import ai.facie.tradedatatask.core.model.TradeAggregate;
+import ai.facie.tradedatatask.core.model.TradeAggregation;
+import ai.facie.tradedatatask.core.output.ContentCoding;
+import ai.facie.tradedatatask.core.output.RejectFile;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.output.TradeOutputFormat;
+import ai.facie.tradedatatask.core.parser.RejectListener;
+import ai.facie.tradedatatask.core.service.RejectFileService;
+import ai.facie.tradedatatask.core.service.TradeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveTradeControllerTest {
+	private static final String URL = "/api/v1/trades";
+	private static final String CSV = "date,productId,currency,price\n20230101,1,USD,100.25";
+
+	private WebTestClient webTestClient;
+
+	@Mock
+	private TradeService tradeService;
+
+	@Mock
+	private RejectFileService rejectFileService;
+
+	@TempDir
+	private Path tempDir;
+
+	@InjectMocks
+	private ReactiveTradeController tradeController;
+
+	@BeforeEach
+	void setUp() {
+		webTestClient = WebTestClient.bindToController(tradeController).build();
+		lenient().when(tradeService.enrichTrades(any(), any(), any(), any())).thenAnswer(invocation -> {
+			final Flux<DataBuffer> body = invocation.getArgument(0);
+			final DataBufferFactory bufferFactory = invocation.getArgument(1);
+
+			return DataBufferUtils.join(body).map(joined -> {
+				final DataBuffer copy = bufferFactory.allocateBuffer(joined.readableByteCount());
+				copy.write(joined);
+				DataBufferUtils.release(joined);
+				return copy;
+			}).flux();
+		});
+	}
+
+	@Test
+	void testEnrichTradesFromBody_StreamsWholeBody() {
+		webTestClient.post().uri(URL)
+			.contentType(MediaType.APPLICATION_OCTET_STREAM)
+			.bodyValue(CSV.getBytes())
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody(String.class).isEqualTo(CSV);
+	}
+
+	@Test
+	void testEnrichTrades_StreamsMultipartFile() {
+		final MultipartBodyBuilder body = new MultipartBodyBuilder();
+		body.part("file", CSV.getBytes()).filename("trades.csv");
+
+		webTestClient.post().uri(URL)
+			.contentType(MediaType.MULTIPART_FORM_DATA)
+			.body(BodyInserters.fromMultipartData(body.build()))
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody(String.class).isEqualTo(CSV);
+	}
+
+	@Test
+	void testEnrichTradesFromBody_NegotiatesFormatAndCoding() {
+		webTestClient.post().uri(URL)
+			.contentType(MediaType.APPLICATION_OCTET_STREAM)
+			.accept(MediaType.APPLICATION_NDJSON)
+			.header(HttpHeaders.ACCEPT_ENCODING, "gzip, zstd")
+			.bodyValue(CSV.getBytes())
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+			.expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "zstd");
+
+		verify(tradeService).enrichTrades(any(), any(),
+			eq(new TradeOutput(TradeOutputFormat.NDJSON, MediaType.APPLICATION_NDJSON, ContentCoding.ZSTD)), eq(RejectListener.NONE));
+	}
+
+	@Test
+	void testEnrichTradesFromBody_ClosesRequestedRejectFile() throws Exception {
+		final RejectFile rejectFile = new RejectFile("r1", tempDir.resolve("rejects.csv"), 10, Runnable::run);
+		when(rejectFileService.create()).thenReturn(rejectFile);
+		when(rejectFileService.find("r1")).thenReturn(Optional.of(rejectFile));
+
+		webTestClient.post().uri(URL + "?rejects=true")
+			.contentType(MediaType.APPLICATION_OCTET_STREAM)
+			.bodyValue(CSV.getBytes())
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().valueEquals("X-Reject-File", URL + "/rejects/r1")
+			.expectBody(String.class).isEqualTo(CSV);
+
+		verify(tradeService).enrichTrades(any(), any(), any(), eq(rejectFile));
+		// The server closes the reject file once the response completed, which may be after the client read the body.
+		await().atMost(Duration.ofSeconds(5)).until(() -> rejectFile.getState() == RejectFile.State.COMPLETE);
+		webTestClient.get().uri(URL + "/rejects/r1")
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody(String.class).isEqualTo(RejectFile.HEADER);
+	}
+
+	@Test
+	void testAggregateTradesFromBody_DefaultsToProduct() {
+		final Set<TradeGroupBy> groupBy = EnumSet.of(TradeGroupBy.PRODUCT);
+		when(tradeService.aggregateTrades(any(Flux.class), eq(groupBy))).thenReturn(Mono.just(new TradeAggregation(groupBy, 1,
+			List.of(new TradeAggregate("1", "Product 1", null, null, 1, new BigDecimal("100.25"), new BigDecimal("100.25"),
+				new BigDecimal("100.25"), new BigDecimal("100.250000"))))));
+
+		webTestClient.post().uri(URL + "/aggregate")
+			.contentType(MediaType.APPLICATION_OCTET_STREAM)
+			.bodyValue(CSV.getBytes())
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("$.groupBy[0]").isEqualTo("PRODUCT")
+			.jsonPath("$.groups[0].productName").isEqualTo("Product 1")
+			.jsonPath("$.groups[0].averagePrice").isEqualTo(100.25)
+			.jsonPath("$.groups[0].date").doesNotExist();
+	}
+
+	@Test
+	void testAggregateTrades_UnknownDimension() {
+		final MultipartBodyBuilder body = new MultipartBodyBuilder();
+		body.part("file", CSV.getBytes()).filename("trades.csv");
+
+		webTestClient.post().uri(URL + "/aggregate?groupBy=region")
+			.contentType(MediaType.MULTIPART_FORM_DATA)
+			.body(BodyInserters.fromMultipartData(body.build()))
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody(String.class).isEqualTo("Unknown groupBy dimension: region");
+
+		verify(tradeService, never()).aggregateTrades(any(Flux.class), any());
+	}
+
+	@Test
+	void testEnrichTradesFromBody_EmptyBody() {
+		webTestClient.post().uri(URL)
+			.contentType(MediaType.APPLICATION_OCTET_STREAM)
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody(String.class).isEqualTo("Upload failed: The file is empty.");
+
+		verify(tradeService, never()).enrichTrades(any(), any(), any(), any());
+	}
+}
@@ -1,24 +1,55 @@
 package ai.facie.tradedatatask.controller;
 
+import ai.facie.tradedatatask.core.aggregate.TradeGroupBy;
+import ai.facie.tradedatatask.core.model.TradeAggregate;
+import ai.facie.tradedatatask.core.model.TradeAggregation;
+import ai.facie.tradedatatask.core.output.ContentCoding;
+import ai.facie.tradedatatask.core.output.RejectFile;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.output.TradeOutputFormat;
+import ai.facie.tradedatatask.core.parser.RejectListener;
+import ai.facie.tradedatatask.core.parser.RejectReason;
+import ai.facie.tradedatatask.core.service.RejectFileService;
 import ai.facie.tradedatatask.core.service.TradeService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
-import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +61,12 @@ class TradeControllerTest {
 	@Mock
 	private TradeService tradeService;
 
+	@Mock
+	private RejectFileService rejectFileService;
+
+	@TempDir
+	private Path tempDir;
+
 	@InjectMocks
 	private TradeController tradeController;
 
@@ -42,27 +79,160 @@ class TradeControllerTest {
 	void testEnrichTrades_Success() throws Exception {
 		final MockMultipartFile file = getNotEmptyFile();
 
-		final List<String> processedTrades = List.of(
-			"20230101,Commodity Swaps 1,USD,100.25",
-			"20230102,Commodity Swaps,EUR,200.50"
-		);
-		when(tradeService.enrichTradesStream(any(InputStream.class)))
-			.thenReturn(Flux.fromIterable(processedTrades));
+		final String processedTrades = "20230101,Commodity Swaps 1,USD,100.25\n20230102,Commodity Swaps,EUR,200.50\n";
+		doAnswer(invocation -> {
+			final OutputStream output = invocation.getArgument(1);
+			output.write(processedTrades.getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(tradeService).writeTrades(any(InputStreamSource.class), any(OutputStream.class), any(TradeOutput.class), any(RejectListener.class));
 
-		mockMvc.perform(multipart(URL)
+		final MvcResult result = mockMvc.perform(multipart(URL)
 				.file(file)
 				.contentType(MediaType.MULTIPART_FORM_DATA))
-			.andExpect(status().isOk());
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().string(processedTrades));
 	}
 
 	@Test
 	void testEnrichTrades_EmptyFile() throws Exception {
 		final MockMultipartFile emptyFile = getEmptyFile();
 
-		mockMvc.perform(multipart(URL)
+		final MvcResult result = mockMvc.perform(multipart(URL)
 				.file(emptyFile)
 				.contentType(MediaType.MULTIPART_FORM_DATA))
-			.andExpect(status().isOk());
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().string("Upload failed: The file is empty."));
+		verifyNoInteractions(tradeService);
+	}
+
+	@Test
+	void testEnrichTradesFromBody_StreamsWholeBody() throws Exception {
+		final String csv = "date,productId,currency,price\n20230101,1,USD,100.25";
+		doAnswer(invocation -> {
+			final InputStream body = invocation.getArgument(0);
+			final OutputStream output = invocation.getArgument(1);
+			body.transferTo(output);
+			return null;
+		}).when(tradeService).writeTrades(any(InputStream.class), any(OutputStream.class), any(TradeOutput.class), any(RejectListener.class));
+
+		final MvcResult result = mockMvc.perform(post(URL)
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.content(csv))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(content().string(csv));
+	}
+
+	@Test
+	void testEnrichTradesFromBody_NegotiatesFormatAndCoding() throws Exception {
+		final MvcResult result = mockMvc.perform(post(URL)
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.accept(TradeOutputFormat.ARROW_STREAM_VALUE)
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.content("date,productId,currency,price\n20230101,1,USD,100.25"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.CONTENT_TYPE, TradeOutputFormat.ARROW_STREAM_VALUE))
+			.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+		verify(tradeService).writeTrades(any(InputStream.class), any(OutputStream.class), eq(new TradeOutput(
+			TradeOutputFormat.ARROW, MediaType.parseMediaType(TradeOutputFormat.ARROW_STREAM_VALUE), ContentCoding.GZIP)),
+			eq(RejectListener.NONE));
+	}
+
+	@Test
+	void testEnrichTradesFromBody_WritesRejectedLinesToRejectFile() throws Exception {
+		final RejectFile rejectFile = new RejectFile("r1", tempDir.resolve("rejects.csv"), 10, Runnable::run);
+		when(rejectFileService.create()).thenReturn(rejectFile);
+		when(rejectFileService.find("r1")).thenReturn(Optional.of(rejectFile));
+		doAnswer(invocation -> {
+			final RejectListener rejects = invocation.getArgument(3);
+			final byte[] line = "2023x101,1,USD,100.25".getBytes(StandardCharsets.UTF_8);
+			rejects.rejected(RejectReason.INVALID_DATE, 2, line, 0, line.length);
+			return null;
+		}).when(tradeService).writeTrades(any(InputStream.class), any(OutputStream.class), any(TradeOutput.class), any(RejectListener.class));
+
+		final MvcResult result = mockMvc.perform(post(URL)
+				.param("rejects", "true")
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.content("date,productId,currency,price\n2023x101,1,USD,100.25"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(header().string("X-Reject-File", URL + "/rejects/r1"));
+
+		mockMvc.perform(get(URL + "/rejects/r1"))
+			.andExpect(status().isOk())
+			.andExpect(header().string("X-Reject-Rows-Dropped", "0"))
+			.andExpect(content().string(RejectFile.HEADER + "2,invalid_date,2023x101,1,USD,100.25\n"));
+	}
+
+	@Test
+	void testGetRejects_UnknownFile() throws Exception {
+		mockMvc.perform(get(URL + "/rejects/unknown"))
+			.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void testEnrichTradesFromBody_UnsupportedFormat() throws Exception {
+		mockMvc.perform(post(URL)
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.accept(MediaType.APPLICATION_PDF)
+				.content("date,productId,currency,price\n20230101,1,USD,100.25"))
+			.andExpect(status().isNotAcceptable());
+		verifyNoInteractions(tradeService);
+	}
+
+	@Test
+	void testAggregateTrades_ReturnsRollup() throws Exception {
+		final EnumSet<TradeGroupBy> groupBy = EnumSet.of(TradeGroupBy.PRODUCT, TradeGroupBy.DATE);
+		when(tradeService.aggregateTrades(any(InputStream.class), eq(groupBy))).thenReturn(Mono.just(new TradeAggregation(groupBy, 2,
+			List.of(new TradeAggregate("1", "Product 1", null, "20230101", 2, new BigDecimal("200.50"),
+				new BigDecimal("100.25"), new BigDecimal("100.25"), new BigDecimal("100.250000"))))));
+
+		final MvcResult result = mockMvc.perform(multipart(URL + "/aggregate")
+				.file(getNotEmptyFile())
+				.param("groupBy", "product,date")
+				.contentType(MediaType.MULTIPART_FORM_DATA))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.trades").value(2))
+			.andExpect(jsonPath("$.groups[0].productName").value("Product 1"))
+			.andExpect(jsonPath("$.groups[0].date").value("20230101"))
+			.andExpect(jsonPath("$.groups[0].sum").value(200.50))
+			.andExpect(jsonPath("$.groups[0].currency").doesNotExist());
+	}
+
+	@Test
+	void testAggregateTradesFromBody_UnknownDimension() throws Exception {
+		final MvcResult result = mockMvc.perform(post(URL + "/aggregate")
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.param("groupBy", "product,region")
+				.content("date,productId,currency,price\n20230101,1,USD,100.25"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isBadRequest())
+			.andExpect(content().string("Unknown groupBy dimension: region"));
+		verifyNoInteractions(tradeService);
 	}
 
 	private MockMultipartFile getNotEmptyFile() {
@@ -0,0 +1,104 @@
+package ai.facie.tradedatatask.core.aggregate;
+
+import ai.facie.tradedatatask.core.model.TradeAggregate;
+import ai.facie.tradedatatask.core.model.TradeAggregation;
+import ai.facie.tradedatatask.core.parser.ByteChunk;
+import ai.facie.tradedatatask.core.parser.TradeCsvParser;
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeAggregatorTest {
+
+	@Test
+	void testAdd_GroupsByCurrencyAndDate() {
+		final TradeAggregator aggregator = new TradeAggregator(EnumSet.of(TradeGroupBy.CURRENCY, TradeGroupBy.DATE))
+			.addAll(parse("20240102,1,USD,3\n20240101,2,USD,1.5\n20240101,3,USD,2.25\n20240101,1,EUR,4\n"));
+
+		final TradeAggregation aggregation = aggregator.toAggregation(productId -> fail("not grouped by product"));
+
+		assertEquals(4, aggregation.trades());
+		assertEquals(List.of(
+			new TradeAggregate(null, null, "EUR", "20240101", 1, decimal("4"), decimal("4"), decimal("4"), decimal("4.0000")),
+			new TradeAggregate(null, null, "USD", "20240101", 2, decimal("3.75"), decimal("1.50"), decimal("2.25"), decimal("1.875000")),
+			new TradeAggregate(null, null, "USD", "20240102", 1, decimal("3"), decimal("3"), decimal("3"), decimal("3.0000"))),
+			aggregation.groups());
+		assertArrayEquals(new long[0], aggregator.productIds());
+	}
+
+	@Test
+	void testAdd_WithoutDimensionsRollsEverythingIntoOneGroup() {
+		final TradeAggregation aggregation = new TradeAggregator(Set.of())
+			.addAll(parse("20240101,1,USD,1\n20240102,2,EUR,2\n20240103,3,GBP,6\n"))
+			.toAggregation(productId -> "unused");
+
+		assertEquals(List.of(new TradeAggregate(null, null, null, null, 3, decimal("9"), decimal("1"), decimal("6"), decimal("3.0000"))),
+			aggregation.groups());
+	}
+
+	@Test
+	void testAdd_SumsPricesOfDifferentScalesExactly() {
+		final TradeAggregation aggregation = new TradeAggregator(EnumSet.of(TradeGroupBy.PRODUCT))
+			.addAll(parse("20240101,1,USD,0.1\n20240101,1,USD,0.2\n20240101,1,USD,999999999999999999\n"
+				+ "20240101,1,USD,999999999999999999\n20240101,1,USD,-0.000001\n"))
+			.toAggregation(productId -> "Product " + productId);
+
+		final TradeAggregate aggregate = aggregation.groups().get(0);
+		assertEquals(5, aggregation.trades());
+		assertEquals(decimal("1999999999999999998.299999"), aggregate.sum());
+		assertEquals(decimal("-0.000001"), aggregate.min());
+		assertEquals(decimal("999999999999999999.000000"), aggregate.max());
+		assertEquals(decimal("399999999999999999.6599998000"), aggregate.averagePrice());
+	}
+
+	@Test
+	void testCompare_AcrossScales() {
+		assertEquals(0, TradeAggregator.compare(150, 2, 15, 1));
+		assertTrue(TradeAggregator.compare(999_999_999_999_999_999L, 0, 1, 18) > 0);
+		assertTrue(TradeAggregator.compare(-999_999_999_999_999_999L, 0, -1, 18) < 0);
+		assertTrue(TradeAggregator.compare(1, 18, 999_999_999_999_999_999L, 0) < 0);
+	}
+
+	@Test
+	void testMerge_RemapsCurrenciesOfThePartialResult() {
+		final Set<TradeGroupBy> groupBy = EnumSet.of(TradeGroupBy.PRODUCT, TradeGroupBy.CURRENCY);
+		final TradeAggregator first = new TradeAggregator(groupBy)
+			.addAll(parse("20240101,1,USD,1\n20240101,2,EUR,2\n"));
+		final TradeAggregator second = new TradeAggregator(groupBy)
+			.addAll(parse("20240101,2,EUR,5\n20240101,1,USD,0.5\n20240101,1,CURRENCY,7\n"));
+
+		final TradeAggregation merged = first.merge(second).toAggregation(productId -> "Product " + productId);
+
+		assertEquals(5, merged.trades());
+		assertEquals(List.of(
+			new TradeAggregate("1", "Product 1", "CURRENCY", null, 1, decimal("7"), decimal("7"), decimal("7"), decimal("7.0000")),
+			new TradeAggregate("1", "Product 1", "USD", null, 2, decimal("1.5"), decimal("0.5"), decimal("1.0"), decimal("0.75000")),
+			new TradeAggregate("2", "Product 2", "EUR", null, 2, decimal("7"), decimal("2"), decimal("5"), decimal("3.5000"))),
+			merged.groups());
+		assertArrayEquals(new long[]{1, 2}, first.productIds());
+	}
+
+	@Test
+	void testGroupByParse() {
+		assertEquals(EnumSet.of(TradeGroupBy.PRODUCT, TradeGroupBy.DATE), TradeGroupBy.parse(List.of("Product", " date ", "")));
+		assertTrue(TradeGroupBy.parse(List.of()).isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> TradeGroupBy.parse(List.of("region")));
+	}
+
+	private static List<TradeRecord> parse(final String csv) {
+		final byte[] data = csv.getBytes(StandardCharsets.UTF_8);
+
+		return TradeCsvParser.parse(new ByteChunk(data, 0, data.length));
+	}
+
+	private static BigDecimal decimal(final String value) {
+		return new BigDecimal(value);
+	}
+}
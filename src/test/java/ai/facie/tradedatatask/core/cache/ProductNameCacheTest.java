@@ -0,0 +1,80 @@
+package ai.facie.tradedatatask.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductNameCacheTest {
+	private static final String PRODUCT_NAME_A = "Product A";
+	private static final String PRODUCT_NAME_B = "Product B";
+	private static final long SNAPSHOT = 1L;
+
+	@Test
+	void testGet_HitAndMissAreCounted() {
+		final ProductNameCache cache = new ProductNameCache(64, Duration.ofMinutes(1));
+		cache.put(SNAPSHOT, 1L, PRODUCT_NAME_A);
+
+		assertEquals(PRODUCT_NAME_A, cache.get(SNAPSHOT, 1L));
+		assertNull(cache.get(SNAPSHOT, 2L));
+		assertEquals(1, cache.hitCount());
+		assertEquals(1, cache.missCount());
+	}
+
+	@Test
+	void testPut_EvictsWhenFull() {
+		final ProductNameCache cache = new ProductNameCache(8, Duration.ofMinutes(1));
+
+		for (long productId = 0; productId < 100; productId++) {
+			cache.put(SNAPSHOT, productId, PRODUCT_NAME_A);
+		}
+
+		assertEquals(92, cache.evictionCount());
+		assertEquals(PRODUCT_NAME_A, cache.get(SNAPSHOT, 99L));
+	}
+
+	@Test
+	void testGet_ExpiredEntryIsEvicted() {
+		final ProductNameCache cache = new ProductNameCache(64, Duration.ZERO);
+		cache.put(SNAPSHOT, 1L, PRODUCT_NAME_A);
+
+		assertNull(cache.get(SNAPSHOT, 1L));
+		assertEquals(1, cache.evictionCount());
+	}
+
+	@Test
+	void testGet_OnlyMatchesEntriesOfTheSameSnapshot() {
+		final ProductNameCache cache = new ProductNameCache(64, Duration.ofMinutes(1));
+		cache.put(SNAPSHOT, 1L, PRODUCT_NAME_A);
+
+		assertNull(cache.get(SNAPSHOT + 1, 1L));
+		cache.put(SNAPSHOT + 1, 1L, PRODUCT_NAME_B);
+
+		assertEquals(PRODUCT_NAME_B, cache.get(SNAPSHOT + 1, 1L));
+		assertEquals(PRODUCT_NAME_A, cache.get(SNAPSHOT, 1L));
+		assertEquals(0, cache.evictionCount());
+	}
+
+	@Test
+	void testPut_ReplacesEntryOfTheSameSnapshot() {
+		final ProductNameCache cache = new ProductNameCache(8, Duration.ofMinutes(1));
+		for (long productId = 0; productId < 8; productId++) {
+			cache.put(SNAPSHOT, productId, PRODUCT_NAME_A);
+		}
+
+		cache.put(SNAPSHOT, 3L, PRODUCT_NAME_B);
+
+		assertEquals(PRODUCT_NAME_B, cache.get(SNAPSHOT, 3L));
+		assertEquals(PRODUCT_NAME_A, cache.get(SNAPSHOT, 0L));
+		assertEquals(0, cache.evictionCount());
+	}
+
+	@Test
+	void testDisabledCache_NeverStores() {
+		final ProductNameCache cache = new ProductNameCache(0, Duration.ofMinutes(1));
+		cache.put(SNAPSHOT, 1L, PRODUCT_NAME_A);
+
+		assertNull(cache.get(SNAPSHOT, 1L));
+	}
+}
@@ -0,0 +1,123 @@
+package ai.facie.tradedatatask.core.cache;
+
+import ai.facie.tradedatatask.core.output.ContentCoding;
+import ai.facie.tradedatatask.core.output.TradeOutputFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeResultCacheTest {
+	private static final String RESPONSE = "date,productName,currency,price\n20240101,Product A,USD,100\n".repeat(100);
+
+	@TempDir
+	private Path tempDir;
+
+	@Test
+	void testGet_ServesCommittedResponse() throws IOException {
+		final TradeResultCache cache = new TradeResultCache(tempDir, 1 << 20);
+		final TradeResultCache.Key key = key("hash", ContentCoding.GZIP, "1");
+		final byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+		assertEquals(body.length, store(cache, key, body).length);
+
+		assertArrayEquals(body, read(cache, key));
+		assertNull(cache.get(key("hash", ContentCoding.GZIP, "2")));
+		assertNull(cache.get(key("hash", ContentCoding.ZSTD, "1")));
+		assertEquals(1, cache.hitCount());
+		assertEquals(2, cache.missCount());
+	}
+
+	@Test
+	void testGet_StoresUncompressedResponsesCompressed() throws IOException {
+		final TradeResultCache cache = new TradeResultCache(tempDir, 1 << 20);
+		final TradeResultCache.Key key = key("hash", ContentCoding.IDENTITY, "1");
+
+		store(cache, key, RESPONSE.getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(RESPONSE, new String(read(cache, key), StandardCharsets.UTF_8));
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertTrue(files.mapToLong(TradeResultCacheTest::size).sum() < RESPONSE.length() / 10);
+		}
+	}
+
+	@Test
+	void testCommit_EvictsLeastRecentlyUsedResponses() throws IOException {
+		final TradeResultCache cache = new TradeResultCache(tempDir, 250);
+		store(cache, key("a", ContentCoding.GZIP, "1"), new byte[100]);
+		store(cache, key("b", ContentCoding.GZIP, "1"), new byte[100]);
+		read(cache, key("a", ContentCoding.GZIP, "1"));
+
+		store(cache, key("c", ContentCoding.GZIP, "1"), new byte[100]);
+
+		assertEquals(1, cache.evictionCount());
+		assertNull(cache.get(key("b", ContentCoding.GZIP, "1")));
+		assertNotNull(read(cache, key("a", ContentCoding.GZIP, "1")));
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(2, files.count());
+		}
+	}
+
+	@Test
+	void testClose_AbandonsUncommittedAndOversizedResponses() throws IOException {
+		final TradeResultCache cache = new TradeResultCache(tempDir, 50);
+		final ByteArrayOutputStream response = new ByteArrayOutputStream();
+		try (TradeResultCache.Writer writer = cache.newWriter(key("a", ContentCoding.GZIP, "1"))) {
+			writer.tee(response).write(new byte[10]);
+		}
+		store(cache, key("b", ContentCoding.GZIP, "1"), new byte[100]);
+
+		assertEquals(10, response.size());
+		assertNull(cache.get(key("a", ContentCoding.GZIP, "1")));
+		assertNull(cache.get(key("b", ContentCoding.GZIP, "1")));
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	void testContentHash_IsSha256OfTheContent() throws IOException {
+		assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+			TradeResultCache.contentHash(new ByteArrayInputStream("abc".getBytes(StandardCharsets.US_ASCII))));
+	}
+
+	private static byte[] store(final TradeResultCache cache, final TradeResultCache.Key key, final byte[] body) throws IOException {
+		final ByteArrayOutputStream response = new ByteArrayOutputStream();
+		try (TradeResultCache.Writer writer = cache.newWriter(key)) {
+			final OutputStream output = writer.tee(response);
+			output.write(body, 0, body.length / 2);
+			output.write(body, body.length / 2, body.length - body.length / 2);
+			writer.commit();
+		}
+		return response.toByteArray();
+	}
+
+	private static byte[] read(final TradeResultCache cache, final TradeResultCache.Key key) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (TradeResultCache.CachedResponse cached = cache.get(key)) {
+			cached.writeTo(output);
+		}
+		return output.toByteArray();
+	}
+
+	private static TradeResultCache.Key key(final String hash, final ContentCoding coding, final String version) {
+		return new TradeResultCache.Key(hash, TradeOutputFormat.CSV, coding, version);
+	}
+
+	private static long size(final Path file) {
+		try {
+			return Files.size(file);
+		} catch (final IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package ai.facie.tradedatatask.core.output;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ai.facie.tradedatatask.core.output.OutputTestData.batch;
+import static ai.facie.tradedatatask.core.output.OutputTestData.encode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads the stream back following the Arrow IPC specification: encapsulated messages, FlatBuffers metadata
+ * and 8-byte aligned body buffers.
+ */
+class ArrowTradeEncoderTest {
+	private static final byte HEADER_SCHEMA = 1;
+	private static final byte HEADER_RECORD_BATCH = 3;
+
+	private final ArrowTradeEncoder encoder = new ArrowTradeEncoder();
+
+	@Test
+	void testStream_SchemaBatchesAndEndMarker() {
+		final ByteBuffer stream = stream(encode(encoder, 64, batch(), new EnrichedBatch(List.of(), new int[0], new byte[0][]), batch()));
+
+		final Table schemaMessage = nextMessage(stream);
+		assertEquals(4, schemaMessage.getShort(0));
+		assertEquals(HEADER_SCHEMA, schemaMessage.getByte(1));
+		assertEquals(0, schemaMessage.getLong(3));
+		final Table schema = schemaMessage.table(2);
+		final List<Table> fields = schema.tables(1);
+		assertEquals(List.of("date", "productName", "currency", "price"), fields.stream().map(field -> field.string(0)).toList());
+		assertEquals(List.of(8, 5, 5, 5), fields.stream().map(field -> (int) field.getByte(2)).toList());
+		assertEquals(0, fields.get(0).table(3).getShort(0));
+
+		assertEquals(List.of("2024-01-01|Product A|USD|100.25", "1999-12-31|Prodüct \"B\"|EUR|7", "2024-02-29|Product A|GBP|1"),
+			nextBatch(stream));
+		assertEquals(List.of(), nextBatch(stream));
+		assertEquals(3, nextBatch(stream).size());
+
+		assertEquals(-1, stream.getInt());
+		assertEquals(0, stream.getInt());
+		assertEquals(0, stream.remaining());
+	}
+
+	@Test
+	void testWriteBatch_ReturnsBytesWritten() {
+		final List<byte[]> header = encode(encoder, 1024);
+		final int schemaAndFooter = header.stream().mapToInt(bytes -> bytes.length).sum();
+		final int total = encode(encoder, 1024, batch()).stream().mapToInt(bytes -> bytes.length).sum();
+
+		assertEquals(total - schemaAndFooter, encoder.writeBatch(new TradeOutputBuffer(1024, (bytes, length) -> {
+		}), batch()));
+	}
+
+	@Test
+	void testEpochDay() {
+		for (final LocalDate date : List.of(LocalDate.of(1970, 1, 1), LocalDate.of(1, 1, 1), LocalDate.of(1600, 2, 29),
+			LocalDate.of(1969, 12, 31), LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 1), LocalDate.of(9999, 12, 31))) {
+			final byte[] text = String.format("%04d%02d%02d", date.getYear(), date.getMonthValue(), date.getDayOfMonth())
+				.getBytes(StandardCharsets.US_ASCII);
+
+			assertEquals(date.toEpochDay(), ArrowTradeEncoder.epochDay(text, 0), date.toString());
+		}
+	}
+
+	private static List<String> nextBatch(final ByteBuffer stream) {
+		final Table message = nextMessage(stream);
+		assertEquals(HEADER_RECORD_BATCH, message.getByte(1));
+		final long bodyLength = message.getLong(3);
+		assertEquals(0, bodyLength % 8);
+		final ByteBuffer body = stream.slice(stream.position(), (int) bodyLength).order(ByteOrder.LITTLE_ENDIAN);
+		stream.position(stream.position() + (int) bodyLength);
+
+		final Table recordBatch = message.table(2);
+		final int rows = (int) recordBatch.getLong(0);
+		final long[] nodes = recordBatch.longPairs(1);
+		final long[] buffers = recordBatch.longPairs(2);
+		assertEquals(8, nodes.length);
+		assertEquals(22, buffers.length);
+		for (int i = 0; i < nodes.length; i += 2) {
+			assertEquals(rows, nodes[i]);
+			assertEquals(0, nodes[i + 1]);
+		}
+		for (int i = 0; i < buffers.length; i += 2) {
+			assertEquals(0, buffers[i] % 8);
+			assertTrue(buffers[i] + buffers[i + 1] <= bodyLength);
+		}
+
+		final List<String> rowsText = new ArrayList<>();
+		for (int row = 0; row < rows; row++) {
+			final int epochDay = body.getInt((int) buffers[2] + Integer.BYTES * row);
+			rowsText.add(LocalDate.ofEpochDay(epochDay) + "|" + string(body, buffers, 2, row) + "|"
+				+ string(body, buffers, 5, row) + "|" + string(body, buffers, 8, row));
+		}
+		return rowsText;
+	}
+
+	/**
+	 * @param column Index of the column's validity buffer; offsets and data follow it.
+	 */
+	private static String string(final ByteBuffer body, final long[] buffers, final int column, final int row) {
+		assertEquals(0, buffers[2 * column + 1]);
+		final int offsets = (int) buffers[2 * (column + 1)];
+		final int data = (int) buffers[2 * (column + 2)];
+		final int start = body.getInt(offsets + Integer.BYTES * row);
+		final int end = body.getInt(offsets + Integer.BYTES * (row + 1));
+		final byte[] bytes = new byte[end - start];
+		body.get(data + start, bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static Table nextMessage(final ByteBuffer stream) {
+		assertEquals(0, stream.position() % 8);
+		assertEquals(-1, stream.getInt());
+		final int metadataLength = stream.getInt();
+		assertEquals(0, (stream.position() + metadataLength) % 8);
+		final ByteBuffer metadata = stream.slice(stream.position(), metadataLength).order(ByteOrder.LITTLE_ENDIAN);
+		stream.position(stream.position() + metadataLength);
+
+		return new Table(metadata, metadata.getInt(0));
+	}
+
+	private static ByteBuffer stream(final List<byte[]> writes) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writes.forEach(bytes::writeBytes);
+
+		return ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Read access to a FlatBuffers table; absent fields read as zero.
+	 */
+	private record Table(ByteBuffer buffer, int position) {
+
+		private int field(final int index) {
+			final int vtable = position - buffer.getInt(position);
+			final int vtableLength = buffer.getShort(vtable);
+			return 4 + 2 * index < vtableLength ? buffer.getShort(vtable + 4 + 2 * index) : 0;
+		}
+
+		byte getByte(final int index) {
+			final int field = field(index);
+			return field == 0 ? 0 : buffer.get(position + field);
+		}
+
+		short getShort(final int index) {
+			final int field = field(index);
+			assertEquals(0, (position + field) % 2);
+			return field == 0 ? 0 : buffer.getShort(position + field);
+		}
+
+		long getLong(final int index) {
+			final int field = field(index);
+			assertEquals(0, (position + field) % 8);
+			return field == 0 ? 0 : buffer.getLong(position + field);
+		}
+
+		private int reference(final int index) {
+			final int field = position + field(index);
+			assertEquals(0, field % 4);
+			return field + buffer.getInt(field);
+		}
+
+		Table table(final int index) {
+			return new Table(buffer, reference(index));
+		}
+
+		String string(final int index) {
+			final int string = reference(index);
+			final byte[] bytes = new byte[buffer.getInt(string)];
+			buffer.get(string + 4, bytes);
+			assertEquals(0, buffer.get(string + 4 + bytes.length));
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		List<Table> tables(final int index) {
+			final int vector = reference(index);
+			final List<Table> tables = new ArrayList<>();
+			for (int i = 0; i < buffer.getInt(vector); i++) {
+				final int element = vector + 4 + 4 * i;
+				tables.add(new Table(buffer, element + buffer.getInt(element)));
+			}
+			return tables;
+		}
+
+		long[] longPairs(final int index) {
+			final int vector = reference(index);
+			assertEquals(0, (vector + 4) % 8);
+			final long[] values = new long[2 * buffer.getInt(vector)];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = buffer.getLong(vector + 4 + 8 * i);
+			}
+			return values;
+		}
+	}
+}
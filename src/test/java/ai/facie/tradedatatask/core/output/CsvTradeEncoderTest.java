@@ -0,0 +1,74 @@
+package ai.facie.tradedatatask.core.output;
+
+import ai.facie.tradedatatask.core.parser.ByteChunk;
+import ai.facie.tradedatatask.core.parser.PriceScales;
+import ai.facie.tradedatatask.core.parser.TradeCsvParser;
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static ai.facie.tradedatatask.core.output.OutputTestData.batch;
+import static ai.facie.tradedatatask.core.output.OutputTestData.encode;
+import static ai.facie.tradedatatask.core.output.OutputTestData.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class CsvTradeEncoderTest {
+	private static final String ROWS = "20240101,Product A,USD,100.25\n19991231,Prodüct \"B\",EUR,7\n20240229,Product A,GBP,1\n";
+
+	private final CsvTradeEncoder encoder = new CsvTradeEncoder();
+
+	@Test
+	void testWriteBatch_WritesHeaderAndRows() {
+		final List<byte[]> writes = encode(encoder, 1024, batch());
+
+		assertEquals(1, writes.size());
+		assertEquals(CsvTradeEncoder.HEADER + ROWS, text(writes));
+	}
+
+	@Test
+	void testWriteBatch_ReturnsBytesWritten() {
+		final TradeOutputBuffer buffer = new TradeOutputBuffer(1024, (bytes, length) -> {
+		});
+
+		assertEquals(ROWS.getBytes(StandardCharsets.UTF_8).length, encoder.writeBatch(buffer, batch()));
+	}
+
+	@Test
+	void testWriteBatch_DoesNotSplitRowsThatFitTheBuffer() {
+		final List<byte[]> writes = encode(encoder, 64, batch());
+
+		assertEquals(List.of(CsvTradeEncoder.HEADER + "20240101,Product A,USD,100.25\n",
+			"19991231,Prodüct \"B\",EUR,7\n20240229,Product A,GBP,1\n"), writes.stream().map(bytes -> new String(bytes, StandardCharsets.UTF_8)).toList());
+	}
+
+	@Test
+	void testWriteBatch_RowsLargerThanTheBufferAreSplit() {
+		final List<byte[]> writes = encode(encoder, 16, batch());
+
+		assertEquals(CsvTradeEncoder.HEADER + ROWS, text(writes));
+		writes.forEach(bytes -> assertTrue(bytes.length <= 16));
+	}
+
+	@Test
+	void testEncodeRow_UsesFixedLineEnd() {
+		final TradeRecord trade = OutputTestData.parse("20240101,1,USD,100.25\r\n").get(0);
+
+		assertEquals("20240101,Product A,USD,100.25\n",
+			new String(CsvTradeEncoder.encodeRow(trade, OutputTestData.PRODUCT_A), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testEncodeRow_WritesNormalizedPrice() {
+		final byte[] data = "20240101,1,USD,.5\n".getBytes(StandardCharsets.UTF_8);
+		final TradeRecord trade = TradeCsvParser.parse(new ByteChunk(data, 0, data.length), PriceScales.of(Map.of("USD", 2)),
+			(reason, lineNumber, line, start, end) -> fail(reason.tag())).get(0);
+
+		assertEquals("20240101,Product A,USD,0.50\n",
+			new String(CsvTradeEncoder.encodeRow(trade, OutputTestData.PRODUCT_A), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,51 @@
+package ai.facie.tradedatatask.core.output;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static ai.facie.tradedatatask.core.output.OutputTestData.batch;
+import static ai.facie.tradedatatask.core.output.OutputTestData.encode;
+import static ai.facie.tradedatatask.core.output.OutputTestData.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NdjsonTradeEncoderTest {
+	private final NdjsonTradeEncoder encoder = new NdjsonTradeEncoder();
+
+	@Test
+	void testWriteBatch_WritesOneObjectPerLineWithoutHeader() {
+		final String json = text(encode(encoder, 1024, batch()));
+
+		assertEquals("""
+			{"date":"20240101","productName":"Product A","currency":"USD","price":"100.25"}
+			{"date":"19991231","productName":"Prodüct \\"B\\"","currency":"EUR","price":"7"}
+			{"date":"20240229","productName":"Product A","currency":"GBP","price":"1"}
+			""", json);
+	}
+
+	@Test
+	void testWriteBatch_EscapesBackslashesAndControlCharacters() {
+		final EnrichedBatch batch = new EnrichedBatch(OutputTestData.parse("20240101,1,USD,1\n"), new int[]{0},
+			new byte[][]{"a\\b\tc\u0001".getBytes(StandardCharsets.UTF_8)});
+
+		final String json = text(encode(encoder, 1024, batch));
+
+		assertEquals("{\"date\":\"20240101\",\"productName\":\"a\\\\b\\u0009c\\u0001\",\"currency\":\"USD\",\"price\":\"1\"}\n", json);
+	}
+
+	@Test
+	void testWriteBatch_ReturnsBytesWritten() {
+		final TradeOutputBuffer buffer = new TradeOutputBuffer(1024, (bytes, length) -> {
+		});
+
+		final long bytes = encoder.writeBatch(buffer, batch());
+
+		assertEquals(text(encode(encoder, 1024, batch())).getBytes(StandardCharsets.UTF_8).length, bytes);
+	}
+
+	@Test
+	void testWriteBatch_EmptyBatchWritesNothing() {
+		assertEquals(List.of(), encode(encoder, 1024, new EnrichedBatch(List.of(), new int[0], new byte[0][])));
+	}
+}
@@ -0,0 +1,58 @@
+package ai.facie.tradedatatask.core.output;
+
+import ai.facie.tradedatatask.core.parser.ByteChunk;
+import ai.facie.tradedatatask.core.parser.TradeCsvParser;
+import ai.facie.tradedatatask.core.parser.TradeRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Enriched batches shared by the encoder tests.
+ */
+final class OutputTestData {
+	static final byte[] PRODUCT_A = "Product A".getBytes(StandardCharsets.UTF_8);
+	static final byte[] PRODUCT_B = "Prodüct \"B\"".getBytes(StandardCharsets.UTF_8);
+
+	private OutputTestData() {
+	}
+
+	/**
+	 * @return Three trades of two products, the second name with a multi-byte character and quotes.
+	 */
+	static EnrichedBatch batch() {
+		return new EnrichedBatch(parse("20240101,1,USD,100.25\n19991231,2,EUR,7\n20240229,1,GBP,1\n"),
+			new int[]{0, 1, 0}, new byte[][]{PRODUCT_A, PRODUCT_B});
+	}
+
+	static List<TradeRecord> parse(final String csv) {
+		final byte[] data = csv.getBytes(StandardCharsets.UTF_8);
+
+		return TradeCsvParser.parse(new ByteChunk(data, 0, data.length));
+	}
+
+	/**
+	 * Encodes batches in one format and collects every buffer handed over.
+	 */
+	static List<byte[]> encode(final TradeEncoder encoder, final int bufferSize, final EnrichedBatch... batches) {
+		final List<byte[]> writes = new ArrayList<>();
+		final TradeOutputBuffer buffer = new TradeOutputBuffer(bufferSize,
+			(bytes, length) -> writes.add(Arrays.copyOf(bytes, length)));
+		encoder.writeHeader(buffer);
+		for (final EnrichedBatch batch : batches) {
+			encoder.writeBatch(buffer, batch);
+		}
+		encoder.writeFooter(buffer);
+		buffer.flush();
+
+		return writes;
+	}
+
+	static String text(final List<byte[]> writes) {
+		final StringBuilder text = new StringBuilder();
+		writes.forEach(bytes -> text.append(new String(bytes, StandardCharsets.UTF_8)));
+		return text.toString();
+	}
+}
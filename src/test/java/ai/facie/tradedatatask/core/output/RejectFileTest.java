@@ -0,0 +1,61 @@
+package ai.facie.tradedatatask.core.output;
+
+import ai.facie.tradedatatask.core.parser.RejectReason;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RejectFileTest {
+
+	@TempDir
+	private Path tempDir;
+
+	@Test
+	void testClose_CompletesFileWithQueuedLinesOnly() throws IOException {
+		final List<Runnable> tasks = new ArrayList<>();
+		final RejectFile rejectFile = new RejectFile("id", tempDir.resolve("rejects.csv"), 10, tasks::add);
+		final byte[] data = "20240101,1,USD,1\n2024x101,1,USD,1\n".getBytes(StandardCharsets.UTF_8);
+
+		rejectFile.rejected(RejectReason.INVALID_DATE, 3, data, 17, 33);
+		rejectFile.close();
+		assertEquals(RejectFile.State.WRITING, rejectFile.getState());
+		assertEquals(1, tasks.size());
+
+		tasks.get(0).run();
+
+		assertEquals(RejectFile.State.COMPLETE, rejectFile.getState());
+		assertNotNull(rejectFile.getFinishedAt());
+		assertEquals(RejectFile.HEADER + "3,invalid_date,2024x101,1,USD,1\n", Files.readString(rejectFile.getPath()));
+	}
+
+	@Test
+	void testRejected_DropsLinesBeyondTheRowLimit() throws IOException {
+		final RejectFile rejectFile = new RejectFile("id", tempDir.resolve("rejects.csv"), 2, Runnable::run);
+		final byte[] line = "x".getBytes(StandardCharsets.UTF_8);
+
+		for (int i = 1; i <= 5; i++) {
+			rejectFile.rejected(RejectReason.MALFORMED_LINE, i, line, 0, line.length);
+		}
+		rejectFile.close();
+
+		assertEquals(3, rejectFile.getRowsDropped());
+		assertEquals(RejectFile.HEADER + "1,malformed_line,x\n2,malformed_line,x\n", Files.readString(rejectFile.getPath()));
+	}
+
+	@Test
+	void testClose_MarksUnwritableFileAsFailed() {
+		final RejectFile rejectFile = new RejectFile("id", tempDir.resolve("missing").resolve("rejects.csv"), 10, Runnable::run);
+
+		rejectFile.close();
+
+		assertEquals(RejectFile.State.FAILED, rejectFile.getState());
+	}
+}
@@ -0,0 +1,83 @@
+package ai.facie.tradedatatask.core.output;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TradeOutputBufferTest {
+	private final List<String> writes = new ArrayList<>();
+
+	@Test
+	void testWrite_BuffersUntilFlush() {
+		final TradeOutputBuffer buffer = new TradeOutputBuffer(1024, this::collect);
+
+		buffer.write("header\n".getBytes(StandardCharsets.UTF_8));
+		buffer.write((byte) 'x');
+
+		assertEquals(List.of(), writes);
+		buffer.flush();
+		buffer.flush();
+		assertEquals(List.of("header\nx"), writes);
+	}
+
+	@Test
+	void testWrite_SplitsLongRangesIntoFullBuffers() {
+		final TradeOutputBuffer buffer = new TradeOutputBuffer(16, this::collect);
+
+		buffer.write("0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8), 2, 30);
+		buffer.flush();
+
+		assertEquals(List.of("23456789abcdefgh", "ijklmnopqrstuv"), writes);
+	}
+
+	@Test
+	void testReserve_KeepsBlocksTogetherThatFitTheBuffer() {
+		final TradeOutputBuffer buffer = new TradeOutputBuffer(16, this::collect);
+
+		buffer.write("0123456789".getBytes(StandardCharsets.UTF_8));
+		buffer.reserve(6);
+		buffer.reserve(7);
+		buffer.write("abcdefg".getBytes(StandardCharsets.UTF_8));
+		buffer.reserve(40);
+		buffer.flush();
+
+		assertEquals(List.of("0123456789", "abcdefg"), writes);
+	}
+
+	@Test
+	void testWriteIntLE_NeverSplitsAnInteger() {
+		final List<byte[]> arrays = new ArrayList<>();
+		final TradeOutputBuffer buffer = new TradeOutputBuffer(16, (bytes, length) -> arrays.add(Arrays.copyOf(bytes, length)));
+
+		buffer.pad(14);
+		buffer.writeIntLE(0x04030201);
+		buffer.flush();
+
+		assertEquals(2, arrays.size());
+		assertEquals(14, arrays.get(0).length);
+		assertArrayEquals(new byte[]{1, 2, 3, 4}, arrays.get(1));
+	}
+
+	@Test
+	void testWriteDecimal_FormatsIntoTheBufferWithoutSplitting() {
+		final TradeOutputBuffer buffer = new TradeOutputBuffer(16, this::collect);
+
+		buffer.write("0123456789".getBytes(StandardCharsets.UTF_8));
+		buffer.writeDecimal(-10025L, 2);
+		buffer.writeDecimal(7L, 0);
+		buffer.writeDecimal(123456789012345678L, 18);
+		buffer.flush();
+
+		assertEquals(List.of("0123456789", "-100.257", "0.12345678901234", "5678"), writes);
+	}
+
+	private void collect(final byte[] bytes, final int length) {
+		writes.add(new String(bytes, 0, length, StandardCharsets.UTF_8));
+	}
+}
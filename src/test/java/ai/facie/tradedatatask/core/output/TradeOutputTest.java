@@ -0,0 +1,79 @@
+package ai.facie.tradedatatask.core.output;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TradeOutputTest {
+
+	@Test
+	void testNegotiate_DefaultsToPlainCsv() {
+		assertEquals(TradeOutput.CSV, TradeOutput.negotiate(new HttpHeaders()));
+		assertEquals(TradeOutput.CSV, TradeOutput.negotiate(headers("*/*", null)));
+		assertEquals(TradeOutput.CSV, TradeOutput.negotiate(headers("text/*", "identity")));
+	}
+
+	@Test
+	void testNegotiate_PicksTheAcceptedFormatWithTheHighestQuality() {
+		assertEquals(TradeOutputFormat.NDJSON, TradeOutput.negotiate(headers("application/x-ndjson", null)).format());
+		assertEquals(MediaType.parseMediaType("text/csv"), TradeOutput.negotiate(headers("text/csv", null)).contentType());
+
+		final TradeOutput output = TradeOutput.negotiate(headers("text/plain;q=0.5, application/vnd.apache.arrow.stream", null));
+		assertEquals(TradeOutputFormat.ARROW, output.format());
+		assertEquals(MediaType.parseMediaType(TradeOutputFormat.ARROW_STREAM_VALUE), output.contentType());
+	}
+
+	@Test
+	void testNegotiate_PicksTheCodingWithTheHighestQuality() {
+		assertEquals(ContentCoding.GZIP, TradeOutput.negotiate(headers(null, "gzip, deflate, br")).coding());
+		assertEquals(ContentCoding.ZSTD, TradeOutput.negotiate(headers(null, "gzip, zstd")).coding());
+		assertEquals(ContentCoding.GZIP, TradeOutput.negotiate(headers(null, "zstd;q=0.5, gzip;q=0.8")).coding());
+		assertEquals(ContentCoding.GZIP, TradeOutput.negotiate(headers(null, "*")).coding());
+		assertEquals(ContentCoding.IDENTITY, TradeOutput.negotiate(headers(null, "gzip;q=0, br")).coding());
+	}
+
+	@Test
+	void testNegotiate_WildcardNeverSelectsARefusedCoding() {
+		assertEquals(ContentCoding.ZSTD, TradeOutput.negotiate(headers(null, "gzip;q=0, *")).coding());
+		assertEquals(ContentCoding.ZSTD, TradeOutput.negotiate(headers(null, "*, gzip;q=0")).coding());
+		assertEquals(ContentCoding.GZIP, TradeOutput.negotiate(headers(null, "zstd;q=0, *")).coding());
+		assertEquals(ContentCoding.IDENTITY, TradeOutput.negotiate(headers(null, "gzip;q=0, zstd;q=0, *")).coding());
+		assertEquals(ContentCoding.IDENTITY, TradeOutput.negotiate(headers(null, "*;q=0")).coding());
+		assertEquals(ContentCoding.ZSTD, TradeOutput.negotiate(headers(null, "gzip;q=0.5, *")).coding());
+	}
+
+	@Test
+	void testNegotiate_ReadsEveryAcceptEncodingHeader() {
+		final HttpHeaders headers = headers(null, "*");
+		headers.add(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+
+		assertEquals(ContentCoding.ZSTD, TradeOutput.negotiate(headers).coding());
+	}
+
+	@Test
+	void testResponseHeaders() {
+		final HttpHeaders headers = new TradeOutput(TradeOutputFormat.NDJSON, MediaType.APPLICATION_NDJSON, ContentCoding.ZSTD)
+			.responseHeaders();
+
+		assertEquals(MediaType.APPLICATION_NDJSON, headers.getContentType());
+		assertEquals("zstd", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), headers.getVary());
+		assertNull(TradeOutput.CSV.responseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	private static HttpHeaders headers(final String accept, final String acceptEncoding) {
+		final HttpHeaders headers = new HttpHeaders();
+		if (accept != null) {
+			headers.setAccept(MediaType.parseMediaTypes(accept));
+		}
+		if (acceptEncoding != null) {
+			headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		}
+		return headers;
+	}
+}
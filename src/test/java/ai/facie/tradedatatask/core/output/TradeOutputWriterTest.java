@@ -0,0 +1,73 @@
+package ai.facie.tradedatatask.core.output;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static ai.facie.tradedatatask.core.output.OutputTestData.batch;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TradeOutputWriterTest {
+	private static final String CSV = CsvTradeEncoder.HEADER
+		+ "20240101,Product A,USD,100.25\n19991231,Prodüct \"B\",EUR,7\n20240229,Product A,GBP,1\n";
+
+	private final ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+	@Test
+	void testFinish_WritesUncompressedOutput() throws IOException {
+		try (TradeOutputWriter writer = new TradeOutputWriter(TradeOutput.CSV, target, 16)) {
+			writer.write(batch());
+			writer.finish();
+		}
+
+		assertEquals(CSV, target.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testFinish_WritesGzipCompressedOutput() throws IOException {
+		try (TradeOutputWriter writer = new TradeOutputWriter(output(ContentCoding.GZIP), target, 64)) {
+			writer.write(batch());
+			writer.finish();
+		}
+
+		assertEquals(CSV, read(new GZIPInputStream(new ByteArrayInputStream(target.toByteArray()))));
+	}
+
+	@Test
+	void testFinish_WritesZstdCompressedOutput() throws IOException {
+		try (TradeOutputWriter writer = new TradeOutputWriter(output(ContentCoding.ZSTD), target, 64)) {
+			writer.write(batch());
+			writer.finish();
+		}
+
+		assertEquals(CSV, read(new ZstdInputStream(new ByteArrayInputStream(target.toByteArray()))));
+	}
+
+	@Test
+	void testClose_UnfinishedOutputIsCutOff() throws IOException {
+		try (TradeOutputWriter writer = new TradeOutputWriter(output(ContentCoding.GZIP), target, 16)) {
+			writer.write(batch());
+		}
+
+		assertThrows(EOFException.class, () -> read(new GZIPInputStream(new ByteArrayInputStream(target.toByteArray()))));
+	}
+
+	private static TradeOutput output(final ContentCoding coding) {
+		return new TradeOutput(TradeOutputFormat.CSV, MediaType.TEXT_PLAIN, coding);
+	}
+
+	private static String read(final InputStream stream) throws IOException {
+		try (stream) {
+			return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package ai.facie.tradedatatask.core.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineChunkerTest {
+
+	@Test
+	void testFeed_JoinsLinesSplitAcrossSlices() {
+		final LineChunker chunker = new LineChunker(1);
+		final List<ByteChunk> chunks = new ArrayList<>();
+
+		chunks.addAll(chunker.feed(bytes("header\nline"), 11));
+		chunks.addAll(chunker.feed(bytes("-one\nline-two\nli"), 16));
+		chunks.addAll(chunker.feed(bytes("ne-three"), 8));
+		chunks.add(chunker.finish());
+
+		assertEquals("line-one\nline-two\nline-three", join(chunks));
+	}
+
+	@Test
+	void testFeed_SkipsHeaderSpanningSlices() {
+		final LineChunker chunker = new LineChunker(1);
+		final List<ByteChunk> chunks = new ArrayList<>();
+
+		chunks.addAll(chunker.feed(bytes("head"), 4));
+		chunks.addAll(chunker.feed(bytes("er\nrow\n"), 7));
+
+		assertEquals("row\n", join(chunks));
+		assertNull(chunker.finish());
+	}
+
+	@Test
+	void testFeed_EmitsWholeSliceWithoutCopying() {
+		final LineChunker chunker = new LineChunker(0);
+		final byte[] slice = bytes("a\nb\n");
+
+		final List<ByteChunk> chunks = chunker.feed(slice, slice.length);
+
+		assertEquals(1, chunks.size());
+		assertSame(slice, chunks.get(0).data());
+	}
+
+	@Test
+	void testFeed_NumbersChunksByTheirFirstLine() {
+		final LineChunker chunker = new LineChunker(1);
+		final List<ByteChunk> chunks = new ArrayList<>();
+
+		chunks.addAll(chunker.feed(bytes("header\nrow-2\nrow-3\nro"), 21));
+		chunks.addAll(chunker.feed(bytes("w-4\nrow-5\nrow-6"), 15));
+		chunks.add(chunker.finish());
+
+		assertEquals(List.of(2L, 4L, 5L, 6L), chunks.stream().map(ByteChunk::firstLine).toList());
+	}
+
+	private static byte[] bytes(final String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String join(final List<ByteChunk> chunks) {
+		final StringBuilder builder = new StringBuilder();
+		for (final ByteChunk chunk : chunks) {
+			builder.append(new String(chunk.data(), chunk.offset(), chunk.length(), StandardCharsets.UTF_8));
+		}
+		return builder.toString();
+	}
+}
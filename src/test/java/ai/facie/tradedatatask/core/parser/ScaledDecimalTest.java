@@ -0,0 +1,74 @@
+package ai.facie.tradedatatask.core.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScaledDecimalTest {
+
+	@Test
+	void testParse_PadsToTheScale() {
+		assertEquals(10025L, parse("100.25", 2));
+		assertEquals(10000L, parse("100", 2));
+		assertEquals(50L, parse(".5", 2));
+		assertEquals(7L, parse("7.", 0));
+		assertEquals(-1L, parse("-0.001", 3));
+		assertEquals(0L, parse("-0", 4));
+		assertEquals(5L, parse("0000000000000000000000.05", 2));
+		assertEquals(123456789012345678L, parse("123456789012345678", 0));
+	}
+
+	@Test
+	void testParse_RejectsInvalidNumbers() {
+		assertEquals(ScaledDecimal.INVALID, parse("", 0));
+		assertEquals(ScaledDecimal.INVALID, parse("-", 0));
+		assertEquals(ScaledDecimal.INVALID, parse(".", 0));
+		assertEquals(ScaledDecimal.INVALID, parse("+1", 0));
+		assertEquals(ScaledDecimal.INVALID, parse("1,5", 1));
+		assertEquals(ScaledDecimal.INVALID, parse("1.2.3", 3));
+		assertEquals(ScaledDecimal.INVALID, parse("1.005", 2));
+		assertEquals(ScaledDecimal.INVALID, parse("1234567890123456789", 0));
+		assertEquals(ScaledDecimal.INVALID, parse("12345678901234567", 2));
+		assertEquals(ScaledDecimal.INVALID, parse("1", 19));
+	}
+
+	@Test
+	void testScaleOf() {
+		assertEquals(2, scaleOf("100.25"));
+		assertEquals(0, scaleOf("100"));
+		assertEquals(0, scaleOf("100."));
+	}
+
+	@Test
+	void testWrite_PlainTextWithTheScale() {
+		assertEquals("100.25", write(10025L, 2));
+		assertEquals("100.00", write(10000L, 2));
+		assertEquals("0.05", write(5L, 2));
+		assertEquals("-0.001", write(-1L, 3));
+		assertEquals("0", write(0L, 0));
+		assertEquals("-42", write(-42L, 0));
+		assertEquals("0.123456789012345678", write(123456789012345678L, 18));
+		assertEquals("999999999999999999", write(999_999_999_999_999_999L, 0));
+	}
+
+	private static long parse(final String text, final int scale) {
+		final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+
+		return ScaledDecimal.parse(data, 0, data.length, scale);
+	}
+
+	private static int scaleOf(final String text) {
+		final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+
+		return ScaledDecimal.scaleOf(data, 0, data.length);
+	}
+
+	private static String write(final long unscaled, final int scale) {
+		final byte[] text = new byte[ScaledDecimal.length(unscaled, scale)];
+		assertEquals(text.length, ScaledDecimal.write(unscaled, scale, text, 0));
+
+		return new String(text, StandardCharsets.UTF_8);
+	}
+}
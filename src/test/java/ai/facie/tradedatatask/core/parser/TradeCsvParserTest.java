@@ -0,0 +1,100 @@
+package ai.facie.tradedatatask.core.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeCsvParserTest {
+
+	@Test
+	void testParse_ValidLine() {
+		final List<TradeRecord> records = parse("20240101,123,USD,100.25\n");
+
+		assertEquals(1, records.size());
+		final TradeRecord record = records.get(0);
+		assertEquals(123L, record.productId());
+		assertEquals("20240101", slice(record, record.dateOffset(), TradeRecord.DATE_LENGTH));
+		assertEquals("USD", slice(record, record.currencyOffset(), record.currencyLength()));
+		assertEquals(10025L, record.price());
+		assertEquals(2, record.priceScale());
+	}
+
+	@Test
+	void testParse_RejectsInvalidDates() {
+		assertTrue(parse("20230229,1,USD,1\n20241301,1,USD,1\n20240132,1,USD,1\n00000101,1,USD,1\n2024011,1,USD,1\n").isEmpty());
+		assertEquals(1, parse("20240229,1,USD,1\n").size());
+	}
+
+	@Test
+	void testParse_RejectsInvalidProductIds() {
+		assertTrue(parse("20240101,abc,USD,1\n20240101,,USD,1\n20240101,99999999999999999999,USD,1\n").isEmpty());
+	}
+
+	@Test
+	void testParse_RejectsWrongFieldCount() {
+		assertTrue(parse("20240101,1,USD\n20240101,1,USD,1,2\n20240101,1,USD,\n\n").isEmpty());
+	}
+
+	@Test
+	void testParse_HandlesCarriageReturnAndMissingTrailingNewLine() {
+		final List<TradeRecord> records = parse("20240101,1,USD,1\r\n20240102,2,EUR,2");
+
+		assertEquals(2, records.size());
+		assertEquals(1L, records.get(0).price());
+		assertEquals(2L, records.get(1).price());
+	}
+
+	@Test
+	void testParse_RejectsInvalidPrices() {
+		final List<RejectReason> reasons = new ArrayList<>();
+		final byte[] data = "20240101,1,USD,abc\n20240101,1,USD,1.2.3\n20240101,1,USD,-\n20240101,1,USD,1e3\n20240101,1,USD,1234567890123456789\n"
+			.getBytes(StandardCharsets.UTF_8);
+
+		assertTrue(TradeCsvParser.parse(new ByteChunk(data, 0, data.length), (reason, lineNumber, line, start, end) -> reasons.add(reason)).isEmpty());
+		assertEquals(Collections.nCopies(5, RejectReason.INVALID_PRICE), reasons);
+	}
+
+	@Test
+	void testParse_NormalizesPricesToTheScaleOfTheirCurrency() {
+		final PriceScales priceScales = PriceScales.of(Map.of("USD", 2, "JPY", 0));
+		final List<RejectReason> reasons = new ArrayList<>();
+		final byte[] data = "20240101,1,USD,100\n20240101,1,USD,.5\n20240101,1,JPY,150\n20240101,1,USD,1.005\n20240101,1,JPY,1.5\n20240101,1,EUR,1.500\n"
+			.getBytes(StandardCharsets.UTF_8);
+
+		final List<TradeRecord> records = TradeCsvParser.parse(new ByteChunk(data, 0, data.length), priceScales,
+			(reason, lineNumber, line, start, end) -> reasons.add(reason));
+
+		assertEquals(List.of(10000L, 50L, 150L, 1500L), records.stream().map(TradeRecord::price).toList());
+		assertEquals(List.of(2, 2, 0, 3), records.stream().map(TradeRecord::priceScale).toList());
+		assertEquals(List.of(RejectReason.INVALID_PRICE, RejectReason.INVALID_PRICE), reasons);
+	}
+
+	@Test
+	void testParse_ReportsLineNumbersOfRejectedLines() {
+		final List<Long> lineNumbers = new ArrayList<>();
+		final byte[] data = "20240101,1,USD,1\nbad\r\n20240101,1,USD,1\n20240101,x,USD,1".getBytes(StandardCharsets.UTF_8);
+
+		TradeCsvParser.parse(new ByteChunk(data, 0, data.length, 10), (reason, lineNumber, line, start, end) -> {
+			lineNumbers.add(lineNumber);
+			assertEquals(lineNumber == 11 ? "bad" : "20240101,x,USD,1", new String(line, start, end - start, StandardCharsets.UTF_8));
+		});
+
+		assertEquals(List.of(11L, 13L), lineNumbers);
+	}
+
+	private static List<TradeRecord> parse(final String text) {
+		final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+
+		return TradeCsvParser.parse(new ByteChunk(data, 0, data.length));
+	}
+
+	private static String slice(final TradeRecord record, final int offset, final int length) {
+		return new String(record.line(), offset, length, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,46 @@
+package ai.facie.tradedatatask.core.redis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductIdRedisSerializerTest {
+	private final ProductIdRedisSerializer serializer = new ProductIdRedisSerializer();
+
+	@Test
+	void testSerialize_NumericIdsAsVarint() {
+		assertArrayEquals(new byte[]{1}, serializer.serialize("0"));
+		assertArrayEquals(new byte[]{0x7F}, serializer.serialize("126"));
+		assertArrayEquals(new byte[]{(byte) 0x80, 0x01}, serializer.serialize("127"));
+		assertEquals(3, serializer.serialize("1234567").length);
+	}
+
+	@Test
+	void testSerialize_OtherIdsAsTaggedText() {
+		assertArrayEquals(new byte[]{0, 'a', 'b'}, serializer.serialize("ab"));
+		assertArrayEquals(new byte[]{0, '0', '7'}, serializer.serialize("07"));
+		assertArrayEquals(new byte[]{0}, serializer.serialize(""));
+	}
+
+	@Test
+	void testRoundTrip() {
+		for (final String productId : new String[]{"0", "1", "127", "128", "999999999999999999", "1000000000000000000",
+			"-1", "007", "", "id1", "Продукт"}) {
+			assertEquals(productId, serializer.deserialize(serializer.serialize(productId)), productId);
+		}
+	}
+
+	@Test
+	void testSerialize_VarintsNeverStartWithTheTextTag() {
+		for (final long id : new long[]{0, 127, 16383, 16384, 999999999999999999L}) {
+			assertNotEquals(0, serializer.serialize(Long.toString(id))[0]);
+		}
+		assertEquals(0, serializer.serialize("x")[0]);
+	}
+
+	@Test
+	void testNull() {
+		assertNull(serializer.serialize(null));
+		assertNull(serializer.deserialize(null));
+	}
+}
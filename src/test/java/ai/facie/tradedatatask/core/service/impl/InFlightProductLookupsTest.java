@@ -0,0 +1,68 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightProductLookupsTest {
+
+	@Test
+	void testClaim_AwaitsIdsAlreadyInFlight() {
+		final InFlightProductLookups lookups = new InFlightProductLookups();
+		final InFlightProductLookups.Claim first = lookups.claim(1, List.of("1", "2"));
+		final InFlightProductLookups.Claim second = lookups.claim(1, List.of("2", "3", "3"));
+
+		assertEquals(List.of("1", "2"), first.ownedIds());
+		assertEquals(List.of("3"), second.ownedIds());
+		assertEquals(2, second.coalescedCount());
+
+		final CompletableFuture<List<String>> secondNames = second.names();
+		second.complete(List.of("C"));
+		assertFalse(secondNames.isDone());
+		first.complete(Arrays.asList("A", null));
+
+		assertEquals(Arrays.asList("A", null), first.names().join());
+		assertEquals(Arrays.asList(null, "C", "C"), secondNames.join());
+		assertEquals(0, lookups.size());
+	}
+
+	@Test
+	void testClaim_NeverSharesIdsAcrossSnapshots() {
+		final InFlightProductLookups lookups = new InFlightProductLookups();
+		lookups.claim(1, List.of("1"));
+
+		final InFlightProductLookups.Claim reloaded = lookups.claim(2, List.of("1"));
+
+		assertEquals(List.of("1"), reloaded.ownedIds());
+		assertEquals(0, reloaded.coalescedCount());
+	}
+
+	@Test
+	void testFail_FailsWaitingLookupsAndReleasesIds() {
+		final InFlightProductLookups lookups = new InFlightProductLookups();
+		final InFlightProductLookups.Claim first = lookups.claim(1, List.of("1"));
+		final InFlightProductLookups.Claim second = lookups.claim(1, List.of("1"));
+
+		first.fail(new IllegalStateException("Redis down"));
+
+		final CompletionException error = assertThrows(CompletionException.class, () -> second.names().join());
+		assertInstanceOf(IllegalStateException.class, error.getCause());
+		assertEquals(0, lookups.size());
+		assertEquals(List.of("1"), lookups.claim(1, List.of("1")).ownedIds());
+	}
+
+	@Test
+	void testComplete_TreatsMissingReplyAsUnknownProducts() {
+		final InFlightProductLookups lookups = new InFlightProductLookups();
+		final InFlightProductLookups.Claim claim = lookups.claim(1, List.of("1", "2"));
+
+		claim.complete(null);
+
+		assertEquals(Arrays.asList(null, null), claim.names().join());
+	}
+}
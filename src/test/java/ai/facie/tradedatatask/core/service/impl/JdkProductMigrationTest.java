@@ -0,0 +1,54 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JdkProductMigrationTest {
+
+	@Mock
+	private ReactiveRedisConnectionFactory connectionFactory;
+
+	@Mock
+	private RedisProductSnapshots snapshots;
+
+	@Mock
+	private RedisProductBulkLoader bulkLoader;
+
+	@Test
+	void testRun_SkipsWhenCompactSnapshotExists() {
+		when(snapshots.current()).thenReturn(Mono.just(new RedisSnapshotRef(3, 0)));
+
+		new JdkProductMigration(connectionFactory, snapshots, bulkLoader, new ProductStoreProperties()).run(null);
+
+		verify(snapshots, never()).allocate();
+		verifyNoInteractions(bulkLoader);
+	}
+
+	@Test
+	void testConstructor_RequiresCompactEncoding() {
+		final ProductStoreProperties properties = new ProductStoreProperties();
+		properties.setRedisEncoding(ProductStoreProperties.RedisEncoding.JDK);
+
+		assertThrows(IllegalStateException.class, () -> new JdkProductMigration(connectionFactory, snapshots, bulkLoader, properties));
+	}
+
+	@Test
+	void testIsJdkString() {
+		assertTrue(JdkProductMigration.isJdkString(ByteBuffer.wrap(new JdkSerializationRedisSerializer().serialize("101"))));
+		assertFalse(JdkProductMigration.isJdkString(ByteBuffer.wrap(RedisSerializer.string().serialize("101"))));
+		assertFalse(JdkProductMigration.isJdkString(ByteBuffer.wrap(new JdkSerializationRedisSerializer().serialize(101L))));
+	}
+}
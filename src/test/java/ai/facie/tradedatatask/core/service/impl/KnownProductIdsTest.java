@@ -0,0 +1,88 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnownProductIdsTest {
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+
+	@Test
+	void testBuild_KeepsDenseNumericIdsInExactBitset() {
+		final KnownProductIds.Builder builder = new KnownProductIds.Builder();
+		for (int id = 1_000; id < 2_000; id += 2) {
+			builder.add(String.valueOf(id));
+		}
+
+		final KnownProductIds ids = builder.build(FALSE_POSITIVE_RATE);
+
+		assertTrue(ids.isExact());
+		assertTrue(ids.mightContain("1000"));
+		assertTrue(ids.mightContain("1998"));
+		assertFalse(ids.mightContain("1001"));
+		assertFalse(ids.mightContain("999"));
+		assertFalse(ids.mightContain("2000"));
+		assertFalse(ids.mightContain("id1000"));
+		assertEquals(16 * Long.BYTES, ids.sizeInBytes());
+	}
+
+	@Test
+	void testBuild_KeepsSparseIdsInBloomFilterWithoutFalseNegatives() {
+		final KnownProductIds.Builder builder = new KnownProductIds.Builder();
+		for (int i = 0; i < 10_000; i++) {
+			builder.add(String.valueOf(i * 1_000_003L));
+			builder.add("sku-" + i);
+		}
+
+		final KnownProductIds ids = builder.build(FALSE_POSITIVE_RATE);
+
+		assertFalse(ids.isExact());
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(ids.mightContain(String.valueOf(i * 1_000_003L)));
+			assertTrue(ids.mightContain("sku-" + i));
+			if (ids.mightContain(String.valueOf(i * 1_000_003L + 1))) {
+				falsePositives++;
+			}
+			if (ids.mightContain("unknown-" + i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 20_000 * FALSE_POSITIVE_RATE * 2, "false positives: " + falsePositives);
+	}
+
+	@Test
+	void testBuild_TellsIdsWithLeadingZerosApart() {
+		final KnownProductIds.Builder numeric = new KnownProductIds.Builder();
+		for (int id = 0; id < 200; id++) {
+			numeric.add(String.valueOf(id));
+		}
+		final KnownProductIds numericIds = numeric.build(FALSE_POSITIVE_RATE);
+
+		assertTrue(numericIds.isExact());
+		assertTrue(numericIds.mightContain("0"));
+		assertFalse(numericIds.mightContain("0123"));
+		assertFalse(numericIds.mightContain("00"));
+
+		final KnownProductIds.Builder padded = new KnownProductIds.Builder();
+		padded.add("0123");
+		final KnownProductIds paddedIds = padded.build(FALSE_POSITIVE_RATE);
+
+		assertFalse(paddedIds.isExact());
+		assertTrue(paddedIds.mightContain("0123"));
+	}
+
+	@Test
+	void testBuild_EmptyLoadKnowsNoIds() {
+		final KnownProductIds ids = new KnownProductIds.Builder().build(FALSE_POSITIVE_RATE);
+
+		assertFalse(ids.mightContain("1"));
+		assertFalse(ids.mightContain("id1"));
+	}
+
+	@Test
+	void testBuild_RejectsInvalidFalsePositiveRate() {
+		assertThrows(IllegalArgumentException.class, () -> new KnownProductIds.Builder().build(0));
+		assertThrows(IllegalArgumentException.class, () -> new KnownProductIds.Builder().build(1));
+	}
+}
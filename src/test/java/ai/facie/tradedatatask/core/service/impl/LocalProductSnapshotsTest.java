@@ -0,0 +1,136 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductWarmUpProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocalProductSnapshotsTest {
+	private static final RedisSnapshotRef SNAPSHOT = new RedisSnapshotRef(7, 2);
+
+	@Mock
+	private ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+	@Mock
+	private ReactiveHashOperations<String, String, String> reactiveHashOperations;
+
+	@Mock
+	private RedisProductSnapshots snapshots;
+
+	@TempDir
+	private Path tempDir;
+
+	private final ProductWarmUpProperties properties = new ProductWarmUpProperties();
+
+	@BeforeEach
+	void setUp() {
+		properties.setEnabled(true);
+		properties.setDirectory(tempDir);
+		lenient().doReturn(reactiveHashOperations).when(reactiveRedisTemplate).opsForHash();
+	}
+
+	@Test
+	void testWarmUp_PullsSnapshotWithoutLocalCopyFromRedis() {
+		when(snapshots.current()).thenReturn(Mono.just(SNAPSHOT));
+		final Map<String, String> products = Map.of("101", "Product A", "102", "Product B", "sku-1", "Product C");
+		when(reactiveHashOperations.scan(anyString(), any(ScanOptions.class))).thenAnswer(invocation -> {
+			final String key = invocation.getArgument(0);
+			return Flux.fromIterable(products.entrySet()).filter(product -> SNAPSHOT.keyOf(product.getKey()).equals(key));
+		});
+		final LocalProductSnapshots localSnapshots = new LocalProductSnapshots(reactiveRedisTemplate, snapshots, properties);
+		assertEquals(LocalProductSnapshots.State.PENDING, localSnapshots.getState());
+
+		localSnapshots.warmUp();
+
+		assertEquals(LocalProductSnapshots.State.READY, localSnapshots.getState());
+		assertEquals("Product A", localSnapshots.dictionaryOf(SNAPSHOT.version()).get(101));
+		assertEquals("Product B", localSnapshots.dictionaryOf(SNAPSHOT.version()).get(102));
+		assertEquals(2, localSnapshots.getProductCount());
+		assertNull(localSnapshots.dictionaryOf(SNAPSHOT.version() + 1));
+		assertTrue(Files.exists(tempDir.resolve("products-7.dict")));
+		SNAPSHOT.keys().forEach(key -> verify(reactiveHashOperations).scan(eq(key), any(ScanOptions.class)));
+	}
+
+	@Test
+	void testWarmUp_MapsLocalCopyWrittenByLoadWithoutRedis() {
+		writeCopy(new LocalProductSnapshots(reactiveRedisTemplate, snapshots, properties), SNAPSHOT, "101", "Product A");
+		when(snapshots.current()).thenReturn(Mono.just(SNAPSHOT));
+		final LocalProductSnapshots restarted = new LocalProductSnapshots(reactiveRedisTemplate, snapshots, properties);
+
+		restarted.warmUp();
+
+		assertEquals(LocalProductSnapshots.State.READY, restarted.getState());
+		assertEquals("Product A", restarted.dictionaryOf(SNAPSHOT.version()).get(101));
+		assertNotNull(restarted.getWarmUpTime());
+		verifyNoInteractions(reactiveRedisTemplate);
+	}
+
+	@Test
+	void testPublish_ReplacesCopyOfOlderSnapshot() throws IOException {
+		final LocalProductSnapshots localSnapshots = new LocalProductSnapshots(reactiveRedisTemplate, snapshots, properties);
+		final RedisSnapshotRef newer = new RedisSnapshotRef(SNAPSHOT.version() + 1, 0);
+
+		writeCopy(localSnapshots, SNAPSHOT, "101", "Product A");
+		writeCopy(localSnapshots, newer, "101", "Product B");
+
+		assertNull(localSnapshots.dictionaryOf(SNAPSHOT.version()));
+		assertEquals("Product B", localSnapshots.dictionaryOf(newer.version()).get(101));
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(1, files.count());
+		}
+	}
+
+	@Test
+	void testWarmUp_FailureLeavesLookupsToRedis() {
+		when(snapshots.current()).thenReturn(Mono.error(new IllegalStateException("Redis down")));
+		final LocalProductSnapshots localSnapshots = new LocalProductSnapshots(reactiveRedisTemplate, snapshots, properties);
+
+		localSnapshots.warmUp();
+
+		assertEquals(LocalProductSnapshots.State.FAILED, localSnapshots.getState());
+		assertNull(localSnapshots.dictionaryOf(SNAPSHOT.version()));
+	}
+
+	@Test
+	void testNewWriter_DisabledWarmUpWritesNothing() throws IOException {
+		properties.setEnabled(false);
+		final LocalProductSnapshots localSnapshots = new LocalProductSnapshots(reactiveRedisTemplate, snapshots, properties);
+
+		try (LocalProductSnapshots.Writer writer = localSnapshots.newWriter(SNAPSHOT)) {
+			writer.add("101", "Product A");
+			assertFalse(writer.publish());
+		}
+
+		assertEquals(LocalProductSnapshots.State.DISABLED, localSnapshots.getState());
+		assertNull(localSnapshots.dictionaryOf(SNAPSHOT.version()));
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	private static void writeCopy(final LocalProductSnapshots localSnapshots, final RedisSnapshotRef snapshot,
+								  final String productId, final String productName) {
+		try (LocalProductSnapshots.Writer writer = localSnapshots.newWriter(snapshot)) {
+			writer.add(productId, productName);
+			assertTrue(writer.publish());
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.model.ProductLoadProgress;
+import ai.facie.tradedatatask.core.service.ProductSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedProductServiceImplTest {
+	private static final String MISSING_PRODUCT_NAME = "Missing Product Name";
+	private static final String PRODUCT_DATA = "productId,productName\n1,Product A\n2,Продукт B\ninvalid,Product C\n3,Product D\n";
+
+	@TempDir
+	private Path tempDir;
+
+	private ProductStoreProperties properties;
+
+	private final EnrichmentMetrics metrics = new EnrichmentMetrics(new SimpleMeterRegistry());
+
+	@BeforeEach
+	void setUp() {
+		properties = new ProductStoreProperties();
+		properties.setType(ProductStoreProperties.Type.MAPPED);
+		properties.setMappedFile(tempDir.resolve("products.dict"));
+	}
+
+	@Test
+	void testGetProductNamesInBatch_AfterLoad() {
+		final MappedProductServiceImpl productService = new MappedProductServiceImpl(properties, metrics);
+		productService.loadProductsFromStream(new ByteArrayInputStream(PRODUCT_DATA.getBytes(StandardCharsets.UTF_8)));
+
+		final List<String> result = productService.getProductNamesInBatch(List.of("1", "2", "3", "4", "invalid"));
+
+		assertEquals(List.of("Product A", "Продукт B", "Product D", MISSING_PRODUCT_NAME, MISSING_PRODUCT_NAME), result);
+	}
+
+	@Test
+	void testLoadProductsFromStream_RejectsIdsWithLeadingZeros() {
+		final MappedProductServiceImpl productService = new MappedProductServiceImpl(properties, metrics);
+		productService.loadProductsFromStream(new ByteArrayInputStream(
+			"productId,productName\n123,Product A\n0123,Product B\n0,Product C\n".getBytes(StandardCharsets.UTF_8)));
+
+		final List<String> result = productService.getProductNamesInBatch(List.of("123", "0123", "0", "00"));
+
+		assertEquals(List.of("Product A", MISSING_PRODUCT_NAME, "Product C", MISSING_PRODUCT_NAME), result);
+	}
+
+	@Test
+	void testLoadProductsFromStream_ReportsProgressWhileLoading() {
+		final int products = MappedProductServiceImpl.PROGRESS_ROWS * 2 + 5;
+		final StringBuilder csv = new StringBuilder("productId,productName\n");
+		for (int i = 0; i < products; i++) {
+			csv.append(i).append(",Product ").append(i).append('\n');
+		}
+		final ProductLoadProgress progress = new ProductLoadProgress();
+		final long[] loadedWhenStreamEnded = new long[1];
+		final InputStream stream = new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)) {
+			@Override
+			public synchronized int read(final byte[] b, final int off, final int len) {
+				final int read = super.read(b, off, len);
+				if (read < 0) {
+					loadedWhenStreamEnded[0] = progress.getRowsLoaded();
+				}
+				return read;
+			}
+		};
+
+		new MappedProductServiceImpl(properties, metrics).loadProductsFromStream(stream, progress);
+
+		assertTrue(loadedWhenStreamEnded[0] > 0 && loadedWhenStreamEnded[0] < products, "rows loaded: " + loadedWhenStreamEnded[0]);
+		assertEquals(products, progress.getRowsLoaded());
+		assertEquals(3, progress.getBatchesWritten());
+	}
+
+	@Test
+	void testGetProductNamesInBatch_BeforeAnyLoad() {
+		final MappedProductServiceImpl productService = new MappedProductServiceImpl(properties, metrics);
+
+		assertEquals(List.of(MISSING_PRODUCT_NAME), productService.getProductNamesInBatch(List.of("1")));
+	}
+
+	@Test
+	void testRestart_RemapsExistingDictionary() {
+		new MappedProductServiceImpl(properties, metrics).loadProductsFromStream(new ByteArrayInputStream(PRODUCT_DATA.getBytes(StandardCharsets.UTF_8)));
+
+		final MappedProductServiceImpl restarted = new MappedProductServiceImpl(properties, metrics);
+
+		assertEquals(List.of("Product A", "Product D"), restarted.getProductNamesInBatch(List.of("1", "3")));
+	}
+
+	@Test
+	void testLoadProductsFromStream_ReloadReplacesProducts() {
+		final MappedProductServiceImpl productService = new MappedProductServiceImpl(properties, metrics);
+		productService.loadProductsFromStream(new ByteArrayInputStream(PRODUCT_DATA.getBytes(StandardCharsets.UTF_8)));
+
+		productService.loadProductsFromStream(new ByteArrayInputStream("productId,productName\n1,Product Z\n".getBytes()));
+
+		assertEquals(List.of("Product Z", MISSING_PRODUCT_NAME), productService.getProductNamesInBatch(List.of("1", "2")));
+	}
+
+	@Test
+	void testPinSnapshot_KeepsDictionaryAcrossReload() {
+		final MappedProductServiceImpl productService = new MappedProductServiceImpl(properties, metrics);
+		productService.loadProductsFromStream(new ByteArrayInputStream(PRODUCT_DATA.getBytes(StandardCharsets.UTF_8)));
+		final ProductSnapshot pinned = productService.pinSnapshot().block();
+
+		productService.loadProductsFromStream(new ByteArrayInputStream("productId,productName\n1,Product Z\n".getBytes()));
+
+		assertEquals(List.of("Product A", "Product D"), pinned.getProductNamesInBatch(List.of("1", "3")));
+		assertEquals(List.of("Product Z", MISSING_PRODUCT_NAME), productService.getProductNamesInBatch(List.of("1", "3")));
+	}
+}
@@ -0,0 +1,132 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.core.model.ProductLoadJob;
+import ai.facie.tradedatatask.core.model.ProductLoadProgress;
+import ai.facie.tradedatatask.core.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductLoadJobServiceImplTest {
+	private static final String PRODUCT_DATA = "productId,productName\n1,Product A\n";
+
+	@TempDir
+	private Path tempDir;
+
+	@Mock
+	private ProductService productService;
+
+	private ExecutorService executor;
+
+	private ProductLoadJobServiceImpl jobService;
+
+	@BeforeEach
+	void setUp() {
+		executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(1));
+		jobService = new ProductLoadJobServiceImpl(productService, executor, new ProductLoadProperties());
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void testSubmit_LoadsFileInBackground() throws Exception {
+		final String[] loaded = new String[1];
+		doAnswer(invocation -> {
+			loaded[0] = new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8);
+			invocation.<ProductLoadProgress>getArgument(1).batchWritten(1);
+			return null;
+		}).when(productService).loadProductsFromStream(any(), any());
+		final Path file = spoolFile();
+
+		final ProductLoadJob job = jobService.submit("products.csv", file);
+		awaitIdle();
+
+		assertEquals(PRODUCT_DATA, loaded[0]);
+		assertEquals(ProductLoadJob.State.COMPLETED, job.getState());
+		assertEquals(1, job.getProgress().getRowsLoaded());
+		assertSame(job, jobService.find(job.getId()).orElseThrow());
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	void testSubmit_RecordsFailure() throws Exception {
+		doThrow(new IllegalStateException("Redis down")).when(productService).loadProductsFromStream(any(), any());
+		final Path file = spoolFile();
+
+		final ProductLoadJob job = jobService.submit("products.csv", file);
+		awaitIdle();
+
+		assertEquals(ProductLoadJob.State.FAILED, job.getState());
+		assertEquals("Redis down", job.getProgress().getFailure().getMessage());
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	void testCancel_QueuedJobNeverLoads() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> awaitQuietly(release));
+		final Path file = spoolFile();
+
+		final ProductLoadJob job = jobService.submit("products.csv", file);
+		jobService.cancel(job.getId());
+		assertEquals(ProductLoadJob.State.CANCELLED, job.getState());
+		release.countDown();
+		awaitIdle();
+
+		verifyNoInteractions(productService);
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	void testSubmit_RejectsWhenQueueIsFull() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> awaitQuietly(release));
+		jobService.submit("queued.csv", spoolFile());
+		final Path rejected = spoolFile();
+
+		assertThrows(RejectedExecutionException.class, () -> jobService.submit("rejected.csv", rejected));
+		assertFalse(Files.exists(rejected));
+		release.countDown();
+	}
+
+	private Path spoolFile() throws IOException {
+		return Files.writeString(Files.createTempFile(tempDir, "products-", ".csv"), PRODUCT_DATA);
+	}
+
+	private void awaitIdle() throws InterruptedException {
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	private static void awaitQuietly(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -1,18 +1,38 @@
 package ai.facie.tradedatatask.core.service.impl;
 
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import ai.facie.tradedatatask.config.ProductWarmUpProperties;
+import ai.facie.tradedatatask.core.cache.ProductNameCache;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.model.ProductLoadProgress;
+import ai.facie.tradedatatask.core.service.ProductSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +48,12 @@ class ProductServiceImplTest {
 	private static final String PRODUCT_NAME_C = "Product C";
 	private static final String MISSING_PRODUCT_NAME = "Missing Product Name";
 	private static final String PRODUCT_DATA = PRODUCT_ID_1 + "," + PRODUCT_NAME_A + "\n" + PRODUCT_ID_2 + "," + PRODUCT_NAME_B;
+	private static final String NUMERIC_ID_1 = "101";
+	private static final String NUMERIC_ID_2 = "102";
+	private static final long LEGACY = RedisSnapshotRef.LEGACY.version();
+	private static final long NEW_VERSION = 7;
+	private static final RedisSnapshotRef NEW_SNAPSHOT = new RedisSnapshotRef(NEW_VERSION, 0);
+	private static final String NEW_SNAPSHOT_KEY = NEW_SNAPSHOT.key();
 
 	@Mock
 	private RedisTemplate<String, String> redisTemplate;
@@ -35,21 +61,106 @@ class ProductServiceImplTest {
 	@Mock
 	private ValueOperations<String, String> valueOperations;
 
-	@InjectMocks
+	@Mock
+	private ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+	@Mock
+	private ReactiveValueOperations<String, String> reactiveValueOperations;
+
+	@Mock
+	private HashOperations<String, String, String> hashOperations;
+
+	@Mock
+	private ReactiveHashOperations<String, String, String> reactiveHashOperations;
+
+	@Mock
+	private RedisProductSnapshots snapshots;
+
+	@Spy
+	private ProductNameCache productNameCache = new ProductNameCache(1024, Duration.ofMinutes(1));
+
+	@Spy
+	private EnrichmentMetrics enrichmentMetrics = new EnrichmentMetrics(new SimpleMeterRegistry());
+
+	@TempDir
+	private Path tempDir;
+
 	private ProductServiceImpl productService;
 
 	@BeforeEach
 	void setUp() {
-		when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+		lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+		lenient().when(reactiveRedisTemplate.opsForValue()).thenReturn(reactiveValueOperations);
+		lenient().doReturn(hashOperations).when(redisTemplate).opsForHash();
+		lenient().doReturn(reactiveHashOperations).when(reactiveRedisTemplate).opsForHash();
+		lenient().when(snapshots.current()).thenReturn(Mono.just(RedisSnapshotRef.LEGACY));
+		lenient().when(snapshots.allocate()).thenReturn(NEW_SNAPSHOT);
+		lenient().when(snapshots.publish(any())).thenReturn(true);
+		final RedisProductBulkLoader bulkLoader = new RedisProductBulkLoader(reactiveRedisTemplate,
+			new ProductLoadProperties(), enrichmentMetrics);
+		productService = new ProductServiceImpl(redisTemplate, reactiveRedisTemplate, productNameCache,
+			enrichmentMetrics, bulkLoader, snapshots, new ProductStoreProperties(),
+			new LocalProductSnapshots(reactiveRedisTemplate, snapshots, new ProductWarmUpProperties()));
 	}
 
 	@Test
 	void testLoadProductsFromStream() {
 		final InputStream inputStream = new ByteArrayInputStream(PRODUCT_DATA.getBytes());
+		when(reactiveHashOperations.putAll(eq(NEW_SNAPSHOT_KEY), anyMap())).thenReturn(Mono.just(true));
 
 		productService.loadProductsFromStream(inputStream);
 
-		verify(redisTemplate.opsForValue(), atLeastOnce()).multiSet(anyMap());
+		verify(reactiveHashOperations, atLeastOnce()).putAll(eq(NEW_SNAPSHOT_KEY), anyMap());
+		verify(snapshots).publish(NEW_SNAPSHOT);
+		verify(snapshots, never()).discard(any());
+		verify(valueOperations, never()).multiSet(anyMap());
+	}
+
+	@Test
+	void testLoadProductsFromStream_LoadOvertakenByNewerSnapshotIsDiscarded() {
+		when(reactiveHashOperations.putAll(eq(NEW_SNAPSHOT_KEY), anyMap())).thenReturn(Mono.just(true));
+		when(snapshots.publish(NEW_SNAPSHOT)).thenReturn(false);
+
+		productService.loadProductsFromStream(new ByteArrayInputStream(PRODUCT_DATA.getBytes()));
+
+		verify(snapshots).discard(NEW_SNAPSHOT);
+	}
+
+	@Test
+	void testLoadProductsFromStream_FailedLoadIsDiscarded() {
+		when(reactiveHashOperations.putAll(eq(NEW_SNAPSHOT_KEY), anyMap())).thenReturn(Mono.error(new IllegalStateException("Redis down")));
+
+		assertThrows(IllegalStateException.class,
+			() -> productService.loadProductsFromStream(new ByteArrayInputStream("productId,productName\n1,Product A".getBytes())));
+
+		verify(snapshots).discard(NEW_SNAPSHOT);
+		verify(snapshots, never()).publish(any());
+	}
+
+	@Test
+	void testLoadProductsFromStream_CancelledLoadIsDiscarded() {
+		final ProductLoadProgress progress = new ProductLoadProgress();
+		progress.cancel();
+
+		productService.loadProductsFromStream(new ByteArrayInputStream(PRODUCT_DATA.getBytes()), progress);
+
+		verify(snapshots).discard(NEW_SNAPSHOT);
+		verify(snapshots, never()).publish(any());
+	}
+
+	@Test
+	void testLoadProductsFromStream_ReportsProgress() {
+		final String products = "productId,productName\n1,Product A\ninvalid\n2,Product B\n1,Product C";
+		when(reactiveHashOperations.putAll(eq(NEW_SNAPSHOT_KEY), anyMap())).thenReturn(Mono.just(true));
+		final ProductLoadProgress progress = new ProductLoadProgress();
+
+		productService.loadProductsFromStream(new ByteArrayInputStream(products.getBytes()), progress);
+
+		verify(reactiveHashOperations).putAll(NEW_SNAPSHOT_KEY, Map.of("1", "Product C", "2", "Product B"));
+		assertEquals(3, progress.getRowsLoaded());
+		assertEquals(1, progress.getRowsRejected());
+		assertEquals(products.length(), progress.getBytesRead());
+		assertTrue(progress.isFinished());
 	}
 
 	@Test
@@ -83,4 +194,150 @@ class ProductServiceImplTest {
 		final List<String> result = productService.getProductNamesInBatch(productIds);
 		assertEquals(Arrays.asList(MISSING_PRODUCT_NAME, MISSING_PRODUCT_NAME), result);
 	}
+
+	@Test
+	void testGetProductNamesInBatch_CachedNamesSkipRedis() {
+		when(valueOperations.multiGet(List.of(NUMERIC_ID_2))).thenReturn(Arrays.asList(PRODUCT_NAME_B));
+		productNameCache.put(LEGACY, Long.parseLong(NUMERIC_ID_1), PRODUCT_NAME_A);
+		// Cached for another snapshot, so not served.
+		productNameCache.put(NEW_VERSION, Long.parseLong(NUMERIC_ID_2), PRODUCT_NAME_C);
+
+		final List<String> result = productService.getProductNamesInBatch(List.of(NUMERIC_ID_1, NUMERIC_ID_2));
+
+		assertEquals(List.of(PRODUCT_NAME_A, PRODUCT_NAME_B), result);
+		verify(valueOperations).multiGet(List.of(NUMERIC_ID_2));
+	}
+
+	@Test
+	void testGetProductNamesInBatch_IdsNeverLoadedSkipRedis() {
+		when(reactiveHashOperations.putAll(eq(NEW_SNAPSHOT_KEY), anyMap())).thenReturn(Mono.just(true));
+		productService.loadProductsFromStream(new ByteArrayInputStream(("productId,productName\n" + NUMERIC_ID_1 + "," + PRODUCT_NAME_A).getBytes()));
+		when(snapshots.current()).thenReturn(Mono.just(NEW_SNAPSHOT));
+		when(hashOperations.multiGet(NEW_SNAPSHOT_KEY, List.of(NUMERIC_ID_1))).thenReturn(Arrays.asList(PRODUCT_NAME_A));
+
+		final List<String> result = productService.getProductNamesInBatch(List.of(NUMERIC_ID_1, NUMERIC_ID_2, PRODUCT_ID_1));
+
+		assertEquals(List.of(PRODUCT_NAME_A, MISSING_PRODUCT_NAME, MISSING_PRODUCT_NAME), result);
+		verify(hashOperations).multiGet(NEW_SNAPSHOT_KEY, List.of(NUMERIC_ID_1));
+		verify(enrichmentMetrics).productLookupsSkipped(2);
+	}
+
+	@Test
+	void testGetProductNamesInBatch_AnswersNumericIdsFromLocalCopy() {
+		final ProductWarmUpProperties warmUp = new ProductWarmUpProperties();
+		warmUp.setEnabled(true);
+		warmUp.setDirectory(tempDir);
+		productService = new ProductServiceImpl(redisTemplate, reactiveRedisTemplate, productNameCache, enrichmentMetrics,
+			new RedisProductBulkLoader(reactiveRedisTemplate, new ProductLoadProperties(), enrichmentMetrics), snapshots,
+			new ProductStoreProperties(), new LocalProductSnapshots(reactiveRedisTemplate, snapshots, warmUp));
+		when(reactiveHashOperations.putAll(eq(NEW_SNAPSHOT_KEY), anyMap())).thenReturn(Mono.just(true));
+		productService.loadProductsFromStream(new ByteArrayInputStream(("productId,productName\n" + NUMERIC_ID_1 + "," + PRODUCT_NAME_A
+			+ "\n" + PRODUCT_ID_1 + "," + PRODUCT_NAME_B).getBytes()));
+		when(snapshots.current()).thenReturn(Mono.just(NEW_SNAPSHOT));
+		when(hashOperations.multiGet(NEW_SNAPSHOT_KEY, List.of(PRODUCT_ID_1))).thenReturn(Arrays.asList(PRODUCT_NAME_B));
+
+		final List<String> result = productService.getProductNamesInBatch(List.of(NUMERIC_ID_1, NUMERIC_ID_2, PRODUCT_ID_1));
+
+		assertEquals(List.of(PRODUCT_NAME_A, MISSING_PRODUCT_NAME, PRODUCT_NAME_B), result);
+		verify(hashOperations).multiGet(NEW_SNAPSHOT_KEY, List.of(PRODUCT_ID_1));
+	}
+
+	@Test
+	void testPinSnapshot_KeepsReadingThePinnedVersion() {
+		final RedisProductSnapshots.Lease lease = mock(RedisProductSnapshots.Lease.class);
+		when(snapshots.current()).thenReturn(Mono.just(NEW_SNAPSHOT));
+		when(snapshots.lease(NEW_SNAPSHOT)).thenReturn(lease);
+		when(lease.renew()).thenReturn(Mono.empty());
+		final ProductSnapshot pinned = productService.pinSnapshot().block();
+		// Never read by the pinned snapshot, which is the point.
+		lenient().when(snapshots.current()).thenReturn(Mono.just(new RedisSnapshotRef(NEW_VERSION + 1, 0)));
+		when(reactiveHashOperations.multiGet(NEW_SNAPSHOT_KEY, List.of(NUMERIC_ID_1))).thenReturn(Mono.just(List.of(PRODUCT_NAME_A)));
+
+		StepVerifier.create(pinned.getProductNamesInBatchAsync(List.of(NUMERIC_ID_1)))
+			.expectNext(List.of(PRODUCT_NAME_A))
+			.verifyComplete();
+		assertEquals(PRODUCT_NAME_A, productNameCache.get(NEW_VERSION, Long.parseLong(NUMERIC_ID_1)));
+		assertNull(productNameCache.get(NEW_VERSION + 1, Long.parseLong(NUMERIC_ID_1)));
+		verify(lease).renew();
+	}
+
+	@Test
+	void testPinSnapshot_FailsLookupOnceThePinnedSnapshotExpired() {
+		final RedisProductSnapshots.Lease lease = mock(RedisProductSnapshots.Lease.class);
+		when(snapshots.current()).thenReturn(Mono.just(NEW_SNAPSHOT));
+		when(snapshots.lease(NEW_SNAPSHOT)).thenReturn(lease);
+		when(lease.renew()).thenReturn(Mono.error(new IllegalStateException("expired")));
+		final ProductSnapshot pinned = productService.pinSnapshot().block();
+
+		assertThrows(IllegalStateException.class, () -> pinned.getProductNamesInBatch(List.of(NUMERIC_ID_1)));
+		StepVerifier.create(pinned.getProductNamesInBatchAsync(List.of(NUMERIC_ID_1)))
+			.verifyError(IllegalStateException.class);
+		verifyNoInteractions(hashOperations, reactiveHashOperations);
+	}
+
+	@Test
+	void testGetProductNamesInBatch_ReadsCurrentSnapshotHash() {
+		when(snapshots.current()).thenReturn(Mono.just(NEW_SNAPSHOT));
+		when(hashOperations.multiGet(NEW_SNAPSHOT_KEY, List.of(PRODUCT_ID_1))).thenReturn(Arrays.asList(PRODUCT_NAME_A));
+
+		assertEquals(List.of(PRODUCT_NAME_A), productService.getProductNamesInBatch(List.of(PRODUCT_ID_1)));
+		verifyNoInteractions(valueOperations);
+	}
+
+	@Test
+	void testGetProductNamesInBatch_ReadsEachBucketOfBucketedSnapshot() {
+		final RedisSnapshotRef bucketed = new RedisSnapshotRef(NEW_VERSION, 4);
+		final Map<String, String> names = Map.of(PRODUCT_ID_1, PRODUCT_NAME_A, PRODUCT_ID_2, PRODUCT_NAME_B,
+			NUMERIC_ID_1, PRODUCT_NAME_C);
+		when(snapshots.current()).thenReturn(Mono.just(bucketed));
+		when(reactiveHashOperations.multiGet(anyString(), anyList())).thenAnswer(invocation -> {
+			final String key = invocation.getArgument(0);
+			final List<String> ids = invocation.getArgument(1);
+			ids.forEach(id -> assertEquals(bucketed.keyOf(id), key));
+			return Mono.just(ids.stream().map(id -> names.getOrDefault(id, null)).toList());
+		});
+
+		final List<String> result = productService.getProductNamesInBatch(List.of(PRODUCT_ID_1, NUMERIC_ID_1, PRODUCT_ID_3, PRODUCT_ID_2));
+
+		assertEquals(List.of(PRODUCT_NAME_A, PRODUCT_NAME_C, MISSING_PRODUCT_NAME, PRODUCT_NAME_B), result);
+		verifyNoInteractions(hashOperations, valueOperations);
+	}
+
+	@Test
+	void testGetProductNamesInBatchAsync_FetchesOnlyCacheMisses() {
+		productNameCache.put(LEGACY, Long.parseLong(NUMERIC_ID_1), PRODUCT_NAME_A);
+		when(reactiveValueOperations.multiGet(List.of(NUMERIC_ID_2, PRODUCT_ID_3))).thenReturn(Mono.just(Arrays.asList(PRODUCT_NAME_B, null)));
+
+		StepVerifier.create(productService.getProductNamesInBatchAsync(List.of(NUMERIC_ID_1, NUMERIC_ID_2, PRODUCT_ID_3)))
+			.expectNext(List.of(PRODUCT_NAME_A, PRODUCT_NAME_B, MISSING_PRODUCT_NAME))
+			.verifyComplete();
+		assertEquals(PRODUCT_NAME_B, productNameCache.get(LEGACY, Long.parseLong(NUMERIC_ID_2)));
+	}
+
+	@Test
+	void testGetProductNamesInBatchAsync_SharesFetchOfIdsInFlight() {
+		final Sinks.One<List<String>> pending = Sinks.one();
+		when(reactiveValueOperations.multiGet(List.of(NUMERIC_ID_1, NUMERIC_ID_2))).thenReturn(pending.asMono());
+		when(reactiveValueOperations.multiGet(List.of(PRODUCT_ID_3))).thenReturn(Mono.just(Arrays.asList(PRODUCT_NAME_C)));
+
+		final CompletableFuture<List<String>> first = productService.getProductNamesInBatchAsync(List.of(NUMERIC_ID_1, NUMERIC_ID_2)).toFuture();
+		final CompletableFuture<List<String>> second = productService.getProductNamesInBatchAsync(List.of(NUMERIC_ID_2, PRODUCT_ID_3)).toFuture();
+		assertFalse(second.isDone());
+		pending.tryEmitValue(Arrays.asList(PRODUCT_NAME_A, PRODUCT_NAME_B));
+
+		assertEquals(List.of(PRODUCT_NAME_A, PRODUCT_NAME_B), first.join());
+		assertEquals(List.of(PRODUCT_NAME_B, PRODUCT_NAME_C), second.join());
+		verify(enrichmentMetrics).productLookupsCoalesced(1);
+		verify(reactiveValueOperations, never()).multiGet(List.of(NUMERIC_ID_2, PRODUCT_ID_3));
+	}
+
+	@Test
+	void testGetProductNamesInBatchAsync_AllCachedSkipsRedis() {
+		productNameCache.put(LEGACY, Long.parseLong(NUMERIC_ID_1), PRODUCT_NAME_A);
+
+		StepVerifier.create(productService.getProductNamesInBatchAsync(List.of(NUMERIC_ID_1)))
+			.expectNext(List.of(PRODUCT_NAME_A))
+			.verifyComplete();
+		verifyNoInteractions(reactiveValueOperations);
+	}
 }
\ No newline at end of file
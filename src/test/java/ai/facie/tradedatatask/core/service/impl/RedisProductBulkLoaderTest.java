@@ -0,0 +1,148 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.model.ProductLoadProgress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisProductBulkLoaderTest {
+	private static final RedisSnapshotRef SNAPSHOT = new RedisSnapshotRef(1, 0);
+	private static final String SNAPSHOT_KEY = SNAPSHOT.key();
+
+	@Mock
+	private ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+	@Mock
+	private ReactiveHashOperations<String, String, String> reactiveHashOperations;
+
+	private final ProductLoadProperties properties = new ProductLoadProperties();
+
+	private RedisProductBulkLoader bulkLoader;
+
+	@BeforeEach
+	void setUp() {
+		lenient().doReturn(reactiveHashOperations).when(reactiveRedisTemplate).opsForHash();
+		bulkLoader = new RedisProductBulkLoader(reactiveRedisTemplate, properties, new EnrichmentMetrics(new SimpleMeterRegistry()));
+	}
+
+	@Test
+	void testLoad_WritesEveryProductInBatches() {
+		properties.setInitialBatchSize(100);
+		properties.setMinBatchSize(100);
+		properties.setMaxBatchSize(100);
+		final Map<String, String> stored = new ConcurrentHashMap<>();
+		final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+		when(reactiveHashOperations.putAll(eq(SNAPSHOT_KEY), anyMap())).thenAnswer(invocation -> {
+			final Map<String, String> batch = invocation.getArgument(1);
+			stored.putAll(batch);
+			batchSizes.add(batch.size());
+			return Mono.just(true).delayElement(Duration.ofMillis(5));
+		});
+		final StringBuilder csv = new StringBuilder("productId,productName\n");
+		for (int i = 0; i < 1050; i++) {
+			csv.append(i).append(",Product ").append(i).append('\n');
+		}
+		final ProductLoadProgress progress = new ProductLoadProgress();
+
+		bulkLoader.load(new BufferedReader(new StringReader(csv.toString())), SNAPSHOT, progress);
+
+		assertEquals(1050, stored.size());
+		assertEquals("Product 1049", stored.get("1049"));
+		assertEquals(11, batchSizes.size());
+		assertEquals(1050, progress.getRowsLoaded());
+		assertEquals(11, progress.getBatchesWritten());
+	}
+
+	@Test
+	void testLoad_WritesEachProductIntoItsBucket() {
+		final RedisSnapshotRef snapshot = new RedisSnapshotRef(2, 4);
+		final Map<String, Map<String, String>> stored = new ConcurrentHashMap<>();
+		when(reactiveHashOperations.putAll(anyString(), anyMap())).thenAnswer(invocation -> {
+			stored.computeIfAbsent(invocation.getArgument(0), key -> new ConcurrentHashMap<>())
+				.putAll(invocation.<Map<String, String>>getArgument(1));
+			return Mono.just(true);
+		});
+		final List<Map.Entry<String, String>> products = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			products.add(Map.entry(Integer.toString(i), "Product " + i));
+		}
+		final ProductLoadProgress progress = new ProductLoadProgress();
+
+		bulkLoader.load(Flux.fromIterable(products), snapshot, progress);
+
+		assertEquals(100, progress.getRowsLoaded());
+		assertTrue(snapshot.keys().containsAll(stored.keySet()));
+		assertEquals(100, stored.values().stream().mapToInt(Map::size).sum());
+		for (final Map.Entry<String, String> product : products) {
+			assertEquals(product.getValue(), stored.get(snapshot.keyOf(product.getKey())).get(product.getKey()));
+		}
+	}
+
+	@Test
+	void testLoad_PropagatesWriteFailures() {
+		when(reactiveHashOperations.putAll(eq(SNAPSHOT_KEY), anyMap())).thenReturn(Mono.error(new IllegalStateException("Redis down")));
+		final ProductLoadProgress progress = new ProductLoadProgress();
+
+		assertThrows(IllegalStateException.class, () -> bulkLoader.load(
+			new BufferedReader(new StringReader("productId,productName\n1,Product A")), SNAPSHOT, progress));
+		assertTrue(progress.isFinished());
+		assertEquals(0, progress.getRowsLoaded());
+	}
+
+	@Test
+	void testLoad_StopsReadingWhenCancelled() {
+		final ProductLoadProgress progress = new ProductLoadProgress();
+		progress.cancel();
+
+		bulkLoader.load(new BufferedReader(new StringReader("productId,productName\n1,Product A")), SNAPSHOT, progress);
+
+		verifyNoInteractions(reactiveHashOperations);
+		assertEquals(0, progress.getRowsLoaded());
+		assertTrue(progress.isFinished());
+	}
+
+	@Test
+	void testAdaptiveBatchSize_GrowsWhenFastAndShrinksWhenSlow() {
+		properties.setInitialBatchSize(1000);
+		properties.setMinBatchSize(100);
+		properties.setMaxBatchSize(4000);
+		properties.setTargetBatchLatency(Duration.ofMillis(50));
+		final RedisProductBulkLoader.AdaptiveBatchSize batchSize = new RedisProductBulkLoader.AdaptiveBatchSize(properties);
+		final long fast = Duration.ofMillis(5).toNanos();
+		final long slow = Duration.ofMillis(80).toNanos();
+
+		batchSize.adjust(1000, fast);
+		assertEquals(2000, batchSize.current());
+		batchSize.adjust(10, fast);
+		assertEquals(2000, batchSize.current());
+		batchSize.adjust(2000, fast);
+		batchSize.adjust(4000, fast);
+		assertEquals(4000, batchSize.current());
+		batchSize.adjust(4000, slow);
+		assertEquals(2000, batchSize.current());
+		batchSize.adjust(150, slow);
+		assertEquals(100, batchSize.current());
+	}
+}
@@ -0,0 +1,205 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.ProductLoadProperties;
+import ai.facie.tradedatatask.config.ProductStoreProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisProductSnapshotsTest {
+	private static final Duration RETIRED_SNAPSHOT_TTL = Duration.ofMinutes(5);
+
+	@Mock
+	private ReactiveRedisTemplate<String, String> reactiveRedisTemplate;
+
+	@Mock
+	private ReactiveValueOperations<String, String> reactiveValueOperations;
+
+	private ProductStoreProperties storeProperties;
+
+	private RedisProductSnapshots snapshots;
+
+	@BeforeEach
+	void setUp() {
+		lenient().when(reactiveRedisTemplate.opsForValue()).thenReturn(reactiveValueOperations);
+		final ProductLoadProperties properties = new ProductLoadProperties();
+		properties.setRetiredSnapshotTtl(RETIRED_SNAPSHOT_TTL);
+		storeProperties = new ProductStoreProperties();
+		snapshots = new RedisProductSnapshots(reactiveRedisTemplate, properties, storeProperties);
+	}
+
+	@Test
+	void testCurrent_DefaultsToLegacyKeyspace() {
+		when(reactiveValueOperations.get(RedisProductSnapshots.CURRENT_KEY)).thenReturn(Mono.empty());
+
+		StepVerifier.create(snapshots.current())
+			.expectNext(RedisSnapshotRef.LEGACY)
+			.verifyComplete();
+	}
+
+	@Test
+	void testCurrent_ReadsLayoutFromPointer() {
+		when(reactiveValueOperations.get(RedisProductSnapshots.CURRENT_KEY)).thenReturn(Mono.just("7/64"));
+
+		StepVerifier.create(snapshots.current())
+			.expectNext(new RedisSnapshotRef(7, 64))
+			.verifyComplete();
+	}
+
+	@Test
+	void testAllocate_IncrementsCounterAndUsesConfiguredBuckets() {
+		storeProperties.setRedisBuckets(16);
+		when(reactiveValueOperations.increment(RedisProductSnapshots.VERSION_KEY)).thenReturn(Mono.just(3L));
+
+		assertEquals(new RedisSnapshotRef(3, 16), snapshots.allocate());
+	}
+
+	@Test
+	void testPublish_ExpiresReplacedSnapshot() {
+		publishReplaces("3");
+		when(reactiveRedisTemplate.expire("products:snapshot:3", RETIRED_SNAPSHOT_TTL)).thenReturn(Mono.just(true));
+
+		assertTrue(snapshots.publish(new RedisSnapshotRef(4, 0)));
+
+		verify(reactiveRedisTemplate).expire("products:snapshot:3", RETIRED_SNAPSHOT_TTL);
+	}
+
+	@Test
+	void testPublish_ExpiresEveryBucketOfReplacedSnapshot() {
+		publishReplaces("3/2");
+		when(reactiveRedisTemplate.expire(anyString(), eq(RETIRED_SNAPSHOT_TTL))).thenReturn(Mono.just(true));
+
+		snapshots.publish(new RedisSnapshotRef(4, 0));
+
+		verify(reactiveRedisTemplate).expire("products:snapshot:3:0", RETIRED_SNAPSHOT_TTL);
+		verify(reactiveRedisTemplate).expire("products:snapshot:3:1", RETIRED_SNAPSHOT_TTL);
+	}
+
+	@Test
+	void testPublish_KeepsLegacyKeyspace() {
+		publishReplaces("");
+
+		snapshots.publish(new RedisSnapshotRef(1, 0));
+
+		verify(reactiveRedisTemplate, never()).expire(anyString(), any(Duration.class));
+	}
+
+	@Test
+	void testPublish_RejectsSnapshotOlderThanCurrent() {
+		when(reactiveRedisTemplate.getSerializationContext()).thenReturn(RedisSerializationContext.string());
+		when(reactiveRedisTemplate.execute(any(), anyList(), anyList(), any(), any())).thenReturn(Flux.empty());
+
+		assertFalse(snapshots.publish(new RedisSnapshotRef(4, 0)));
+
+		verify(reactiveRedisTemplate, never()).expire(anyString(), any(Duration.class));
+	}
+
+	@Test
+	void testDiscard_UnlinksEveryKeyOfSnapshot() {
+		final List<String> unlinked = new ArrayList<>();
+		when(reactiveRedisTemplate.unlink(ArgumentMatchers.<Publisher<String>>any())).thenAnswer(invocation ->
+			Flux.from(invocation.<Publisher<String>>getArgument(0)).doOnNext(unlinked::add).count());
+
+		snapshots.discard(new RedisSnapshotRef(5, 2));
+
+		assertEquals(List.of("products:snapshot:5:0", "products:snapshot:5:1"), unlinked);
+	}
+
+	@Test
+	void testLease_RenewsNothingWithinAQuarterOfTheTtl() {
+		final RedisProductSnapshots.Lease lease = snapshots.lease(new RedisSnapshotRef(3, 0), 0);
+
+		StepVerifier.create(lease.renew(RETIRED_SNAPSHOT_TTL.toNanos() / 4 - 1)).verifyComplete();
+
+		verifyNoInteractions(reactiveRedisTemplate);
+	}
+
+	@Test
+	void testLease_ExtendsEveryBucketOfPinnedSnapshot() {
+		final List<String> extended = keepAliveFinds(true);
+		final RedisProductSnapshots.Lease lease = snapshots.lease(new RedisSnapshotRef(3, 2), 0);
+		final long quarter = RETIRED_SNAPSHOT_TTL.toNanos() / 4;
+
+		StepVerifier.create(lease.renew(quarter)).verifyComplete();
+		StepVerifier.create(lease.renew(quarter + 1)).verifyComplete();
+
+		assertEquals(List.of("products:snapshot:3:0", "products:snapshot:3:1"), extended);
+	}
+
+	@Test
+	void testLease_KeepsReaderIdleLongerThanTheTtlWhileSnapshotExists() {
+		keepAliveFinds(true);
+		final RedisProductSnapshots.Lease lease = snapshots.lease(new RedisSnapshotRef(3, 0), 0);
+
+		StepVerifier.create(lease.renew(RETIRED_SNAPSHOT_TTL.toNanos())).verifyComplete();
+	}
+
+	@Test
+	void testLease_FailsReaderIdleLongerThanTheTtlOnceSnapshotExpired() {
+		keepAliveFinds(false);
+		final RedisProductSnapshots.Lease lease = snapshots.lease(new RedisSnapshotRef(3, 0), 0);
+
+		StepVerifier.create(lease.renew(RETIRED_SNAPSHOT_TTL.toNanos()))
+			.verifyError(IllegalStateException.class);
+	}
+
+	@Test
+	void testLease_KeepsEmptySnapshotReadableWithinTheTtl() {
+		keepAliveFinds(false);
+		final RedisProductSnapshots.Lease lease = snapshots.lease(new RedisSnapshotRef(3, 0), 0);
+
+		StepVerifier.create(lease.renew(RETIRED_SNAPSHOT_TTL.toNanos() - 1)).verifyComplete();
+	}
+
+	@Test
+	void testLease_NeverTouchesLegacyKeyspace() {
+		final RedisProductSnapshots.Lease lease = snapshots.lease(RedisSnapshotRef.LEGACY, 0);
+
+		StepVerifier.create(lease.renew(RETIRED_SNAPSHOT_TTL.toNanos())).verifyComplete();
+
+		verifyNoInteractions(reactiveRedisTemplate);
+	}
+
+	/**
+	 * Lets the keep-alive script answer for every key, asking for the full TTL.
+	 *
+	 * @return The keys the script ran on.
+	 */
+	private List<String> keepAliveFinds(final boolean exists) {
+		final List<String> keys = new ArrayList<>();
+		when(reactiveRedisTemplate.execute(any(), anyList(), eq(List.of(Long.toString(RETIRED_SNAPSHOT_TTL.toMillis()))), any(), any()))
+			.thenAnswer(invocation -> {
+				keys.addAll(invocation.<List<String>>getArgument(1));
+				return Flux.just(exists ? 1L : 0L);
+			});
+		return keys;
+	}
+
+	/**
+	 * Lets the publish script succeed, replacing the given pointer; empty if there was none.
+	 */
+	private void publishReplaces(final String previous) {
+		when(reactiveRedisTemplate.getSerializationContext()).thenReturn(RedisSerializationContext.string());
+		when(reactiveRedisTemplate.execute(any(), anyList(), anyList(), any(), any()))
+			.thenReturn(Flux.just(StandardCharsets.UTF_8.encode(previous)));
+	}
+}
@@ -0,0 +1,48 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisSnapshotRefTest {
+
+	@Test
+	void testParseAndEncode() {
+		assertEquals(new RedisSnapshotRef(12, 0), RedisSnapshotRef.parse("12"));
+		assertEquals(new RedisSnapshotRef(12, 4096), RedisSnapshotRef.parse("12/4096"));
+		assertEquals("12", new RedisSnapshotRef(12, 0).encode());
+		assertEquals("12/4096", new RedisSnapshotRef(12, 4096).encode());
+	}
+
+	@Test
+	void testKeyOf_SingleHash() {
+		final RedisSnapshotRef snapshot = new RedisSnapshotRef(3, 0);
+
+		assertEquals("products:snapshot:3", snapshot.keyOf("42"));
+		assertEquals(List.of("products:snapshot:3"), snapshot.keys());
+	}
+
+	@Test
+	void testKeyOf_SpreadsConsecutiveIdsOverBuckets() {
+		final RedisSnapshotRef snapshot = new RedisSnapshotRef(3, 8);
+		final Set<String> keys = new HashSet<>();
+		for (int id = 0; id < 64; id++) {
+			final String key = snapshot.keyOf(Integer.toString(id));
+			assertTrue(snapshot.keys().contains(key), key);
+			assertEquals(key, snapshot.keyOf(Integer.toString(id)));
+			keys.add(key);
+		}
+
+		assertEquals(8, keys.size());
+	}
+
+	@Test
+	void testConstructor_RejectsNegativeValues() {
+		assertThrows(IllegalArgumentException.class, () -> new RedisSnapshotRef(-1, 0));
+		assertThrows(IllegalArgumentException.class, () -> new RedisSnapshotRef(1, -1));
+	}
+}
@@ -0,0 +1,149 @@
+package ai.facie.tradedatatask.core.service.impl;
+
+import ai.facie.tradedatatask.config.EnrichmentProperties;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedProductLookupsTest {
+	private final List<List<String>> multiGets = new ArrayList<>();
+	private final List<Sinks.One<List<String>>> pending = new ArrayList<>();
+
+	@Test
+	void testLookup_MergesLookupsOfTheSameSnapshot() {
+		final SharedProductLookups lookups = sharedLookups(1, 100, 2);
+		final SharedProductLookups.Session first = lookups.open("1", this::multiGet);
+		final SharedProductLookups.Session second = lookups.open("1", this::multiGet);
+
+		final AtomicReference<List<String>> blocker = lookup(first, List.of("1"));
+		final AtomicReference<List<String>> a = lookup(first, List.of("2", "3"));
+		final AtomicReference<List<String>> b = lookup(second, List.of("3", "4", "2"));
+		answerAll();
+		answerAll();
+
+		assertEquals(List.of(List.of("1"), List.of("2", "3", "4")), multiGets);
+		assertEquals(List.of("name-1"), blocker.get());
+		assertEquals(List.of("name-2", "name-3"), a.get());
+		assertEquals(List.of("name-3", "name-4", "name-2"), b.get());
+		assertEquals(3, lookups.lookupsRequested());
+		assertEquals(2, lookups.multiGetsIssued());
+	}
+
+	@Test
+	void testLookup_TakesTurnsBetweenUploads() {
+		final SharedProductLookups lookups = sharedLookups(1, 1, 10);
+		final SharedProductLookups.Session large = lookups.open("1", this::multiGet);
+		final SharedProductLookups.Session small = lookups.open("1", this::multiGet);
+
+		lookup(large, List.of("a1"));
+		lookup(large, List.of("a2"));
+		lookup(large, List.of("a3"));
+		lookup(small, List.of("b1"));
+		for (int i = 0; i < 4; i++) {
+			answerAll();
+		}
+
+		// a2 was queued before b1; after that the uploads alternate instead of a3 going before b1.
+		assertEquals(List.of(List.of("a1"), List.of("a2"), List.of("b1"), List.of("a3")), multiGets);
+	}
+
+	@Test
+	void testLookup_BoundsInFlightLookupsPerUpload() {
+		final SharedProductLookups lookups = sharedLookups(4, 1, 1);
+		final SharedProductLookups.Session session = lookups.open("1", this::multiGet);
+
+		lookup(session, List.of("1"));
+		lookup(session, List.of("2"));
+
+		assertEquals(List.of(List.of("1")), multiGets);
+		answerAll();
+		assertEquals(List.of(List.of("1"), List.of("2")), multiGets);
+	}
+
+	@Test
+	void testLookup_NeverMergesDifferentSnapshots() {
+		final SharedProductLookups lookups = sharedLookups(1, 100, 2);
+		final SharedProductLookups.Session blocker = lookups.open("1", this::multiGet);
+		final SharedProductLookups.Session old = lookups.open("1", this::multiGet);
+		final SharedProductLookups.Session reloaded = lookups.open("2", this::multiGet);
+		final SharedProductLookups.Session unversioned = lookups.open(null, this::multiGet);
+
+		lookup(blocker, List.of("0"));
+		lookup(old, List.of("1"));
+		lookup(reloaded, List.of("2"));
+		lookup(unversioned, List.of("3"));
+		lookup(unversioned, List.of("4"));
+		for (int i = 0; i < 5; i++) {
+			answerAll();
+		}
+
+		assertEquals(List.of(List.of("0"), List.of("1"), List.of("2"), List.of("3"), List.of("4")), multiGets);
+	}
+
+	@Test
+	void testLookup_DropsLookupsOfClosedSessions() {
+		final SharedProductLookups lookups = sharedLookups(1, 1, 2);
+		final SharedProductLookups.Session blocker = lookups.open("1", this::multiGet);
+		final SharedProductLookups.Session closed = lookups.open("1", this::multiGet);
+
+		lookup(blocker, List.of("1"));
+		lookup(closed, List.of("2"));
+		closed.close();
+		answerAll();
+
+		assertEquals(List.of(List.of("1")), multiGets);
+	}
+
+	@Test
+	void testLookup_PassesLookupsThroughWhenDisabled() {
+		final SharedProductLookups lookups = new SharedProductLookups(new EnrichmentProperties(),
+			new EnrichmentMetrics(new SimpleMeterRegistry()));
+		final Function<List<String>, Mono<List<String>>> lookup = ids -> Mono.just(List.of("direct"));
+
+		assertEquals(List.of("direct"), lookups.open("1", lookup).lookup(List.of("1")).block());
+		assertEquals(0, lookups.lookupsRequested());
+	}
+
+	private SharedProductLookups sharedLookups(final int maxConcurrentLookups, final int batchSize, final int maxInFlightPerUpload) {
+		final EnrichmentProperties properties = new EnrichmentProperties();
+		properties.setSharedLookups(true);
+		properties.setMaxConcurrentLookups(maxConcurrentLookups);
+		properties.setSharedLookupBatchSize(batchSize);
+		properties.setMaxInFlightLookupsPerUpload(maxInFlightPerUpload);
+		return new SharedProductLookups(properties, new EnrichmentMetrics(new SimpleMeterRegistry()));
+	}
+
+	/**
+	 * Records a multi-get and leaves it pending until {@link #answerAll()}.
+	 */
+	private Mono<List<String>> multiGet(final List<String> productIds) {
+		multiGets.add(List.copyOf(productIds));
+		final Sinks.One<List<String>> sink = Sinks.one();
+		pending.add(sink);
+		return sink.asMono().map(ignored -> productIds.stream().map(productId -> "name-" + productId).toList());
+	}
+
+	/**
+	 * Answers the multi-gets pending now; the ones they make room for stay pending.
+	 */
+	private void answerAll() {
+		final List<Sinks.One<List<String>>> answered = new ArrayList<>(pending);
+		pending.clear();
+		answered.forEach(sink -> sink.tryEmitValue(List.of()));
+	}
+
+	private static AtomicReference<List<String>> lookup(final SharedProductLookups.Session session, final List<String> productIds) {
+		final AtomicReference<List<String>> names = new AtomicReference<>();
+		session.lookup(productIds).subscribe(names::set);
+		return names;
+	}
+}
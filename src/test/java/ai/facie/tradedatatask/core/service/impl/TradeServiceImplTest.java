@@ -1,37 +1,107 @@
 package ai.facie.tradedatatask.core.service.impl;
 
+import ai.facie.tradedatatask.config.EnrichmentProperties;
+import ai.facie.tradedatatask.core.aggregate.TradeGroupBy;
+import ai.facie.tradedatatask.core.cache.TradeResultCache;
+import ai.facie.tradedatatask.core.metrics.EnrichmentMetrics;
+import ai.facie.tradedatatask.core.model.TradeAggregate;
+import ai.facie.tradedatatask.core.model.TradeAggregation;
+import ai.facie.tradedatatask.core.output.ContentCoding;
+import ai.facie.tradedatatask.core.output.TradeOutput;
+import ai.facie.tradedatatask.core.output.TradeOutputFormat;
+import ai.facie.tradedatatask.core.parser.PriceScales;
+import ai.facie.tradedatatask.core.parser.RejectListener;
+import ai.facie.tradedatatask.core.parser.RejectReason;
 import ai.facie.tradedatatask.core.service.ProductService;
+import ai.facie.tradedatatask.core.service.ProductSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TradeServiceImplTest {
 	private static final String VALID_CSV = "date,productName,currency,price\n20240101,123,USD,100\n20240102,124,EUR,200";
+	private static final String MIXED_CSV = "date,productId,currency,price\r\n20240101,123,USD,100\r\n20230229,123,USD,100\r\n"
+		+ "20240102,-1,EUR,200\r\n\r\n20240103,124,EUR\r\n20240229,124,EUR,200";
 	private static final String INVALID_CSV = "invalidDate,123,USD,100\n20240102,INVALID_ID,EUR,200";
 
+	private static final int PARALLEL_ROWS = 5000;
+
 	@Mock
 	private ProductService productService;
 
-	@InjectMocks
+	private final EnrichmentProperties enrichmentProperties = new EnrichmentProperties();
+
+	private Scheduler enrichmentScheduler;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@TempDir
+	private Path tempDir;
+
 	private TradeServiceImpl tradeService;
 
+	@BeforeEach
+	void setUp() {
+		enrichmentScheduler = Schedulers.newBoundedElastic(4, 1024, "trade-enrichment-test");
+		enrichmentProperties.setParallelism(1);
+		lenient().when(productService.pinSnapshot()).thenReturn(Mono.just(productService));
+		final EnrichmentMetrics metrics = new EnrichmentMetrics(meterRegistry);
+		tradeService = new TradeServiceImpl(productService, enrichmentProperties, enrichmentScheduler, metrics, PriceScales.NONE,
+			new TradeResultCache(null, 0), new SharedProductLookups(enrichmentProperties, metrics));
+	}
+
+	@AfterEach
+	void tearDown() {
+		enrichmentScheduler.dispose();
+	}
+
 	@Test
 	void testEnrichTradesStream_ValidData() {
 		final InputStream inputStream = new ByteArrayInputStream(VALID_CSV.getBytes());
-		when(productService.getProductNamesInBatch(List.of("123", "124")))
-			.thenReturn(List.of("Product A", "Product B"));
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.just(List.of("Product A", "Product B")));
 
 		final Flux<String> result = tradeService.enrichTradesStream(inputStream);
 
@@ -42,6 +112,25 @@ class TradeServiceImplTest {
 			.verifyComplete();
 	}
 
+	@Test
+	void testEnrichTradesStream_WritesPricesInNormalizedForm() {
+		final String csv = "date,productId,currency,price\n20240101,123,USD,.5\n20240101,123,USD,007\n20240101,123,USD,5.\n"
+			+ "20240101,123,USD,+5\n20240101,123,USD,1e5\n20240101,123,USD,1.50\n";
+		when(productService.getProductNamesInBatchAsync(anyList())).thenAnswer(invocation ->
+			Mono.just(Collections.nCopies(invocation.<List<String>>getArgument(0).size(), "Product A")));
+
+		final Flux<String> result = tradeService.enrichTradesStream(new ByteArrayInputStream(csv.getBytes()));
+
+		StepVerifier.create(result)
+			.expectNext(TradeServiceImpl.TABLE_HEADER)
+			.expectNext("20240101,Product A,USD,0.5\n")
+			.expectNext("20240101,Product A,USD,7\n")
+			.expectNext("20240101,Product A,USD,5\n")
+			.expectNext("20240101,Product A,USD,1.50\n")
+			.verifyComplete();
+		assertEquals(2, rejectedRows("invalid_price"));
+	}
+
 	@Test
 	void testEnrichTradesStream_InvalidData() {
 		final InputStream inputStream = new ByteArrayInputStream(INVALID_CSV.getBytes());
@@ -50,8 +139,91 @@ class TradeServiceImplTest {
 
 		StepVerifier.create(result)
 			.expectNext(TradeServiceImpl.TABLE_HEADER)
-			.expectError(NullPointerException.class)
-			.verify();
+			.verifyComplete();
+	}
+
+	@Test
+	void testEnrichTradesStream_SkipsInvalidRowsAndKeepsValidOnes() {
+		final InputStream inputStream = new ByteArrayInputStream(MIXED_CSV.getBytes());
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.just(List.of("Product A", "Product B")));
+
+		final Flux<String> result = tradeService.enrichTradesStream(inputStream);
+
+		StepVerifier.create(result)
+			.expectNext(TradeServiceImpl.TABLE_HEADER)
+			.expectNext("20240101,Product A,USD,100\n")
+			.expectNext("20240229,Product B,EUR,200\n")
+			.verifyComplete();
+
+		assertEquals(2, meterRegistry.counter("trade.rows.parsed").count());
+		assertEquals(2, rejectedRows("malformed_line"));
+		assertEquals(1, rejectedRows("invalid_date"));
+		assertEquals(1, rejectedRows("invalid_product_id"));
+	}
+
+	@Test
+	void testEnrichTradesStream_OverlappingLookupsKeepBatchOrder() {
+		final StringBuilder csv = new StringBuilder("date,productId,currency,price\n");
+		for (int i = 0; i < 2000; i++) {
+			csv.append("20240101,").append(i < 1000 ? 1 : 2).append(",USD,1\n");
+		}
+		when(productService.getProductNamesInBatchAsync(anyList())).thenAnswer(invocation -> {
+			final List<String> productIds = invocation.getArgument(0);
+			final Mono<List<String>> names = Mono.just(productIds.stream().map(id -> "Product " + id).toList());
+
+			return "1".equals(productIds.get(0)) ? names.delayElement(Duration.ofMillis(100)) : names;
+		});
+
+		final Flux<String> result = tradeService.enrichTradesStream(new ByteArrayInputStream(csv.toString().getBytes()));
+
+		StepVerifier.create(result)
+			.expectNext(TradeServiceImpl.TABLE_HEADER)
+			.expectNextCount(999)
+			.expectNext("20240101,Product 1,USD,1\n")
+			.expectNext("20240101,Product 2,USD,1\n")
+			.expectNextCount(999)
+			.verifyComplete();
+	}
+
+	@Test
+	void testEnrichTradesStream_PinsOneSnapshotForTheWholeStream() {
+		final StringBuilder csv = new StringBuilder("date,productId,currency,price\n");
+		for (int i = 0; i < 2000; i++) {
+			csv.append("20240101,").append(i).append(",USD,1\n");
+		}
+		final ProductSnapshot pinned = productIds -> productIds.stream().map(id -> "Pinned " + id).toList();
+		when(productService.pinSnapshot()).thenReturn(Mono.just(pinned));
+
+		StepVerifier.create(tradeService.enrichTradesStream(new ByteArrayInputStream(csv.toString().getBytes())))
+			.expectNext(TradeServiceImpl.TABLE_HEADER)
+			.expectNext("20240101,Pinned 0,USD,1\n")
+			.expectNextCount(1998)
+			.expectNext("20240101,Pinned 1999,USD,1\n")
+			.verifyComplete();
+		verify(productService).pinSnapshot();
+		verify(productService, never()).getProductNamesInBatchAsync(anyList());
+	}
+
+	@Test
+	void testEnrichTradesStream_DuplicateAndMissingProductIds() {
+		final String csv = "date,productId,currency,price\n20240101,7,USD,1\n20240102,8,EUR,2\n20240103,7,GBP,3\n"
+			+ "20240104,9,USD,4\n20240105,8,EUR,5\n20240106,7,USD,6";
+		when(productService.getProductNamesInBatchAsync(List.of("7", "8", "9")))
+			.thenReturn(Mono.just(Arrays.asList("Product 7", null, "Product 9")));
+
+		final Flux<String> result = tradeService.enrichTradesStream(new ByteArrayInputStream(csv.getBytes()));
+
+		StepVerifier.create(result)
+			.expectNext(TradeServiceImpl.TABLE_HEADER)
+			.expectNext("20240101,Product 7,USD,1\n")
+			.expectNext("20240102,UNKNOWN_PRODUCT,EUR,2\n")
+			.expectNext("20240103,Product 7,GBP,3\n")
+			.expectNext("20240104,Product 9,USD,4\n")
+			.expectNext("20240105,UNKNOWN_PRODUCT,EUR,5\n")
+			.expectNext("20240106,Product 7,USD,6\n")
+			.verifyComplete();
+		verify(productService).getProductNamesInBatchAsync(List.of("7", "8", "9"));
 	}
 
 	@Test
@@ -63,4 +235,331 @@ class TradeServiceImplTest {
 			.expectNext(TradeServiceImpl.TABLE_HEADER)
 			.verifyComplete();
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testEnrichTradesStream_ParallelModeKeepsRowOrder() {
+		enrichmentProperties.setParallelism(4);
+		enrichmentProperties.setChunkSize(DataSize.ofBytes(512));
+		when(productService.getProductNamesInBatchAsync(anyList()))
+			.thenAnswer(invocation -> Mono.just(((List<String>) invocation.getArgument(0)).stream().map(id -> "Product " + id).toList()));
+
+		final StringBuilder csv = new StringBuilder("date,productId,currency,price\n");
+		final List<String> expected = new ArrayList<>();
+		expected.add(TradeServiceImpl.TABLE_HEADER);
+		for (int i = 0; i < PARALLEL_ROWS; i++) {
+			csv.append("20240101,").append(i).append(",USD,").append(i).append('\n');
+			expected.add("20240101,Product " + i + ",USD," + i + "\n");
+		}
+
+		final Flux<String> result = tradeService.enrichTradesStream(new ByteArrayInputStream(csv.toString().getBytes()));
+
+		StepVerifier.create(result)
+			.expectNextSequence(expected)
+			.verifyComplete();
+	}
+
+	@Test
+	void testEnrichTradesStream_NeverReadsTheUploadOnTheLookupThread() {
+		enrichmentProperties.setParallelism(4);
+		enrichmentProperties.setChunkSize(DataSize.ofBytes(512));
+		// Stands in for the Redis client, whose event loop completes the lookups.
+		final Scheduler redisEventLoop = Schedulers.newSingle("fake-redis-event-loop");
+		when(productService.getProductNamesInBatchAsync(anyList())).thenAnswer(invocation ->
+			Mono.just(((List<String>) invocation.getArgument(0)).stream().map(id -> "Product " + id).toList())
+				.delayElement(Duration.ofMillis(1), redisEventLoop));
+
+		final StringBuilder csv = new StringBuilder("date,productId,currency,price\n");
+		for (int i = 0; i < PARALLEL_ROWS; i++) {
+			csv.append("20240101,").append(i).append(",USD,").append(i).append('\n');
+		}
+		final List<String> readThreads = new CopyOnWriteArrayList<>();
+		final InputStream upload = new ByteArrayInputStream(csv.toString().getBytes()) {
+			@Override
+			public synchronized int read(final byte[] b, final int off, final int len) {
+				readThreads.add(Thread.currentThread().getName());
+				return super.read(b, off, len);
+			}
+		};
+
+		try {
+			StepVerifier.create(tradeService.enrichTradesStream(upload))
+				.expectNextCount(PARALLEL_ROWS + 1)
+				.verifyComplete();
+		} finally {
+			redisEventLoop.dispose();
+		}
+
+		assertTrue(readThreads.size() > 1);
+		assertTrue(readThreads.stream().noneMatch(thread -> thread.startsWith("fake-redis-event-loop")),
+			() -> Set.copyOf(readThreads).toString());
+	}
+
+	@Test
+	void testEnrichTradesStream_VirtualThreadModeUsesBlockingLookupsOnTheScheduler() {
+		enrichmentProperties.setVirtualThreads(true);
+		enrichmentProperties.setParallelism(4);
+		enrichmentProperties.setChunkSize(DataSize.ofBytes(512));
+		final List<String> lookupThreads = new CopyOnWriteArrayList<>();
+		when(productService.getProductNamesInBatch(anyList())).thenAnswer(invocation -> {
+			lookupThreads.add(Thread.currentThread().getName());
+			return ((List<String>) invocation.getArgument(0)).stream().map(id -> "Product " + id).toList();
+		});
+
+		final StringBuilder csv = new StringBuilder("date,productId,currency,price\n");
+		final List<String> expected = new ArrayList<>();
+		expected.add(TradeServiceImpl.TABLE_HEADER);
+		for (int i = 0; i < PARALLEL_ROWS; i++) {
+			csv.append("20240101,").append(i).append(",USD,").append(i).append('\n');
+			expected.add("20240101,Product " + i + ",USD," + i + "\n");
+		}
+
+		final Flux<String> result = tradeService.enrichTradesStream(new ByteArrayInputStream(csv.toString().getBytes()));
+
+		StepVerifier.create(result)
+			.expectNextSequence(expected)
+			.verifyComplete();
+		verify(productService, never()).getProductNamesInBatchAsync(anyList());
+		assertTrue(lookupThreads.stream().allMatch(thread -> thread.startsWith("trade-enrichment-test")), lookupThreads.toString());
+	}
+
+	@Test
+	void testWriteTrades_WritesWholeTableInOneBuffer() throws IOException {
+		final InputStream inputStream = new ByteArrayInputStream(MIXED_CSV.getBytes());
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.just(Arrays.asList("Product A", null)));
+		final List<String> writes = new ArrayList<>();
+		final OutputStream output = new OutputStream() {
+			@Override
+			public void write(final int b) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) {
+				writes.add(new String(b, off, len, StandardCharsets.UTF_8));
+			}
+		};
+
+		tradeService.writeTrades(inputStream, output, TradeOutput.CSV, RejectListener.NONE);
+
+		assertEquals(List.of(TradeServiceImpl.TABLE_HEADER + "20240101,Product A,USD,100\n20240229,UNKNOWN_PRODUCT,EUR,200\n"), writes);
+		assertEquals(writes.get(0).length() - TradeServiceImpl.TABLE_HEADER.length(),
+			meterRegistry.counter("trade.bytes.written").count());
+	}
+
+	@Test
+	void testEnrichTrades_ReadsDataBuffersAndWritesWholeOutputBuffers() {
+		enrichmentProperties.setChunkSize(DataSize.ofBytes(64));
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.just(List.of("Product A", "Product B")));
+		final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+		final byte[] csv = VALID_CSV.getBytes();
+		final List<DataBuffer> body = new ArrayList<>();
+		for (int offset = 0; offset < csv.length; offset += 7) {
+			body.add(bufferFactory.wrap(Arrays.copyOfRange(csv, offset, Math.min(csv.length, offset + 7))));
+		}
+
+		final Flux<String> result = tradeService.enrichTrades(Flux.fromIterable(body), bufferFactory, TradeOutput.CSV, RejectListener.NONE)
+			.map(buffer -> buffer.toString(StandardCharsets.UTF_8));
+
+		StepVerifier.create(result)
+			.expectNext(TradeServiceImpl.TABLE_HEADER + "20240101,Product A,USD,100\n20240102,Product B,EUR,200\n")
+			.verifyComplete();
+	}
+
+	@Test
+	void testEnrichTrades_SplitsOutputIntoBuffersOfTheConfiguredSize() {
+		enrichmentProperties.setOutputBufferSize(DataSize.ofBytes(40));
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.just(List.of("Product A", "Product B")));
+		final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+		final Flux<String> result = tradeService.enrichTrades(Flux.just(bufferFactory.wrap(VALID_CSV.getBytes())), bufferFactory, TradeOutput.CSV, RejectListener.NONE)
+			.map(buffer -> buffer.toString(StandardCharsets.UTF_8));
+
+		StepVerifier.create(result)
+			.expectNext(TradeServiceImpl.TABLE_HEADER)
+			.expectNext("20240101,Product A,USD,100\n")
+			.expectNext("20240102,Product B,EUR,200\n")
+			.verifyComplete();
+	}
+
+	@Test
+	void testWriteTrades_GzipCompressedNdjson() throws IOException {
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.just(List.of("Product \"A\"", "Product B")));
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		tradeService.writeTrades(new ByteArrayInputStream(VALID_CSV.getBytes()), output,
+			new TradeOutput(TradeOutputFormat.NDJSON, MediaType.APPLICATION_NDJSON, ContentCoding.GZIP), RejectListener.NONE);
+
+		try (InputStream decompressed = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+			assertEquals("{\"date\":\"20240101\",\"productName\":\"Product \\\"A\\\"\",\"currency\":\"USD\",\"price\":\"100\"}\n"
+					+ "{\"date\":\"20240102\",\"productName\":\"Product B\",\"currency\":\"EUR\",\"price\":\"200\"}\n",
+				new String(decompressed.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void testWriteTrades_FailedEnrichmentIsNotEndedLikeACompleteResponse() {
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.error(new IllegalStateException("Redis is down")));
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		assertThrows(IllegalStateException.class, () -> tradeService.writeTrades(new ByteArrayInputStream(VALID_CSV.getBytes()),
+			output, new TradeOutput(TradeOutputFormat.CSV, MediaType.TEXT_PLAIN, ContentCoding.GZIP), RejectListener.NONE));
+
+		assertThrows(EOFException.class, () -> new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())).readAllBytes());
+	}
+
+	@Test
+	void testEnrichTrades_GzipCompressedBuffers() throws IOException {
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.just(List.of("Product A", "Product B")));
+		final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+		final byte[] compressed = DataBufferUtils.join(tradeService.enrichTrades(Flux.just(bufferFactory.wrap(VALID_CSV.getBytes())),
+				bufferFactory, new TradeOutput(TradeOutputFormat.CSV, MediaType.TEXT_PLAIN, ContentCoding.GZIP), RejectListener.NONE))
+			.map(buffer -> {
+				final byte[] bytes = new byte[buffer.readableByteCount()];
+				buffer.read(bytes);
+				return bytes;
+			})
+			.block();
+
+		try (InputStream decompressed = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			assertEquals(TradeServiceImpl.TABLE_HEADER + "20240101,Product A,USD,100\n20240102,Product B,EUR,200\n",
+				new String(decompressed.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void testWriteTrades_ReportsRejectedLinesWithTheirLineNumbers() throws IOException {
+		when(productService.getProductNamesInBatchAsync(List.of("123")))
+			.thenReturn(Mono.just(List.of("Product A")));
+		final List<String> rejected = new ArrayList<>();
+		final String csv = "date,productId,currency,price\n20240101,123,USD,100\n2024x101,123,USD,100\n20240103,123,USD,abc";
+
+		tradeService.writeTrades(new ByteArrayInputStream(csv.getBytes()), new ByteArrayOutputStream(), TradeOutput.CSV,
+			(reason, lineNumber, data, start, end) -> rejected.add(lineNumber + " " + reason.tag() + " "
+				+ new String(data, start, end - start, StandardCharsets.UTF_8)));
+
+		assertEquals(List.of("3 invalid_date 2024x101,123,USD,100", "4 invalid_price 20240103,123,USD,abc"), rejected);
+		assertEquals(1, rejectedRows(RejectReason.INVALID_DATE.tag()));
+	}
+
+	@Test
+	void testWriteTrades_NormalizesPricesToTheScaleOfTheirCurrency() throws IOException {
+		final EnrichmentMetrics metrics = new EnrichmentMetrics(meterRegistry);
+		tradeService = new TradeServiceImpl(productService, enrichmentProperties, enrichmentScheduler, metrics,
+			PriceScales.of(Map.of("USD", 2)), new TradeResultCache(null, 0), new SharedProductLookups(enrichmentProperties, metrics));
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.just(List.of("Product A", "Product B")));
+		final String csv = "date,productId,currency,price\n20240101,123,USD,100\n20240102,124,EUR,200.50\n20240103,123,USD,0.125";
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		tradeService.writeTrades(new ByteArrayInputStream(csv.getBytes()), output, TradeOutput.CSV, RejectListener.NONE);
+
+		assertEquals(TradeServiceImpl.TABLE_HEADER + "20240101,Product A,USD,100.00\n20240102,Product B,EUR,200.50\n",
+			output.toString(StandardCharsets.UTF_8));
+		assertEquals(1, rejectedRows("invalid_price"));
+	}
+
+	@Test
+	void testWriteTrades_AnswersRepeatedUploadFromResultCacheUntilProductsAreReloaded() throws IOException {
+		final EnrichmentMetrics metrics = new EnrichmentMetrics(meterRegistry);
+		tradeService = new TradeServiceImpl(productService, enrichmentProperties, enrichmentScheduler, metrics, PriceScales.NONE,
+			new TradeResultCache(tempDir, 1 << 20), new SharedProductLookups(enrichmentProperties, metrics));
+		when(productService.version()).thenReturn("1", "1", "2");
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124")))
+			.thenReturn(Mono.just(List.of("Product A", "Product B")));
+		final ByteArrayResource upload = new ByteArrayResource(VALID_CSV.getBytes());
+		final String expected = TradeServiceImpl.TABLE_HEADER + "20240101,Product A,USD,100\n20240102,Product B,EUR,200\n";
+
+		final List<String> responses = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			final ByteArrayOutputStream output = new ByteArrayOutputStream();
+			tradeService.writeTrades(upload, output, TradeOutput.CSV, RejectListener.NONE);
+			responses.add(output.toString(StandardCharsets.UTF_8));
+		}
+
+		assertEquals(List.of(expected, expected, expected), responses);
+		verify(productService, times(2)).getProductNamesInBatchAsync(List.of("123", "124"));
+	}
+
+	@Test
+	void testAggregateTrades_GroupsByProductAndCurrency() {
+		final String csv = "date,productId,currency,price\n20240101,123,USD,100\n20240102,123,USD,50.5\n20240102,123,EUR,7\n"
+			+ "20240103,124,USD,abc\n20240103,124,USD,-2.25\n20240104,125,USD,1\ninvalid";
+		when(productService.getProductNamesInBatchAsync(List.of("123", "124", "125")))
+			.thenReturn(Mono.just(Arrays.asList("Product A", "Product B", null)));
+
+		final Mono<TradeAggregation> result = tradeService.aggregateTrades(new ByteArrayInputStream(csv.getBytes()),
+			EnumSet.of(TradeGroupBy.PRODUCT, TradeGroupBy.CURRENCY));
+
+		StepVerifier.create(result)
+			.assertNext(aggregation -> {
+				assertEquals(5, aggregation.trades());
+				assertEquals(List.of(
+					new TradeAggregate("123", "Product A", "EUR", null, 1, new BigDecimal("7"), new BigDecimal("7"),
+						new BigDecimal("7"), new BigDecimal("7.0000")),
+					new TradeAggregate("123", "Product A", "USD", null, 2, new BigDecimal("150.5"), new BigDecimal("50.5"),
+						new BigDecimal("100.0"), new BigDecimal("75.25000")),
+					new TradeAggregate("124", "Product B", "USD", null, 1, new BigDecimal("-2.25"), new BigDecimal("-2.25"),
+						new BigDecimal("-2.25"), new BigDecimal("-2.250000")),
+					new TradeAggregate("125", "UNKNOWN_PRODUCT", "USD", null, 1, new BigDecimal("1"), new BigDecimal("1"),
+						new BigDecimal("1"), new BigDecimal("1.0000"))), aggregation.groups());
+			})
+			.verifyComplete();
+		assertEquals(5, meterRegistry.counter("trade.rows.parsed").count());
+		assertEquals(1, rejectedRows("malformed_line"));
+		assertEquals(1, rejectedRows("invalid_price"));
+	}
+
+	@Test
+	void testAggregateTrades_ParallelModeMergesPartialResults() {
+		enrichmentProperties.setParallelism(4);
+		enrichmentProperties.setChunkSize(DataSize.ofBytes(512));
+		when(productService.getProductNamesInBatchAsync(anyList()))
+			.thenAnswer(invocation -> Mono.just(((List<String>) invocation.getArgument(0)).stream().map(id -> "Product " + id).toList()));
+
+		final StringBuilder csv = new StringBuilder("date,productId,currency,price\n");
+		for (int i = 0; i < PARALLEL_ROWS; i++) {
+			csv.append("2024010").append(1 + i % 3).append(',').append(i % 7).append(i % 2 == 0 ? ",USD," : ",EUR,")
+				.append(i).append('\n');
+		}
+		final Set<TradeGroupBy> groupBy = EnumSet.allOf(TradeGroupBy.class);
+
+		final TradeAggregation parallel = tradeService.aggregateTrades(new ByteArrayInputStream(csv.toString().getBytes()), groupBy)
+			.block();
+		enrichmentProperties.setParallelism(1);
+		final TradeAggregation sequential = tradeService.aggregateTrades(new ByteArrayInputStream(csv.toString().getBytes()), groupBy)
+			.block();
+
+		assertEquals(sequential, parallel);
+		assertEquals(PARALLEL_ROWS, parallel.trades());
+		assertEquals(7 * 2 * 3, parallel.groups().size());
+		assertEquals(PARALLEL_ROWS, parallel.groups().stream().mapToLong(TradeAggregate::count).sum());
+	}
+
+	@Test
+	void testAggregateTrades_DataBuffersWithoutProductGroupingSkipLookups() {
+		final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+		final Mono<TradeAggregation> result = tradeService.aggregateTrades(Flux.just(bufferFactory.wrap(VALID_CSV.getBytes())),
+			EnumSet.of(TradeGroupBy.DATE));
+
+		StepVerifier.create(result)
+			.assertNext(aggregation -> assertEquals(List.of(
+				new TradeAggregate(null, null, null, "20240101", 1, new BigDecimal("100"), new BigDecimal("100"),
+					new BigDecimal("100"), new BigDecimal("100.0000")),
+				new TradeAggregate(null, null, null, "20240102", 1, new BigDecimal("200"), new BigDecimal("200"),
+					new BigDecimal("200"), new BigDecimal("200.0000"))), aggregation.groups()))
+			.verifyComplete();
+		verify(productService, never()).pinSnapshot();
+	}
+
+	private double rejectedRows(final String reason) {
+		return meterRegistry.counter("trade.rows.rejected", "reason", reason).count();
+	}
+}
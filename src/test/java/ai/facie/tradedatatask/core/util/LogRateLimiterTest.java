@@ -0,0 +1,40 @@
+package ai.facie.tradedatatask.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRateLimiterTest {
+
+	@Test
+	void testTryAcquire_LetsThroughPermitsPerSecondAndCountsTheRest() {
+		final AtomicLong clock = new AtomicLong();
+		final LogRateLimiter limiter = new LogRateLimiter(2, clock::get);
+
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		assertEquals(2, limiter.takeSuppressed());
+		assertEquals(0, limiter.takeSuppressed());
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+		assertFalse(limiter.tryAcquire());
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		assertTrue(limiter.tryAcquire());
+		assertEquals(1, limiter.takeSuppressed());
+	}
+
+	@Test
+	void testTryAcquire_ZeroPermitsSuppressesEverything() {
+		final LogRateLimiter limiter = new LogRateLimiter(0, () -> 0);
+
+		assertFalse(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		assertEquals(2, limiter.takeSuppressed());
+	}
+}
@@ -0,0 +1,33 @@
+package ai.facie.tradedatatask.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+	@Test
+	void testPutIfAbsent_KeepsFirstValue() {
+		final LongIntHashMap map = new LongIntHashMap(4);
+
+		assertEquals(LongIntHashMap.NO_VALUE, map.putIfAbsent(42L, 1));
+		assertEquals(1, map.putIfAbsent(42L, 2));
+		assertEquals(1, map.get(42L));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	void testPut_GrowsBeyondExpectedSize() {
+		final LongIntHashMap map = new LongIntHashMap(2);
+
+		for (int i = 0; i < 10_000; i++) {
+			map.put(i * 31L - 5_000, i);
+		}
+
+		assertEquals(10_000, map.size());
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(i, map.get(i * 31L - 5_000));
+		}
+		assertEquals(LongIntHashMap.NO_VALUE, map.get(Long.MAX_VALUE));
+	}
+}
@@ -0,0 +1,34 @@
+package ai.facie.tradedatatask.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongPairIntHashMapTest {
+
+	@Test
+	void testPutIfAbsent_DistinguishesBothKeyParts() {
+		final LongPairIntHashMap map = new LongPairIntHashMap(4);
+
+		assertEquals(LongPairIntHashMap.NO_VALUE, map.putIfAbsent(1L, 2L, 0));
+		assertEquals(LongPairIntHashMap.NO_VALUE, map.putIfAbsent(2L, 1L, 1));
+		assertEquals(0, map.putIfAbsent(1L, 2L, 5));
+		assertEquals(1, map.get(2L, 1L));
+		assertEquals(LongPairIntHashMap.NO_VALUE, map.get(1L, 1L));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	void testPutIfAbsent_GrowsBeyondExpectedSize() {
+		final LongPairIntHashMap map = new LongPairIntHashMap(2);
+
+		for (int i = 0; i < 10_000; i++) {
+			map.putIfAbsent(i % 100, (long) i / 100 << 32 | 20240101, i);
+		}
+
+		assertEquals(10_000, map.size());
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(i, map.get(i % 100, (long) i / 100 << 32 | 20240101));
+		}
+	}
+}